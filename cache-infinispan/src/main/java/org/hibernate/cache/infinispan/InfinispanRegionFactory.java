@@ -64,6 +64,8 @@ public class InfinispanRegionFactory implements RegionFactory {
 
    private static final String MAX_IDLE_SUFFIX = ".expiration.max_idle";
 
+   private static final String NEAR_CACHE_MAX_ENTRIES_SUFFIX = ".near_cache.max_entries";
+
 //   private static final String STATISTICS_SUFFIX = ".statistics";
 
    /** 
@@ -96,6 +98,23 @@ public class InfinispanRegionFactory implements RegionFactory {
     */
    public static final String COLLECTION_CACHE_RESOURCE_PROP = PREFIX + COLLECTION_KEY + CONFIG_SUFFIX;
 
+   /**
+    * Maximum number of entries held in the node local near cache placed in front of entity caches.
+    * A near cache saves an Infinispan invocation on every hit, which mostly pays off for read mostly
+    * data in clustered (invalidation or replication) caches. Can be overridden per region with
+    * <code>hibernate.cache.infinispan.&lt;region&gt;.near_cache.max_entries</code>. Defaults to 0,
+    * meaning no near cache is used.
+    */
+   public static final String ENTITY_NEAR_CACHE_MAX_ENTRIES_PROP = PREFIX + ENTITY_KEY + NEAR_CACHE_MAX_ENTRIES_SUFFIX;
+
+   /**
+    * Maximum number of entries held in the node local near cache placed in front of collection caches.
+    * Defaults to 0, meaning no near cache is used.
+    *
+    * @see #ENTITY_NEAR_CACHE_MAX_ENTRIES_PROP
+    */
+   public static final String COLLECTION_NEAR_CACHE_MAX_ENTRIES_PROP = PREFIX + COLLECTION_KEY + NEAR_CACHE_MAX_ENTRIES_SUFFIX;
+
    private static final String TIMESTAMPS_KEY = "timestamps";
 
    /**
@@ -164,7 +183,8 @@ public class InfinispanRegionFactory implements RegionFactory {
       if (log.isDebugEnabled()) log.debug("Building collection cache region [" + regionName + "]");
       Cache cache = getCache(regionName, COLLECTION_KEY, properties);
       CacheAdapter cacheAdapter = CacheAdapterImpl.newInstance(cache);
-      CollectionRegionImpl region = new CollectionRegionImpl(cacheAdapter, regionName, metadata, transactionManager, this);
+      CollectionRegionImpl region = new CollectionRegionImpl(cacheAdapter, regionName, metadata, transactionManager, this,
+               getNearCacheMaxEntries(regionName, COLLECTION_KEY));
       region.start();
       return region;
    }
@@ -174,7 +194,8 @@ public class InfinispanRegionFactory implements RegionFactory {
       if (log.isDebugEnabled()) log.debug("Building entity cache region [" + regionName + "]");
       Cache cache = getCache(regionName, ENTITY_KEY, properties);
       CacheAdapter cacheAdapter = CacheAdapterImpl.newInstance(cache);
-      EntityRegionImpl region = new EntityRegionImpl(cacheAdapter, regionName, metadata, transactionManager, this);
+      EntityRegionImpl region = new EntityRegionImpl(cacheAdapter, regionName, metadata, transactionManager, this,
+               getNearCacheMaxEntries(regionName, ENTITY_KEY));
       region.start();
       return region;
    }
@@ -327,7 +348,10 @@ public class InfinispanRegionFactory implements RegionFactory {
    private void dissectProperty(int prefixLoc, String key, Properties properties) {
       TypeOverrides cfgOverride = null;
       int suffixLoc = -1;
-      if (!key.equals(INFINISPAN_CONFIG_RESOURCE_PROP) && (suffixLoc = key.indexOf(CONFIG_SUFFIX)) != -1) {
+      if ((suffixLoc = key.indexOf(NEAR_CACHE_MAX_ENTRIES_SUFFIX)) != -1) {
+         cfgOverride = getOrCreateConfig(prefixLoc, key, suffixLoc);
+         cfgOverride.setNearCacheMaxEntries(PropertiesHelper.getInt(key, properties, 0));
+      } else if (!key.equals(INFINISPAN_CONFIG_RESOURCE_PROP) && (suffixLoc = key.indexOf(CONFIG_SUFFIX)) != -1) {
          cfgOverride = getOrCreateConfig(prefixLoc, key, suffixLoc);
          cfgOverride.setCacheName(PropertiesHelper.extractPropertyValue(key, properties));
       } else if ((suffixLoc = key.indexOf(STRATEGY_SUFFIX)) != -1) {
@@ -362,6 +386,13 @@ public class InfinispanRegionFactory implements RegionFactory {
       return cfgOverride;
    }
 
+   private int getNearCacheMaxEntries(String regionName, String typeKey) {
+      TypeOverrides regionOverride = typeOverrides.get(regionName);
+      if (regionOverride != null && regionOverride.isNearCacheMaxEntriesOverridden())
+         return regionOverride.getNearCacheMaxEntries();
+      return typeOverrides.get(typeKey).getNearCacheMaxEntries();
+   }
+
    private void defineGenericDataTypeCacheConfigurations(Settings settings, Properties properties) throws CacheException {
       String[] defaultGenericDataTypes = new String[]{ENTITY_KEY, COLLECTION_KEY, TIMESTAMPS_KEY, QUERY_KEY};
       for (String type : defaultGenericDataTypes) {
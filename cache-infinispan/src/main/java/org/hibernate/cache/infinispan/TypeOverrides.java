@@ -55,6 +55,8 @@ public class TypeOverrides {
 
    private boolean isExposeStatistics;
 
+   private int nearCacheMaxEntries;
+
    public String getCacheName() {
       return cacheName;
    }
@@ -117,6 +119,19 @@ public class TypeOverrides {
       this.isExposeStatistics = isExposeStatistics;
    }
 
+   public int getNearCacheMaxEntries() {
+      return nearCacheMaxEntries;
+   }
+
+   public void setNearCacheMaxEntries(int nearCacheMaxEntries) {
+      markAsOverriden("nearCacheMaxEntries");
+      this.nearCacheMaxEntries = nearCacheMaxEntries;
+   }
+
+   public boolean isNearCacheMaxEntriesOverridden() {
+      return overridden.contains("nearCacheMaxEntries");
+   }
+
    public Configuration createInfinispanConfiguration() {
       Configuration cacheCfg = new Configuration();
       if (overridden.contains("evictionStrategy")) cacheCfg.setEvictionStrategy(evictionStrategy);
@@ -141,6 +156,7 @@ public class TypeOverrides {
          .append(", maxEntries=").append(evictionMaxEntries)
          .append(", lifespan=").append(expirationLifespan)
          .append(", maxIdle=").append(expirationMaxIdle)
+         .append(", nearCacheMaxEntries=").append(nearCacheMaxEntries)
          .append('}').toString();
    }
 
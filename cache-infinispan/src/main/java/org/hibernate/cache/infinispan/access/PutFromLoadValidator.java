@@ -23,16 +23,17 @@
  */
 package org.hibernate.cache.infinispan.access;
 
-import java.lang.ref.WeakReference;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
@@ -78,6 +79,13 @@ import org.hibernate.cache.CacheException;
  * call.
  * </p>
  *
+ * <p>
+ * None of the put path blocks: pending puts are tracked per key with compare-and-set
+ * updates, and the "lock" is a count of puts in progress which only invalidation waits
+ * on. Pending puts and recent removals are expired a whole time bucket at a time rather
+ * than by scanning lists, so misses never contend on a shared lock.
+ * </p>
+ *
  * @author Brian Stansberry
  * 
  * @version $Revision: $
@@ -88,19 +96,24 @@ public class PutFromLoadValidator {
     * {@link #acquirePutFromLoadLock(Object)} that hasn't been
     * {@link #registerPendingPut(Object) pre-registered} (aka a "naked put")
     * will return false.
-    * will return false.
     */
    public static final long NAKED_PUT_INVALIDATION_PERIOD = TimeUnit.SECONDS.toMillis(20); 
 
    /** Period (in ms) after which a pending put is placed in the over-age queue */
    private static final long PENDING_PUT_OVERAGE_PERIOD = TimeUnit.SECONDS.toMillis(5);
 
-   /** Period (in ms) before which we stop trying to clean out pending puts */
+   /** Width (in ms) of the time buckets by which pending puts are expired */
    private static final long PENDING_PUT_RECENT_PERIOD = TimeUnit.SECONDS.toMillis(2);
 
    /** Period (in ms) after which a pending put is never expected to come in and should be cleaned */
    private static final long MAX_PENDING_PUT_DELAY = TimeUnit.SECONDS.toMillis(2 * 60);
 
+   /** Number of time buckets spanned by the naked put invalidation period */
+   private static final int REMOVAL_BUCKETS = 16;
+
+   /** Period (in ms) an invalidation waits for puts in progress to complete */
+   private static final long INVALIDATION_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
    /**
     * Used to determine whether the owner of a pending put is a thread or a transaction
     */
@@ -117,29 +130,22 @@ public class PutFromLoadValidator {
     */
    private final ConcurrentMap<Object, PendingPutMap> pendingPuts = new ConcurrentHashMap<Object, PendingPutMap>();
    /**
-    * List of pending puts. Used to ensure we don't leak memory via the pendingPuts map
+    * Pending puts by registration time. Used to ensure we don't leak memory via the pendingPuts map
     */
-   private final List<WeakReference<PendingPut>> pendingQueue = new LinkedList<WeakReference<PendingPut>>();
+   private final ExpiryQueue<PendingPut> pendingQueue;
    /**
-    * Separate list of pending puts that haven't been resolved within PENDING_PUT_OVERAGE_PERIOD.
-    * Used to ensure we don't leak memory via the pendingPuts map. Tracked separately from more
-    * recent pending puts for efficiency reasons.
+    * Pending puts that hadn't been resolved within pendingPutOveragePeriod, by registration time.
+    * Tracked separately so that completed puts are dropped early and only the rare overage ones
+    * are held until maxPendingPutDelay.
     */
-   private final List<WeakReference<PendingPut>> overagePendingQueue = new LinkedList<WeakReference<PendingPut>>();
-   /** Lock controlling access to pending put queues */
-   private final Lock pendingLock = new ReentrantLock();
+   private final ExpiryQueue<PendingPut> overagePendingQueue;
+   /** Earliest time at which another pass over the pending put queues could find work */
+   private volatile long nextPendingCleanup;
    private final ConcurrentMap<Object, Long> recentRemovals = new ConcurrentHashMap<Object, Long>();
    /**
-    * List of recent removals. Used to ensure we don't leak memory via the recentRemovals map
+    * Recent removals by expiry time. Used to ensure we don't leak memory via the recentRemovals map
     */
-   private final List<RecentRemoval> removalsQueue = new LinkedList<RecentRemoval>();
-   /**
-    * The time when the first element in removalsQueue will expire. No reason to do housekeeping on
-    * the queue before this time.
-    */
-   private volatile long earliestRemovalTimestamp;
-   /** Lock controlling access to removalsQueue */
-   private final Lock removalsLock = new ReentrantLock();
+   private final ExpiryQueue<RecentRemoval> removalsQueue;
 
    /**
     * The time of the last call to regionRemoved(), plus NAKED_PUT_INVALIDATION_PERIOD. All naked
@@ -170,6 +176,9 @@ public class PutFromLoadValidator {
       this.pendingPutOveragePeriod = pendingPutOveragePeriod;
       this.pendingPutRecentPeriod = pendingPutRecentPeriod;
       this.maxPendingPutDelay = maxPendingPutDelay;
+      this.pendingQueue = new ExpiryQueue<PendingPut>(pendingPutRecentPeriod);
+      this.overagePendingQueue = new ExpiryQueue<PendingPut>(pendingPutRecentPeriod);
+      this.removalsQueue = new ExpiryQueue<RecentRemoval>(nakedPutInvalidationPeriod / REMOVAL_BUCKETS);
    }
 
    // ----------------------------------------------------------------- Public
@@ -187,73 +196,45 @@ public class PutFromLoadValidator {
     * @return <code>true</code> if the lock is acquired and the cache put
     *         can proceed; <code>false</code> if the data should not be cached
     */
-	public boolean acquirePutFromLoadLock(Object key) {
-      boolean valid = false;
-      boolean locked = false;
-      long now = System.currentTimeMillis();
+   public boolean acquirePutFromLoadLock(Object key) {
+      long now = currentTimeMillis();
 
-      // Important: Do cleanup before we acquire any locks so we
-      // don't deadlock with invalidateRegion
-      cleanOutdatedPendingPuts(now, true);
+      cleanOutdatedPendingPuts(now);
 
-      try {
-         PendingPutMap pending = pendingPuts.get(key);
-         if (pending != null) {
-            locked = pending.acquireLock(100, TimeUnit.MILLISECONDS);
-            if (locked) {
-               try {
-                  PendingPut toCancel = pending.remove(getOwnerForPut());
-                  if (toCancel != null) {
-                     valid = !toCancel.completed;
-                     toCancel.completed = true;
-                  }
-               }
-               finally {
-                  if (!valid) {
-                     pending.releaseLock();
-                     locked = false;
-                  }
-               }
-            }
-         }
-         else {
-            // Key wasn't in pendingPuts, so either this is a "naked put"
-            // or regionRemoved has been called. Check if we can proceed
-            if (now > invalidationTimestamp) {
-               Long removedTime = recentRemovals.get(key);
-               if (removedTime == null || now > removedTime.longValue()) {
-                  // It's legal to proceed. But we have to record this key
-                  // in pendingPuts so releasePutFromLoadLock can find it.
-                  // To do this we basically simulate a normal "register
-                  // then acquire lock" pattern
-                  registerPendingPut(key);
-                  locked = acquirePutFromLoadLock(key);
-                  valid = locked;
-               }
-            }
+      Object owner = getOwnerForPut();
+      PendingPutMap pending = pendingPuts.get(key);
+      if (pending != null && !pending.isRetired()) {
+         if (pending.acquire(owner)) {
+            return true;
          }
+         // Our put was invalidated or cleaned out; don't leave its map behind
+         retireIfIdle(key, pending);
+         return false;
       }
-      catch (Throwable t) {
 
-         valid = false;
-
-         if (locked) {
-            PendingPutMap toRelease = pendingPuts.get(key);
-            if (toRelease != null) {
-               toRelease.releaseLock();
-            }
-         }
+      // Key wasn't in pendingPuts, so either this is a "naked put"
+      // or regionRemoved has been called. Check if we can proceed
+      if (!isNakedPutValid(key, now)) {
+         return false;
+      }
 
-         if (t instanceof RuntimeException) {
-            throw (RuntimeException) t;
-         } else if (t instanceof Error) {
-            throw (Error) t;
-         } else {
-            throw new RuntimeException(t);
-         }
+      // It's legal to proceed. But we have to record this key
+      // in pendingPuts so releasePutFromLoadLock can find it and
+      // invalidations wait for us. To do this we basically simulate
+      // a normal "register then acquire lock" pattern
+      pending = register(new PendingPut(key, owner, now));
+      if (!pending.acquire(owner)) {
+         retireIfIdle(key, pending);
+         return false;
       }
 
-      return valid;
+      // An invalidation may have slipped in between the check above and
+      // the acquisition; if so it might not have seen us, so back off
+      if (!isNakedPutValid(key, now)) {
+         releasePutFromLoadLock(key);
+         return false;
+      }
+      return true;
    }
 
    /**
@@ -265,10 +246,8 @@ public class PutFromLoadValidator {
    public void releasePutFromLoadLock(Object key) {
       PendingPutMap pending = pendingPuts.get(key);
       if (pending != null) {
-         if (pending.size() == 0) {
-            pendingPuts.remove(key, pending);
-         }
-         pending.releaseLock();
+         pending.release();
+         retireIfIdle(key, pending);
       }
    }
 
@@ -284,61 +263,28 @@ public class PutFromLoadValidator {
     *         caller should treat as an exception condition)
     */
    public boolean invalidateKey(Object key) {
+      long now = currentTimeMillis();
+
+      // Record when this occurred to invalidate later naked puts. This is
+      // done first so a concurrent naked put either sees it or is seen below
+      Long expiry = Long.valueOf(now + this.nakedPutInvalidationPeriod);
+      recentRemovals.put(key, expiry);
+      removalsQueue.add(new RecentRemoval(key, expiry), expiry.longValue());
 
-      boolean success = true;
+      // Don't let recentRemovals map become a memory leak
+      cleanOutdatedRemovals(now);
 
       // Invalidate any pending puts
       PendingPutMap pending = pendingPuts.get(key);
       if (pending != null) {
-         // This lock should be available very quickly, but we'll be
-         // very patient waiting for it as callers should treat not
-         // acquiring it as an exception condition
-         if (pending.acquireLock(60, TimeUnit.SECONDS)) {
-            try {
-               pending.invalidate();
-            }
-            finally {
-               pending.releaseLock();
-            }
-         } else {
-            success = false;
-         }
+         pending.invalidate();
+         // This should complete very quickly, but we'll be very patient
+         // waiting as callers should treat failure as an exception condition
+         boolean ok = pending.awaitPutsInProgress(System.currentTimeMillis() + INVALIDATION_TIMEOUT);
+         retireIfIdle(key, pending);
+         return ok;
       }
-
-      // Record when this occurred to invalidate later naked puts
-      RecentRemoval removal = new RecentRemoval(key, this.nakedPutInvalidationPeriod);
-      recentRemovals.put(key, removal.timestamp);
-
-      // Don't let recentRemovals map become a memory leak
-      RecentRemoval toClean = null;
-      boolean attemptClean = removal.timestamp.longValue() > earliestRemovalTimestamp;
-      removalsLock.lock();
-      try {
-         removalsQueue.add(removal);
-
-         if (attemptClean) {
-            if (removalsQueue.size() > 1) { // we have at least one as we
-               // just added it
-               toClean = removalsQueue.remove(0);
-            }
-            earliestRemovalTimestamp = removalsQueue.get(0).timestamp.longValue();
-         }
-      } finally {
-         removalsLock.unlock();
-      }
-
-      if (toClean != null) {
-         Long cleaned = recentRemovals.get(toClean.key);
-         if (cleaned != null && cleaned.equals(toClean.timestamp)) {
-            cleaned = recentRemovals.remove(toClean.key);
-            if (cleaned != null && cleaned.equals(toClean.timestamp) == false) {
-               // Oops; removed the wrong timestamp; restore it
-               recentRemovals.putIfAbsent(toClean.key, cleaned);
-            }
-         }
-      }
-
-      return success;
+      return true;
    }
 
    /**
@@ -352,47 +298,30 @@ public class PutFromLoadValidator {
     *         caller should treat as an exception condition)
     */
    public boolean invalidateRegion() {
+      long now = currentTimeMillis();
+      invalidationTimestamp = now + this.nakedPutInvalidationPeriod;
 
-      boolean ok = false;
-      invalidationTimestamp = System.currentTimeMillis() + this.nakedPutInvalidationPeriod;
-
-      try {
-
-         // Acquire the lock for each entry to ensure any ongoing
-         // work associated with it is completed before we return
-         for (PendingPutMap entry : pendingPuts.values()) {
-            if (entry.acquireLock(60, TimeUnit.SECONDS)) {
-               try {
-                  entry.invalidate();
-               }
-               finally {
-                  entry.releaseLock();
-               }
-            } else {
-               ok = false;
-            }
-         }
-
-         removalsLock.lock();
-         try {
-            recentRemovals.clear();
-            removalsQueue.clear();
-
-            ok = true;
+      for (PendingPutMap entry : pendingPuts.values()) {
+         entry.invalidate();
+      }
 
-         } finally {
-            removalsLock.unlock();
+      // Wait for any ongoing work associated with the entries to
+      // complete before we return
+      boolean ok = true;
+      long deadline = System.currentTimeMillis() + INVALIDATION_TIMEOUT;
+      for (Map.Entry<Object, PendingPutMap> entry : pendingPuts.entrySet()) {
+         if (!entry.getValue().awaitPutsInProgress(deadline)) {
+            ok = false;
          }
+         retireIfIdle(entry.getKey(), entry.getValue());
       }
-      catch (Exception e) {
-         ok = false;
-      }
-      finally {
-         earliestRemovalTimestamp = invalidationTimestamp;
-      }
+
+      // The region invalidation supersedes any individual removal
+      recentRemovals.clear();
+      removalsQueue.clear();
 
       return ok;
-	}
+   }
 
    /**
     * Notifies this validator that it is expected that a database read followed by a subsequent {@link
@@ -406,68 +335,39 @@ public class PutFromLoadValidator {
     * @param key key that will be used for subsequent cache put
     */
    public void registerPendingPut(Object key) {
-      PendingPut pendingPut = new PendingPut(key, getOwnerForPut());
-      PendingPutMap pendingForKey = new PendingPutMap(pendingPut);
-
-      for (;;) {
-         PendingPutMap existing = pendingPuts.putIfAbsent(key, pendingForKey);
-         if (existing != null) {
-            if (existing.acquireLock(10, TimeUnit.SECONDS)) {
-               try {
-                  existing.put(pendingPut);
-                  PendingPutMap doublecheck = pendingPuts.putIfAbsent(key, existing);
-                  if (doublecheck == null || doublecheck == existing) {
-                     break;
-                  }
-                  // else we hit a race and need to loop to try again
-               }
-               finally {
-                  existing.releaseLock();
-               }
-            } else {
-               // Can't get the lock; when we come back we'll be a "naked put"
-               break;
-            }
-         } else {
-            // normal case
-            break;
-         }
-      }
-
-      // Guard against memory leaks
-      preventOutdatedPendingPuts(pendingPut);
+      long now = currentTimeMillis();
+      register(new PendingPut(key, getOwnerForPut(), now));
+      cleanOutdatedPendingPuts(now);
    }
 
    // -------------------------------------------------------------- Protected
 
+   /**
+    * The time (in ms) against which pending puts and removals are recorded and
+    * expired; overridden by unit tests to control it.
+    */
+   protected long currentTimeMillis() {
+      return System.currentTimeMillis();
+   }
+
    /** Only for use by unit tests; may be removed at any time */
    protected int getPendingPutQueueLength() {
-      pendingLock.lock();
-      try {
-         return pendingQueue.size();
-      } finally {
-         pendingLock.unlock();
-      }
+      return pendingQueue.size();
    }
 
    /** Only for use by unit tests; may be removed at any time */
    protected int getOveragePendingPutQueueLength() {
-      pendingLock.lock();
-      try {
-         return overagePendingQueue.size();
-      } finally {
-         pendingLock.unlock();
-      }
+      return overagePendingQueue.size();
    }
 
    /** Only for use by unit tests; may be removed at any time */
    protected int getRemovalQueueLength() {
-      removalsLock.lock();
-      try {
-         return removalsQueue.size();
-      } finally {
-         removalsLock.unlock();
-      }
+      return removalsQueue.size();
+   }
+
+   /** Only for use by unit tests; may be removed at any time */
+   protected int getPendingPutKeyCount() {
+      return pendingPuts.size();
    }
 
    // ---------------------------------------------------------------- Private
@@ -485,207 +385,302 @@ public class PutFromLoadValidator {
 
    }
 
-   private void preventOutdatedPendingPuts(PendingPut pendingPut) {
-      pendingLock.lock();
-      try {
-         pendingQueue.add(new WeakReference<PendingPut>(pendingPut));
-         if (pendingQueue.size() > 1) {
-            cleanOutdatedPendingPuts(pendingPut.timestamp, false);
-         }
-      } finally {
-         pendingLock.unlock();
+   private boolean isNakedPutValid(Object key, long now) {
+      if (now <= invalidationTimestamp) {
+         return false;
       }
+      Long removedTime = recentRemovals.get(key);
+      return removedTime == null || now > removedTime.longValue();
    }
 
-   private void cleanOutdatedPendingPuts(long now, boolean lock) {
-
-      PendingPut toClean = null;
-      if (lock) {
-         pendingLock.lock();
-      }
-      try {
-         // Clean items out of the basic queue
-         long overaged = now - this.pendingPutOveragePeriod;
-         long recent = now - this.pendingPutRecentPeriod;
-
-         int pos = 0;
-         while (pendingQueue.size() > pos) {
-            WeakReference<PendingPut> ref = pendingQueue.get(pos);
-            PendingPut item = ref.get();
-            if (item == null || item.completed) {
-               pendingQueue.remove(pos);
-            } else if (item.timestamp < overaged) {
-               // Potential leak; move to the overaged queued
-               pendingQueue.remove(pos);
-               overagePendingQueue.add(ref);
-            } else if (item.timestamp >= recent) {
-               // Don't waste time on very recent items
-               break;
-            } else if (pos > 2) {
-               // Don't spend too much time getting nowhere
+   private PendingPutMap register(PendingPut pendingPut) {
+      PendingPutMap pendingForKey;
+      for (;;) {
+         pendingForKey = pendingPuts.get(pendingPut.key);
+         if (pendingForKey == null) {
+            pendingForKey = new PendingPutMap(pendingPut);
+            PendingPutMap existing = pendingPuts.putIfAbsent(pendingPut.key, pendingForKey);
+            if (existing == null) {
                break;
-            } else {
-               // Move on to the next item
-               pos++;
             }
+            pendingForKey = existing;
          }
+         if (pendingForKey.put(pendingPut)) {
+            break;
+         }
+         // We hit a map as it was being retired; replace it and try again
+         pendingPuts.remove(pendingPut.key, pendingForKey);
+      }
 
-         // Process the overage queue until we find an item to clean
-         // or an incomplete item that hasn't aged out
-         long mustCleanTime = now - this.maxPendingPutDelay;
+      // Guard against memory leaks
+      pendingQueue.add(pendingPut, pendingPut.timestamp);
+      return pendingForKey;
+   }
 
-         while (overagePendingQueue.size() > 0) {
-            WeakReference<PendingPut> ref = overagePendingQueue.get(0);
-            PendingPut item = ref.get();
-            if (item == null || item.completed) {
-               overagePendingQueue.remove(0);
-            } else {
-               if (item.timestamp < mustCleanTime) {
-                  overagePendingQueue.remove(0);
-                  toClean = item;
-               }
-               break;
+   private void cleanOutdatedPendingPuts(long now) {
+      if (now < nextPendingCleanup) {
+         // No bucket can have expired since the last pass
+         return;
+      }
+      nextPendingCleanup = now + pendingPutRecentPeriod;
+
+      // Completed puts are simply dropped with their bucket; the rest are
+      // potential leaks and move to the overage queue
+      Queue<PendingPut> expired;
+      while ((expired = pendingQueue.pollExpired(now - this.pendingPutOveragePeriod)) != null) {
+         for (PendingPut item : expired) {
+            if (!item.isCompleted()) {
+               overagePendingQueue.add(item, item.timestamp);
             }
          }
-      } finally {
-         if (lock) {
-            pendingLock.unlock();
-         }
       }
 
-      // We've found a pendingPut that never happened; clean it up
-      if (toClean != null) {
-         PendingPutMap map = pendingPuts.get(toClean.key);
-         if (map != null) {
-            if (map.acquireLock(100, TimeUnit.MILLISECONDS)) {
-               try {
-                  PendingPut cleaned = map.remove(toClean.owner);
-                  if (toClean.equals(cleaned) == false) {
-                     if (cleaned != null) {
-                        // Oops. Restore it.
-                        map.put(cleaned);
-                     }
-                  } else if (map.size() == 0) {
-                     pendingPuts.remove(toClean.key, map);
-                  }
+      // We've found pending puts that never happened; clean them up
+      while ((expired = overagePendingQueue.pollExpired(now - this.maxPendingPutDelay)) != null) {
+         for (PendingPut item : expired) {
+            if (!item.isCompleted()) {
+               PendingPutMap map = pendingPuts.get(item.key);
+               if (map != null && map.remove(item)) {
+                  retireIfIdle(item.key, map);
                }
-               finally {
-                  map.releaseLock();
-               }
-            } else {
-               // Something's gone wrong and the lock isn't being released.
-               // We removed toClean from the queue and need to restore it
-               // TODO this is pretty dodgy
-               restorePendingPut(toClean);
             }
          }
       }
-
    }
 
-   private void restorePendingPut(PendingPut toRestore) {
-      pendingLock.lock();
-      try {
-         // Give it a new lease on life so it's not out of order. We could
-         // scan the queue and put toRestore back at the front, but then
-         // we'll just immediately try removing it again; instead we
-         // let it cycle through the queue again
-         toRestore.refresh();
-         pendingQueue.add(new WeakReference<PendingPut>(toRestore));
+   private void retireIfIdle(Object key, PendingPutMap pending) {
+      if (pending.retireIfIdle()) {
+         pendingPuts.remove(key, pending);
       }
-      finally {
-         pendingLock.unlock();
+   }
+
+   private void cleanOutdatedRemovals(long now) {
+      Queue<RecentRemoval> expired;
+      while ((expired = removalsQueue.pollExpired(now)) != null) {
+         for (RecentRemoval removal : expired) {
+            // Only if it hasn't since been replaced by a later removal
+            recentRemovals.remove(removal.key, removal.timestamp);
+         }
       }
    }
 
    /**
-    * Lazy-initialization map for PendingPut. Optimized for the expected usual case where only a
-    * single put is pending for a given key.
-    * 
-    * This class is NOT THREAD SAFE. All operations on it must be performed with the lock held.
+    * The pending puts for a single key, plus the count of puts for the key in progress.
+    * Optimized for the expected usual case where only a single put is pending for a given
+    * key: the pending puts are held as either a single {@link PendingPut} or an array of
+    * them, replaced by compare-and-set. Once empty and idle the map is retired and must
+    * be replaced in the pendingPuts map before being registered against again.
     */
    private static class PendingPutMap {
-      private PendingPut singlePendingPut;
-      private Map<Object, PendingPut> fullMap;
-      private final Lock lock = new ReentrantLock();
+      private static final Object RETIRED = new Object();
+
+      private final AtomicReference<Object> puts;
+      private final AtomicInteger inProgress = new AtomicInteger();
 
       PendingPutMap(PendingPut singleItem) {
-         this.singlePendingPut = singleItem;
+         this.puts = new AtomicReference<Object>(singleItem);
       }
 
-      public void put(PendingPut pendingPut) {
-         if (singlePendingPut == null) {
-            if (fullMap == null) {
-               // initial put
-               singlePendingPut = pendingPut;
+      /**
+       * @return <code>false</code> if this map was retired and the put not recorded
+       */
+      public boolean put(PendingPut pendingPut) {
+         for (;;) {
+            Object current = puts.get();
+            if (current == RETIRED) {
+               return false;
+            }
+            Object next;
+            if (current == null) {
+               next = pendingPut;
+            } else if (current instanceof PendingPut) {
+               PendingPut single = (PendingPut) current;
+               next = single.owner.equals(pendingPut.owner) ? pendingPut
+                        : new PendingPut[] { single, pendingPut };
             } else {
-               fullMap.put(pendingPut.owner, pendingPut);
+               PendingPut[] all = (PendingPut[]) current;
+               int index = indexOf(all, pendingPut.owner);
+               PendingPut[] copy;
+               if (index < 0) {
+                  copy = new PendingPut[all.length + 1];
+                  System.arraycopy(all, 0, copy, 0, all.length);
+                  copy[all.length] = pendingPut;
+               } else {
+                  copy = all.clone();
+                  copy[index] = pendingPut;
+               }
+               next = copy;
+            }
+            if (puts.compareAndSet(current, next)) {
+               return true;
             }
-         } else {
-            // 2nd put; need a map
-            fullMap = new HashMap<Object, PendingPut>(4);
-            fullMap.put(singlePendingPut.owner, singlePendingPut);
-            singlePendingPut = null;
-            fullMap.put(pendingPut.owner, pendingPut);
          }
       }
 
-      public PendingPut remove(Object ownerForPut) {
-         PendingPut removed = null;
-         if (fullMap == null) {
-            if (singlePendingPut != null
-                  && singlePendingPut.owner.equals(ownerForPut)) {
-               removed = singlePendingPut;
-               singlePendingPut = null;
+      /**
+       * Remove the pending put registered by the given owner.
+       *
+       * @return the removed put, or <code>null</code> if there was none
+       */
+      public PendingPut remove(Object owner) {
+         for (;;) {
+            Object current = puts.get();
+            PendingPut removed = find(current, owner);
+            if (removed == null) {
+               return null;
+            }
+            if (puts.compareAndSet(current, without(current, removed))) {
+               return removed;
             }
-         } else {
-            removed = fullMap.remove(ownerForPut);
          }
-         return removed;
       }
 
-      public int size() {
-         return fullMap == null ? (singlePendingPut == null ? 0 : 1)
-               : fullMap.size();
+      /**
+       * Remove the given pending put, if it is still registered.
+       */
+      public boolean remove(PendingPut pendingPut) {
+         for (;;) {
+            Object current = puts.get();
+            if (find(current, pendingPut.owner) != pendingPut) {
+               return false;
+            }
+            if (puts.compareAndSet(current, without(current, pendingPut))) {
+               pendingPut.complete();
+               return true;
+            }
+         }
       }
 
-      public boolean acquireLock(long time, TimeUnit unit) {
-         try {
-            return lock.tryLock(time, unit);
-         } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return false;
+      /**
+       * Take the put registered by the given owner; if it is still valid the caller may put
+       * until it calls {@link #release()}.
+       */
+      public boolean acquire(Object owner) {
+         // Counted before validating, so an invalidation that misses
+         // the put being taken is sure to wait for it
+         inProgress.incrementAndGet();
+         PendingPut pendingPut = remove(owner);
+         if (pendingPut != null && pendingPut.complete()) {
+            return true;
          }
+         inProgress.decrementAndGet();
+         return false;
+      }
+
+      public void release() {
+         inProgress.decrementAndGet();
+      }
+
+      /**
+       * Retire this map if no put is pending or in progress.
+       *
+       * @return <code>true</code> if retired, in which case it should be removed from pendingPuts
+       */
+      public boolean retireIfIdle() {
+         return inProgress.get() == 0 && puts.compareAndSet(null, RETIRED);
       }
 
-      public void releaseLock() {
-         lock.unlock();
+      public boolean isRetired() {
+         return puts.get() == RETIRED;
       }
 
+      /**
+       * Complete, so that they cannot be acquired, and drop all the pending puts.
+       */
       public void invalidate() {
-         if (singlePendingPut != null) {
-            singlePendingPut.completed = true;
-         } else if (fullMap != null) {
-            for (PendingPut pp : fullMap.values()) {
-               pp.completed = true;
+         for (;;) {
+            Object current = puts.get();
+            if (current instanceof PendingPut) {
+               ((PendingPut) current).complete();
+            } else if (current instanceof PendingPut[]) {
+               for (PendingPut pp : (PendingPut[]) current) {
+                  pp.complete();
+               }
+            } else {
+               return;
+            }
+            if (puts.compareAndSet(current, null)) {
+               return;
+            }
+         }
+      }
+
+      /**
+       * Wait until no put for this key is in progress.
+       *
+       * @return <code>false</code> if the deadline passed first
+       */
+      public boolean awaitPutsInProgress(long deadline) {
+         while (inProgress.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+               return false;
             }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+         }
+         return true;
+      }
+
+      private static PendingPut find(Object current, Object owner) {
+         if (current instanceof PendingPut) {
+            PendingPut single = (PendingPut) current;
+            return single.owner.equals(owner) ? single : null;
+         } else if (current instanceof PendingPut[]) {
+            PendingPut[] all = (PendingPut[]) current;
+            int index = indexOf(all, owner);
+            return index < 0 ? null : all[index];
          }
+         return null;
+      }
+
+      private static Object without(Object current, PendingPut pendingPut) {
+         if (current == pendingPut) {
+            return null;
+         }
+         PendingPut[] all = (PendingPut[]) current;
+         if (all.length == 2) {
+            return all[0] == pendingPut ? all[1] : all[0];
+         }
+         PendingPut[] copy = new PendingPut[all.length - 1];
+         int i = 0;
+         for (PendingPut pp : all) {
+            if (pp != pendingPut) {
+               copy[i++] = pp;
+            }
+         }
+         return copy;
+      }
+
+      private static int indexOf(PendingPut[] all, Object owner) {
+         for (int i = 0; i < all.length; i++) {
+            if (all[i].owner.equals(owner)) {
+               return i;
+            }
+         }
+         return -1;
       }
    }
 
    private static class PendingPut {
       private final Object key;
       private final Object owner;
-      private long timestamp = System.currentTimeMillis();
-      private volatile boolean completed;
+      private final long timestamp;
+      private final AtomicBoolean completed = new AtomicBoolean();
 
-      private PendingPut(Object key, Object owner) {
+      private PendingPut(Object key, Object owner, long timestamp) {
          this.key = key;
          this.owner = owner;
+         this.timestamp = timestamp;
       }
 
-      private void refresh() {
-         timestamp = System.currentTimeMillis();
+      private boolean isCompleted() {
+         return completed.get();
+      }
+
+      /**
+       * @return <code>true</code> if this call completed the put
+       */
+      private boolean complete() {
+         return completed.compareAndSet(false, true);
       }
    }
 
@@ -693,9 +688,72 @@ public class PutFromLoadValidator {
       private final Object key;
       private final Long timestamp;
 
-      private RecentRemoval(Object key, long nakedPutInvalidationPeriod) {
+      private RecentRemoval(Object key, Long timestamp) {
          this.key = key;
-         timestamp = Long.valueOf(System.currentTimeMillis() + nakedPutInvalidationPeriod);
+         this.timestamp = timestamp;
+      }
+   }
+
+   /**
+    * Items grouped into buckets by time, so that they can be expired a whole
+    * bucket at a time. Adding is a lookup plus a lock-free queue offer, and
+    * each expired bucket is handed to exactly one caller.
+    */
+   private static class ExpiryQueue<T> {
+      private final long bucketWidth;
+      private final ConcurrentSkipListMap<Long, Queue<T>> buckets = new ConcurrentSkipListMap<Long, Queue<T>>();
+
+      ExpiryQueue(long bucketWidth) {
+         this.bucketWidth = Math.max(1, bucketWidth);
+      }
+
+      public void add(T item, long timestamp) {
+         Long slot = Long.valueOf(timestamp / bucketWidth);
+         for (;;) {
+            Queue<T> bucket = buckets.get(slot);
+            if (bucket == null) {
+               bucket = new ConcurrentLinkedQueue<T>();
+               Queue<T> existing = buckets.putIfAbsent(slot, bucket);
+               if (existing != null) {
+                  bucket = existing;
+               }
+            }
+            bucket.offer(item);
+            if (buckets.get(slot) == bucket) {
+               return;
+            }
+            // The bucket expired under us and may have been processed without
+            // this item; add it again (processing an item twice is harmless)
+         }
+      }
+
+      /**
+       * Remove the oldest bucket if every item in it is older than the cutoff.
+       *
+       * @return the bucket's items, or <code>null</code> if no bucket has expired
+       */
+      public Queue<T> pollExpired(long cutoff) {
+         for (;;) {
+            Map.Entry<Long, Queue<T>> oldest = buckets.firstEntry();
+            if (oldest == null || (oldest.getKey().longValue() + 1) * bucketWidth > cutoff) {
+               return null;
+            }
+            if (buckets.remove(oldest.getKey(), oldest.getValue())) {
+               return oldest.getValue();
+            }
+         }
+      }
+
+      public void clear() {
+         buckets.clear();
+      }
+
+      public int size() {
+         int size = 0;
+         for (Queue<T> bucket : buckets.values()) {
+            size += bucket.size();
+         }
+         return size;
       }
    }
 
@@ -30,6 +30,8 @@ import org.hibernate.cache.access.CollectionRegionAccessStrategy;
 import org.hibernate.cache.access.EntityRegionAccessStrategy;
 import org.hibernate.cache.access.SoftLock;
 import org.hibernate.cache.infinispan.impl.BaseRegion;
+import org.hibernate.cache.infinispan.impl.BaseTransactionalDataRegion;
+import org.hibernate.cache.infinispan.impl.NearCache;
 import org.hibernate.cache.infinispan.util.CacheAdapter;
 import org.hibernate.cache.infinispan.util.CacheHelper;
 import org.hibernate.cache.infinispan.util.FlagAdapter;
@@ -51,16 +53,30 @@ public class TransactionalAccessDelegate {
    protected final CacheAdapter cacheAdapter;
    protected final BaseRegion region;
    protected final PutFromLoadValidator putValidator;
+   protected final NearCache nearCache;
 
-   public TransactionalAccessDelegate(BaseRegion region, PutFromLoadValidator validator) {
+   public TransactionalAccessDelegate(BaseTransactionalDataRegion region, PutFromLoadValidator validator) {
       this.region = region;
       this.cacheAdapter = region.getCacheAdapter();
       this.putValidator = validator;
+      this.nearCache = region.getNearCache();
    }
 
    public Object get(Object key, long txTimestamp) throws CacheException {
       if (!region.checkValid()) 
          return null;
+      if (nearCache != null) {
+         Object val = nearCache.get(key);
+         if (val != null)
+            return val;
+         long stamp = nearCache.beginRead();
+         val = cacheAdapter.get(key);
+         if (val == null)
+            putValidator.registerPendingPut(key);
+         else
+            nearCache.putFromRead(key, val, stamp);
+         return val;
+      }
       Object val = cacheAdapter.get(key);
       if (val == null)
          putValidator.registerPendingPut(key);
@@ -109,10 +125,15 @@ public class TransactionalAccessDelegate {
       if (!region.checkValid())
          return false;
 
-      if (cacheAdapter.isClusteredInvalidation())
-         cacheAdapter.withFlags(FlagAdapter.CACHE_MODE_LOCAL).put(key, value);
-      else
-         cacheAdapter.put(key, value);
+      boolean deferred = beginNearCacheWrite(key);
+      try {
+         if (cacheAdapter.isClusteredInvalidation())
+            cacheAdapter.withFlags(FlagAdapter.CACHE_MODE_LOCAL).put(key, value);
+         else
+            cacheAdapter.put(key, value);
+      } finally {
+         endNearCacheWrite(key, deferred);
+      }
 
       return true;
    }
@@ -125,7 +146,12 @@ public class TransactionalAccessDelegate {
       // We update whether or not the region is valid. Other nodes
       // may have already restored the region so they need to
       // be informed of the change.
-      cacheAdapter.put(key, value);
+      boolean deferred = beginNearCacheWrite(key);
+      try {
+         cacheAdapter.put(key, value);
+      } finally {
+         endNearCacheWrite(key, deferred);
+      }
       return true;
    }
 
@@ -141,7 +167,12 @@ public class TransactionalAccessDelegate {
       // We update whether or not the region is valid. Other nodes
       // may have already restored the region so they need to
       // be informed of the change.
-      cacheAdapter.remove(key);
+      boolean deferred = beginNearCacheWrite(key);
+      try {
+         cacheAdapter.remove(key);
+      } finally {
+         endNearCacheWrite(key, deferred);
+      }
    }
 
    public void removeAll() throws CacheException {
@@ -149,13 +180,20 @@ public class TransactionalAccessDelegate {
          throw new CacheException("Failed to invalidate pending putFromLoad calls for region " + region.getName());
        }
       cacheAdapter.clear();
+      if (nearCache != null)
+         nearCache.invalidateAll();
    }
 
    public void evict(Object key) throws CacheException {
       if (!putValidator.invalidateKey(key)) {
          throw new CacheException("Failed to invalidate pending putFromLoad calls for key " + key + " from region " + region.getName());
       }      
-      cacheAdapter.remove(key);
+      boolean deferred = beginNearCacheWrite(key);
+      try {
+         cacheAdapter.remove(key);
+      } finally {
+         endNearCacheWrite(key, deferred);
+      }
    }
 
    public void evictAll() throws CacheException {
@@ -168,5 +206,16 @@ public class TransactionalAccessDelegate {
       } finally {
          region.resume(tx);
       }
+      if (nearCache != null)
+         nearCache.invalidateAll();
+   }
+
+   private boolean beginNearCacheWrite(Object key) {
+      return nearCache != null && nearCache.beginWrite(key);
+   }
+
+   private void endNearCacheWrite(Object key, boolean deferred) {
+      if (nearCache != null && !deferred)
+         nearCache.endWrite(key);
    }
 }
@@ -26,6 +26,11 @@ public class CollectionRegionImpl extends BaseTransactionalDataRegion implements
       super(cacheAdapter, name, metadata, transactionManager, factory);
    }
 
+   public CollectionRegionImpl(CacheAdapter cacheAdapter, String name, CacheDataDescription metadata, 
+            TransactionManager transactionManager, RegionFactory factory, int nearCacheMaxEntries) {
+      super(cacheAdapter, name, metadata, transactionManager, factory, nearCacheMaxEntries);
+   }
+
    public CollectionRegionAccessStrategy buildAccessStrategy(AccessType accessType) throws CacheException {
       if (AccessType.READ_ONLY.equals(accessType)) {
          return new ReadOnlyAccess(this);
@@ -26,6 +26,11 @@ public class EntityRegionImpl extends BaseTransactionalDataRegion implements Ent
       super(cacheAdapter, name, metadata, transactionManager, factory);
    }
 
+   public EntityRegionImpl(CacheAdapter cacheAdapter, String name, CacheDataDescription metadata, 
+            TransactionManager transactionManager, RegionFactory factory, int nearCacheMaxEntries) {
+      super(cacheAdapter, name, metadata, transactionManager, factory, nearCacheMaxEntries);
+   }
+
    public EntityRegionAccessStrategy buildAccessStrategy(AccessType accessType) throws CacheException {
       if (AccessType.READ_ONLY.equals(accessType)) {
          return new ReadOnlyAccess(this);
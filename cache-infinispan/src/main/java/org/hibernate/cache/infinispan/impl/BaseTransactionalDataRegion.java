@@ -3,9 +3,18 @@ package org.hibernate.cache.infinispan.impl;
 import javax.transaction.TransactionManager;
 
 import org.hibernate.cache.CacheDataDescription;
+import org.hibernate.cache.CacheException;
 import org.hibernate.cache.RegionFactory;
 import org.hibernate.cache.TransactionalDataRegion;
 import org.hibernate.cache.infinispan.util.CacheAdapter;
+import org.infinispan.config.Configuration;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryEvicted;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryInvalidated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryRemoved;
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryInvalidatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
 
 /**
  * Support for Inifinispan {@link TransactionalDataRegion} implementors.
@@ -18,9 +27,32 @@ public abstract class BaseTransactionalDataRegion extends BaseRegion implements
 
    private final CacheDataDescription metadata;
 
+   private final NearCache nearCache;
+
    public BaseTransactionalDataRegion(CacheAdapter cacheAdapter, String name, CacheDataDescription metadata, TransactionManager transactionManager, RegionFactory factory) {
+      this(cacheAdapter, name, metadata, transactionManager, factory, 0);
+   }
+
+   public BaseTransactionalDataRegion(CacheAdapter cacheAdapter, String name, CacheDataDescription metadata, TransactionManager transactionManager, RegionFactory factory, int nearCacheMaxEntries) {
       super(cacheAdapter, name, transactionManager, factory);
       this.metadata = metadata;
+      if (nearCacheMaxEntries > 0) {
+         // Near cached entries must not outlive their copy in the underlying cache
+         Configuration cfg = cacheAdapter.getConfiguration();
+         this.nearCache = new NearCache(nearCacheMaxEntries, cfg.getExpirationLifespan(),
+                  cfg.getExpirationMaxIdle(), transactionManager);
+      } else {
+         this.nearCache = null;
+      }
+   }
+
+   /**
+    * Gets the node local near cache placed in front of this region.
+    *
+    * @return the near cache, or <code>null</code> if none is configured for this region
+    */
+   public NearCache getNearCache() {
+      return nearCache;
    }
 
    public CacheDataDescription getCacheDataDescription() {
@@ -31,4 +63,44 @@ public abstract class BaseTransactionalDataRegion extends BaseRegion implements
       return transactionManager != null;
    }
 
+   @Override
+   public void destroy() throws CacheException {
+      if (nearCache != null)
+         nearCache.invalidateAll();
+      super.destroy();
+   }
+
+   /**
+    * Keeps the near cache, if any, coherent with changes applied to the underlying cache
+    * either locally or by other nodes.
+    *
+    * @param event
+    */
+   @CacheEntryModified
+   @CacheEntryRemoved
+   @CacheEntryInvalidated
+   @CacheEntryEvicted
+   public void nearCacheEntryChanged(CacheEntryEvent event) {
+      if (nearCache != null && !event.isPre())
+         nearCache.invalidate(event.getKey());
+   }
+
+   @Override
+   protected boolean handleEvictAllModification(CacheEntryModifiedEvent event) {
+      boolean result = super.handleEvictAllModification(event);
+      if (result && nearCache != null) {
+         nearCache.invalidateAll();
+      }
+      return result;
+   }
+
+   @Override
+   protected boolean handleEvictAllInvalidation(CacheEntryInvalidatedEvent event) {
+      boolean result = super.handleEvictAllInvalidation(event);
+      if (result && nearCache != null) {
+         nearCache.invalidateAll();
+      }
+      return result;
+   }
+
 }
\ No newline at end of file
@@ -0,0 +1,310 @@
+package org.hibernate.cache.infinispan.impl;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+
+import org.hibernate.cache.CacheException;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Bounded, node local cache of entries read from an Infinispan backed region, consulted before
+ * invoking the underlying cache so that repeated reads of the same entry cost a hash lookup instead
+ * of a full Infinispan invocation.
+ * <p>
+ * The near cache never holds data that has not been read from the underlying cache. Entries are
+ * invalidated by the region as it receives modification, removal, invalidation or eviction events,
+ * and by the access delegate around local writes. While a local write to a key is pending (i.e. its
+ * transaction has not completed yet), reads of that key bypass the near cache entirely so that
+ * uncommitted state is never published to other sessions. A read that races with an invalidation is
+ * detected through an invalidation counter and discarded.
+ * <p>
+ * Entries expire after the lifespan and max idle time of the underlying cache. When full, an entry
+ * is evicted with the CLOCK algorithm: entries are queued in insertion order and an entry read since
+ * it was last considered gets a second chance at the back of the queue.
+ *
+ * @author agent
+ */
+public class NearCache {
+   private static final Log log = LogFactory.getLog(NearCache.class);
+   private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+   private final ConcurrentMap<Object, AtomicInteger> pendingWrites = new ConcurrentHashMap<Object, AtomicInteger>();
+   private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<Entry>();
+   private final AtomicInteger size = new AtomicInteger();
+   /** Approximate length of the eviction queue, which may hold entries removed since */
+   private final AtomicInteger queued = new AtomicInteger();
+   private final AtomicLong invalidations = new AtomicLong();
+   private final int maxEntries;
+   private final long lifespan;
+   private final long maxIdle;
+   private final TransactionManager transactionManager;
+
+   public NearCache(int maxEntries, TransactionManager transactionManager) {
+      this(maxEntries, -1, -1, transactionManager);
+   }
+
+   /**
+    * @param maxEntries The maximum number of entries
+    * @param lifespan Time (in ms) after which an entry expires, or a negative value if never
+    * @param maxIdle Time (in ms) after which an entry that was not read expires, or a negative value if never
+    * @param transactionManager The transaction manager used to defer the end of writes, or <code>null</code>
+    */
+   public NearCache(int maxEntries, long lifespan, long maxIdle, TransactionManager transactionManager) {
+      if (maxEntries <= 0)
+         throw new IllegalArgumentException("Near cache max entries must be positive: " + maxEntries);
+      this.maxEntries = maxEntries;
+      this.lifespan = lifespan;
+      this.maxIdle = maxIdle;
+      this.transactionManager = transactionManager;
+   }
+
+   /**
+    * Looks up the near cached value for the given key.
+    *
+    * @param key The key
+    * @return the cached value, or <code>null</code> if not cached or a write is pending for the key
+    */
+   public Object get(Object key) {
+      if (!pendingWrites.isEmpty() && pendingWrites.containsKey(key))
+         return null;
+      Entry entry = entries.get(key);
+      if (entry == null)
+         return null;
+      if (lifespan > 0 || maxIdle > 0) {
+         long now = currentTimeMillis();
+         if (entry.isExpired(now, lifespan, maxIdle)) {
+            remove(entry);
+            return null;
+         }
+         entry.lastUsed = now;
+      }
+      entry.referenced = true;
+      return entry.value;
+   }
+
+   /**
+    * Must be called before reading a value from the underlying cache which may then be passed to
+    * {@link #putFromRead(Object, Object, long)}.
+    *
+    * @return the stamp to pass to {@link #putFromRead(Object, Object, long)}
+    */
+   public long beginRead() {
+      return invalidations.get();
+   }
+
+   /**
+    * Stores a value read from the underlying cache, unless a write is pending for the key or an
+    * invalidation happened since the read began.
+    *
+    * @param key The key
+    * @param value The value read from the underlying cache
+    * @param stamp The stamp returned by {@link #beginRead()} before the value was read
+    */
+   public void putFromRead(Object key, Object value, long stamp) {
+      if (invalidations.get() != stamp || pendingWrites.containsKey(key))
+         return;
+      Entry entry = new Entry(key, value, lifespan > 0 || maxIdle > 0 ? currentTimeMillis() : 0);
+      if (entries.putIfAbsent(key, entry) != null)
+         return;
+      evictionQueue.offer(entry);
+      if (queued.incrementAndGet() > 2 * maxEntries)
+         purgeEvictionQueue();
+      if (size.incrementAndGet() > maxEntries)
+         evictOne(entry);
+      // An invalidation that ran concurrently with the put may have missed the new entry
+      if (invalidations.get() != stamp)
+         remove(entry);
+   }
+
+   /**
+    * Removes the given key from the near cache.
+    *
+    * @param key The key
+    */
+   public void invalidate(Object key) {
+      invalidations.incrementAndGet();
+      if (entries.remove(key) != null)
+         size.decrementAndGet();
+   }
+
+   /**
+    * Removes all entries from the near cache.
+    */
+   public void invalidateAll() {
+      invalidations.incrementAndGet();
+      for (Object key : entries.keySet()) {
+         if (entries.remove(key) != null)
+            size.decrementAndGet();
+      }
+      purgeEvictionQueue();
+   }
+
+   /**
+    * Marks the start of a local write to the given key. Until the matching {@link #endWrite(Object)}
+    * reads of the key bypass the near cache. If a transaction is active, {@link #endWrite(Object)} is
+    * called automatically when it completes.
+    *
+    * @param key The key about to be written
+    * @return <code>true</code> if the end of the write was deferred to transaction completion,
+    *         <code>false</code> if the caller must call {@link #endWrite(Object)} itself
+    */
+   public boolean beginWrite(final Object key) {
+      while (!incrementWriters(key)) {
+         // Lost a race with the end of the last write to the key; retry with a new counter
+      }
+      invalidate(key);
+
+      Transaction tx = currentTransaction();
+      if (tx != null) {
+         try {
+            tx.registerSynchronization(new Synchronization() {
+               public void beforeCompletion() {
+               }
+
+               public void afterCompletion(int status) {
+                  endWrite(key);
+               }
+            });
+            return true;
+         } catch (Exception e) {
+            if (log.isTraceEnabled()) log.trace("Could not register near cache synchronization, ending write immediately", e);
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Marks the end of a local write started with {@link #beginWrite(Object)}.
+    *
+    * @param key The key that was written
+    */
+   public void endWrite(Object key) {
+      invalidate(key);
+      AtomicInteger writers = pendingWrites.get(key);
+      if (writers != null && writers.decrementAndGet() <= 0)
+         pendingWrites.remove(key, writers);
+   }
+
+   /**
+    * @return the approximate number of entries in the near cache
+    */
+   public int size() {
+      return Math.max(0, size.get());
+   }
+
+   public int getMaxEntries() {
+      return maxEntries;
+   }
+
+   /**
+    * Counts one more pending write to the key. A counter that dropped to 0 has been, or is about
+    * to be, removed by {@link #endWrite(Object)}, so it is never incremented again.
+    *
+    * @return <code>false</code> if the counter found for the key had dropped to 0
+    */
+   private boolean incrementWriters(Object key) {
+      AtomicInteger writers = pendingWrites.get(key);
+      if (writers == null) {
+         writers = pendingWrites.putIfAbsent(key, new AtomicInteger(1));
+         if (writers == null)
+            return true;
+      }
+      for (;;) {
+         int count = writers.get();
+         if (count == 0) {
+            pendingWrites.remove(key, writers);
+            return false;
+         }
+         if (writers.compareAndSet(count, count + 1))
+            return true;
+      }
+   }
+
+   private void evictOne(Entry keep) {
+      // Bounded, as concurrent reads may keep setting the referenced bits
+      for (int i = 2 * maxEntries; i > 0; i--) {
+         Entry candidate = evictionQueue.poll();
+         if (candidate == null)
+            return;
+         queued.decrementAndGet();
+         if (entries.get(candidate.key) != candidate)
+            continue;
+         if ((candidate == keep || candidate.referenced) && i > 1) {
+            candidate.referenced = false;
+            evictionQueue.offer(candidate);
+            queued.incrementAndGet();
+         } else if (remove(candidate)) {
+            return;
+         }
+      }
+   }
+
+   private boolean remove(Entry entry) {
+      if (entries.remove(entry.key, entry)) {
+         size.decrementAndGet();
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Drops the entries removed from the near cache since they were queued for eviction.
+    */
+   private void purgeEvictionQueue() {
+      for (Iterator<Entry> it = evictionQueue.iterator(); it.hasNext();) {
+         Entry entry = it.next();
+         if (entries.get(entry.key) != entry) {
+            it.remove();
+            queued.decrementAndGet();
+         }
+      }
+   }
+
+   /**
+    * The time (in ms) against which entries expire; overridden by unit tests to control it.
+    */
+   protected long currentTimeMillis() {
+      return System.currentTimeMillis();
+   }
+
+   private Transaction currentTransaction() {
+      if (transactionManager == null)
+         return null;
+      try {
+         Transaction tx = transactionManager.getTransaction();
+         return tx != null && tx.getStatus() == Status.STATUS_ACTIVE ? tx : null;
+      } catch (SystemException se) {
+         throw new CacheException("Could not obtain transaction", se);
+      }
+   }
+
+   private static class Entry {
+      private final Object key;
+      private final Object value;
+      private final long created;
+      private volatile long lastUsed;
+      private volatile boolean referenced;
+
+      private Entry(Object key, Object value, long created) {
+         this.key = key;
+         this.value = value;
+         this.created = created;
+         this.lastUsed = created;
+      }
+
+      private boolean isExpired(long now, long lifespan, long maxIdle) {
+         return (lifespan > 0 && now - created > lifespan) || (maxIdle > 0 && now - lastUsed > maxIdle);
+      }
+   }
+}
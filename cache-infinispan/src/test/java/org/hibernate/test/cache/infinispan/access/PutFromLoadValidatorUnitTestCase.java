@@ -268,7 +268,7 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
 
    private void delayedNakedPutAfterRemovalTest(boolean transactional, boolean removeRegion)
          throws Exception {
-      PutFromLoadValidator testee = new TestValidator(transactional ? tm : null, 100, 1000, 500, 10000);
+      TestValidator testee = new TestValidator(transactional ? tm : null, 100, 1000, 500, 10000);
       if (removeRegion) {
          testee.invalidateRegion();
       } else {
@@ -277,7 +277,7 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
       if (transactional) {
          tm.begin();
       }
-      Thread.sleep(110);
+      testee.advance(110);
 
       boolean lockable = testee.acquirePutFromLoadLock(KEY1);
       try {
@@ -348,8 +348,7 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
    }
 
    /**
-    * White box test for ensuring key removals get cleaned up. <b>Note</b>: Since this test is test sensitive, if you
-    * add trace logging, it might fail
+    * White box test for ensuring key removals get cleaned up.
     *
     * @throws Exception
     */
@@ -357,10 +356,13 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
       TestValidator testee = new TestValidator(null, 200, 1000, 500, 10000);
       testee.invalidateKey("KEY1");
       testee.invalidateKey("KEY2");
-      Thread.sleep(210);
       assertEquals(2, testee.getRemovalQueueLength());
+      // Move past the removals' expiry plus the width of their bucket
+      testee.advance(250);
+      // White box -- the expired bucket holding both removals is dropped
+      // as a whole before the new removal is recorded
       testee.invalidateKey("KEY1");
-      assertEquals(2, testee.getRemovalQueueLength());
+      assertEquals(1, testee.getRemovalQueueLength());
       testee.invalidateKey("KEY2");
       assertEquals(2, testee.getRemovalQueueLength());
    }
@@ -371,6 +373,7 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
     * @throws Exception
     */
    public void testPendingPutCleanup() throws Exception {
+      // overage after 600ms, buckets 300ms wide, abandoned after 900ms
       TestValidator testee = new TestValidator(tm, 5000, 600, 300, 900);
 
       // Start with a regionRemoval so we can confirm at the end that all
@@ -390,94 +393,90 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
       // ppq = [1,2(c),3,4,5,6(c)]
       assertEquals(6, testee.getPendingPutQueueLength());
       assertEquals(0, testee.getOveragePendingPutQueueLength());
+      assertEquals(4, testee.getPendingPutKeyCount());
 
-      // Sleep past "pendingPutRecentPeriod"
-      Thread.sleep(310);
+      // Move past "pendingPutRecentPeriod"
+      testee.advance(310);
       testee.registerPendingPut("7");
-      // White box -- should have cleaned out 2 (completed) but
-      // not gotten to 6 (also removed)
-      // ppq = [1,3,4,5,6(c),7]
+      // White box -- the first bucket has not expired yet, so nothing was
+      // cleaned out and 7 is in the next bucket
+      // ppq = [1,2(c),3,4,5,6(c)][7]
       assertEquals(0, testee.getOveragePendingPutQueueLength());
-      assertEquals(6, testee.getPendingPutQueueLength());
+      assertEquals(7, testee.getPendingPutQueueLength());
 
-      // Sleep past "pendingPutOveragePeriod"
-      Thread.sleep(310);
+      // Move past "pendingPutOveragePeriod" for the first bucket
+      testee.advance(600);
       testee.registerPendingPut("8");
-      // White box -- should have cleaned out 6 (completed) and
-      // moved 1, 3, 4  and 5 to overage queue
-      // oppq = [1,3,4,5] ppq = [7,8]
+      // White box -- the first bucket has expired, dropping 2 and 6
+      // (completed) and moving 1, 3, 4 and 5 to overage queue
+      // oppq = [1,3,4,5] ppq = [7][8]
       assertEquals(4, testee.getOveragePendingPutQueueLength());
       assertEquals(2, testee.getPendingPutQueueLength());
 
-      // Sleep past "maxPendingPutDelay"
-      Thread.sleep(310);
-      testee.acquirePutFromLoadLock("3");
+      assertTrue(testee.acquirePutFromLoadLock("3"));
       testee.releasePutFromLoadLock("3");
-      // White box -- should have cleaned out 1 (overage) and
-      // moved 7 to overage queue
-      // oppq = [3(c),4,5,7] ppq=[8]
+      // oppq = [1,3(c),4,5] ppq = [7][8]
       assertEquals(4, testee.getOveragePendingPutQueueLength());
-      assertEquals(1, testee.getPendingPutQueueLength());
 
-      // Sleep past "maxPendingPutDelay"
-      Thread.sleep(310);
+      // Move past "maxPendingPutDelay" for the first bucket
+      testee.advance(300);
       tm.begin();
       testee.registerPendingPut("7");
       Transaction tx = tm.suspend();
 
-      // White box -- should have cleaned out 3 (completed)
-      // and 4 (overage) and moved 8 to overage queue
-      // We now have 5,7,8 in overage and 7tx in pending
-      // oppq = [5,7,8] ppq=[7tx]
-      assertEquals(3, testee.getOveragePendingPutQueueLength());
-      assertEquals(1, testee.getPendingPutQueueLength());
+      // White box -- should have cleaned out 1, 4 and 5 (abandoned),
+      // dropped 3 (completed) and moved 7 to overage queue
+      // oppq = [7] ppq = [8][7tx]
+      assertEquals(1, testee.getOveragePendingPutQueueLength());
+      assertEquals(2, testee.getPendingPutQueueLength());
+      // Only 7 and 8 are left
+      assertEquals(2, testee.getPendingPutKeyCount());
+
+      // Move past "maxPendingPutDelay" for 7
+      testee.advance(300);
 
       // Validate that only expected items can do puts, thus indirectly
       // proving the others have been cleaned out of pendingPuts map
-      boolean locked = testee.acquirePutFromLoadLock("1");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(locked);
-      // 5 was overage, so should have been cleaned
-      assertEquals(2, testee.getOveragePendingPutQueueLength());
-      locked = testee.acquirePutFromLoadLock("2");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(locked);
-      // 7 was overage, so should have been cleaned
-      assertEquals(1, testee.getOveragePendingPutQueueLength());
-      locked = testee.acquirePutFromLoadLock("3");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(locked);
-      locked = testee.acquirePutFromLoadLock("4");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(locked);
-      locked = testee.acquirePutFromLoadLock("5");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(locked);
-      locked = testee.acquirePutFromLoadLock("1");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(testee.acquirePutFromLoadLock("6"));
-      locked = testee.acquirePutFromLoadLock("7");
-      if (locked) {
-         testee.releasePutFromLoadLock("1");
-      }
-      assertFalse(locked);
+      for (String key : new String[] { "1", "2", "3", "4", "5", "6", "7" }) {
+         boolean locked = testee.acquirePutFromLoadLock(key);
+         if (locked) {
+            testee.releasePutFromLoadLock(key);
+         }
+         assertFalse(key, locked);
+      }
+      // White box -- the first of those cleaned out 7 (abandoned)
+      // oppq = [] ppq = [8][7tx]
+      assertEquals(0, testee.getOveragePendingPutQueueLength());
+      assertEquals(2, testee.getPendingPutQueueLength());
+
       assertTrue(testee.acquirePutFromLoadLock("8"));
       testee.releasePutFromLoadLock("8");
       tm.resume(tx);
       assertTrue(testee.acquirePutFromLoadLock("7"));
       testee.releasePutFromLoadLock("7");
+      assertEquals(0, testee.getPendingPutKeyCount());
+   }
+
+   public void testFailedAcquireLeavesNoPendingPuts() throws Exception {
+      TestValidator testee = new TestValidator(tm, 5000, 600, 300, 900);
+
+      // An invalidated put is dropped with its key
+      testee.registerPendingPut(KEY1);
+      testee.invalidateKey(KEY1);
+      assertEquals(0, testee.getPendingPutKeyCount());
+      assertFalse(testee.acquirePutFromLoadLock(KEY1));
+      assertEquals(0, testee.getPendingPutKeyCount());
+
+      // A put not registered by this owner fails but keeps the others'
+      tm.begin();
+      testee.registerPendingPut("KEY2");
+      Transaction tx = tm.suspend();
+      assertFalse(testee.acquirePutFromLoadLock("KEY2"));
+      assertEquals(1, testee.getPendingPutKeyCount());
+      tm.resume(tx);
+      assertTrue(testee.acquirePutFromLoadLock("KEY2"));
+      testee.releasePutFromLoadLock("KEY2");
+      assertEquals(0, testee.getPendingPutKeyCount());
    }
 
    public void testInvalidateKeyBlocksForInProgressPut() throws Exception {
@@ -545,6 +544,7 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
    }
 
    private static class TestValidator extends PutFromLoadValidator {
+      private long time = 3000000;
 
       protected TestValidator(TransactionManager transactionManager,
                               long nakedPutInvalidationPeriod, long pendingPutOveragePeriod,
@@ -571,5 +571,19 @@ public class PutFromLoadValidatorUnitTestCase extends TestCase {
          return super.getRemovalQueueLength();
       }
 
+      @Override
+      public int getPendingPutKeyCount() {
+         return super.getPendingPutKeyCount();
+      }
+
+      @Override
+      protected long currentTimeMillis() {
+         return time;
+      }
+
+      void advance(long millis) {
+         time += millis;
+      }
+
    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat, Inc or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.test.cache.infinispan.access;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.hibernate.cache.EntityRegion;
+import org.hibernate.cache.access.AccessType;
+import org.hibernate.cache.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.infinispan.InfinispanRegionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.test.cache.infinispan.AbstractNonFunctionalTestCase;
+import org.hibernate.test.cache.infinispan.util.CacheTestUtil;
+
+/**
+ * Multi-threaded benchmark of the cache miss path of
+ * {@link org.hibernate.cache.infinispan.access.TransactionalAccessDelegate}:
+ * each thread repeatedly reads keys which are mostly absent, "loads" them and
+ * calls putFromLoad, while a fraction of the operations evict keys so that the
+ * {@link org.hibernate.cache.infinispan.access.PutFromLoadValidator} sees
+ * concurrent invalidations. Each eviction stands for an update of the key in the
+ * database, so at the end no key may still hold a value loaded before its last
+ * eviction.
+ * <p>
+ * Excluded from the unit test run; run it explicitly when working on the miss path.
+ * </p>
+ *
+ * @author agent
+ */
+public class TransactionalAccessDelegateMissStormTestCase extends AbstractNonFunctionalTestCase {
+   private static final int THREADS = 8;
+   private static final int KEYS = 10000;
+   private static final int OPERATIONS_PER_THREAD = 20000;
+   private static final int EVICT_EVERY = 50;
+
+   public TransactionalAccessDelegateMissStormTestCase(String name) {
+      super(name);
+   }
+
+   public void testMissStorm() throws Exception {
+      Configuration cfg = CacheTestUtil.buildLocalOnlyConfiguration("test", true, false);
+      InfinispanRegionFactory regionFactory = CacheTestUtil.startRegionFactory(cfg, getCacheTestSupport());
+      try {
+         EntityRegion region = regionFactory.buildEntityRegion("test/missStorm", cfg.getProperties(), null);
+         final EntityRegionAccessStrategy access = region.buildAccessStrategy(AccessType.TRANSACTIONAL);
+         final CountDownLatch startLatch = new CountDownLatch(1);
+         // The "database": the version of each key, bumped before each eviction
+         final AtomicIntegerArray versions = new AtomicIntegerArray(KEYS);
+
+         ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+         Future<Integer>[] results = new Future[THREADS];
+         for (int i = 0; i < THREADS; i++) {
+            final long seed = i;
+            results[i] = executor.submit(new Callable<Integer>() {
+               public Integer call() throws Exception {
+                  Random random = new Random(seed);
+                  int puts = 0;
+                  startLatch.await();
+                  for (int op = 0; op < OPERATIONS_PER_THREAD; op++) {
+                     int index = random.nextInt(KEYS);
+                     Integer key = Integer.valueOf(index);
+                     if (op % EVICT_EVERY == 0) {
+                        versions.incrementAndGet(index);
+                        access.evict(key);
+                     } else if (access.get(key, System.currentTimeMillis()) == null) {
+                        Object value = value(index, versions.get(index));
+                        if (access.putFromLoad(key, value, System.currentTimeMillis(), Integer.valueOf(1))) {
+                           puts++;
+                        }
+                     }
+                  }
+                  return Integer.valueOf(puts);
+               }
+            });
+         }
+
+         long start = System.nanoTime();
+         startLatch.countDown();
+         int puts = 0;
+         for (Future<Integer> result : results) {
+            puts += result.get(5, TimeUnit.MINUTES).intValue();
+         }
+         long elapsed = System.nanoTime() - start;
+         executor.shutdown();
+
+         int operations = THREADS * OPERATIONS_PER_THREAD;
+         log.info("Miss storm: " + operations + " operations on " + THREADS + " threads in "
+                  + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms ("
+                  + (elapsed / operations) + "ns/op), " + puts + " puts from load");
+
+         assertTrue("Some loads were cached", puts > 0);
+         // No value loaded before an eviction may have been put after it
+         int cached = 0;
+         for (int i = 0; i < KEYS; i++) {
+            Object value = access.get(Integer.valueOf(i), System.currentTimeMillis());
+            if (value != null) {
+               assertEquals("Stale value cached", value(i, versions.get(i)), value);
+               cached++;
+            }
+         }
+         assertTrue("Some loads are still cached", cached > 0);
+      } finally {
+         CacheTestUtil.stopRegionFactory(regionFactory, getCacheTestSupport());
+      }
+   }
+
+   private static String value(int key, int version) {
+      return "VALUE" + key + "/" + version;
+   }
+}
@@ -0,0 +1,130 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat, Inc or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.test.cache.infinispan.impl;
+
+import org.hibernate.cache.CacheDataDescription;
+import org.hibernate.cache.access.AccessType;
+import org.hibernate.cache.access.EntityRegionAccessStrategy;
+import org.hibernate.cache.impl.CacheDataDescriptionImpl;
+import org.hibernate.cache.infinispan.InfinispanRegionFactory;
+import org.hibernate.cache.infinispan.entity.EntityRegionImpl;
+import org.hibernate.cache.infinispan.impl.NearCache;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.test.cache.infinispan.AbstractNonFunctionalTestCase;
+import org.hibernate.test.cache.infinispan.util.CacheTestUtil;
+import org.hibernate.util.ComparableComparator;
+import org.infinispan.transaction.tm.BatchModeTransactionManager;
+
+/**
+ * Tests that the {@link NearCache} of an entity region is kept coherent by the cache
+ * listener of its region when the entry is changed on another node.
+ *
+ * @author agent
+ */
+public class NearCacheRegionTestCase extends AbstractNonFunctionalTestCase {
+   private static final String REGION_NAME = "test/com.foo.test";
+   private static final Object KEY = "KEY";
+   private static final Object VALUE1 = "VALUE1";
+   private static final Object VALUE2 = "VALUE2";
+
+   public NearCacheRegionTestCase(String name) {
+      super(name);
+   }
+
+   public void testInvalidatedByOtherNode() throws Exception {
+      Configuration cfg = createConfiguration();
+      InfinispanRegionFactory localFactory = CacheTestUtil.startRegionFactory(cfg, getCacheTestSupport());
+      InfinispanRegionFactory remoteFactory = null;
+      try {
+         // Sleep a bit to avoid concurrent FLUSH problem
+         avoidConcurrentFlush();
+
+         EntityRegionImpl localRegion = (EntityRegionImpl) localFactory.buildEntityRegion(REGION_NAME,
+                  cfg.getProperties(), getCacheDataDescription());
+         EntityRegionAccessStrategy localAccess = localRegion.buildAccessStrategy(AccessType.TRANSACTIONAL);
+
+         cfg = createConfiguration();
+         remoteFactory = CacheTestUtil.startRegionFactory(cfg, getCacheTestSupport());
+
+         // Sleep a bit to avoid concurrent FLUSH problem
+         avoidConcurrentFlush();
+
+         EntityRegionImpl remoteRegion = (EntityRegionImpl) remoteFactory.buildEntityRegion(REGION_NAME,
+                  cfg.getProperties(), getCacheDataDescription());
+         EntityRegionAccessStrategy remoteAccess = remoteRegion.buildAccessStrategy(AccessType.TRANSACTIONAL);
+
+         NearCache localNearCache = localRegion.getNearCache();
+         NearCache remoteNearCache = remoteRegion.getNearCache();
+         assertNotNull(localNearCache);
+         assertNotNull(remoteNearCache);
+
+         // Both nodes load the entry; reading it again fills their near caches
+         load(localAccess);
+         load(remoteAccess);
+         assertEquals(VALUE1, localNearCache.get(KEY));
+         assertEquals(VALUE1, remoteNearCache.get(KEY));
+
+         // An update on the local node invalidates the remote copy
+         BatchModeTransactionManager.getInstance().begin();
+         localAccess.update(KEY, VALUE2, new Integer(2), new Integer(1));
+         BatchModeTransactionManager.getInstance().commit();
+
+         // allow async propagation
+         sleep(250);
+         assertNull(remoteNearCache.get(KEY));
+         assertNull(remoteAccess.get(KEY, System.currentTimeMillis()));
+         assertEquals(VALUE2, localAccess.get(KEY, System.currentTimeMillis()));
+         assertEquals(VALUE2, localNearCache.get(KEY));
+
+         // An eviction on the remote node invalidates the local copy
+         remoteAccess.evict(KEY);
+
+         // allow async propagation
+         sleep(250);
+         assertNull(localNearCache.get(KEY));
+         assertNull(localAccess.get(KEY, System.currentTimeMillis()));
+      } finally {
+         if (remoteFactory != null)
+            CacheTestUtil.stopRegionFactory(remoteFactory, getCacheTestSupport());
+         CacheTestUtil.stopRegionFactory(localFactory, getCacheTestSupport());
+      }
+   }
+
+   private void load(EntityRegionAccessStrategy access) {
+      long txTimestamp = System.currentTimeMillis();
+      assertNull(access.get(KEY, txTimestamp));
+      assertTrue(access.putFromLoad(KEY, VALUE1, txTimestamp, new Integer(1)));
+      assertEquals(VALUE1, access.get(KEY, txTimestamp));
+   }
+
+   private Configuration createConfiguration() {
+      Configuration cfg = CacheTestUtil.buildConfiguration(REGION_PREFIX, InfinispanRegionFactory.class, true, false);
+      cfg.setProperty(InfinispanRegionFactory.ENTITY_NEAR_CACHE_MAX_ENTRIES_PROP, "10");
+      return cfg;
+   }
+
+   private CacheDataDescription getCacheDataDescription() {
+      return new CacheDataDescriptionImpl(true, true, ComparableComparator.INSTANCE);
+   }
+}
@@ -0,0 +1,209 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat, Inc or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.test.cache.infinispan.impl;
+
+import javax.transaction.TransactionManager;
+
+import org.hibernate.cache.infinispan.impl.NearCache;
+import org.hibernate.test.cache.infinispan.functional.cluster.DualNodeJtaTransactionManagerImpl;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests of {@link NearCache}.
+ *
+ * @author agent
+ */
+public class NearCacheUnitTestCase extends TestCase {
+   private static final Object KEY1 = "KEY1";
+   private static final Object VALUE1 = "VALUE1";
+
+   private TransactionManager tm;
+
+   public NearCacheUnitTestCase(String name) {
+      super(name);
+   }
+
+   @Override
+   protected void setUp() throws Exception {
+      super.setUp();
+      tm = DualNodeJtaTransactionManagerImpl.getInstance("test");
+   }
+
+   @Override
+   protected void tearDown() throws Exception {
+      try {
+         super.tearDown();
+      } finally {
+         tm = null;
+         try {
+            DualNodeJtaTransactionManagerImpl.cleanupTransactions();
+         } finally {
+            DualNodeJtaTransactionManagerImpl.cleanupTransactionManagers();
+         }
+      }
+   }
+
+   public void testReadThenHit() {
+      NearCache nearCache = new NearCache(10, tm);
+      assertNull(nearCache.get(KEY1));
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertEquals(VALUE1, nearCache.get(KEY1));
+      nearCache.invalidate(KEY1);
+      assertNull(nearCache.get(KEY1));
+   }
+
+   public void testInvalidationDuringReadDiscardsValue() {
+      NearCache nearCache = new NearCache(10, tm);
+      long stamp = nearCache.beginRead();
+      nearCache.invalidate(KEY1);
+      nearCache.putFromRead(KEY1, VALUE1, stamp);
+      assertNull(nearCache.get(KEY1));
+   }
+
+   public void testInvalidateAll() {
+      NearCache nearCache = new NearCache(10, tm);
+      for (int i = 0; i < 5; i++) {
+         nearCache.putFromRead("KEY" + i, "VALUE" + i, nearCache.beginRead());
+      }
+      assertEquals(5, nearCache.size());
+      nearCache.invalidateAll();
+      assertEquals(0, nearCache.size());
+      assertNull(nearCache.get("KEY1"));
+   }
+
+   public void testBounded() {
+      NearCache nearCache = new NearCache(10, tm);
+      for (int i = 0; i < 100; i++) {
+         nearCache.putFromRead("KEY" + i, "VALUE" + i, nearCache.beginRead());
+      }
+      assertEquals(10, nearCache.size());
+      assertEquals("VALUE99", nearCache.get("KEY99"));
+   }
+
+   public void testEvictionSparesRecentlyRead() {
+      NearCache nearCache = new NearCache(3, tm);
+      for (int i = 0; i < 3; i++) {
+         nearCache.putFromRead("KEY" + i, "VALUE" + i, nearCache.beginRead());
+      }
+      // KEY0 is the oldest but was read, so KEY1 is evicted instead
+      assertEquals("VALUE0", nearCache.get("KEY0"));
+      nearCache.putFromRead("KEY3", "VALUE3", nearCache.beginRead());
+      assertEquals(3, nearCache.size());
+      assertEquals("VALUE0", nearCache.get("KEY0"));
+      assertNull(nearCache.get("KEY1"));
+      assertEquals("VALUE2", nearCache.get("KEY2"));
+      assertEquals("VALUE3", nearCache.get("KEY3"));
+
+      // Every entry was read since, so the first one queued goes
+      nearCache.putFromRead("KEY4", "VALUE4", nearCache.beginRead());
+      assertEquals(3, nearCache.size());
+      assertNull(nearCache.get("KEY2"));
+      assertEquals("VALUE4", nearCache.get("KEY4"));
+   }
+
+   public void testLifespan() {
+      TestNearCache nearCache = new TestNearCache(10, 1000, -1);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      nearCache.advance(600);
+      assertEquals(VALUE1, nearCache.get(KEY1));
+      nearCache.advance(600);
+      assertNull("Expired after its lifespan though read", nearCache.get(KEY1));
+      assertEquals(0, nearCache.size());
+   }
+
+   public void testMaxIdle() {
+      TestNearCache nearCache = new TestNearCache(10, -1, 1000);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      nearCache.advance(600);
+      assertEquals(VALUE1, nearCache.get(KEY1));
+      nearCache.advance(600);
+      assertEquals("Reads keep the entry alive", VALUE1, nearCache.get(KEY1));
+      nearCache.advance(1100);
+      assertNull(nearCache.get(KEY1));
+      assertEquals(0, nearCache.size());
+   }
+
+   public void testNonTransactionalWrite() {
+      NearCache nearCache = new NearCache(10, tm);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertFalse(nearCache.beginWrite(KEY1));
+      assertNull(nearCache.get(KEY1));
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertNull("Reads must not populate while a write is pending", nearCache.get(KEY1));
+      nearCache.endWrite(KEY1);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertEquals(VALUE1, nearCache.get(KEY1));
+   }
+
+   public void testOverlappingWrites() {
+      NearCache nearCache = new NearCache(10, tm);
+      assertFalse(nearCache.beginWrite(KEY1));
+      assertFalse(nearCache.beginWrite(KEY1));
+      nearCache.endWrite(KEY1);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertNull("A write is still pending", nearCache.get(KEY1));
+      nearCache.endWrite(KEY1);
+
+      // A write starting after the last one ended is counted afresh
+      assertFalse(nearCache.beginWrite(KEY1));
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertNull(nearCache.get(KEY1));
+      nearCache.endWrite(KEY1);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      assertEquals(VALUE1, nearCache.get(KEY1));
+   }
+
+   public void testTransactionalWriteBypassesUntilCompletion() throws Exception {
+      NearCache nearCache = new NearCache(10, tm);
+      nearCache.putFromRead(KEY1, VALUE1, nearCache.beginRead());
+      tm.begin();
+      try {
+         assertTrue(nearCache.beginWrite(KEY1));
+         nearCache.putFromRead(KEY1, "UNCOMMITTED", nearCache.beginRead());
+         assertNull(nearCache.get(KEY1));
+      } finally {
+         tm.commit();
+      }
+      nearCache.putFromRead(KEY1, "COMMITTED", nearCache.beginRead());
+      assertEquals("COMMITTED", nearCache.get(KEY1));
+   }
+
+   private static class TestNearCache extends NearCache {
+      private long time = 1000000;
+
+      TestNearCache(int maxEntries, long lifespan, long maxIdle) {
+         super(maxEntries, lifespan, maxIdle, null);
+      }
+
+      @Override
+      protected long currentTimeMillis() {
+         return time;
+      }
+
+      void advance(long millis) {
+         time += millis;
+      }
+   }
+}
@@ -0,0 +1,493 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.action;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.hibernate.EntityMode;
+import org.hibernate.HibernateException;
+import org.hibernate.collection.PersistentCollection;
+import org.hibernate.engine.CascadeStyle;
+import org.hibernate.engine.CascadingAction;
+import org.hibernate.engine.CollectionKey;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.PersistenceContext;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.event.EventSource;
+import org.hibernate.stat.StatisticsImplementor;
+import org.hibernate.exception.JDBCExceptionHelper;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.Queryable;
+import org.hibernate.pretty.MessageHelper;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.CompositeType;
+import org.hibernate.type.Type;
+import org.hibernate.util.StringHelper;
+
+/**
+ * An {@link org.hibernate.engine.ActionQueue} {@link Executable} which cascades
+ * the deletion of an entity to the unloaded children of one of its inverse
+ * one-to-many collections by set-based SQL <tt>DELETE</tt> statements, instead
+ * of loading and deleting each child.  The children's own cascaded one-to-many
+ * collections and element collections are removed the same way, from the
+ * bottom up, by restricting on subselects of the parent keys.
+ * <p/>
+ * This only applies where deleting the children needs no per-child processing:
+ * see {@link #forCollection}.  The proxies of the deleted children are removed
+ * from the persistence context, and their deletions counted in the statistics,
+ * as they would be by deleting each child.
+ * <p/>
+ * Children loaded after the action was scheduled, for example by
+ * {@link org.hibernate.Session#get} before the flush, would be left in the
+ * persistence context although deleted: the action is then replaced by
+ * {@link #cascadePerEntity deleting each child} at the start of the flush.
+ *
+ * @author agent
+ */
+public class BulkCascadeDeleteAction implements Executable, Serializable {
+	private static final Logger log = LoggerFactory.getLogger( BulkCascadeDeleteAction.class );
+
+	private final String role;
+	private final Serializable key;
+	private final String[] deleteStrings;
+	private final String[] deletedEntityNames;
+	private final String[] idSelectStrings;
+	private final String[] affectedEntityNames;
+	private final String[] affectedTableSpaces;
+	private transient EventSource session;
+
+	private BulkCascadeDeleteAction(
+			String role,
+			Serializable key,
+			String[] deleteStrings,
+			String[] deletedEntityNames,
+			String[] idSelectStrings,
+			String[] affectedEntityNames,
+			String[] affectedTableSpaces,
+			EventSource session) {
+		this.role = role;
+		this.key = key;
+		this.deleteStrings = deleteStrings;
+		this.deletedEntityNames = deletedEntityNames;
+		this.idSelectStrings = idSelectStrings;
+		this.affectedEntityNames = affectedEntityNames;
+		this.affectedTableSpaces = affectedTableSpaces;
+		this.session = session;
+	}
+
+	/**
+	 * Plan the set-based deletion of the children of the given collection.  This is
+	 * only possible for an inverse one-to-many collection whose children, and their
+	 * cascaded children in turn, are mapped to a single table without inheritance,
+	 * where clause or custom delete SQL, cascade deletes to no other associations,
+	 * do not implement {@link org.hibernate.classic.Lifecycle} and have no instances
+	 * in the persistence context.
+	 *
+	 * @param persister The collection persister
+	 * @param key The collection key
+	 * @param session The session
+	 *
+	 * @return The action, or null if the children must be deleted one by one
+	 */
+	public static BulkCascadeDeleteAction forCollection(
+			CollectionPersister persister,
+			Serializable key,
+			EventSource session) {
+		if ( !persister.isOneToMany() || !persister.isInverse() || !( persister instanceof AbstractCollectionPersister ) ) {
+			return null;
+		}
+		Planner planner = new Planner( session );
+		if ( !planner.planChildren( ( AbstractCollectionPersister ) persister, null ) ) {
+			return null;
+		}
+		return new BulkCascadeDeleteAction(
+				persister.getRole(),
+				key,
+				( String[] ) planner.deleteStrings.toArray( new String[ planner.deleteStrings.size() ] ),
+				( String[] ) planner.deletedEntityNames.toArray( new String[ planner.deletedEntityNames.size() ] ),
+				( String[] ) planner.idSelectStrings.toArray( new String[ planner.idSelectStrings.size() ] ),
+				( String[] ) planner.entityNames.toArray( new String[ planner.entityNames.size() ] ),
+				( String[] ) planner.tableSpaces.toArray( new String[ planner.tableSpaces.size() ] ),
+				session
+		);
+	}
+
+	/**
+	 * Is the set-based deletion still possible, given the entities now in the
+	 * persistence context?
+	 *
+	 * @return true if no children, or other instances of their entities, have been loaded since
+	 */
+	public boolean isStillApplicable() {
+		return forCollection( session.getFactory().getCollectionPersister( role ), key, session ) != null;
+	}
+
+	/**
+	 * Cascade the deletion to each child of the collection instead, loading them
+	 * if necessary, as it would be cascaded without the set-based deletion.
+	 */
+	public void cascadePerEntity() throws HibernateException {
+		final CollectionPersister persister = session.getFactory().getCollectionPersister( role );
+		final CollectionType type = persister.getCollectionType();
+		final PersistenceContext persistenceContext = session.getPersistenceContext();
+		final PersistentCollection collection = persistenceContext.getCollection(
+				new CollectionKey( persister, key, session.getEntityMode() )
+		);
+		final Object owner = collection == null ?
+				persistenceContext.getCollectionOwner( key, persister ) :
+				collection.getOwner();
+		final Object value = collection == null ? type.getCollection( key, session, owner ) : collection.getValue();
+		if ( log.isDebugEnabled() ) {
+			log.debug(
+					"children loaded, cascading delete to each child of collection: " +
+							MessageHelper.collectionInfoString( persister, key, session.getFactory() )
+			);
+		}
+
+		// copy the children first, since deleting them may cascade to collections of their own
+		final List children = new ArrayList();
+		Iterator elements = CascadingAction.DELETE.getCascadableChildrenIterator( session, type, value );
+		while ( elements.hasNext() ) {
+			children.add( elements.next() );
+		}
+		final String entityName = type.getAssociatedEntityName( session.getFactory() );
+		final Set transientEntities = new HashSet();
+		// the owner was not yet deleted when its deletion was cascaded, so the
+		// children's references to it must not be nullified by updates either
+		final EntityKey ownerKey = persistenceContext.getEntry( owner ).getEntityKey();
+		final boolean ownerNullifiable = persistenceContext.getNullifiableEntityKeys().remove( ownerKey );
+		try {
+			for ( int i = 0; i < children.size(); i++ ) {
+				CascadingAction.DELETE.cascade(
+						session, children.get( i ), entityName, transientEntities, persister.isCascadeDeleteEnabled()
+				);
+			}
+		}
+		finally {
+			if ( ownerNullifiable ) {
+				persistenceContext.getNullifiableEntityKeys().add( ownerKey );
+			}
+		}
+	}
+
+	/**
+	 * Reassociate this action with the session after deserialization
+	 */
+	public void afterDeserialize(SessionImplementor session) {
+		this.session = ( EventSource ) session;
+	}
+
+	public Serializable[] getPropertySpaces() {
+		return affectedTableSpaces;
+	}
+
+	public void beforeExecutions() throws HibernateException {
+		// nothing to do
+	}
+
+	public void execute() throws HibernateException {
+		final SessionFactoryImplementor factory = session.getFactory();
+		final CollectionPersister persister = factory.getCollectionPersister( role );
+		if ( !isStillApplicable() ) {
+			// children loaded during the flush itself, after the action was checked
+			throw new HibernateException(
+					"children loaded during flush, could not cascade delete children of collection: " +
+							MessageHelper.collectionInfoString( persister, key, factory )
+			);
+		}
+
+		Queryable[] affectedQueryables = new Queryable[ affectedEntityNames.length ];
+		for ( int i = 0; i < affectedEntityNames.length; i++ ) {
+			affectedQueryables[i] = ( Queryable ) factory.getEntityPersister( affectedEntityNames[i] );
+		}
+		session.getActionQueue().addAction( new BulkOperationCleanupAction( session, affectedQueryables ) );
+
+		evictProxies( persister );
+
+		final StatisticsImplementor statistics = factory.getStatistics().isStatisticsEnabled() ?
+				factory.getStatisticsImplementor() :
+				null;
+		for ( int i = 0; i < deleteStrings.length; i++ ) {
+			try {
+				PreparedStatement st = session.getBatcher().prepareStatement( deleteStrings[i] );
+				try {
+					persister.getKeyType().nullSafeSet( st, key, 1, session );
+					int count = st.executeUpdate();
+					if ( log.isDebugEnabled() ) {
+						log.debug( "cascade deleted " + count + " rows: " + deleteStrings[i] );
+					}
+					if ( statistics != null && deletedEntityNames[i] != null ) {
+						for ( int j = 0; j < count; j++ ) {
+							statistics.deleteEntity( deletedEntityNames[i] );
+						}
+					}
+				}
+				finally {
+					session.getBatcher().closeStatement( st );
+				}
+			}
+			catch ( SQLException sqle ) {
+				throw JDBCExceptionHelper.convert(
+						factory.getSQLExceptionConverter(),
+						sqle,
+						"could not cascade delete children of collection: " +
+								MessageHelper.collectionInfoString( persister, key, factory ),
+						deleteStrings[i]
+				);
+			}
+		}
+	}
+
+	/**
+	 * Remove the proxies of the children about to be deleted from the persistence
+	 * context, selecting the ids of the children of the entities which have any
+	 */
+	private void evictProxies(CollectionPersister persister) {
+		final SessionFactoryImplementor factory = session.getFactory();
+		Set proxiedEntityNames = new HashSet();
+		Iterator keys = session.getPersistenceContext().getProxiesByKey().keySet().iterator();
+		while ( keys.hasNext() ) {
+			proxiedEntityNames.add( ( ( EntityKey ) keys.next() ).getEntityName() );
+		}
+		for ( int i = 0; i < idSelectStrings.length; i++ ) {
+			if ( deletedEntityNames[i] == null || !proxiedEntityNames.contains( deletedEntityNames[i] ) ) {
+				continue;
+			}
+			AbstractEntityPersister child = ( AbstractEntityPersister ) factory.getEntityPersister( deletedEntityNames[i] );
+			try {
+				PreparedStatement st = session.getBatcher().prepareSelectStatement( idSelectStrings[i] );
+				ResultSet rs = null;
+				try {
+					persister.getKeyType().nullSafeSet( st, key, 1, session );
+					rs = session.getBatcher().getResultSet( st );
+					while ( rs.next() ) {
+						Serializable id = ( Serializable ) child.getIdentifierType().nullSafeGet(
+								rs, child.getIdentifierColumnNames(), session, null
+						);
+						session.getPersistenceContext().removeProxy( new EntityKey( id, child, session.getEntityMode() ) );
+					}
+				}
+				finally {
+					session.getBatcher().closeQueryStatement( st, rs );
+				}
+			}
+			catch ( SQLException sqle ) {
+				throw JDBCExceptionHelper.convert(
+						factory.getSQLExceptionConverter(),
+						sqle,
+						"could not select children to cascade delete: " +
+								MessageHelper.collectionInfoString( persister, key, factory ),
+						idSelectStrings[i]
+				);
+			}
+		}
+	}
+
+	public BeforeTransactionCompletionProcess getBeforeTransactionCompletionProcess() {
+		return null;
+	}
+
+	public AfterTransactionCompletionProcess getAfterTransactionCompletionProcess() {
+		// the shared cache is cleaned up by the BulkOperationCleanupAction
+		return null;
+	}
+
+	public String toString() {
+		return "BulkCascadeDeleteAction" + MessageHelper.collectionInfoString( role, key );
+	}
+
+	/**
+	 * Collects the <tt>DELETE</tt> statements, children before parents.  Every
+	 * statement is restricted, directly or through subselects, by the key of
+	 * the collection being cascaded to, so each binds that key only.
+	 */
+	private static class Planner {
+		private final SessionImplementor session;
+		private final SessionFactoryImplementor factory;
+		private final Set loadedEntityNames = new HashSet();
+		private final List deleteStrings = new ArrayList();
+		private final List deletedEntityNames = new ArrayList();
+		private final List idSelectStrings = new ArrayList();
+		private final Set entityNames = new LinkedHashSet();
+		private final Set tableSpaces = new LinkedHashSet();
+
+		private Planner(SessionImplementor session) {
+			this.session = session;
+			this.factory = session.getFactory();
+			Iterator keys = session.getPersistenceContext().getEntitiesByKey().keySet().iterator();
+			while ( keys.hasNext() ) {
+				loadedEntityNames.add( ( ( EntityKey ) keys.next() ).getEntityName() );
+			}
+		}
+
+		/**
+		 * Plan the deletion of the children of a one-to-many collection, whose
+		 * owners are identified by the given subselect, or by the collection key
+		 * if null.
+		 */
+		private boolean planChildren(AbstractCollectionPersister collection, String ownerIdSubselect) {
+			if ( collection.hasWhere() || collection.isAffectedByEnabledFilters( session ) ) {
+				return false;
+			}
+			if ( ownerIdSubselect != null && collection.getCollectionType().getLHSPropertyName() != null ) {
+				return false;
+			}
+			EntityPersister elementPersister = collection.getElementPersister();
+			if ( !( elementPersister instanceof AbstractEntityPersister ) ) {
+				return false;
+			}
+			AbstractEntityPersister child = ( AbstractEntityPersister ) elementPersister;
+			if ( !child.isBulkDeleteSupported() ||
+					child.implementsLifecycle( EntityMode.POJO ) ||
+					loadedEntityNames.contains( child.getEntityName() ) ||
+					!entityNames.add( child.getEntityName() ) ) {
+				// the last also stops at cycles
+				return false;
+			}
+
+			String restriction = restriction( collection.getKeyColumnNames(), ownerIdSubselect );
+			if ( restriction == null ) {
+				return false;
+			}
+			String[] idColumns = child.getIdentifierColumnNames();
+			String childIdSubselect = idColumns.length == 1 ?
+					"select " + idColumns[0] + " from " + child.getTableName() + " where " + restriction :
+					null;
+
+			Type[] types = child.getPropertyTypes();
+			CascadeStyle[] cascadeStyles = child.getPropertyCascadeStyles();
+			for ( int i = 0; i < types.length; i++ ) {
+				boolean cascadeDelete = cascadeStyles[i].doCascade( CascadingAction.DELETE );
+				if ( types[i].isCollectionType() ) {
+					CollectionPersister childCollection = factory.getCollectionPersister(
+							( ( CollectionType ) types[i] ).getRole()
+					);
+					if ( !planChildCollection( childCollection, cascadeDelete, childIdSubselect ) ) {
+						return false;
+					}
+				}
+				else if ( !isPlainProperty( types[i], cascadeDelete ) ) {
+					return false;
+				}
+			}
+
+			deleteStrings.add( "delete from " + child.getTableName() + " where " + restriction );
+			deletedEntityNames.add( child.getEntityName() );
+			idSelectStrings.add(
+					"select " + StringHelper.join( ", ", idColumns ) + " from " + child.getTableName() + " where " + restriction
+			);
+			tableSpaces.addAll( Arrays.asList( child.getQuerySpaces() ) );
+			return true;
+		}
+
+		/**
+		 * Plan the removal of a collection owned by a child about to be deleted
+		 */
+		private boolean planChildCollection(
+				CollectionPersister collection,
+				boolean cascadeDelete,
+				String ownerIdSubselect) {
+			if ( !( collection instanceof AbstractCollectionPersister ) ) {
+				return false;
+			}
+			AbstractCollectionPersister childCollection = ( AbstractCollectionPersister ) collection;
+			if ( childCollection.isOneToMany() ) {
+				if ( cascadeDelete ) {
+					return ownerIdSubselect != null &&
+							childCollection.isInverse() &&
+							planChildren( childCollection, ownerIdSubselect );
+				}
+				// otherwise, a non-inverse collection would have its foreign keys nulled
+				return childCollection.isInverse();
+			}
+			if ( childCollection.isInverse() ) {
+				return true;
+			}
+			if ( ( cascadeDelete && childCollection.getElementType().isAssociationType() ) ||
+					ownerIdSubselect == null ||
+					!childCollection.isBulkRemoveSupported() ||
+					childCollection.getCollectionType().getLHSPropertyName() != null ) {
+				return false;
+			}
+			String restriction = restriction( childCollection.getKeyColumnNames(), ownerIdSubselect );
+			if ( restriction == null ) {
+				return false;
+			}
+			deleteStrings.add( "delete from " + childCollection.getTableName() + " where " + restriction );
+			deletedEntityNames.add( null );
+			idSelectStrings.add( null );
+			tableSpaces.addAll( Arrays.asList( childCollection.getCollectionSpaces() ) );
+			return true;
+		}
+
+		/**
+		 * Is this a property which needs no processing when its owner is deleted?
+		 */
+		private boolean isPlainProperty(Type type, boolean cascadeDelete) {
+			if ( type.isComponentType() ) {
+				CompositeType componentType = ( CompositeType ) type;
+				Type[] subtypes = componentType.getSubtypes();
+				for ( int i = 0; i < subtypes.length; i++ ) {
+					if ( subtypes[i].isCollectionType() ||
+							!isPlainProperty( subtypes[i], componentType.getCascadeStyle( i ).doCascade( CascadingAction.DELETE ) ) ) {
+						return false;
+					}
+				}
+				return true;
+			}
+			return !( type.isAssociationType() && cascadeDelete );
+		}
+
+		private static String restriction(String[] columns, String ownerIdSubselect) {
+			if ( ownerIdSubselect == null ) {
+				StringBuffer buf = new StringBuffer();
+				for ( int i = 0; i < columns.length; i++ ) {
+					if ( i > 0 ) {
+						buf.append( " and " );
+					}
+					buf.append( columns[i] ).append( "=?" );
+				}
+				return buf.toString();
+			}
+			return columns.length == 1 ? columns[0] + " in (" + ownerIdSubselect + ")" : null;
+		}
+	}
+}
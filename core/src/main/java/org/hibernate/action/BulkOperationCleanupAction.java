@@ -31,6 +31,7 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.hibernate.HibernateException;
+import org.hibernate.cache.CacheKey;
 import org.hibernate.cache.access.CollectionRegionAccessStrategy;
 import org.hibernate.cache.access.EntityRegionAccessStrategy;
 import org.hibernate.cache.access.SoftLock;
@@ -39,6 +40,7 @@ import org.hibernate.engine.SessionImplementor;
 import org.hibernate.persister.collection.CollectionPersister;
 import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.persister.entity.Queryable;
+import org.hibernate.type.EntityType;
 
 /**
  * An {@link org.hibernate.engine.ActionQueue} {@link Executable} for ensuring
@@ -57,6 +59,7 @@ public class BulkOperationCleanupAction implements Executable, Serializable {
 
 	private final Set<EntityCleanup> entityCleanups = new HashSet<EntityCleanup>();
 	private final Set<CollectionCleanup> collectionCleanups = new HashSet<CollectionCleanup>();
+	private final Set<ItemCleanup> itemCleanups = new HashSet<ItemCleanup>();
 
 	/**
 	 * Constructs an action to cleanup "affected cache regions" based on the
@@ -92,6 +95,101 @@ public class BulkOperationCleanupAction implements Executable, Serializable {
 		this.affectedTableSpaces = spacesList.toArray( new String[ spacesList.size() ] );
 	}
 
+	/**
+	 * Constructs an action to cleanup the cached state of the given instances of
+	 * an entity only, rather than the entire regions the entity affects.  The
+	 * collections keyed by these instances are cleaned up by key as well.  The
+	 * regions of collections in which the entity participates as an element are
+	 * cleaned up entirely, but only if the operation may have changed their
+	 * membership: when the instances were deleted, or when the table holding the
+	 * key of a one-to-many collection was updated.
+	 *
+	 * @param session The session to which this request is tied.
+	 * @param affectedQueryable The affected entity persister.
+	 * @param affectedIds The identifiers of the affected instances.
+	 * @param updatedTableNames The names of the tables updated by the operation,
+	 * or null if the operation deleted the affected instances.
+	 */
+	public BulkOperationCleanupAction(
+			SessionImplementor session,
+			Queryable affectedQueryable,
+			Serializable[] affectedIds,
+			Set<String> updatedTableNames) {
+		SessionFactoryImplementor factory = session.getFactory();
+		this.affectedTableSpaces = ( String[] ) affectedQueryable.getQuerySpaces();
+
+		if ( affectedQueryable.hasCache() ) {
+			CacheKey[] keys = new CacheKey[ affectedIds.length ];
+			for ( int i = 0; i < affectedIds.length; i++ ) {
+				keys[i] = new CacheKey(
+						affectedIds[i],
+						affectedQueryable.getIdentifierType(),
+						affectedQueryable.getRootEntityName(),
+						session.getEntityMode(),
+						factory
+				);
+			}
+			itemCleanups.add( new EntityItemCleanup( affectedQueryable.getCacheAccessStrategy(), keys ) );
+		}
+
+		// collections of a superclass may hold the affected instances as well
+		Set<String> roles = new HashSet<String>();
+		EntityPersister persister = affectedQueryable;
+		while ( persister != null ) {
+			Set<String> participantRoles = factory.getCollectionRolesByEntityParticipant( persister.getEntityName() );
+			if ( participantRoles != null ) {
+				roles.addAll( participantRoles );
+			}
+			String superclass = persister.getEntityMetamodel().getSuperclass();
+			persister = superclass == null ? null : factory.getEntityPersister( superclass );
+		}
+		for ( String role : roles ) {
+			CollectionPersister collectionPersister = factory.getCollectionPersister( role );
+			if ( !collectionPersister.hasCache() ) {
+				continue;
+			}
+			if ( isElement( affectedQueryable, collectionPersister ) ) {
+				if ( updatedTableNames == null || ( collectionPersister.isOneToMany()
+						&& updatedTableNames.contains( collectionPersister.getCollectionSpaces()[0] ) ) ) {
+					collectionCleanups.add( new CollectionCleanup( collectionPersister.getCacheAccessStrategy() ) );
+					continue;
+				}
+			}
+			if ( isKeyedByIdentifier( affectedQueryable, collectionPersister ) ) {
+				CacheKey[] keys = new CacheKey[ affectedIds.length ];
+				for ( int i = 0; i < affectedIds.length; i++ ) {
+					keys[i] = new CacheKey(
+							affectedIds[i],
+							collectionPersister.getKeyType(),
+							role,
+							session.getEntityMode(),
+							factory
+					);
+				}
+				itemCleanups.add( new CollectionItemCleanup( collectionPersister.getCacheAccessStrategy(), keys ) );
+			}
+			else if ( !isElement( affectedQueryable, collectionPersister ) ) {
+				// keyed by some other property of the owner
+				collectionCleanups.add( new CollectionCleanup( collectionPersister.getCacheAccessStrategy() ) );
+			}
+		}
+	}
+
+	private static boolean isElement(Queryable persister, CollectionPersister collectionPersister) {
+		if ( !collectionPersister.getElementType().isEntityType() ) {
+			return false;
+		}
+		String elementEntityName = ( ( EntityType ) collectionPersister.getElementType() )
+				.getAssociatedEntityName( persister.getFactory() );
+		return persister.getFactory().getEntityPersister( elementEntityName ).getRootEntityName()
+				.equals( persister.getRootEntityName() );
+	}
+
+	private static boolean isKeyedByIdentifier(Queryable persister, CollectionPersister collectionPersister) {
+		return collectionPersister.getOwnerEntityPersister().getRootEntityName().equals( persister.getRootEntityName() )
+				&& collectionPersister.getCollectionType().getLHSPropertyName() == null;
+	}
+
 	/**
 	 * Constructs an action to cleanup "affected cache regions" based on a
 	 * set of affected table spaces.  This differs from {@link #BulkOperationCleanupAction(SessionImplementor, Queryable[])}
@@ -184,6 +282,12 @@ public class BulkOperationCleanupAction implements Executable, Serializable {
 					final CollectionCleanup cleanup = ( CollectionCleanup ) itr.next();
 					cleanup.release();
 				}
+
+				itr = itemCleanups.iterator();
+				while ( itr.hasNext() ) {
+					final ItemCleanup cleanup = ( ItemCleanup ) itr.next();
+					cleanup.release();
+				}
 			}
 		};
 	}
@@ -225,4 +329,52 @@ public class BulkOperationCleanupAction implements Executable, Serializable {
 			cacheAccess.unlockRegion( cacheLock );
 		}
 	}
+
+	private static interface ItemCleanup {
+		public void release();
+	}
+
+	private static class EntityItemCleanup implements ItemCleanup {
+		private final EntityRegionAccessStrategy cacheAccess;
+		private final CacheKey[] keys;
+		private final SoftLock[] cacheLocks;
+
+		private EntityItemCleanup(EntityRegionAccessStrategy cacheAccess, CacheKey[] keys) {
+			this.cacheAccess = cacheAccess;
+			this.keys = keys;
+			this.cacheLocks = new SoftLock[ keys.length ];
+			for ( int i = 0; i < keys.length; i++ ) {
+				cacheLocks[i] = cacheAccess.lockItem( keys[i], null );
+				cacheAccess.remove( keys[i] );
+			}
+		}
+
+		public void release() {
+			for ( int i = 0; i < keys.length; i++ ) {
+				cacheAccess.unlockItem( keys[i], cacheLocks[i] );
+			}
+		}
+	}
+
+	private static class CollectionItemCleanup implements ItemCleanup {
+		private final CollectionRegionAccessStrategy cacheAccess;
+		private final CacheKey[] keys;
+		private final SoftLock[] cacheLocks;
+
+		private CollectionItemCleanup(CollectionRegionAccessStrategy cacheAccess, CacheKey[] keys) {
+			this.cacheAccess = cacheAccess;
+			this.keys = keys;
+			this.cacheLocks = new SoftLock[ keys.length ];
+			for ( int i = 0; i < keys.length; i++ ) {
+				cacheLocks[i] = cacheAccess.lockItem( keys[i], null );
+				cacheAccess.remove( keys[i] );
+			}
+		}
+
+		public void release() {
+			for ( int i = 0; i < keys.length; i++ ) {
+				cacheAccess.unlockItem( keys[i], cacheLocks[i] );
+			}
+		}
+	}
 }
@@ -32,6 +32,7 @@ import org.hibernate.event.PreCollectionUpdateEventListener;
 import org.hibernate.event.EventSource;
 import org.hibernate.event.PostCollectionUpdateEventListener;
 import org.hibernate.cache.CacheException;
+import org.hibernate.collection.AbstractPersistentCollection;
 import org.hibernate.collection.PersistentCollection;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.persister.collection.CollectionPersister;
@@ -65,7 +66,16 @@ public final class CollectionUpdateAction extends CollectionAction {
 
 		if ( !collection.wasInitialized() ) {
 			if ( !collection.hasQueuedOperations() ) throw new AssertionFailure( "no queued adds" );
-			//do nothing - we only need to notify the cache...
+			if ( !persister.isInverse() ) {
+				// the queued operations of a non-inverse collection are
+				// written directly, without initializing it
+				if ( ( (AbstractPersistentCollection) collection ).hasQueuedClear() ) {
+					persister.remove( id, session );
+				}
+				persister.deleteRows( collection, id, session );
+				persister.insertRows( collection, id, session );
+			}
+			//otherwise do nothing - we only need to notify the cache...
 		}
 		else if ( !affectedByFilters && collection.empty() ) {
 			if ( !emptySnapshot ) persister.remove( id, session );
@@ -25,6 +25,8 @@
 package org.hibernate.action;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.hibernate.HibernateException;
 import org.hibernate.AssertionFailure;
@@ -35,6 +37,7 @@ import org.hibernate.event.PostInsertEventListener;
 import org.hibernate.event.PreInsertEvent;
 import org.hibernate.event.PreInsertEventListener;
 import org.hibernate.event.EventSource;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.hibernate.persister.entity.EntityPersister;
 
 public final class EntityIdentityInsertAction extends EntityAction  {
@@ -68,14 +71,7 @@ public final class EntityIdentityInsertAction extends EntityAction  {
 		// else inserted the same pk first, the insert would fail
 
 		if ( !veto ) {
-			generatedId = persister.insert( state, instance, session );
-			if ( persister.hasInsertGeneratedProperties() ) {
-				persister.processInsertGeneratedProperties( generatedId, instance, state, session );
-			}
-			//need to do that here rather than in the save event listener to let
-			//the post insert events to have a id-filled entity when IDENTITY is used (EJB3)
-			persister.setIdentifier( instance, generatedId, session );
-			getSession().getPersistenceContext().registerInsertedKey( getPersister(), generatedId );
+			inserted( persister.insert( state, instance, session ) );
 		}
 
 
@@ -95,6 +91,83 @@ public final class EntityIdentityInsertAction extends EntityAction  {
 
 	}
 
+	/**
+	 * Executes the given delayed identity inserts, all of the same entity type and
+	 * none referencing another, as a single JDBC batch.
+	 *
+	 * @param actions The {@link EntityIdentityInsertAction}s to execute; all must be
+	 * {@link #isBatchable() batchable}
+	 * @throws HibernateException Indicates a problem performing the inserts
+	 */
+	public static void executeBatch(List actions) throws HibernateException {
+		final EntityIdentityInsertAction first = ( EntityIdentityInsertAction ) actions.get( 0 );
+		final AbstractEntityPersister persister = ( AbstractEntityPersister ) first.getPersister();
+		final SessionImplementor session = first.getSession();
+
+		final int size = actions.size();
+		final boolean[] vetoes = new boolean[size];
+		List inserts = new ArrayList( size );
+		for ( int i = 0; i < size; i++ ) {
+			EntityIdentityInsertAction action = ( EntityIdentityInsertAction ) actions.get( i );
+			vetoes[i] = action.preInsert();
+			if ( !vetoes[i] ) {
+				inserts.add( action );
+			}
+		}
+
+		if ( inserts.size() > 0 ) {
+			Object[][] states = new Object[inserts.size()][];
+			Object[] instances = new Object[inserts.size()];
+			for ( int i = 0; i < states.length; i++ ) {
+				EntityIdentityInsertAction action = ( EntityIdentityInsertAction ) inserts.get( i );
+				states[i] = action.state;
+				instances[i] = action.getInstance();
+			}
+			Serializable[] generatedIds = persister.insert( states, instances, session );
+			for ( int i = 0; i < generatedIds.length; i++ ) {
+				( ( EntityIdentityInsertAction ) inserts.get( i ) ).inserted( generatedIds[i] );
+			}
+		}
+
+		for ( int i = 0; i < size; i++ ) {
+			EntityIdentityInsertAction action = ( EntityIdentityInsertAction ) actions.get( i );
+			action.postInsert();
+			if ( session.getFactory().getStatistics().isStatisticsEnabled() && !vetoes[i] ) {
+				session.getFactory().getStatisticsImplementor().insertEntity( persister.getEntityName() );
+			}
+		}
+	}
+
+	private void inserted(Serializable generatedId) {
+		final EntityPersister persister = getPersister();
+		final SessionImplementor session = getSession();
+		this.generatedId = generatedId;
+		if ( persister.hasInsertGeneratedProperties() ) {
+			persister.processInsertGeneratedProperties( generatedId, getInstance(), state, session );
+		}
+		//need to do that here rather than in the save event listener to let
+		//the post insert events to have a id-filled entity when IDENTITY is used (EJB3)
+		persister.setIdentifier( getInstance(), generatedId, session );
+		session.getPersistenceContext().registerInsertedKey( persister, generatedId );
+	}
+
+	/**
+	 * Can this insert be executed in a JDBC batch together with other delayed
+	 * identity inserts of the same entity type?
+	 *
+	 * @return True if the insert was delayed and the persister supports batched
+	 * identity inserts.
+	 */
+	public boolean isBatchable() {
+		return isDelayed
+				&& getPersister() instanceof AbstractEntityPersister
+				&& ( ( AbstractEntityPersister ) getPersister() ).isIdentityInsertBatchable();
+	}
+
+	public Object[] getState() {
+		return state;
+	}
+
 	public boolean needsAfterTransactionCompletion() {
 		//TODO: simply remove this override if we fix the above todos
 		return hasPostCommitEventListeners();
@@ -31,6 +31,7 @@ import org.hibernate.cache.CacheException;
 import org.hibernate.cache.CacheKey;
 import org.hibernate.cache.access.SoftLock;
 import org.hibernate.cache.entry.CacheEntry;
+import org.hibernate.cfg.Settings;
 import org.hibernate.engine.EntityEntry;
 import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.engine.SessionImplementor;
@@ -270,6 +271,47 @@ public final class EntityUpdateAction extends EntityAction {
 		postCommitUpdate();
 	}
 
+	public int compareTo(Object other) {
+		final Settings settings = getSession().getFactory().getSettings();
+		if ( !settings.isOrderUpdatesByShapeEnabled() ) {
+			return super.compareTo( other );
+		}
+		EntityUpdateAction action = ( EntityUpdateAction ) other;
+		int entityComparison = getEntityName().compareTo( action.getEntityName() );
+		if ( entityComparison != 0 ) {
+			return entityComparison;
+		}
+		if ( getPersister().getEntityMetamodel().isDynamicUpdate() ) {
+			// order dynamic updates by the properties they update, so that
+			// updates of the same shape share their SQL and JDBC batch
+			int shapeComparison = compareDirtyProperties( action );
+			if ( shapeComparison != 0 ) {
+				return shapeComparison;
+			}
+		}
+		// within a shape, keep the flush order unless ordering by pk
+		return settings.isOrderUpdatesEnabled() ? super.compareTo( other ) : 0;
+	}
+
+	private int compareDirtyProperties(EntityUpdateAction action) {
+		if ( hasDirtyCollection != action.hasDirtyCollection ) {
+			return hasDirtyCollection ? 1 : -1;
+		}
+		if ( dirtyFields == null || action.dirtyFields == null ) {
+			// without dirty properties, all properties are updated
+			if ( dirtyFields == action.dirtyFields ) {
+				return 0;
+			}
+			return dirtyFields == null ? -1 : 1;
+		}
+		for ( int i = 0; i < dirtyFields.length && i < action.dirtyFields.length; i++ ) {
+			if ( dirtyFields[i] != action.dirtyFields[i] ) {
+				return dirtyFields[i] < action.dirtyFields[i] ? -1 : 1;
+			}
+		}
+		return dirtyFields.length - action.dirtyFields.length;
+	}
+
 }
 
 
@@ -40,6 +40,12 @@ import org.hibernate.bytecode.util.FieldFilter;
  * @author Steve Ebersole
  */
 public interface BytecodeProvider {
+	/**
+	 * Prefix marking an accessor name passed to {@link #getReflectionOptimizer}
+	 * as a field to be accessed directly rather than a method to be invoked.
+	 */
+	public static final String FIELD_ACCESS_PREFIX = "#";
+
 	/**
 	 * Retrieve the specific factory for this provider capable of
 	 * generating run-time proxies for lazy-loading purposes.
@@ -54,7 +60,10 @@ public interface BytecodeProvider {
 	 *
 	 * @param clazz The class to be reflected upon.
 	 * @param getterNames Names of all property getters to be accessed via reflection.
-	 * @param setterNames Names of all property setters to be accessed via reflection.
+	 * Names starting with {@link #FIELD_ACCESS_PREFIX} denote fields; <tt>null</tt> entries
+	 * denote properties left to the caller.
+	 * @param setterNames Names of all property setters to be accessed via reflection,
+	 * following the same conventions as <tt>getterNames</tt>.
 	 * @param types The types of all properties to be accessed.
 	 * @return The reflection optimization delegate.
 	 */
@@ -24,8 +24,10 @@
  */
 package org.hibernate.bytecode.cglib;
 
+import org.hibernate.bytecode.BytecodeProvider;
 import org.hibernate.bytecode.ReflectionOptimizer;
 import org.hibernate.PropertyAccessException;
+import org.hibernate.PropertyNotFoundException;
 import net.sf.cglib.beans.BulkBean;
 import net.sf.cglib.beans.BulkBeanException;
 
@@ -33,10 +35,17 @@ import java.io.Serializable;
 import java.io.ObjectOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The {@link ReflectionOptimizer#AccessOptimizer} implementation for CGLIB
  * which simply acts as an adapter to the {@link BulkBean} class.
+ * <p/>
+ * {@link BulkBean} only invokes methods: properties given as fields (see
+ * {@link BytecodeProvider#FIELD_ACCESS_PREFIX}) are accessed through reflection, and
+ * properties given a <tt>null</tt> name are left to the caller.
  *
  * @author Steve Ebersole
  *
@@ -53,19 +62,115 @@ public class AccessOptimizerAdapter implements ReflectionOptimizer.AccessOptimiz
 
 	private Class mappedClass;
 	private BulkBean bulkBean;
+	// the following are only set when some properties are not accessed through the bulk bean
+	private String[] getterNames;
+	private String[] setterNames;
+	private Class[] types;
+	private transient int[] bulkIndexes;
+	private transient Field[] fields;
 
 	public AccessOptimizerAdapter(BulkBean bulkBean, Class mappedClass) {
 		this.bulkBean = bulkBean;
 		this.mappedClass = mappedClass;
 	}
 
+	/**
+	 * @param mappedClass The class whose properties are accessed.
+	 * @param getterNames The getter names, following the conventions of
+	 * {@link BytecodeProvider#getReflectionOptimizer}.
+	 * @param setterNames The setter names, following the same conventions.
+	 * @param types The property types.
+	 */
+	public AccessOptimizerAdapter(Class mappedClass, String[] getterNames, String[] setterNames, Class[] types) {
+		this.mappedClass = mappedClass;
+		if ( isBulkAccessible( getterNames ) && isBulkAccessible( setterNames ) ) {
+			this.bulkBean = BulkBean.create( mappedClass, getterNames, setterNames, types );
+		}
+		else {
+			this.getterNames = getterNames;
+			this.setterNames = setterNames;
+			this.types = types;
+			initialize();
+		}
+	}
+
+	private static boolean isBulkAccessible(String[] names) {
+		for ( int i = 0; i < names.length; i++ ) {
+			if ( names[i] == null || names[i].startsWith( BytecodeProvider.FIELD_ACCESS_PREFIX ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void initialize() {
+		List bulkProperties = new ArrayList();
+		fields = new Field[getterNames.length];
+		for ( int i = 0; i < getterNames.length; i++ ) {
+			if ( getterNames[i] == null || setterNames[i] == null ) {
+				continue;
+			}
+			if ( getterNames[i].startsWith( BytecodeProvider.FIELD_ACCESS_PREFIX ) ) {
+				fields[i] = getField( getterNames[i].substring( BytecodeProvider.FIELD_ACCESS_PREFIX.length() ) );
+			}
+			else {
+				bulkProperties.add( new Integer( i ) );
+			}
+		}
+		bulkIndexes = new int[bulkProperties.size()];
+		String[] bulkGetterNames = new String[bulkIndexes.length];
+		String[] bulkSetterNames = new String[bulkIndexes.length];
+		Class[] bulkTypes = new Class[bulkIndexes.length];
+		for ( int i = 0; i < bulkIndexes.length; i++ ) {
+			bulkIndexes[i] = ( ( Integer ) bulkProperties.get( i ) ).intValue();
+			bulkGetterNames[i] = getterNames[bulkIndexes[i]];
+			bulkSetterNames[i] = setterNames[bulkIndexes[i]];
+			bulkTypes[i] = types[bulkIndexes[i]];
+		}
+		try {
+			bulkBean = BulkBean.create( mappedClass, bulkGetterNames, bulkSetterNames, bulkTypes );
+		}
+		catch ( BulkBeanException e ) {
+			// report the index of the property rather than its index in the bulk bean
+			throw new BulkBeanException( e.getMessage(), bulkIndexes[e.getIndex()] );
+		}
+	}
+
+	private Field getField(String name) {
+		Class clazz = mappedClass;
+		while ( clazz != null && clazz != Object.class ) {
+			try {
+				Field field = clazz.getDeclaredField( name );
+				field.setAccessible( true );
+				return field;
+			}
+			catch ( NoSuchFieldException e ) {
+				clazz = clazz.getSuperclass();
+			}
+		}
+		throw new PropertyNotFoundException( "field not found: " + name + " in class: " + mappedClass.getName() );
+	}
+
 	public String[] getPropertyNames() {
-		return bulkBean.getGetters();
+		return getterNames == null ? bulkBean.getGetters() : getterNames;
 	}
 
 	public Object[] getPropertyValues(Object object) {
 		try {
-			return bulkBean.getPropertyValues( object );
+			if ( bulkIndexes == null ) {
+				return bulkBean.getPropertyValues( object );
+			}
+			final Object[] bulkValues = bulkBean.getPropertyValues( object );
+			final Object[] values = new Object[fields.length];
+			for ( int i = 0; i < bulkIndexes.length; i++ ) {
+				values[bulkIndexes[i]] = bulkValues[i];
+			}
+			for ( int i = 0; i < fields.length; i++ ) {
+				if ( fields[i] != null ) {
+					values[i] = fields[i].get( object );
+				}
+			}
+			return values;
 		}
 		catch ( Throwable t ) {
 			throw new PropertyAccessException(
@@ -80,7 +185,20 @@ public class AccessOptimizerAdapter implements ReflectionOptimizer.AccessOptimiz
 
 	public void setPropertyValues(Object object, Object[] values) {
 		try {
-			bulkBean.setPropertyValues( object, values );
+			if ( bulkIndexes == null ) {
+				bulkBean.setPropertyValues( object, values );
+				return;
+			}
+			final Object[] bulkValues = new Object[bulkIndexes.length];
+			for ( int i = 0; i < bulkIndexes.length; i++ ) {
+				bulkValues[i] = values[bulkIndexes[i]];
+			}
+			bulkBean.setPropertyValues( object, bulkValues );
+			for ( int i = 0; i < fields.length; i++ ) {
+				if ( fields[i] != null ) {
+					fields[i].set( object, values[i] );
+				}
+			}
 		}
 		catch ( Throwable t ) {
 			throw new PropertyAccessException(
@@ -113,9 +231,9 @@ public class AccessOptimizerAdapter implements ReflectionOptimizer.AccessOptimiz
 
 	private void writeObject(ObjectOutputStream out) throws IOException {
 		out.writeObject( mappedClass );
-		out.writeObject( bulkBean.getGetters() );
-		out.writeObject( bulkBean.getSetters() );
-		out.writeObject( bulkBean.getPropertyTypes() );
+		out.writeObject( getterNames == null ? bulkBean.getGetters() : getterNames );
+		out.writeObject( setterNames == null ? bulkBean.getSetters() : setterNames );
+		out.writeObject( types == null ? bulkBean.getPropertyTypes() : types );
 	}
 
 	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
@@ -123,6 +241,15 @@ public class AccessOptimizerAdapter implements ReflectionOptimizer.AccessOptimiz
 		String[] getters = ( String[] ) in.readObject();
 		String[] setters = ( String[] ) in.readObject();
 		Class[] types = ( Class[] ) in.readObject();
-		bulkBean = BulkBean.create( beanClass, getters, setters, types );
+		mappedClass = beanClass;
+		if ( isBulkAccessible( getters ) && isBulkAccessible( setters ) ) {
+			bulkBean = BulkBean.create( beanClass, getters, setters, types );
+		}
+		else {
+			this.getterNames = getters;
+			this.setterNames = setters;
+			this.types = types;
+			initialize();
+		}
 	}
 }
@@ -26,7 +26,6 @@ package org.hibernate.bytecode.cglib;
 
 import java.lang.reflect.Modifier;
 
-import net.sf.cglib.beans.BulkBean;
 import net.sf.cglib.beans.BulkBeanException;
 import net.sf.cglib.reflect.FastClass;
 import org.slf4j.Logger;
@@ -62,24 +61,24 @@ public class BytecodeProviderImpl implements BytecodeProvider {
 	        String[] setterNames,
 	        Class[] types) {
 		FastClass fastClass;
-		BulkBean bulkBean;
+		AccessOptimizerAdapter accessOptimizer;
 		try {
 			fastClass = FastClass.create( clazz );
-			bulkBean = BulkBean.create( clazz, getterNames, setterNames, types );
+			accessOptimizer = new AccessOptimizerAdapter( clazz, getterNames, setterNames, types );
 			if ( !clazz.isInterface() && !Modifier.isAbstract( clazz.getModifiers() ) ) {
 				if ( fastClass == null ) {
-					bulkBean = null;
+					accessOptimizer = null;
 				}
 				else {
 					//test out the optimizer:
 					Object instance = fastClass.newInstance();
-					bulkBean.setPropertyValues( instance, bulkBean.getPropertyValues( instance ) );
+					accessOptimizer.setPropertyValues( instance, accessOptimizer.getPropertyValues( instance ) );
 				}
 			}
 		}
 		catch( Throwable t ) {
 			fastClass = null;
-			bulkBean = null;
+			accessOptimizer = null;
 			String message = "reflection optimizer disabled for: " +
 			                 clazz.getName() +
 			                 " [" +
@@ -97,10 +96,10 @@ public class BytecodeProviderImpl implements BytecodeProvider {
 			log.debug( message );
 		}
 
-		if ( fastClass != null && bulkBean != null ) {
+		if ( fastClass != null && accessOptimizer != null ) {
 			return new ReflectionOptimizerImpl(
 					new InstantiationOptimizerAdapter( fastClass ),
-			        new AccessOptimizerAdapter( bulkBean, clazz )
+			        accessOptimizer
 			);
 		}
 		else {
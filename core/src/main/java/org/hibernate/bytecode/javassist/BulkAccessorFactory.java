@@ -24,9 +24,12 @@
  */
 package org.hibernate.bytecode.javassist;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.security.ProtectionDomain;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javassist.CannotCompileException;
 import javassist.bytecode.AccessFlag;
@@ -38,8 +41,14 @@ import javassist.bytecode.Opcode;
 import javassist.util.proxy.FactoryHelper;
 import javassist.util.proxy.RuntimeSupport;
 
+import org.hibernate.bytecode.BytecodeProvider;
+
 /**
  * A factory of bulk accessors.
+ * <p/>
+ * Accessor names are normally method names; a name prefixed with
+ * {@link BytecodeProvider#FIELD_ACCESS_PREFIX} is read and written directly as a field.
+ * A <tt>null</tt> name leaves that property out of the generated accessor.
  *
  * @author Muga Nishizawa
  * @author modified by Shigeru Chiba
@@ -53,7 +62,7 @@ class BulkAccessorFactory {
 	private static final String GET_SETTER_DESC = "(Ljava/lang/Object;[Ljava/lang/Object;)V";
 	private static final String THROWABLE_CLASS_NAME = Throwable.class.getName();
 	private static final String BULKEXCEPTION_CLASS_NAME = BulkAccessorException.class.getName();
-	private static int counter = 0;
+	private static final AtomicInteger counter = new AtomicInteger();
 
 	private Class targetBean;
 	private String[] getterNames;
@@ -74,8 +83,8 @@ class BulkAccessorFactory {
 	}
 
 	BulkAccessor create() {
-		Method[] getters = new Method[getterNames.length];
-		Method[] setters = new Method[setterNames.length];
+		Member[] getters = new Member[getterNames.length];
+		Member[] setters = new Member[setterNames.length];
 		findAccessors( targetBean, getterNames, setterNames, types, getters, setters );
 
 		Class beanClass;
@@ -105,10 +114,10 @@ class BulkAccessorFactory {
 		return cl.getProtectionDomain();
 	}
 
-	private ClassFile make(Method[] getters, Method[] setters) throws CannotCompileException {
+	private ClassFile make(Member[] getters, Member[] setters) throws CannotCompileException {
 		String className = targetBean.getName();
 		// set the name of bulk accessor.
-		className = className + "_$$_bulkaccess_" + counter++;
+		className = className + "_$$_bulkaccess_" + counter.getAndIncrement();
 		if ( className.startsWith( "java." ) ) {
 			className = "org.javassist.tmp." + className;
 		}
@@ -125,11 +134,28 @@ class BulkAccessorFactory {
 		if ( targetBean != null && targetBean.getName().equals( OBJECT_CLASS_NAME ) ) {
 			return targetBean.getClassLoader();
 		}
+		else if ( targetBean != null && isBulkAccessorVisible( targetBean.getClassLoader() ) ) {
+			// defining the accessor in the bean's own loader places it in the bean's runtime
+			// package, which lets it reach package-private and protected members
+			return targetBean.getClassLoader();
+		}
 		else {
 			return getClass().getClassLoader();
 		}
 	}
 
+	private static boolean isBulkAccessorVisible(ClassLoader loader) {
+		if ( loader == null ) {
+			return false;
+		}
+		try {
+			return Class.forName( BULKACESSOR_CLASS_NAME, false, loader ) == BulkAccessor.class;
+		}
+		catch ( ClassNotFoundException e ) {
+			return false;
+		}
+	}
+
 	private Object newInstance(Class type) throws Exception {
 		BulkAccessor instance = ( BulkAccessor ) type.newInstance();
 		instance.target = targetBean;
@@ -170,7 +196,7 @@ class BulkAccessorFactory {
 		classfile.addMethod( mi );
 	}
 
-	private void addGetter(ClassFile classfile, final Method[] getters) throws CannotCompileException {
+	private void addGetter(ClassFile classfile, final Member[] getters) throws CannotCompileException {
 		ConstPool cp = classfile.getConstPool();
 		int target_type_index = cp.addClassInfo( this.targetBean.getName() );
 		String desc = GET_SETTER_DESC;
@@ -187,40 +213,45 @@ class BulkAccessorFactory {
 			code.addAstore( 3 );
 			for ( int i = 0; i < getters.length; ++i ) {
 				if ( getters[i] != null ) {
-					Method getter = getters[i];
+					Member getter = getters[i];
 					// aload_2 // args
 					code.addAload( 2 );
 					// iconst_i // continue to aastore
 					code.addIconst( i ); // growing stack is 1
-					Class returnType = getter.getReturnType();
+					Class returnType = getPropertyType( getter );
 					int typeIndex = -1;
 					if ( returnType.isPrimitive() ) {
 						typeIndex = FactoryHelper.typeIndex( returnType );
-						// new
-						code.addNew( FactoryHelper.wrapperTypes[typeIndex] );
-						// dup
-						code.addOpcode( Opcode.DUP );
 					}
 
 					// aload_3 // load the raw bean
 					code.addAload( 3 );
-					String getter_desc = RuntimeSupport.makeDescriptor( getter );
 					String getterName = getter.getName();
-					if ( this.targetBean.isInterface() ) {
+					if ( getter instanceof Field ) {
+						// getfield
+						code.addGetfield( this.targetBean.getName(), getterName, makeFieldDescriptor( returnType ) );
+					}
+					else if ( this.targetBean.isInterface() ) {
 						// invokeinterface
-						code.addInvokeinterface( target_type_index, getterName, getter_desc, 1 );
+						code.addInvokeinterface(
+								target_type_index,
+								getterName,
+								RuntimeSupport.makeDescriptor( ( Method ) getter ),
+								1
+						);
 					}
 					else {
 						// invokevirtual
-						code.addInvokevirtual( target_type_index, getterName, getter_desc );
+						code.addInvokevirtual( target_type_index, getterName, RuntimeSupport.makeDescriptor( ( Method ) getter ) );
 					}
 
 					if ( typeIndex >= 0 ) {       // is a primitive type
-						// invokespecial
-						code.addInvokespecial(
+						// invokestatic // box through valueOf(), which reuses cached instances
+						// for booleans and small values instead of allocating on every read
+						code.addInvokestatic(
 								FactoryHelper.wrapperTypes[typeIndex],
-						        MethodInfo.nameInit,
-						        FactoryHelper.wrapperDesc[typeIndex]
+						        "valueOf",
+						        makeValueOfDescriptor( typeIndex )
 						);
 					}
 
@@ -238,7 +269,7 @@ class BulkAccessorFactory {
 		classfile.addMethod( mi );
 	}
 
-	private void addSetter(ClassFile classfile, final Method[] setters) throws CannotCompileException {
+	private void addSetter(ClassFile classfile, final Member[] setters) throws CannotCompileException {
 		ConstPool cp = classfile.getConstPool();
 		int target_type_index = cp.addClassInfo( this.targetBean.getName() );
 		String desc = GET_SETTER_DESC;
@@ -263,15 +294,16 @@ class BulkAccessorFactory {
 			start = code.currentPc();
 			int lastIndex = 0;
 			for ( int i = 0; i < setters.length; ++i ) {
-				if ( setters[i] != null ) {
-					int diff = i - lastIndex;
-					if ( diff > 0 ) {
-						// iinc 3, 1
-						code.addOpcode( Opcode.IINC );
-						code.add( 3 );
-						code.add( diff );
-						lastIndex = i;
-					}
+				if ( setters[i] == null ) {
+					continue;
+				}
+				int diff = i - lastIndex;
+				if ( diff > 0 ) {
+					// iinc 3, 1
+					code.addOpcode( Opcode.IINC );
+					code.add( 3 );
+					code.add( diff );
+					lastIndex = i;
 				}
 				/* current stack len = 0 */
 				// aload 4 // load the raw bean
@@ -283,8 +315,7 @@ class BulkAccessorFactory {
 				// aaload
 				code.addOpcode( Opcode.AALOAD );
 				// checkcast
-				Class[] setterParamTypes = setters[i].getParameterTypes();
-				Class setterParamType = setterParamTypes[0];
+				Class setterParamType = getPropertyType( setters[i] );
 				if ( setterParamType.isPrimitive() ) {
 					// checkcast (case of primitive type)
 					// invokevirtual (case of primitive type)
@@ -295,16 +326,20 @@ class BulkAccessorFactory {
 					code.addCheckcast( setterParamType.getName() );
 				}
 				/* current stack len = 2 */
-				String rawSetterMethod_desc = RuntimeSupport.makeDescriptor( setters[i] );
-				if ( !this.targetBean.isInterface() ) {
+				if ( setters[i] instanceof Field ) {
+					// putfield
+					code.addPutfield( this.targetBean.getName(), setters[i].getName(), makeFieldDescriptor( setterParamType ) );
+				}
+				else if ( !this.targetBean.isInterface() ) {
 					// invokevirtual
+					String rawSetterMethod_desc = RuntimeSupport.makeDescriptor( ( Method ) setters[i] );
 					code.addInvokevirtual( target_type_index, setters[i].getName(), rawSetterMethod_desc );
 				}
 				else {
 					// invokeinterface
-					Class[] params = setters[i].getParameterTypes();
+					String rawSetterMethod_desc = RuntimeSupport.makeDescriptor( ( Method ) setters[i] );
 					int size;
-					if ( params[0].equals( Double.TYPE ) || params[0].equals( Long.TYPE ) ) {
+					if ( setterParamType.equals( Double.TYPE ) || setterParamType.equals( Long.TYPE ) ) {
 						size = 3;
 					}
 					else {
@@ -366,8 +401,8 @@ class BulkAccessorFactory {
 	        String[] getterNames,
 	        String[] setterNames,
 	        Class[] types,
-	        Method[] getters,
-	        Method[] setters) {
+	        Member[] getters,
+	        Member[] setters) {
 		int length = types.length;
 		if ( setterNames.length != length || getterNames.length != length ) {
 			throw new BulkAccessorException( "bad number of accessors" );
@@ -377,8 +412,14 @@ class BulkAccessorFactory {
 		Class[] setParam = new Class[1];
 		for ( int i = 0; i < length; i++ ) {
 			if ( getterNames[i] != null ) {
-				Method getter = findAccessor( clazz, getterNames[i], getParam, i );
-				if ( getter.getReturnType() != types[i] ) {
+				Member getter;
+				if ( isFieldName( getterNames[i] ) ) {
+					getter = findField( clazz, getterNames[i], i );
+				}
+				else {
+					getter = findAccessor( clazz, getterNames[i], getParam, i );
+				}
+				if ( getPropertyType( getter ) != types[i] ) {
 					throw new BulkAccessorException( "wrong return type: " + getterNames[i], i );
 				}
 
@@ -386,8 +427,20 @@ class BulkAccessorFactory {
 			}
 
 			if ( setterNames[i] != null ) {
-				setParam[0] = types[i];
-				setters[i] = findAccessor( clazz, setterNames[i], setParam, i );
+				if ( isFieldName( setterNames[i] ) ) {
+					Field field = findField( clazz, setterNames[i], i );
+					if ( field.getType() != types[i] ) {
+						throw new BulkAccessorException( "wrong field type: " + setterNames[i], i );
+					}
+					if ( Modifier.isFinal( field.getModifiers() ) ) {
+						throw new BulkAccessorException( "final field", i );
+					}
+					setters[i] = field;
+				}
+				else {
+					setParam[0] = types[i];
+					setters[i] = findAccessor( clazz, setterNames[i], setParam, i );
+				}
 			}
 		}
 	}
@@ -397,16 +450,64 @@ class BulkAccessorFactory {
 	        String name,
 	        Class[] params,
 	        int index) throws BulkAccessorException {
-		try {
-			Method method = clazz.getDeclaredMethod( name, params );
-			if ( Modifier.isPrivate( method.getModifiers() ) ) {
-				throw new BulkAccessorException( "private property", index );
+		for ( Class current = clazz; current != null && current != Object.class; current = current.getSuperclass() ) {
+			try {
+				Method method = current.getDeclaredMethod( name, params );
+				if ( Modifier.isPrivate( method.getModifiers() ) ) {
+					throw new BulkAccessorException( "private property", index );
+				}
+
+				return method;
+			}
+			catch ( NoSuchMethodException e ) {
+				// keep looking in the superclass
 			}
+		}
+		throw new BulkAccessorException( "cannot find an accessor", index );
+	}
+
+	private static Field findField(Class clazz, String name, int index) throws BulkAccessorException {
+		String fieldName = name.substring( BytecodeProvider.FIELD_ACCESS_PREFIX.length() );
+		for ( Class current = clazz; current != null && current != Object.class; current = current.getSuperclass() ) {
+			try {
+				Field field = current.getDeclaredField( fieldName );
+				if ( Modifier.isPrivate( field.getModifiers() ) ) {
+					throw new BulkAccessorException( "private property", index );
+				}
+				if ( Modifier.isStatic( field.getModifiers() ) ) {
+					throw new BulkAccessorException( "static field", index );
+				}
 
-			return method;
+				return field;
+			}
+			catch ( NoSuchFieldException e ) {
+				// keep looking in the superclass
+			}
 		}
-		catch ( NoSuchMethodException e ) {
-			throw new BulkAccessorException( "cannot find an accessor", index );
+		throw new BulkAccessorException( "cannot find a field", index );
+	}
+
+	private static boolean isFieldName(String name) {
+		return name.startsWith( BytecodeProvider.FIELD_ACCESS_PREFIX );
+	}
+
+	private static Class getPropertyType(Member member) {
+		if ( member instanceof Field ) {
+			return ( ( Field ) member ).getType();
 		}
+		Method method = ( Method ) member;
+		return method.getParameterTypes().length == 0 ? method.getReturnType() : method.getParameterTypes()[0];
+	}
+
+	private static String makeValueOfDescriptor(int typeIndex) {
+		// the wrapper constructor descriptor "(p)V" carries the primitive descriptor we need
+		String constructorDesc = FactoryHelper.wrapperDesc[typeIndex];
+		return constructorDesc.substring( 0, constructorDesc.indexOf( ')' ) + 1 )
+				+ 'L' + FactoryHelper.wrapperTypes[typeIndex].replace( '.', '/' ) + ';';
+	}
+
+	private static String makeFieldDescriptor(Class type) {
+		// the method descriptor of "()T" is the field descriptor of T prefixed by "()"
+		return RuntimeSupport.makeDescriptor( new Class[0], type ).substring( 2 );
 	}
 }
@@ -25,6 +25,7 @@ package org.hibernate.cache;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
@@ -34,10 +35,18 @@ import javax.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.hibernate.EntityMode;
 import org.hibernate.HibernateException;
 import org.hibernate.UnresolvableObjectException;
 import org.hibernate.cfg.Settings;
+import org.hibernate.engine.EntityKey;
 import org.hibernate.engine.SessionImplementor;
+import org.hibernate.event.EventSource;
+import org.hibernate.event.LoadEvent;
+import org.hibernate.event.LoadEventListener;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.ManyToOneType;
 import org.hibernate.type.Type;
 import org.hibernate.type.TypeHelper;
 
@@ -109,7 +118,10 @@ public class StandardQueryCache implements QueryCache {
 				}
 			}
 
-			cacheRegion.put( key, cacheable );
+			// only a single column of Long or Integer values (in practice the ids of an entity query
+			// with a single-column Long/Integer identifier) is packed; composite or other identifier
+			// types, scalar columns and multi-column results are cached as the plain list
+			cacheRegion.put( key, PackedColumn.pack( cacheable ) );
 			return true;
 		}
 	}
@@ -130,6 +142,7 @@ public class StandardQueryCache implements QueryCache {
 			log.debug( "query results were not found in cache" );
 			return null;
 		}
+		cacheable = PackedColumn.unpack( cacheable );
 
 		Long timestamp = ( Long ) cacheable.get( 0 );
 		if ( !isNaturalKeyLookup && !isUpToDate( spaces, timestamp ) ) {
@@ -138,6 +151,7 @@ public class StandardQueryCache implements QueryCache {
 		}
 
 		log.debug( "returning cached query results" );
+		loadEntities( cacheable, returnTypes, session );
 		for ( int i = 1; i < cacheable.size(); i++ ) {
 			if ( returnTypes.length == 1 ) {
 				returnTypes[0].beforeAssemble( ( Serializable ) cacheable.get( i ), session );
@@ -178,6 +192,77 @@ public class StandardQueryCache implements QueryCache {
 		return result;
 	}
 
+	/**
+	 * Load the entities referenced by the cached results which are neither associated with
+	 * the session nor available from the second-level cache through one multi-id select per
+	 * entity (or per chunk of ids), instead of one select per entity during assembly. Those
+	 * found in the second-level cache are loaded into the session on the way, so that assembly
+	 * does not read the cache again.
+	 */
+	private void loadEntities(List cacheable, Type[] returnTypes, SessionImplementor session) {
+		if ( cacheable.size() <= 2 || session.getEntityMode() == EntityMode.DOM4J ) {
+			return;
+		}
+		for ( int column = 0; column < returnTypes.length; column++ ) {
+			if ( !( returnTypes[column] instanceof ManyToOneType ) ) {
+				continue;
+			}
+			ManyToOneType type = ( ManyToOneType ) returnTypes[column];
+			if ( !type.isEager() || !type.isReferenceToPrimaryKey() ) {
+				continue;
+			}
+			EntityPersister persister = session.getFactory().getEntityPersister( type.getAssociatedEntityName() );
+			if ( !( persister instanceof AbstractEntityPersister ) ) {
+				continue;
+			}
+			Set ids = new LinkedHashSet();
+			for ( int i = 1; i < cacheable.size(); i++ ) {
+				Serializable disassembled = returnTypes.length == 1
+						? ( Serializable ) cacheable.get( i )
+						: ( ( Serializable[] ) cacheable.get( i ) )[column];
+				if ( disassembled == null ) {
+					continue;
+				}
+				Serializable id = ( Serializable ) persister.getIdentifierType().assemble( disassembled, session, null );
+				if ( id != null && !isLoaded( id, persister, session ) ) {
+					ids.add( id );
+				}
+			}
+			if ( ids.size() > 1 ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug( "loading " + ids.size() + " cached query result entities of type: " + persister.getEntityName() );
+				}
+				( ( AbstractEntityPersister ) persister ).loadEntityBatch(
+						( Serializable[] ) ids.toArray( new Serializable[ids.size()] ),
+						session
+				);
+			}
+		}
+	}
+
+	/**
+	 * Is the entity associated with the session, or could it be loaded from the second-level
+	 * cache?
+	 */
+	private boolean isLoaded(Serializable id, EntityPersister persister, SessionImplementor session) {
+		if ( session.getPersistenceContext().containsEntity( new EntityKey( id, persister, session.getEntityMode() ) ) ) {
+			return true;
+		}
+		if ( persister.hasCache() && session.getCacheMode().isGetEnabled() ) {
+			if ( !( session instanceof EventSource ) ) {
+				// leave the entity to assembly rather than reading the cache twice
+				return true;
+			}
+			LoadEvent event = new LoadEvent( id, persister.getEntityName(), true, ( EventSource ) session );
+			LoadEventListener[] listeners = ( ( EventSource ) session ).getListeners().getLoadEventListeners();
+			for ( int i = 0; i < listeners.length; i++ ) {
+				listeners[i].onLoad( event, LoadEventListener.INTERNAL_LOAD_CACHED );
+			}
+			return event.getResult() != null;
+		}
+		return false;
+	}
+
 	protected boolean isUpToDate(Set spaces, Long timestamp) {
 		if ( log.isDebugEnabled() ) {
 			log.debug( "Checking query spaces for up-to-dateness: " + spaces );
@@ -202,4 +287,68 @@ public class StandardQueryCache implements QueryCache {
 		return "StandardQueryCache(" + cacheRegion.getName() + ')';
 	}
 
+	/**
+	 * Compact form of cached results consisting of a single column of integral values (typically
+	 * the disassembled identifiers of an entity query), stored as a primitive array rather than
+	 * a list of boxed values.
+	 */
+	private static final class PackedColumn implements Serializable {
+		private final long[] longs;
+		private final int[] ints;
+
+		private PackedColumn(long[] longs, int[] ints) {
+			this.longs = longs;
+			this.ints = ints;
+		}
+
+		/**
+		 * Pack the given cacheable results if all rows are non-null values of the same integral type.
+		 */
+		static List pack(List cacheable) {
+			final int size = cacheable.size() - 1;
+			if ( size < 2 ) {
+				return cacheable;
+			}
+			final Class valueClass = cacheable.get( 1 ) == null ? null : cacheable.get( 1 ).getClass();
+			if ( valueClass != Long.class && valueClass != Integer.class ) {
+				return cacheable;
+			}
+			long[] longs = valueClass == Long.class ? new long[size] : null;
+			int[] ints = valueClass == Integer.class ? new int[size] : null;
+			for ( int i = 0; i < size; i++ ) {
+				Object value = cacheable.get( i + 1 );
+				if ( value == null || value.getClass() != valueClass ) {
+					return cacheable;
+				}
+				if ( longs != null ) {
+					longs[i] = ( ( Long ) value ).longValue();
+				}
+				else {
+					ints[i] = ( ( Integer ) value ).intValue();
+				}
+			}
+			List packed = new ArrayList( 2 );
+			packed.add( cacheable.get( 0 ) );
+			packed.add( new PackedColumn( longs, ints ) );
+			return packed;
+		}
+
+		/**
+		 * Reverse {@link #pack}, returning the given list unchanged if it was not packed.
+		 */
+		static List unpack(List cacheable) {
+			if ( cacheable.size() != 2 || !( cacheable.get( 1 ) instanceof PackedColumn ) ) {
+				return cacheable;
+			}
+			PackedColumn column = ( PackedColumn ) cacheable.get( 1 );
+			final int size = column.longs != null ? column.longs.length : column.ints.length;
+			List unpacked = new ArrayList( size + 1 );
+			unpacked.add( cacheable.get( 0 ) );
+			for ( int i = 0; i < size; i++ ) {
+				unpacked.add( column.longs != null ? Long.valueOf( column.longs[i] ) : Integer.valueOf( column.ints[i] ) );
+			}
+			return unpacked;
+		}
+	}
+
 }
@@ -232,6 +232,12 @@ public final class Environment {
 	 * JNDI name to bind to <tt>SessionFactory</tt>
 	 */
 	public static final String SESSION_FACTORY_NAME = "hibernate.session_factory_name";
+	/**
+	 * The number of threads used to generate the static SQL and the loaders of the persisters when building
+	 * the <tt>SessionFactory</tt>; the persisters themselves are always built sequentially.  Default is 1,
+	 * which generates them sequentially.
+	 */
+	public static final String SESSION_FACTORY_BUILD_THREADS = "hibernate.session_factory_build_threads";
 
 	/**
 	 * Hibernate SQL {@link org.hibernate.dialect.Dialect} class
@@ -273,6 +279,23 @@ public final class Environment {
 	 * The default batch size for batch fetching
 	 */
 	public static final String DEFAULT_BATCH_FETCH_SIZE = "hibernate.default_batch_fetch_size";
+	/**
+	 * Detect entities and collections of the same role being lazily initialized one at a
+	 * time within a session, and report them through the statistics.  Defaults to false.
+	 */
+	public static final String DETECT_FETCH_PATTERNS = "hibernate.detect_fetch_patterns";
+	/**
+	 * The number of entities or collections of the same role initialized one at a time after
+	 * the same query, within a session, at which a fetch pattern is reported (and batch fetching
+	 * adapted).  Defaults to 10.
+	 */
+	public static final String FETCH_PATTERN_THRESHOLD = "hibernate.fetch_pattern_threshold";
+	/**
+	 * When positive, enables fetch pattern detection and turns on batch fetching, up to this
+	 * batch size, for each entity or collection role found to be initialized one at a time.
+	 * Roles with an explicitly mapped batch size are left alone.  Defaults to 0 (disabled).
+	 */
+	public static final String ADAPTIVE_BATCH_FETCH_SIZE = "hibernate.adaptive_batch_fetch_size";
 	/**
 	 * Use <tt>java.io</tt> streams to read / write binary data from / to JDBC
 	 */
@@ -302,9 +325,24 @@ public final class Environment {
 	 */
 	public static final String BATCH_STRATEGY = "hibernate.jdbc.factory_class";
 	/**
-	 * Should versioned data be included in batching?
+	 * Names a {@link org.hibernate.jdbc.JdbcObserver} implementation to be notified of the
+	 * timing of every statement prepared, executed and fetched.  A new instance is created
+	 * for each session.  {@link org.hibernate.jdbc.util.SessionStatementReporter} logs the
+	 * slowest and most frequently repeated statements of each session.
+	 */
+	public static final String JDBC_OBSERVER = "hibernate.jdbc.observer";
+	/**
+	 * Should versioned data be included in batching?  Defaults to
+	 * {@link org.hibernate.dialect.Dialect#supportsAccurateBatchRowCounts()}.
 	 */
 	public static final String BATCH_VERSIONED_DATA = "hibernate.jdbc.batch_versioned_data";
+	/**
+	 * Should identity inserts of entities persisted inside a transaction be delayed until
+	 * flush, so that they are executed as JDBC batches?  Only effective if the dialect
+	 * {@link org.hibernate.dialect.Dialect#supportsBatchedGeneratedKeys() returns generated keys from batches},
+	 * and <tt>getGeneratedKeys()</tt> and JDBC batching are enabled.  Defaults to false.
+	 */
+	public static final String BATCH_IDENTITY_INSERTS = "hibernate.jdbc.batch_identity_inserts";
 	/**
 	 * An XSLT resource used to generate "custom" XML
 	 */
@@ -436,10 +474,19 @@ public final class Environment {
 	 */
 	public static final String GENERATE_STATISTICS = "hibernate.generate_statistics";
 
+	/**
+	 * The length, in seconds, of the rolling window over which statistics report query, load,
+	 * fetch and flush latency percentiles.  Defaults to 0, reporting over everything recorded
+	 * since the statistics were last cleared.
+	 */
+	public static final String STATISTICS_LATENCY_WINDOW = "hibernate.statistics.latency_window";
+
 	public static final String USE_IDENTIFIER_ROLLBACK = "hibernate.use_identifier_rollback";
 
 	/**
-	 * Use bytecode libraries optimized property access
+	 * Use bytecode libraries optimized property access (enabled by default).  Both getter/setter
+	 * and direct field access are covered; properties the generated accessor cannot reach (private
+	 * or final members, custom accessors) are still accessed via reflection, as are identifiers.
 	 */
 	public static final String USE_REFLECTION_OPTIMIZER = "hibernate.bytecode.use_reflection_optimizer";
 
@@ -498,11 +545,32 @@ public final class Environment {
 	 */
 	public static final String ORDER_UPDATES = "hibernate.order_updates";
 
+	/**
+	 * Enable ordering of the update statements of dynamic-update entities by the properties
+	 * they update, so that updates of the same shape share their JDBC batch.  Within a shape,
+	 * updates are ordered by primary key value only if {@link #ORDER_UPDATES} is enabled.
+	 */
+	public static final String ORDER_UPDATES_BY_SHAPE = "hibernate.order_updates_by_shape";
+
 	/**
 	 * Enable ordering of insert statements for the purpose of more efficient JDBC batching.
 	 */
 	public static final String ORDER_INSERTS = "hibernate.order_inserts";
 
+	/**
+	 * Enable cascading deletes to unloaded one-to-many collections by set-based
+	 * SQL <tt>DELETE</tt> statements, where no per-child processing is needed.
+	 */
+	public static final String BULK_CASCADE_DELETE = "hibernate.bulk_cascade_delete";
+
+	/**
+	 * Enable updating bags of values by deleting and inserting the rows of changed elements,
+	 * located by element value, rather than recreating the whole collection.  Only safe when
+	 * the database compares element values exactly: not with case-insensitive collations,
+	 * padded <tt>CHAR</tt> columns or rounded floating point or timestamp values.
+	 */
+	public static final String BAG_ELEMENT_UPDATES = "hibernate.bag_element_updates";
+
 	/**
 	 * The EntityMode in which set the Session opened from the SessionFactory.
 	 */
@@ -547,6 +615,30 @@ public final class Environment {
 	 */
 	public static final String QUERY_PLAN_CACHE_MAX_SOFT_REFERENCES = "hibernate.query.plan_cache_max_soft_references";
 
+	/**
+	 * Should numeric literals in the restrictions of HQL queries be replaced by parameters, so that queries differing
+	 * only in these literals share one query plan.  Default is false.
+	 */
+	public static final String QUERY_PLAN_CACHE_NORMALIZE_LITERALS = "hibernate.query.plan_cache_normalize_literals";
+
+	/**
+	 * The number of threads used to check named queries during startup (see {@link #QUERY_STARTUP_CHECKING}).
+	 * Default is 1, checking them serially on the thread building the session factory.
+	 */
+	public static final String QUERY_STARTUP_CHECKING_THREADS = "hibernate.query.startup_check_threads";
+
+	/**
+	 * Should the number of bind parameters an HQL parameter list expands to be padded to the next power of two,
+	 * so that lists of different sizes share one query plan.  Default is false.
+	 */
+	public static final String IN_CLAUSE_PARAMETER_PADDING = "hibernate.query.in_clause_parameter_padding";
+
+	/**
+	 * Should the static loaders of entity and collection persisters be built on first use instead of when
+	 * building the <tt>SessionFactory</tt>.  Default is false.
+	 */
+	public static final String LOADER_LAZY_INITIALIZATION = "hibernate.loader.lazy_initialization";
+
 
 	private static final BytecodeProvider BYTECODE_PROVIDER_INSTANCE;
 	private static final boolean ENABLE_BINARY_STREAMS;
@@ -601,8 +693,9 @@ public final class Environment {
 		ISOLATION_LEVELS.put( new Integer(Connection.TRANSACTION_SERIALIZABLE), "SERIALIZABLE" );
 
 		GLOBAL_PROPERTIES = new Properties();
-		//Set USE_REFLECTION_OPTIMIZER to false to fix HHH-227
-		GLOBAL_PROPERTIES.setProperty( USE_REFLECTION_OPTIMIZER, Boolean.FALSE.toString() );
+		// generated accessors are verified against each class before use and fall back to
+		// reflection property by property, so the optimizer is safe to enable by default
+		GLOBAL_PROPERTIES.setProperty( USE_REFLECTION_OPTIMIZER, Boolean.TRUE.toString() );
 
 		try {
 			InputStream stream = ConfigHelper.getResourceAsStream("/hibernate.properties");
@@ -0,0 +1,258 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.cfg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Version;
+import org.hibernate.util.SerializationHelper;
+
+/**
+ * Stores a {@link Configuration} whose mappings have been fully bound into a binary file, and reads it
+ * back, so that the parsing of the mapping documents, the processing of the annotations and the second
+ * passes don't have to be redone on each startup.
+ * <p/>
+ * A snapshot is only used if it was written by the same Hibernate version, using the same snapshot format,
+ * and for the same inputs, as identified by a hash which is typically computed by
+ * {@link #hashInputs(Properties, File[])}:
+ * <pre>
+ * String hash = MetadataSnapshot.hashInputs( properties, new File[] { mappingJar } );
+ * Configuration cfg = MetadataSnapshot.read( snapshotFile, hash );
+ * if ( cfg == null ) {
+ *     cfg = new Configuration().setProperties( properties ).addJar( mappingJar );
+ *     MetadataSnapshot.write( cfg, hash, snapshotFile );
+ * }
+ * SessionFactory sessionFactory = cfg.buildSessionFactory();
+ * </pre>
+ *
+ * @author agent
+ */
+public final class MetadataSnapshot {
+	private static final Logger log = LoggerFactory.getLogger( MetadataSnapshot.class );
+
+	/**
+	 * The version of the snapshot file format, to be incremented whenever the format changes.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x48424d53;
+
+	/**
+	 * Direct instantiation of MetadataSnapshot disallowed.
+	 */
+	private MetadataSnapshot() {
+	}
+
+	/**
+	 * Compute a hash of the inputs of a configuration: its properties and the content of the given files
+	 * (mapping documents, jars or directories of classes).
+	 *
+	 * @param properties The configuration properties.
+	 * @param inputs The files the mappings are read from.
+	 * @return The hash, as an hexadecimal string.
+	 */
+	public static String hashInputs(Properties properties, File[] inputs) throws HibernateException {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance( "SHA-1" );
+		}
+		catch ( NoSuchAlgorithmException e ) {
+			throw new HibernateException( "Unable to hash metadata snapshot inputs", e );
+		}
+		// sorted, so that the hash doesn't depend on the iteration order of the properties
+		Iterator itr = new TreeMap( properties ).entrySet().iterator();
+		while ( itr.hasNext() ) {
+			final Map.Entry entry = ( Map.Entry ) itr.next();
+			update( digest, String.valueOf( entry.getKey() ) + '=' + String.valueOf( entry.getValue() ) );
+		}
+		for ( int i = 0; i < inputs.length; i++ ) {
+			// paths are hashed relative to the input, so that a copy of the inputs elsewhere has the same hash
+			hashFile( digest, inputs[i], inputs[i].getName() );
+		}
+		final byte[] hash = digest.digest();
+		final StringBuffer buffer = new StringBuffer( hash.length * 2 );
+		for ( int i = 0; i < hash.length; i++ ) {
+			buffer.append( Character.forDigit( ( hash[i] >> 4 ) & 0xf, 16 ) );
+			buffer.append( Character.forDigit( hash[i] & 0xf, 16 ) );
+		}
+		return buffer.toString();
+	}
+
+	private static void hashFile(MessageDigest digest, File file, String path) throws HibernateException {
+		update( digest, path );
+		if ( file.isDirectory() ) {
+			File[] children = file.listFiles();
+			if ( children == null ) {
+				throw new HibernateException( "Unable to list metadata snapshot input directory: " + file );
+			}
+			Arrays.sort( children );
+			for ( int i = 0; i < children.length; i++ ) {
+				hashFile( digest, children[i], path + '/' + children[i].getName() );
+			}
+		}
+		else {
+			try {
+				InputStream stream = new BufferedInputStream( new FileInputStream( file ) );
+				try {
+					final byte[] buffer = new byte[4096];
+					int read;
+					while ( ( read = stream.read( buffer ) ) != -1 ) {
+						digest.update( buffer, 0, read );
+					}
+				}
+				finally {
+					stream.close();
+				}
+			}
+			catch ( IOException e ) {
+				throw new HibernateException( "Unable to hash metadata snapshot input: " + file, e );
+			}
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		try {
+			digest.update( value.getBytes( "UTF-8" ) );
+		}
+		catch ( UnsupportedEncodingException e ) {
+			throw new HibernateException( e );
+		}
+	}
+
+	/**
+	 * Build the mappings of the given configuration, and write it to the given snapshot file.  The snapshot is
+	 * written to a temporary file first, which then replaces the snapshot file, so that a failure never leaves
+	 * a truncated snapshot behind.
+	 *
+	 * @param configuration The configuration.
+	 * @param inputsHash The hash of the inputs of the configuration.
+	 * @param snapshotFile The file to write.
+	 */
+	public static void write(Configuration configuration, String inputsHash, File snapshotFile) throws HibernateException {
+		configuration.buildMappings();
+		log.info( "Writing metadata snapshot: " + snapshotFile );
+		File tempFile = null;
+		boolean written = false;
+		try {
+			tempFile = File.createTempFile(
+					snapshotFile.getName(), ".tmp", snapshotFile.getAbsoluteFile().getParentFile()
+			);
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream( new FileOutputStream( tempFile ) )
+			);
+			try {
+				out.writeInt( MAGIC );
+				out.writeInt( FORMAT_VERSION );
+				out.writeUTF( Version.getVersionString() );
+				out.writeUTF( inputsHash );
+				out.flush();
+				SerializationHelper.serialize( configuration, out );
+			}
+			finally {
+				out.close();
+			}
+			// renaming over an existing file fails on some platforms
+			if ( snapshotFile.exists() && !snapshotFile.delete() ) {
+				throw new IOException( "could not delete the previous snapshot" );
+			}
+			if ( !tempFile.renameTo( snapshotFile ) ) {
+				throw new IOException( "could not rename " + tempFile );
+			}
+			written = true;
+		}
+		catch ( IOException e ) {
+			throw new HibernateException( "Unable to write metadata snapshot: " + snapshotFile, e );
+		}
+		finally {
+			if ( !written && tempFile != null ) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Read a configuration from the given snapshot file.
+	 *
+	 * @param snapshotFile The file to read.
+	 * @param inputsHash The hash of the inputs the configuration is expected to have been built from.
+	 * @return The configuration, or null if the file doesn't exist or can't be used.
+	 */
+	public static Configuration read(File snapshotFile, String inputsHash) {
+		if ( !snapshotFile.exists() ) {
+			return null;
+		}
+		try {
+			DataInputStream in = new DataInputStream(
+					new BufferedInputStream( new FileInputStream( snapshotFile ) )
+			);
+			try {
+				if ( in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION ) {
+					log.info( "Ignoring metadata snapshot with an unknown format: " + snapshotFile );
+					return null;
+				}
+				if ( !Version.getVersionString().equals( in.readUTF() ) ) {
+					log.info( "Ignoring metadata snapshot written by another Hibernate version: " + snapshotFile );
+					return null;
+				}
+				if ( !inputsHash.equals( in.readUTF() ) ) {
+					log.info( "Ignoring stale metadata snapshot: " + snapshotFile );
+					return null;
+				}
+				log.info( "Reading metadata snapshot: " + snapshotFile );
+				// closes the stream
+				return ( Configuration ) SerializationHelper.deserialize( in );
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch ( IOException e ) {
+			log.warn( "Could not read metadata snapshot: " + snapshotFile + " : " + e );
+		}
+		catch ( HibernateException e ) {
+			log.warn( "Could not deserialize metadata snapshot: " + snapshotFile + " : " + e );
+		}
+		return null;
+	}
+}
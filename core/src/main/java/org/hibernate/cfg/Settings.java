@@ -55,6 +55,9 @@ public final class Settings {
 	private Dialect dialect;
 	private int jdbcBatchSize;
 	private int defaultBatchFetchSize;
+	private boolean fetchPatternDetectionEnabled;
+	private int fetchPatternThreshold;
+	private int adaptiveBatchFetchSize;
 	private boolean scrollableResultSetsEnabled;
 	private boolean getGeneratedKeysEnabled;
 	private String defaultSchemaName;
@@ -72,7 +75,9 @@ public final class Settings {
 	private boolean minimalPutsEnabled;
 	private boolean commentsEnabled;
 	private boolean statisticsEnabled;
+	private int statisticsLatencyWindow;
 	private boolean jdbcBatchVersionedData;
+	private boolean jdbcBatchIdentityInserts;
 	private boolean identifierRollbackEnabled;
 	private boolean flushBeforeCompletionEnabled;
 	private boolean autoCloseSessionEnabled;
@@ -83,16 +88,25 @@ public final class Settings {
 	private TransactionFactory transactionFactory;
 	private TransactionManagerLookup transactionManagerLookup;
 	private BatcherFactory batcherFactory;
+	private Class jdbcObserverClass;
 	private QueryTranslatorFactory queryTranslatorFactory;
 	private SQLExceptionConverter sqlExceptionConverter;
 	private boolean wrapResultSetsEnabled;
 	private boolean orderUpdatesEnabled;
+	private boolean orderUpdatesByShapeEnabled;
 	private boolean orderInsertsEnabled;
+	private boolean bulkCascadeDeleteEnabled;
+	private boolean bagElementUpdatesEnabled;
 	private EntityMode defaultEntityMode;
 	private boolean dataDefinitionImplicitCommit;
 	private boolean dataDefinitionInTransactionSupported;
 	private boolean strictJPAQLCompliance;
 	private boolean namedQueryStartupCheckingEnabled;
+	private int namedQueryStartupCheckingThreads;
+	private boolean queryLiteralNormalizationEnabled;
+	private boolean inClauseParameterPaddingEnabled;
+	private int sessionFactoryBuildThreads;
+	private boolean lazyLoaderInitializationEnabled;
 	private EntityTuplizerFactory entityTuplizerFactory;
 	private boolean checkNullability;
 //	private ComponentTuplizerFactory componentTuplizerFactory; todo : HHH-3517 and HHH-1907
@@ -148,6 +162,18 @@ public final class Settings {
 		return defaultBatchFetchSize;
 	}
 
+	public boolean isFetchPatternDetectionEnabled() {
+		return fetchPatternDetectionEnabled;
+	}
+
+	public int getFetchPatternThreshold() {
+		return fetchPatternThreshold;
+	}
+
+	public int getAdaptiveBatchFetchSize() {
+		return adaptiveBatchFetchSize;
+	}
+
 	public Map getQuerySubstitutions() {
 		return querySubstitutions;
 	}
@@ -232,10 +258,18 @@ public final class Settings {
 		return statisticsEnabled;
 	}
 
+	public int getStatisticsLatencyWindow() {
+		return statisticsLatencyWindow;
+	}
+
 	public boolean isJdbcBatchVersionedData() {
 		return jdbcBatchVersionedData;
 	}
 
+	public boolean isJdbcBatchIdentityInserts() {
+		return jdbcBatchIdentityInserts;
+	}
+
 	public boolean isFlushBeforeCompletionEnabled() {
 		return flushBeforeCompletionEnabled;
 	}
@@ -244,6 +278,10 @@ public final class Settings {
 		return batcherFactory;
 	}
 
+	public Class getJdbcObserverClass() {
+		return jdbcObserverClass;
+	}
+
 	public boolean isAutoCloseSessionEnabled() {
 		return autoCloseSessionEnabled;
 	}
@@ -268,10 +306,22 @@ public final class Settings {
 		return orderUpdatesEnabled;
 	}
 
+	public boolean isOrderUpdatesByShapeEnabled() {
+		return orderUpdatesByShapeEnabled;
+	}
+
 	public boolean isOrderInsertsEnabled() {
 		return orderInsertsEnabled;
 	}
 
+	public boolean isBulkCascadeDeleteEnabled() {
+		return bulkCascadeDeleteEnabled;
+	}
+
+	public boolean isBagElementUpdatesEnabled() {
+		return bagElementUpdatesEnabled;
+	}
+
 	public boolean isStructuredCacheEntriesEnabled() {
 		return structuredCacheEntriesEnabled;
 	}
@@ -300,6 +350,26 @@ public final class Settings {
 		return namedQueryStartupCheckingEnabled;
 	}
 
+	public int getNamedQueryStartupCheckingThreads() {
+		return namedQueryStartupCheckingThreads;
+	}
+
+	public boolean isQueryLiteralNormalizationEnabled() {
+		return queryLiteralNormalizationEnabled;
+	}
+
+	public boolean isInClauseParameterPaddingEnabled() {
+		return inClauseParameterPaddingEnabled;
+	}
+
+	public int getSessionFactoryBuildThreads() {
+		return sessionFactoryBuildThreads;
+	}
+
+	public boolean isLazyLoaderInitializationEnabled() {
+		return lazyLoaderInitializationEnabled;
+	}
+
 	public EntityTuplizerFactory getEntityTuplizerFactory() {
 		return entityTuplizerFactory;
 	}
@@ -347,6 +417,18 @@ public final class Settings {
 		defaultBatchFetchSize = i;
 	}
 
+	void setFetchPatternDetectionEnabled(boolean fetchPatternDetectionEnabled) {
+		this.fetchPatternDetectionEnabled = fetchPatternDetectionEnabled;
+	}
+
+	void setFetchPatternThreshold(int fetchPatternThreshold) {
+		this.fetchPatternThreshold = fetchPatternThreshold;
+	}
+
+	void setAdaptiveBatchFetchSize(int adaptiveBatchFetchSize) {
+		this.adaptiveBatchFetchSize = adaptiveBatchFetchSize;
+	}
+
 	void setQuerySubstitutions(Map map) {
 		querySubstitutions = map;
 	}
@@ -431,10 +513,18 @@ public final class Settings {
 		this.statisticsEnabled = statisticsEnabled;
 	}
 
+	void setStatisticsLatencyWindow(int statisticsLatencyWindow) {
+		this.statisticsLatencyWindow = statisticsLatencyWindow;
+	}
+
 	void setJdbcBatchVersionedData(boolean jdbcBatchVersionedData) {
 		this.jdbcBatchVersionedData = jdbcBatchVersionedData;
 	}
 
+	void setJdbcBatchIdentityInserts(boolean jdbcBatchIdentityInserts) {
+		this.jdbcBatchIdentityInserts = jdbcBatchIdentityInserts;
+	}
+
 	void setFlushBeforeCompletionEnabled(boolean flushBeforeCompletionEnabled) {
 		this.flushBeforeCompletionEnabled = flushBeforeCompletionEnabled;
 	}
@@ -443,6 +533,10 @@ public final class Settings {
 		this.batcherFactory = batcher;
 	}
 
+	void setJdbcObserverClass(Class jdbcObserverClass) {
+		this.jdbcObserverClass = jdbcObserverClass;
+	}
+
 	void setAutoCloseSessionEnabled(boolean autoCloseSessionEnabled) {
 		this.autoCloseSessionEnabled = autoCloseSessionEnabled;
 	}
@@ -467,10 +561,22 @@ public final class Settings {
 		this.orderUpdatesEnabled = orderUpdatesEnabled;
 	}
 
+	void setOrderUpdatesByShapeEnabled(boolean orderUpdatesByShapeEnabled) {
+		this.orderUpdatesByShapeEnabled = orderUpdatesByShapeEnabled;
+	}
+
 	void setOrderInsertsEnabled(boolean orderInsertsEnabled) {
 		this.orderInsertsEnabled = orderInsertsEnabled;
 	}
 
+	void setBulkCascadeDeleteEnabled(boolean bulkCascadeDeleteEnabled) {
+		this.bulkCascadeDeleteEnabled = bulkCascadeDeleteEnabled;
+	}
+
+	void setBagElementUpdatesEnabled(boolean bagElementUpdatesEnabled) {
+		this.bagElementUpdatesEnabled = bagElementUpdatesEnabled;
+	}
+
 	void setStructuredCacheEntriesEnabled(boolean structuredCacheEntriesEnabled) {
 		this.structuredCacheEntriesEnabled = structuredCacheEntriesEnabled;
 	}
@@ -499,6 +605,26 @@ public final class Settings {
 		this.namedQueryStartupCheckingEnabled = namedQueryStartupCheckingEnabled;
 	}
 
+	void setNamedQueryStartupCheckingThreads(int namedQueryStartupCheckingThreads) {
+		this.namedQueryStartupCheckingThreads = namedQueryStartupCheckingThreads;
+	}
+
+	void setQueryLiteralNormalizationEnabled(boolean queryLiteralNormalizationEnabled) {
+		this.queryLiteralNormalizationEnabled = queryLiteralNormalizationEnabled;
+	}
+
+	void setInClauseParameterPaddingEnabled(boolean inClauseParameterPaddingEnabled) {
+		this.inClauseParameterPaddingEnabled = inClauseParameterPaddingEnabled;
+	}
+
+	void setSessionFactoryBuildThreads(int sessionFactoryBuildThreads) {
+		this.sessionFactoryBuildThreads = sessionFactoryBuildThreads;
+	}
+
+	void setLazyLoaderInitializationEnabled(boolean lazyLoaderInitializationEnabled) {
+		this.lazyLoaderInitializationEnabled = lazyLoaderInitializationEnabled;
+	}
+
 	void setEntityTuplizerFactory(EntityTuplizerFactory entityTuplizerFactory) {
 		this.entityTuplizerFactory = entityTuplizerFactory;
 	}
@@ -49,11 +49,13 @@ import org.hibernate.connection.ConnectionProvider;
 import org.hibernate.connection.ConnectionProviderFactory;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.resolver.DialectFactory;
+import org.hibernate.engine.FetchPatternDetector;
 import org.hibernate.exception.SQLExceptionConverter;
 import org.hibernate.exception.SQLExceptionConverterFactory;
 import org.hibernate.hql.QueryTranslatorFactory;
 import org.hibernate.jdbc.BatcherFactory;
 import org.hibernate.jdbc.BatchingBatcherFactory;
+import org.hibernate.jdbc.JdbcObserver;
 import org.hibernate.jdbc.NonBatchingBatcherFactory;
 import org.hibernate.jdbc.util.SQLStatementLogger;
 import org.hibernate.transaction.TransactionFactory;
@@ -189,10 +191,14 @@ public class SettingsFactory implements Serializable {
 		if ( !metaSupportsBatchUpdates ) batchSize = 0;
 		if (batchSize>0) log.info("JDBC batch size: " + batchSize);
 		settings.setJdbcBatchSize(batchSize);
-		boolean jdbcBatchVersionedData = PropertiesHelper.getBoolean(Environment.BATCH_VERSIONED_DATA, properties, false);
+		boolean jdbcBatchVersionedData = PropertiesHelper.getBoolean(Environment.BATCH_VERSIONED_DATA, properties, dialect.supportsAccurateBatchRowCounts());
 		if (batchSize>0) log.info("JDBC batch updates for versioned data: " + enabledDisabled(jdbcBatchVersionedData) );
 		settings.setJdbcBatchVersionedData(jdbcBatchVersionedData);
+		boolean jdbcBatchIdentityInserts = PropertiesHelper.getBoolean(Environment.BATCH_IDENTITY_INSERTS, properties);
+		if (batchSize>0) log.info("JDBC batch inserts for identity columns: " + enabledDisabled(jdbcBatchIdentityInserts) );
+		settings.setJdbcBatchIdentityInserts(jdbcBatchIdentityInserts);
 		settings.setBatcherFactory( createBatcherFactory(properties, batchSize) );
+		settings.setJdbcObserverClass( getJdbcObserverClass(properties) );
 
 		boolean useScrollableResultSets = PropertiesHelper.getBoolean(Environment.USE_SCROLLABLE_RESULTSET, properties, metaSupportsScrollable);
 		log.info("Scrollable result sets: " + enabledDisabled(useScrollableResultSets) );
@@ -240,6 +246,16 @@ public class SettingsFactory implements Serializable {
 		int batchFetchSize = PropertiesHelper.getInt(Environment.DEFAULT_BATCH_FETCH_SIZE, properties, 1);
 		log.info("Default batch fetch size: " + batchFetchSize);
 		settings.setDefaultBatchFetchSize(batchFetchSize);
+		int adaptiveBatchFetchSize = PropertiesHelper.getInt(Environment.ADAPTIVE_BATCH_FETCH_SIZE, properties, 0);
+		boolean detectFetchPatterns = adaptiveBatchFetchSize > 1
+				|| PropertiesHelper.getBoolean(Environment.DETECT_FETCH_PATTERNS, properties);
+		log.info("Fetch pattern detection: " + enabledDisabled(detectFetchPatterns) );
+		settings.setFetchPatternDetectionEnabled(detectFetchPatterns);
+		int fetchPatternThreshold = PropertiesHelper.getInt(Environment.FETCH_PATTERN_THRESHOLD, properties, FetchPatternDetector.DEFAULT_THRESHOLD);
+		if (detectFetchPatterns) log.info("Fetch pattern threshold: " + fetchPatternThreshold);
+		settings.setFetchPatternThreshold(fetchPatternThreshold);
+		if (adaptiveBatchFetchSize > 1) log.info("Adaptive batch fetch size: " + adaptiveBatchFetchSize);
+		settings.setAdaptiveBatchFetchSize(adaptiveBatchFetchSize);
 
 		boolean comments = PropertiesHelper.getBoolean(Environment.USE_SQL_COMMENTS, properties);
 		log.info( "Generate SQL with comments: " + enabledDisabled(comments) );
@@ -249,10 +265,22 @@ public class SettingsFactory implements Serializable {
 		log.info( "Order SQL updates by primary key: " + enabledDisabled(orderUpdates) );
 		settings.setOrderUpdatesEnabled(orderUpdates);
 
+		boolean orderUpdatesByShape = PropertiesHelper.getBoolean( Environment.ORDER_UPDATES_BY_SHAPE, properties );
+		log.info( "Order SQL updates by updated properties: " + enabledDisabled( orderUpdatesByShape ) );
+		settings.setOrderUpdatesByShapeEnabled( orderUpdatesByShape );
+
 		boolean orderInserts = PropertiesHelper.getBoolean(Environment.ORDER_INSERTS, properties);
 		log.info( "Order SQL inserts for batching: " + enabledDisabled( orderInserts ) );
 		settings.setOrderInsertsEnabled( orderInserts );
 
+		boolean bulkCascadeDelete = PropertiesHelper.getBoolean( Environment.BULK_CASCADE_DELETE, properties );
+		log.info( "Set-based cascade delete: " + enabledDisabled( bulkCascadeDelete ) );
+		settings.setBulkCascadeDeleteEnabled( bulkCascadeDelete );
+
+		boolean bagElementUpdates = PropertiesHelper.getBoolean( Environment.BAG_ELEMENT_UPDATES, properties );
+		log.info( "Bag updates by element: " + enabledDisabled( bagElementUpdates ) );
+		settings.setBagElementUpdatesEnabled( bagElementUpdates );
+
 		//Query parser settings:
 
 		settings.setQueryTranslatorFactory( createQueryTranslatorFactory(properties) );
@@ -323,6 +351,12 @@ public class SettingsFactory implements Serializable {
 		log.info( "Statistics: " + enabledDisabled(useStatistics) );
 		settings.setStatisticsEnabled(useStatistics);
 
+		int statisticsLatencyWindow = PropertiesHelper.getInt(Environment.STATISTICS_LATENCY_WINDOW, properties, 0);
+		if ( statisticsLatencyWindow > 0 ) {
+			log.info( "Statistics latency window: " + statisticsLatencyWindow + "s" );
+		}
+		settings.setStatisticsLatencyWindow(statisticsLatencyWindow);
+
 		boolean useIdentifierRollback = PropertiesHelper.getBoolean(Environment.USE_IDENTIFIER_ROLLBACK, properties);
 		log.info( "Deleted entity synthetic identifier rollback: " + enabledDisabled(useIdentifierRollback) );
 		settings.setIdentifierRollbackEnabled(useIdentifierRollback);
@@ -347,6 +381,28 @@ public class SettingsFactory implements Serializable {
 		log.info( "Named query checking : " + enabledDisabled( namedQueryChecking ) );
 		settings.setNamedQueryStartupCheckingEnabled( namedQueryChecking );
 
+		int namedQueryCheckingThreads = PropertiesHelper.getInt( Environment.QUERY_STARTUP_CHECKING_THREADS, properties, 1 );
+		if ( namedQueryChecking ) {
+			log.info( "Named query checking threads: " + namedQueryCheckingThreads );
+		}
+		settings.setNamedQueryStartupCheckingThreads( namedQueryCheckingThreads );
+
+		boolean normalizeQueryLiterals = PropertiesHelper.getBoolean( Environment.QUERY_PLAN_CACHE_NORMALIZE_LITERALS, properties );
+		log.info( "Query literal normalization: " + enabledDisabled( normalizeQueryLiterals ) );
+		settings.setQueryLiteralNormalizationEnabled( normalizeQueryLiterals );
+
+		boolean padInClauseParameters = PropertiesHelper.getBoolean( Environment.IN_CLAUSE_PARAMETER_PADDING, properties );
+		log.info( "IN clause parameter padding: " + enabledDisabled( padInClauseParameters ) );
+		settings.setInClauseParameterPaddingEnabled( padInClauseParameters );
+
+		int buildThreads = PropertiesHelper.getInt( Environment.SESSION_FACTORY_BUILD_THREADS, properties, 1 );
+		log.info( "Session factory build threads: " + buildThreads );
+		settings.setSessionFactoryBuildThreads( buildThreads );
+
+		boolean lazyLoaders = PropertiesHelper.getBoolean( Environment.LOADER_LAZY_INITIALIZATION, properties );
+		log.info( "Lazy loader initialization: " + enabledDisabled( lazyLoaders ) );
+		settings.setLazyLoaderInitializationEnabled( lazyLoaders );
+
 		boolean checkNullability = PropertiesHelper.getBoolean(Environment.CHECK_NULLABILITY, properties, true);
 		log.info( "Check Nullability in Core (should be disabled when Bean Validation is on): " + enabledDisabled(checkNullability) );
 		settings.setCheckNullability(checkNullability);
@@ -455,6 +511,25 @@ public class SettingsFactory implements Serializable {
 		}
 	}
 
+	protected Class getJdbcObserverClass(Properties properties) {
+		String observerClass = properties.getProperty(Environment.JDBC_OBSERVER);
+		if (observerClass==null) {
+			return null;
+		}
+		log.info("JDBC observer: " + observerClass);
+		Class clazz;
+		try {
+			clazz = ReflectHelper.classForName(observerClass);
+		}
+		catch (ClassNotFoundException cnfe) {
+			throw new HibernateException("could not find JdbcObserver class: " + observerClass, cnfe);
+		}
+		if ( !JdbcObserver.class.isAssignableFrom(clazz) ) {
+			throw new HibernateException("class does not implement JdbcObserver: " + observerClass);
+		}
+		return clazz;
+	}
+
 	protected ConnectionProvider createConnectionProvider(Properties properties) {
 		return ConnectionProviderFactory.newConnectionProvider(properties);
 	}
@@ -41,6 +41,7 @@ import org.hibernate.EntityMode;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.event.Initializable;
+import org.hibernate.event.DeleteObservingListener;
 import org.hibernate.event.PreDeleteEvent;
 import org.hibernate.event.PreDeleteEventListener;
 import org.hibernate.event.PreInsertEvent;
@@ -57,7 +58,8 @@ import org.hibernate.persister.entity.EntityPersister;
  */
 //FIXME review exception model
 public class BeanValidationEventListener implements
-		PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener, Initializable {
+		PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener, Initializable,
+		DeleteObservingListener {
 
 	private static final Logger log = LoggerFactory.getLogger( BeanValidationEventListener.class );
 	private ValidatorFactory factory;
@@ -114,6 +116,11 @@ public class BeanValidationEventListener implements
 		return false;
 	}
 
+	public boolean observesDeletes() {
+		// no groups are validated on delete by default
+		return !initialized || groupsPerOperation.get( GroupsPerOperation.Operation.DELETE ).length > 0;
+	}
+
 	private void init(ValidatorFactory factory, Properties properties) {
 		this.factory = factory;
 		groupsPerOperation = new GroupsPerOperation( properties );
@@ -27,10 +27,13 @@ package org.hibernate.collection;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import org.hibernate.AssertionFailure;
 import org.hibernate.HibernateException;
@@ -41,6 +44,7 @@ import org.hibernate.engine.ForeignKeys;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.engine.Status;
 import org.hibernate.engine.TypedValue;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
 import org.hibernate.persister.collection.CollectionPersister;
 import org.hibernate.pretty.MessageHelper;
 import org.hibernate.type.Type;
@@ -59,6 +63,7 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 	private transient SessionImplementor session;
 	private boolean initialized;
 	private transient List operationQueue;
+	private transient int queuedClearPosition;
 	private transient boolean directlyAccessible;
 	private transient boolean initializing;
 	private Object owner;
@@ -123,11 +128,21 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 				CollectionEntry entry = session.getPersistenceContext().getCollectionEntry(this);
 				CollectionPersister persister = entry.getLoadedPersister();
 				if ( persister.isExtraLazy() ) {
-					if ( hasQueuedOperations() ) {
-						session.flush();
+					if ( hasQueuedOperations() && isDirectlyWrittenCollection() ) {
+						Integer change = getQueuedSizeChange();
+						if ( change != null ) {
+							int size = hasQueuedClear() ? 0 : persister.getSize( entry.getLoadedKey(), session );
+							cachedSize = size + change.intValue();
+							return true;
+						}
+					}
+					else {
+						if ( hasQueuedOperations() ) {
+							session.flush();
+						}
+						cachedSize = persister.getSize( entry.getLoadedKey(), session );
+						return true;
 					}
-					cachedSize = persister.getSize( entry.getLoadedKey(), session );
-					return true;
 				}
 			}
 		}
@@ -142,7 +157,15 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 			CollectionPersister persister = entry.getLoadedPersister();
 			if ( persister.isExtraLazy() ) {
 				if ( hasQueuedOperations() ) {
-					session.flush();
+					if ( isDirectlyWrittenCollection() ) {
+						Object queued = readQueuedElementByIndex( index );
+						if ( queued != UNKNOWN ) {
+							return Boolean.valueOf( queued != null );
+						}
+					}
+					else {
+						session.flush();
+					}
 				}
 				return new Boolean( persister.indexExists( entry.getLoadedKey(), index, session ) );
 			}
@@ -159,7 +182,15 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 			CollectionPersister persister = entry.getLoadedPersister();
 			if ( persister.isExtraLazy() ) {
 				if ( hasQueuedOperations() ) {
-					session.flush();
+					if ( isDirectlyWrittenCollection() ) {
+						Boolean queued = readQueuedElementExistence( element );
+						if ( queued != null ) {
+							return queued;
+						}
+					}
+					else {
+						session.flush();
+					}
 				}
 				return new Boolean( persister.elementExists( entry.getLoadedKey(), element, session ) );
 			}
@@ -169,6 +200,32 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 		
 	}
 	
+	/**
+	 * Check the existence of each of the given elements without initializing
+	 * the collection, for queueing an operation per element.
+	 *
+	 * @return the distinct elements which exist (or do not exist) in the
+	 * collection, or null if the collection had to be initialized instead
+	 */
+	protected final List readElementsExistence(Collection elements, boolean existing) {
+		List result = new ArrayList( elements.size() );
+		HashSet seen = new HashSet();
+		Iterator iter = elements.iterator();
+		while ( iter.hasNext() ) {
+			Object element = iter.next();
+			if ( seen.add( element ) ) {
+				Boolean exists = readElementExistence( element );
+				if ( exists == null ) {
+					return null;
+				}
+				if ( exists.booleanValue() == existing ) {
+					result.add( element );
+				}
+			}
+		}
+		return result;
+	}
+
 	protected static final Object UNKNOWN = new MarkerObject("UNKNOWN");
 	
 	protected Object readElementByIndex(Object index) {
@@ -178,7 +235,15 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 			CollectionPersister persister = entry.getLoadedPersister();
 			if ( persister.isExtraLazy() ) {
 				if ( hasQueuedOperations() ) {
-					session.flush();
+					if ( isDirectlyWrittenCollection() ) {
+						Object queued = readQueuedElementByIndex( index );
+						if ( queued != UNKNOWN ) {
+							return queued;
+						}
+					}
+					else {
+						session.flush();
+					}
 				}
 				return persister.getElementByIndex( entry.getLoadedKey(), index, session, owner );
 			}
@@ -215,7 +280,7 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 	protected boolean isOperationQueueEnabled() {
 		return !initialized &&
 				isConnectedToSession() &&
-				isInverseCollection();
+				( isInverseCollection() || isDirectlyWrittenCollection() );
 	}
 	/**
 	 * Is this collection in a state that would allow us to
@@ -225,7 +290,7 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 	protected boolean isPutQueueEnabled() {
 		return !initialized &&
 				isConnectedToSession() &&
-				isInverseOneToManyOrNoOrphanDelete();
+				( isInverseOneToManyOrNoOrphanDelete() || isDirectlyWrittenCollection() );
 	}
 	/**
 	 * Is this collection in a state that would allow us to
@@ -235,7 +300,15 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 	protected boolean isClearQueueEnabled() {
 		return !initialized &&
 				isConnectedToSession() &&
-				isInverseCollectionNoOrphanDelete();
+				( isInverseCollectionNoOrphanDelete() || isDirectlyWrittenCollection() );
+	}
+
+	/**
+	 * Can this collection type write "queued" operations directly to
+	 * the collection table at flush time, without being initialized?
+	 */
+	protected boolean isQueuedWriteSupported(CollectionPersister persister) {
+		return false;
 	}
 
 	/**
@@ -269,6 +342,33 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 			);
 	}
 
+	/**
+	 * Is this the non-inverse end of an extra-lazy association, with
+	 * no orphan delete, whose "queued" operations are written directly
+	 * to the collection table at flush time?
+	 */
+	private boolean isDirectlyWrittenCollection() {
+		CollectionEntry ce = session.getPersistenceContext().getCollectionEntry(this);
+		if ( ce == null ) {
+			return false;
+		}
+		CollectionPersister persister = ce.getLoadedPersister();
+		return !persister.isInverse() &&
+				persister.isExtraLazy() &&
+				!persister.isOneToMany() &&
+				!persister.hasOrphanDelete() &&
+				isQueuedWriteSupported( persister );
+	}
+
+	/**
+	 * Can the rows of the given collection be located by element value,
+	 * so that queued removals may be written without initializing it?
+	 */
+	protected static boolean isElementRowLocatable(CollectionPersister persister) {
+		return persister instanceof AbstractCollectionPersister
+				&& ( ( AbstractCollectionPersister ) persister ).isElementRowLocatable();
+	}
+
 	/**
 	 * Queue an addition
 	 */
@@ -278,6 +378,122 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 		dirty = true; //needed so that we remove this collection from the second-level cache
 	}
 
+	/**
+	 * Queue a clear; operations queued after it apply to the emptied collection
+	 */
+	protected final void queueClear(Object clear) {
+		queueOperation( clear );
+		queuedClearPosition = operationQueue.size();
+	}
+
+	/**
+	 * The operations queued since the last "queued" clear, or all of them
+	 * if there is none
+	 */
+	protected final List getOperationsQueuedSinceClear() {
+		return hasQueuedOperations() ?
+				operationQueue.subList( queuedClearPosition, operationQueue.size() ) :
+				CollectionHelper.EMPTY_LIST;
+	}
+
+	/**
+	 * The elements to insert for the operations queued since the last "queued" clear
+	 */
+	protected List getQueuedAdditionsSinceClear() {
+		return getNetQueuedElements( true );
+	}
+
+	/**
+	 * The elements to delete for the operations queued since the last "queued" clear
+	 */
+	protected List getQueuedRemovalsSinceClear() {
+		return getNetQueuedElements( false );
+	}
+
+	/**
+	 * The elements whose first and last operation queued since the last "queued"
+	 * clear both added them (or both removed them).  An element is only queued for
+	 * addition if it does not exist and for removal if it does, so the operations
+	 * on it alternate: the first one tells whether its row existed before the
+	 * queued operations, the last one whether it exists after them, and an
+	 * addition and a removal of the same element cancel out.
+	 */
+	private List getNetQueuedElements(boolean added) {
+		List operations = getOperationsQueuedSinceClear();
+		LinkedHashMap firstAdded = new LinkedHashMap();
+		Map lastAdded = new HashMap();
+		for ( int i = 0; i < operations.size(); i++ ) {
+			DelayedOperation operation = (DelayedOperation) operations.get(i);
+			Object element = operation.getAddedInstance();
+			Boolean isAddition = Boolean.TRUE;
+			if ( element == null ) {
+				element = operation.getOrphan();
+				isAddition = Boolean.FALSE;
+			}
+			if ( element != null ) {
+				if ( !firstAdded.containsKey( element ) ) {
+					firstAdded.put( element, isAddition );
+				}
+				lastAdded.put( element, isAddition );
+			}
+		}
+		List result = new ArrayList( firstAdded.size() );
+		Iterator iter = firstAdded.entrySet().iterator();
+		while ( iter.hasNext() ) {
+			Map.Entry entry = (Map.Entry) iter.next();
+			if ( ( (Boolean) entry.getValue() ).booleanValue() == added
+					&& entry.getValue().equals( lastAdded.get( entry.getKey() ) ) ) {
+				result.add( entry.getKey() );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Does this instance have a "queued" clear, so that all existing
+	 * rows must be removed before writing the queued additions?
+	 */
+	public final boolean hasQueuedClear() {
+		return hasQueuedOperations() && queuedClearPosition > 0;
+	}
+
+	/**
+	 * The existence of the given element after the operations "queued" since the
+	 * last queued clear of a collection which writes them directly, or null if they
+	 * do not tell, so that it exists if it does in the database
+	 */
+	protected Boolean readQueuedElementExistence(Object element) {
+		if ( element == null ) {
+			return null;
+		}
+		List operations = getOperationsQueuedSinceClear();
+		for ( int i = operations.size() - 1; i >= 0; i-- ) {
+			DelayedOperation operation = (DelayedOperation) operations.get(i);
+			if ( element.equals( operation.getAddedInstance() ) ) return Boolean.TRUE;
+			if ( element.equals( operation.getOrphan() ) ) return Boolean.FALSE;
+		}
+		return hasQueuedClear() ? Boolean.FALSE : null;
+	}
+
+	/**
+	 * The element at the given index after the operations "queued" since the last
+	 * queued clear of a collection which writes them directly, null if they removed
+	 * it, or UNKNOWN if they do not tell
+	 */
+	protected Object readQueuedElementByIndex(Object index) {
+		return UNKNOWN;
+	}
+
+	/**
+	 * The change of size made by the operations "queued" since the last queued
+	 * clear of a collection which writes them directly, or null if they do not
+	 * tell.  Queued operations are only added when they change the collection,
+	 * so this is the number of additions less the number of removals.
+	 */
+	protected Integer getQueuedSizeChange() {
+		return new Integer( getQueuedAdditionsSinceClear().size() - getQueuedRemovalsSinceClear().size() );
+	}
+
 	/**
 	 * After reading all existing elements from the database,
 	 * add the queued elements to the underlying collection.
@@ -295,6 +511,15 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 		this.key = key;
 		this.role = role;
 		this.storedSnapshot = snapshot;
+		if ( initialized && operationQueue!=null ) {
+			// the "queued" operations of a directly written collection are
+			// merged over its loaded state once that has been snapshotted,
+			// so that the difference is written at flush time
+			performQueuedOperations();
+			operationQueue=null;
+			queuedClearPosition = 0;
+			cachedSize = -1;
+		}
 	}
 
 	/**
@@ -303,6 +528,7 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 	 */
 	public void postAction() {
 		operationQueue=null;
+		queuedClearPosition = 0;
 		cachedSize = -1;
 		clearDirty();
 	}
@@ -344,8 +570,12 @@ public abstract class AbstractPersistentCollection implements Serializable, Pers
 		setInitialized();
 		//do this bit after setting initialized to true or it will recurse
 		if (operationQueue!=null) {
-			performQueuedOperations();
-			operationQueue=null;
+			if ( !isDirectlyWrittenCollection() ) {
+				performQueuedOperations();
+				operationQueue=null;
+				queuedClearPosition = 0;
+			}
+			//otherwise they are performed once the snapshot is taken
 			cachedSize = -1;
 			return false;
 		}
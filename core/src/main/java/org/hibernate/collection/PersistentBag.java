@@ -29,12 +29,18 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import org.hibernate.EntityMode;
 import org.hibernate.HibernateException;
+import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.loader.CollectionAliases;
 import org.hibernate.persister.collection.CollectionPersister;
@@ -52,6 +58,12 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 
 	protected List bag;
 
+	/**
+	 * For bags whose rows are located by element value, the elements of the bag which
+	 * need inserting, as computed by the multiset difference in {@link #getDeletes}.
+	 */
+	private transient boolean[] elementInserts;
+
 	public PersistentBag(SessionImplementor session) {
 		super(session);
 	}
@@ -82,6 +94,9 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 	}
 
 	public Iterator entries(CollectionPersister persister) {
+		if ( !wasInitialized() ) {
+			return getQueuedAdditionsSinceClear().iterator();
+		}
 		return bag.iterator();
 	}
 
@@ -169,7 +184,63 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 	}
 
 	public boolean needsRecreate(CollectionPersister persister) {
-		return !persister.isOneToMany();
+		// updating by element relies on the database comparing element values exactly
+		return !persister.isOneToMany() &&
+				!( persister.getFactory().getSettings().isBagElementUpdatesEnabled() && isElementRowLocatable( persister ) );
+	}
+
+	protected boolean isQueuedWriteSupported(CollectionPersister persister) {
+		// queued removals delete the rows of an element located by its value
+		return persister.getFactory().getSettings().isBagElementUpdatesEnabled() && isElementRowLocatable( persister );
+	}
+
+	private boolean isBagElementUpdatesEnabled() {
+		return getSession().getFactory().getSettings().isBagElementUpdatesEnabled();
+	}
+
+	protected List getQueuedAdditionsSinceClear() {
+		// an element may be added more than once, and a later removal
+		// removes all of its occurrences, including the queued ones
+		List operations = getOperationsQueuedSinceClear();
+		List additions = new ArrayList( operations.size() );
+		HashSet removed = new HashSet();
+		for ( int i = operations.size() - 1; i >= 0; i-- ) {
+			DelayedOperation operation = (DelayedOperation) operations.get(i);
+			Object added = operation.getAddedInstance();
+			if ( added == null ) {
+				removed.add( operation.getOrphan() );
+			}
+			else if ( !removed.contains( added ) ) {
+				additions.add( 0, added );
+			}
+		}
+		return additions;
+	}
+
+	protected List getQueuedRemovalsSinceClear() {
+		if ( hasQueuedClear() ) {
+			// the queued clear already deletes all rows
+			return Collections.EMPTY_LIST;
+		}
+		// deleting an element which only occurred through queued additions
+		// affects no rows, which is not checked for bags
+		List operations = getOperationsQueuedSinceClear();
+		LinkedHashSet removals = new LinkedHashSet();
+		for ( int i = 0; i < operations.size(); i++ ) {
+			Object removed = ( (DelayedOperation) operations.get(i) ).getOrphan();
+			if ( removed != null ) removals.add( removed );
+		}
+		return new ArrayList( removals );
+	}
+
+	protected Integer getQueuedSizeChange() {
+		// a queued removal removes an unknown number of occurrences
+		return getQueuedRemovalsSinceClear().isEmpty() ? super.getQueuedSizeChange() : null;
+	}
+
+	public void postAction() {
+		super.postAction();
+		elementInserts = null;
 	}
 
 
@@ -182,7 +253,13 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 	// <one-to-many> <bag>!
 
 	public Iterator getDeletes(CollectionPersister persister, boolean indexIsFormula) throws HibernateException {
-		//if ( !persister.isOneToMany() ) throw new AssertionFailure("Not implemented for Bags");
+		if ( !wasInitialized() ) {
+			// queued removals delete all occurrences of an element
+			return getQueuedRemovalsSinceClear().iterator();
+		}
+		if ( !persister.isOneToMany() ) {
+			return getMultisetDeletes( persister );
+		}
 		Type elementType = persister.getElementType();
 		EntityMode entityMode = getSession().getEntityMode();
 		ArrayList deletes = new ArrayList();
@@ -212,8 +289,104 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 		return deletes.iterator();
 	}
 
+	/**
+	 * Compute the difference between the snapshot and the bag as multisets.  Since the
+	 * rows of a bag can only be located by element value, deleting an element deletes all
+	 * of its occurrences; so an element occurring less often than in the snapshot is
+	 * deleted and all of its occurrences are reinserted, while an element occurring more
+	 * often only has its additional occurrences inserted.
+	 */
+	private Iterator getMultisetDeletes(CollectionPersister persister) {
+		final Type elementType = persister.getElementType();
+		final EntityMode entityMode = getSession().getEntityMode();
+		final SessionFactoryImplementor factory = persister.getFactory();
+		final List sn = (List) getSnapshot();
+
+		Map occurrences = new HashMap( sn.size() + bag.size() );
+		ElementOccurrences[] snapshotOccurrences = new ElementOccurrences[ sn.size() ];
+		for ( int i = 0; i < sn.size(); i++ ) {
+			snapshotOccurrences[i] = ElementOccurrences.of( occurrences, sn.get( i ), elementType, entityMode, factory );
+			snapshotOccurrences[i].inSnapshot++;
+		}
+		ElementOccurrences[] bagOccurrences = new ElementOccurrences[ bag.size() ];
+		for ( int i = 0; i < bag.size(); i++ ) {
+			bagOccurrences[i] = ElementOccurrences.of( occurrences, bag.get( i ), elementType, entityMode, factory );
+			bagOccurrences[i].inBag++;
+		}
+
+		ArrayList deletes = new ArrayList();
+		for ( int i = 0; i < snapshotOccurrences.length; i++ ) {
+			ElementOccurrences element = snapshotOccurrences[i];
+			if ( element.inBag < element.inSnapshot && !element.deleted ) {
+				element.deleted = true;
+				deletes.add( sn.get( i ) );
+			}
+		}
+		boolean[] inserts = new boolean[ bagOccurrences.length ];
+		for ( int i = 0; i < bagOccurrences.length; i++ ) {
+			ElementOccurrences element = bagOccurrences[i];
+			inserts[i] = element.deleted || element.inserted++ >= element.inSnapshot;
+		}
+		elementInserts = inserts;
+		return deletes.iterator();
+	}
+
+	/**
+	 * The number of occurrences of an element in the snapshot and the bag, keyed by
+	 * element according to the element type's notion of equality.
+	 */
+	private static final class ElementOccurrences {
+		private final Object element;
+		private final Type elementType;
+		private final EntityMode entityMode;
+		private final SessionFactoryImplementor factory;
+		private final int hashCode;
+		private int inSnapshot;
+		private int inBag;
+		private int inserted;
+		private boolean deleted;
+
+		private ElementOccurrences(Object element, Type elementType, EntityMode entityMode, SessionFactoryImplementor factory) {
+			this.element = element;
+			this.elementType = elementType;
+			this.entityMode = entityMode;
+			this.factory = factory;
+			this.hashCode = elementType.getHashCode( element, entityMode, factory );
+		}
+
+		static ElementOccurrences of(
+				Map occurrences,
+				Object element,
+				Type elementType,
+				EntityMode entityMode,
+				SessionFactoryImplementor factory) {
+			ElementOccurrences key = new ElementOccurrences( element, elementType, entityMode, factory );
+			ElementOccurrences existing = (ElementOccurrences) occurrences.get( key );
+			if ( existing == null ) {
+				occurrences.put( key, key );
+				existing = key;
+			}
+			return existing;
+		}
+
+		public boolean equals(Object other) {
+			return other instanceof ElementOccurrences
+					&& elementType.isEqual( element, ( (ElementOccurrences) other ).element, entityMode, factory );
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
 	public boolean needsInserting(Object entry, int i, Type elemType) throws HibernateException {
-		//if ( !persister.isOneToMany() ) throw new AssertionFailure("Not implemented for Bags");
+		if ( !wasInitialized() ) {
+			// a queued addition of an uninitialized bag
+			return true;
+		}
+		if ( elementInserts != null && elementInserts.length == bag.size() ) {
+			return elementInserts[i];
+		}
 		List sn = (List) getSnapshot();
 		final EntityMode entityMode = getSession().getEntityMode();
 		if ( sn.size()>i && elemType.isSame( sn.get(i), entry, entityMode ) ) {
@@ -348,6 +521,18 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 	 */
 	public boolean removeAll(Collection c) {
 		if ( c.size()>0 ) {
+			// unlike remove(), this removes all occurrences of each element, so it
+			// can be queued without knowing how often the element occurs, as long as
+			// rows may be located by element value
+			List removals = isPutQueueEnabled() && isBagElementUpdatesEnabled() ?
+					readElementsExistence( c, true ) :
+					null;
+			if ( removals != null ) {
+				for ( int i = 0; i < removals.size(); i++ ) {
+					queueOperation( new SimpleRemove( removals.get(i) ) );
+				}
+				return removals.size() > 0;
+			}
 			initialize( true );
 			if ( bag.removeAll( c ) ) {
 				dirty();
@@ -381,7 +566,7 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 	 */
 	public void clear() {
 		if ( isClearQueueEnabled() ) {
-			queueOperation( new Clear() );
+			queueClear( new Clear() );
 		}
 		else {
 			initialize( true );
@@ -568,4 +753,21 @@ public class PersistentBag extends AbstractPersistentCollection implements List
 		}
 	}
 
+	final class SimpleRemove implements DelayedOperation {
+		private Object value;
+
+		public SimpleRemove(Object value) {
+			this.value = value;
+		}
+		public void operate() {
+			bag.removeAll( Collections.singleton( value ) );
+		}
+		public Object getAddedInstance() {
+			return null;
+		}
+		public Object getOrphan() {
+			return value;
+		}
+	}
+
 }
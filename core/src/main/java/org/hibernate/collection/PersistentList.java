@@ -272,7 +272,7 @@ public class PersistentList extends AbstractPersistentCollection implements List
 	 */
 	public void clear() {
 		if ( isClearQueueEnabled() ) {
-			queueOperation( new Clear() );
+			queueClear( new Clear() );
 		}
 		else {
 			initialize( true );
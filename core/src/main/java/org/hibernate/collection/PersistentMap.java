@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -217,6 +218,9 @@ public class PersistentMap extends AbstractPersistentCollection implements Map {
 	 */
 	public void putAll(Map puts) {
 		if ( puts.size()>0 ) {
+			if ( isPutQueueEnabled() && queuePutAll( puts ) ) {
+				return;
+			}
 			initialize( true );
 			Iterator itr = puts.entrySet().iterator();
 			while ( itr.hasNext() ) {
@@ -226,12 +230,33 @@ public class PersistentMap extends AbstractPersistentCollection implements Map {
 		}
 	}
 
+	/**
+	 * Read the old values of all the keys before queueing any put, so that
+	 * none is queued if the map has to be initialized instead
+	 */
+	private boolean queuePutAll(Map puts) {
+		List queued = new ArrayList( puts.size() );
+		Iterator itr = puts.entrySet().iterator();
+		while ( itr.hasNext() ) {
+			Map.Entry entry = ( Entry ) itr.next();
+			Object old = readElementByIndex( entry.getKey() );
+			if ( old == UNKNOWN ) {
+				return false;
+			}
+			queued.add( new Put( entry.getKey(), entry.getValue(), old ) );
+		}
+		for ( int i = 0; i < queued.size(); i++ ) {
+			queueOperation( queued.get(i) );
+		}
+		return true;
+	}
+
 	/**
 	 * @see java.util.Map#clear()
 	 */
 	public void clear() {
 		if ( isClearQueueEnabled() ) {
-			queueOperation( new Clear() );
+			queueClear( new Clear() );
 		}
 		else {
 			initialize( true );
@@ -284,9 +309,84 @@ public class PersistentMap extends AbstractPersistentCollection implements Map {
 	}
 
 	public Iterator entries(CollectionPersister persister) {
+		if ( !wasInitialized() ) {
+			// the queued puts of an uninitialized map
+			Map puts = new HashMap();
+			List operations = getOperationsQueuedSinceClear();
+			for ( int i = 0; i < operations.size(); i++ ) {
+				if ( operations.get(i) instanceof Put ) {
+					Put put = (Put) operations.get(i);
+					puts.put( put.index, put.value );
+				}
+				else if ( operations.get(i) instanceof Remove ) {
+					puts.remove( ( (Remove) operations.get(i) ).index );
+				}
+			}
+			return puts.entrySet().iterator();
+		}
 		return map.entrySet().iterator();
 	}
 
+	protected boolean isQueuedWriteSupported(CollectionPersister persister) {
+		return true;
+	}
+
+	/**
+	 * The value of the row of each key written by the operations "queued" since
+	 * the last queued clear before they were queued, or null if there was none:
+	 * the old value seen by the first operation on the key
+	 */
+	private Map getQueuedOriginals() {
+		Map originals = new LinkedHashMap();
+		List operations = getOperationsQueuedSinceClear();
+		for ( int i = 0; i < operations.size(); i++ ) {
+			DelayedOperation operation = (DelayedOperation) operations.get(i);
+			Object key = operation instanceof Put ?
+					( (Put) operation ).index :
+					( (Remove) operation ).index;
+			if ( !originals.containsKey( key ) ) {
+				originals.put( key, operation.getOrphan() );
+			}
+		}
+		return originals;
+	}
+
+	protected Integer getQueuedSizeChange() {
+		int change = 0;
+		Iterator iter = getQueuedOriginals().entrySet().iterator();
+		while ( iter.hasNext() ) {
+			Map.Entry e = (Map.Entry) iter.next();
+			if ( e.getValue() != null ) {
+				change--;
+			}
+			if ( readQueuedElementByIndex( e.getKey() ) != null ) {
+				change++;
+			}
+		}
+		return new Integer( change );
+	}
+
+	protected Boolean readQueuedElementExistence(Object element) {
+		// a queued put or removal does not tell whether another
+		// key holds the value, so look it up in the loaded map
+		read();
+		return Boolean.valueOf( map.containsValue( element ) );
+	}
+
+	protected Object readQueuedElementByIndex(Object index) {
+		List operations = getOperationsQueuedSinceClear();
+		for ( int i = operations.size() - 1; i >= 0; i-- ) {
+			Object operation = operations.get(i);
+			if ( operation instanceof Put && ( (Put) operation ).index.equals( index ) ) {
+				return ( (Put) operation ).value;
+			}
+			if ( operation instanceof Remove && ( (Remove) operation ).index.equals( index ) ) {
+				return null;
+			}
+		}
+		return hasQueuedClear() ? null : UNKNOWN;
+	}
+
 	/** a wrapper for Map.Entry sets */
 	class EntrySetProxy implements Set {
 		private final Set set;
@@ -404,6 +504,17 @@ public class PersistentMap extends AbstractPersistentCollection implements Map {
 	public Iterator getDeletes(CollectionPersister persister, boolean indexIsFormula) 
 	throws HibernateException {
 		List deletes = new ArrayList();
+		if ( !wasInitialized() ) {
+			// the rows replaced or removed by the queued operations of an uninitialized map
+			Iterator iter = getQueuedOriginals().entrySet().iterator();
+			while ( iter.hasNext() ) {
+				Map.Entry e = (Map.Entry) iter.next();
+				if ( e.getValue() != null ) {
+					deletes.add( indexIsFormula ? e.getValue() : e.getKey() );
+				}
+			}
+			return deletes.iterator();
+		}
 		Iterator iter = ( (Map) getSnapshot() ).entrySet().iterator();
 		while ( iter.hasNext() ) {
 			Map.Entry e = (Map.Entry) iter.next();
@@ -417,8 +528,12 @@ public class PersistentMap extends AbstractPersistentCollection implements Map {
 
 	public boolean needsInserting(Object entry, int i, Type elemType) 
 	throws HibernateException {
-		final Map sn = (Map) getSnapshot();
 		Map.Entry e = (Map.Entry) entry;
+		if ( !wasInitialized() ) {
+			// a queued put of an uninitialized map
+			return e.getValue()!=null;
+		}
+		final Map sn = (Map) getSnapshot();
 		return e.getValue()!=null && sn.get( e.getKey() )==null;
 	}
 
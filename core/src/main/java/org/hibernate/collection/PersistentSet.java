@@ -264,6 +264,13 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 	 */
 	public boolean addAll(Collection coll) {
 		if ( coll.size() > 0 ) {
+			List additions = isOperationQueueEnabled() ? readElementsExistence( coll, false ) : null;
+			if ( additions != null ) {
+				for ( int i = 0; i < additions.size(); i++ ) {
+					queueOperation( new SimpleAdd( additions.get(i) ) );
+				}
+				return additions.size() > 0;
+			}
 			initialize( true );
 			if ( set.addAll( coll ) ) {
 				dirty();
@@ -297,6 +304,13 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 	 */
 	public boolean removeAll(Collection coll) {
 		if ( coll.size() > 0 ) {
+			List removals = isPutQueueEnabled() ? readElementsExistence( coll, true ) : null;
+			if ( removals != null ) {
+				for ( int i = 0; i < removals.size(); i++ ) {
+					queueOperation( new SimpleRemove( removals.get(i) ) );
+				}
+				return removals.size() > 0;
+			}
 			initialize( true );
 			if ( set.removeAll( coll ) ) {
 				dirty();
@@ -316,7 +330,7 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 	 */
 	public void clear() {
 		if ( isClearQueueEnabled() ) {
-			queueOperation( new Clear() );
+			queueClear( new Clear() );
 		}
 		else {
 			initialize( true );
@@ -327,6 +341,10 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 		}
 	}
 
+	protected boolean isQueuedWriteSupported(CollectionPersister persister) {
+		return isElementRowLocatable( persister );
+	}
+
 	public String toString() {
 		//if (needLoading) return "asleep";
 		read();
@@ -356,6 +374,9 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 	}
 
 	public Iterator entries(CollectionPersister persister) {
+		if ( !wasInitialized() ) {
+			return getQueuedAdditionsSinceClear().iterator();
+		}
 		return set.iterator();
 	}
 
@@ -373,6 +394,9 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 	}
 
 	public Iterator getDeletes(CollectionPersister persister, boolean indexIsFormula) throws HibernateException {
+		if ( !wasInitialized() ) {
+			return getQueuedRemovalsSinceClear().iterator();
+		}
 		Type elementType = persister.getElementType();
 		final java.util.Map sn = (java.util.Map) getSnapshot();
 		ArrayList deletes = new ArrayList( sn.size() );
@@ -397,6 +421,10 @@ public class PersistentSet extends AbstractPersistentCollection implements java.
 	}
 
 	public boolean needsInserting(Object entry, int i, Type elemType) throws HibernateException {
+		if ( !wasInitialized() ) {
+			// a queued addition of an uninitialized set
+			return true;
+		}
 		final java.util.Map sn = (java.util.Map) getSnapshot();
 		Object oldValue = sn.get(entry);
 		// note that it might be better to iterate the snapshot but this is safe,
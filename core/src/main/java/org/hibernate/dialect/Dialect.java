@@ -434,6 +434,25 @@ public abstract class Dialect {
 		return false;
 	}
 
+	/**
+	 * Does the JDBC driver return the generated IDENTITY value of every row
+	 * inserted by an executed batch from {@link java.sql.Statement#getGeneratedKeys()},
+	 * in the order the rows were added to the batch?
+	 * <p/>
+	 * If so, and {@link org.hibernate.cfg.Environment#BATCH_IDENTITY_INSERTS batched identity inserts},
+	 * {@link org.hibernate.cfg.Environment#USE_GET_GENERATED_KEYS getGeneratedKeys} and JDBC
+	 * batching are enabled, identity inserts are delayed until flush and batched.
+	 * <p/>
+	 * Whether generated keys are returned from batches depends on the version of the driver
+	 * rather than on the database, so no dialect enables this by default; subclass the
+	 * dialect when the driver in use is known to return them.
+	 *
+	 * @return True if generated keys are returned from batches; false otherwise.
+	 */
+	public boolean supportsBatchedGeneratedKeys() {
+		return false;
+	}
+
 	/**
 	 * Whether this dialect have an Identity clause added to the data type or a
 	 * completely separate identity data type
@@ -1185,6 +1204,21 @@ public abstract class Dialect {
 		return true;
 	}
 
+	/**
+	 * Does this dialect support data-modifying statements (<tt>UPDATE</tt> and
+	 * <tt>DELETE</tt>) within a <tt>WITH</tt> clause, all of them seeing the same
+	 * snapshot of the data?
+	 * <p/>
+	 * If so, bulk operations spanning multiple tables are performed as a single
+	 * statement selecting the affected ids in a common table expression, rather
+	 * than by saving off those ids into a temporary table.
+	 *
+	 * @return True if data-modifying common table expressions are supported.
+	 */
+	public boolean supportsMutatingCommonTableExpressions() {
+		return false;
+	}
+
 
 	// callable statement support ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
@@ -1934,4 +1968,28 @@ public abstract class Dialect {
 		// oddly most database in fact seem to, so true is the default.
 		return true;
 	}
+
+	/**
+	 * Does the JDBC driver report the number of rows affected by each statement
+	 * of an executed batch, rather than {@link java.sql.Statement#SUCCESS_NO_INFO}?
+	 * <p/>
+	 * If so, optimistic lock failures are detected for batched statements too, so
+	 * versioned data is batched unless {@link org.hibernate.cfg.Environment#BATCH_VERSIONED_DATA}
+	 * says otherwise.
+	 *
+	 * @return True if batch row counts are accurate; false otherwise.
+	 */
+	public boolean supportsAccurateBatchRowCounts() {
+		return false;
+	}
+
+	/**
+	 * Return the limit that the underlying database places on the number of elements in an <tt>IN</tt>
+	 * predicate.  If the database defines no such limits, simply return zero or less-than-zero.
+	 *
+	 * @return The limit, or zero-or-less to indicate no limit.
+	 */
+	public int getInExpressionCountLimit() {
+		return 0;
+	}
 }
@@ -340,6 +340,11 @@ public class H2Dialect extends Dialect {
 		return false;
 	}
 
+	@Override
+	public boolean supportsAccurateBatchRowCounts() {
+		return true;
+	}
+
 	@Override
 	public boolean doesReadCommittedCauseWritersToBlockReaders() {
 		// see http://groups.google.com/group/h2-database/browse_thread/thread/562d8a49e2dabe99?hl=en
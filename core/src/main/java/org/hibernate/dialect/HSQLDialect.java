@@ -659,4 +659,8 @@ public class HSQLDialect extends Dialect {
 	public boolean supportsTupleDistinctCounts() {
 		return false;
 	}
+
+	public boolean supportsAccurateBatchRowCounts() {
+		return true;
+	}
 }
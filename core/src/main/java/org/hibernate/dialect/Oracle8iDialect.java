@@ -494,4 +494,8 @@ public class Oracle8iDialect extends Dialect {
 		return false;
 	}
 
+	public int getInExpressionCountLimit() {
+		return 1000;
+	}
+
 }
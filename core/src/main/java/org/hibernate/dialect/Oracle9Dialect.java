@@ -370,4 +370,8 @@ public class Oracle9Dialect extends Dialect {
 	public boolean supportsExistsInSelect() {
 		return false;
 	}
+
+	public int getInExpressionCountLimit() {
+		return 1000;
+	}
 }
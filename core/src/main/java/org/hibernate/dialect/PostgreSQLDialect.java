@@ -294,6 +294,10 @@ public class PostgreSQLDialect extends Dialect {
 		return false;
 	}
 
+	public boolean supportsAccurateBatchRowCounts() {
+		return true;
+	}
+
 	public String toBooleanValueString(boolean bool) {
 		return bool ? "true" : "false";
 	}
@@ -41,17 +41,21 @@ import org.hibernate.AssertionFailure;
 import org.hibernate.HibernateException;
 import org.hibernate.action.AfterTransactionCompletionProcess;
 import org.hibernate.action.BeforeTransactionCompletionProcess;
+import org.hibernate.action.BulkCascadeDeleteAction;
 import org.hibernate.action.BulkOperationCleanupAction;
 import org.hibernate.action.CollectionRecreateAction;
 import org.hibernate.action.CollectionRemoveAction;
 import org.hibernate.action.CollectionUpdateAction;
+import org.hibernate.action.EntityAction;
 import org.hibernate.action.EntityDeleteAction;
 import org.hibernate.action.EntityIdentityInsertAction;
 import org.hibernate.action.EntityInsertAction;
 import org.hibernate.action.EntityUpdateAction;
 import org.hibernate.action.Executable;
 import org.hibernate.cache.CacheException;
+import org.hibernate.type.CompositeType;
 import org.hibernate.type.Type;
+import org.hibernate.util.IdentitySet;
 
 /**
  * Responsible for maintaining the queue of actions related to events.
@@ -129,6 +133,11 @@ public class ActionQueue {
 		deletions.add( action );
 	}
 
+	@SuppressWarnings({ "unchecked" })
+	public void addAction(BulkCascadeDeleteAction action) {
+		deletions.add( action );
+	}
+
 	@SuppressWarnings({ "unchecked" })
 	public void addAction(EntityUpdateAction action) {
 		updates.add( action );
@@ -189,6 +198,35 @@ public class ActionQueue {
 		executeActions( deletions );
 	}
 
+	/**
+	 * Replaces each {@link BulkCascadeDeleteAction} which is no longer possible,
+	 * since children it would delete have been loaded, by the deletion of each
+	 * child, still ahead of the deletion of their owner.
+	 *
+	 * @throws HibernateException error deleting the children.
+	 */
+	@SuppressWarnings({ "unchecked" })
+	public void prepareBulkCascadeDeletes() throws HibernateException {
+		int i = 0;
+		while ( i < deletions.size() ) {
+			Object action = deletions.get( i );
+			if ( action instanceof BulkCascadeDeleteAction && !( ( BulkCascadeDeleteAction ) action ).isStillApplicable() ) {
+				deletions.remove( i );
+				int size = deletions.size();
+				( ( BulkCascadeDeleteAction ) action ).cascadePerEntity();
+				List cascaded = deletions.subList( size, deletions.size() );
+				List moved = new ArrayList( cascaded );
+				cascaded.clear();
+				deletions.addAll( i, moved );
+				// the children just loaded may rule out the actions already checked
+				i = 0;
+			}
+			else {
+				i++;
+			}
+		}
+	}
+
 	/**
 	 * Prepares the internal action queues for execution.
 	 *
@@ -262,12 +300,92 @@ public class ActionQueue {
 	private void executeActions(List list) throws HibernateException {
 		int size = list.size();
 		for ( int i = 0; i < size; i++ ) {
-			execute( ( Executable ) list.get( i ) );
+			Executable executable = ( Executable ) list.get( i );
+			int end = isBatchableIdentityInsert( executable ) ? findIdentityInsertBatchEnd( list, i ) : i + 1;
+			if ( end - i > 1 ) {
+				executeIdentityInserts( list.subList( i, end ) );
+				i = end - 1;
+			}
+			else {
+				execute( executable );
+			}
 		}
 		list.clear();
 		session.getBatcher().executeBatch();
 	}
 
+	private static boolean isBatchableIdentityInsert(Executable executable) {
+		return executable instanceof EntityIdentityInsertAction
+				&& ( ( EntityIdentityInsertAction ) executable ).isBatchable();
+	}
+
+	/**
+	 * Find the end of the run of identity inserts, starting at the given position,
+	 * that can be executed as one JDBC batch: consecutive inserts of the same entity
+	 * type, up to the JDBC batch size, none of which references an instance inserted
+	 * earlier in the run, since that instance has no identifier until the batch has
+	 * been executed.
+	 *
+	 * @param list The queue of actions
+	 * @param start The position of the first (batchable) identity insert of the run
+	 *
+	 * @return The position following the last action of the run
+	 */
+	@SuppressWarnings({ "unchecked" })
+	private int findIdentityInsertBatchEnd(List list, int start) {
+		final EntityIdentityInsertAction first = ( EntityIdentityInsertAction ) list.get( start );
+		final Type[] types = first.getPersister().getPropertyTypes();
+		final int max = Math.min( list.size(), start + session.getFactory().getSettings().getJdbcBatchSize() );
+		final Set instances = new IdentitySet();
+		instances.add( first.getInstance() );
+		int end = start + 1;
+		while ( end < max ) {
+			final Executable executable = ( Executable ) list.get( end );
+			if ( !isBatchableIdentityInsert( executable ) ) {
+				break;
+			}
+			final EntityIdentityInsertAction action = ( EntityIdentityInsertAction ) executable;
+			if ( action.getPersister() != first.getPersister() || references( action.getState(), types, instances ) ) {
+				break;
+			}
+			instances.add( action.getInstance() );
+			end++;
+		}
+		return end;
+	}
+
+	private boolean references(Object[] values, Type[] types, Set instances) {
+		for ( int i = 0; i < types.length; i++ ) {
+			final Object value = values[i];
+			if ( value == null ) {
+				continue;
+			}
+			if ( types[i].isEntityType() ) {
+				if ( instances.contains( value ) ) {
+					return true;
+				}
+			}
+			else if ( types[i].isComponentType() ) {
+				final CompositeType componentType = ( CompositeType ) types[i];
+				if ( references( componentType.getPropertyValues( value, session ), componentType.getSubtypes(), instances ) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void executeIdentityInserts(List actions) {
+		try {
+			EntityIdentityInsertAction.executeBatch( actions );
+		}
+		finally {
+			for ( int i = 0; i < actions.size(); i++ ) {
+				registerCleanupActions( ( Executable ) actions.get( i ) );
+			}
+		}
+	}
+
 	public void execute(Executable executable) {
 		try {
 			executable.execute();
@@ -347,8 +465,9 @@ public class ActionQueue {
 
 	@SuppressWarnings({ "unchecked" })
 	public void sortActions() {
-		if ( session.getFactory().getSettings().isOrderUpdatesEnabled() ) {
-			//sort the updates by pk
+		if ( session.getFactory().getSettings().isOrderUpdatesEnabled()
+				|| session.getFactory().getSettings().isOrderUpdatesByShapeEnabled() ) {
+			//sort the updates by pk and/or updated properties
 			java.util.Collections.sort( updates );
 		}
 		if ( session.getFactory().getSettings().isOrderInsertsEnabled() ) {
@@ -487,7 +606,11 @@ public class ActionQueue {
 		log.trace( "starting deserialization of [" + queueSize + "] deletions entries" );
 		rtn.deletions = new ArrayList<Executable>( queueSize );
 		for ( int i = 0; i < queueSize; i++ ) {
-			rtn.deletions.add( ois.readObject() );
+			Object action = ois.readObject();
+			if ( action instanceof BulkCascadeDeleteAction ) {
+				( ( BulkCascadeDeleteAction ) action ).afterDeserialize( session );
+			}
+			rtn.deletions.add( action );
 		}
 
 		queueSize = ois.readInt();
@@ -619,7 +742,7 @@ public class ActionQueue {
 		private HashMap latestBatches = new HashMap();
 		private HashMap entityBatchNumber;
 
-		// the map of batch numbers to EntityInsertAction lists
+		// the map of batch numbers to insert action lists
 		private HashMap actionBatches = new HashMap();
 
 		public InsertActionSorter() {
@@ -633,7 +756,7 @@ public class ActionQueue {
 		@SuppressWarnings({ "unchecked", "UnnecessaryBoxing" })
 		public void sort() {
 			// the list of entity names that indicate the batch number
-			for ( EntityInsertAction action : (List<EntityInsertAction>) insertions ) {
+			for ( EntityAction action : (List<EntityAction>) insertions ) {
 				// remove the current element from insertions. It will be added back later.
 				String entityName = action.getEntityName();
 
@@ -666,7 +789,7 @@ public class ActionQueue {
 			for ( int i = 0; i < actionBatches.size(); i++ ) {
 				List batch = ( List ) actionBatches.get( new Integer( i ) );
 				for ( Object aBatch : batch ) {
-					EntityInsertAction action = (EntityInsertAction) aBatch;
+					EntityAction action = (EntityAction) aBatch;
 					insertions.add( action );
 				}
 			}
@@ -682,8 +805,12 @@ public class ActionQueue {
 		 */
 		@SuppressWarnings({ "UnnecessaryBoxing", "unchecked" })
 		private Integer findBatchNumber(
-				EntityInsertAction action,
+				EntityAction action,
 				String entityName) {
+			if ( action instanceof EntityIdentityInsertAction ) {
+				return findIdentityInsertBatchNumber( ( EntityIdentityInsertAction ) action, entityName );
+			}
+
 			// loop through all the associated entities and make sure they have been
 			// processed before the latest
 			// batch associated with this entity type.
@@ -693,7 +820,7 @@ public class ActionQueue {
 
 			// loop through all the associations of the current entity and make sure that they are processed
 			// before the current batch number
-			Object[] propertyValues = action.getState();
+			Object[] propertyValues = ( ( EntityInsertAction ) action ).getState();
 			Type[] propertyTypes = action.getPersister().getClassMetadata()
 					.getPropertyTypes();
 
@@ -717,8 +844,70 @@ public class ActionQueue {
 			return latestBatchNumberForType;
 		}
 
+		/**
+		 * Finds the batch for an identity insert.  Unlike other inserts, an identity insert cannot
+		 * share a batch with an instance of its own type that it references, since that instance
+		 * has no identifier until the batch has been executed.  It joins the earliest batch of its
+		 * type following all the instances it references, so that a tree is inserted level by level.
+		 *
+		 * @param action The action being sorted
+		 * @param entityName The name of the entity affected by the action
+		 *
+		 * @return An appropriate batch number
+		 */
+		@SuppressWarnings({ "UnnecessaryBoxing" })
+		private Integer findIdentityInsertBatchNumber(EntityIdentityInsertAction action, String entityName) {
+			int lastAssociationBatchNumber = findLastAssociationBatchNumber(
+					action.getState(),
+					action.getPersister().getPropertyTypes()
+			);
+
+			for ( int i = lastAssociationBatchNumber + 1; i < actionBatches.size(); i++ ) {
+				List batch = ( List ) actionBatches.get( Integer.valueOf( i ) );
+				if ( entityName.equals( ( ( EntityAction ) batch.get( 0 ) ).getEntityName() ) ) {
+					return Integer.valueOf( i );
+				}
+			}
+			Integer batchNumber = Integer.valueOf( actionBatches.size() );
+			latestBatches.put( entityName, batchNumber );
+			return batchNumber;
+		}
+
+		/**
+		 * Finds the latest batch holding an instance referenced by the given values, including
+		 * those of components.
+		 *
+		 * @return The batch number, or -1 if no referenced instance has been sorted
+		 */
+		private int findLastAssociationBatchNumber(Object[] values, Type[] types) {
+			int lastAssociationBatchNumber = -1;
+			for ( int i = 0; i < types.length; i++ ) {
+				final Object value = values[i];
+				if ( value == null ) {
+					continue;
+				}
+				if ( types[i].isEntityType() ) {
+					Integer associationBatchNumber = ( Integer ) entityBatchNumber.get( value );
+					if ( associationBatchNumber != null ) {
+						lastAssociationBatchNumber = Math.max( lastAssociationBatchNumber, associationBatchNumber.intValue() );
+					}
+				}
+				else if ( types[i].isComponentType() ) {
+					final CompositeType componentType = ( CompositeType ) types[i];
+					lastAssociationBatchNumber = Math.max(
+							lastAssociationBatchNumber,
+							findLastAssociationBatchNumber(
+									componentType.getPropertyValues( value, session ),
+									componentType.getSubtypes()
+							)
+					);
+				}
+			}
+			return lastAssociationBatchNumber;
+		}
+
 		@SuppressWarnings({ "unchecked" })
-		private void addToBatch(Integer batchNumber, EntityInsertAction action) {
+		private void addToBatch(Integer batchNumber, EntityAction action) {
 			List actions = ( List ) actionBatches.get( batchNumber );
 
 			if ( actions == null ) {
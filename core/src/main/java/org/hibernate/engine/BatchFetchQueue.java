@@ -71,6 +71,18 @@ public class BatchFetchQueue {
 	 */
 	private final PersistenceContext context;
 
+	/**
+	 * The query most recently executed by the session, to which lazy
+	 * initializations are attributed by the {@link FetchPatternDetector}.
+	 */
+	private String originatingQuery;
+
+	/**
+	 * The number of entities or collections of each role initialized one at
+	 * a time since the originating query was executed; lazily created.
+	 */
+	private Map singleLoadCounts;
+
 	/**
 	 * Constructs a queue for the given context.
 	 *
@@ -88,6 +100,48 @@ public class BatchFetchQueue {
 		subselectsByEntityKey.clear();
 	}
 
+	/**
+	 * Record the query whose results subsequent lazy initializations are
+	 * attributed to, resetting the per-role initialization counts.
+	 *
+	 * @param query The query string
+	 */
+	public void setOriginatingQuery(String query) {
+		originatingQuery = query;
+		if ( singleLoadCounts != null ) {
+			singleLoadCounts.clear();
+		}
+	}
+
+	/**
+	 * The query most recently recorded via {@link #setOriginatingQuery}.
+	 *
+	 * @return The query string, or null if none was recorded.
+	 */
+	public String getOriginatingQuery() {
+		return originatingQuery;
+	}
+
+	/**
+	 * Count an entity or collection of the given role being initialized on
+	 * its own.
+	 *
+	 * @param role The entity name or collection role
+	 * @return The number of such initializations of the role since the
+	 * originating query was recorded, including this one.
+	 */
+	public int recordSingleLoad(String role) {
+		if ( singleLoadCounts == null ) {
+			singleLoadCounts = new HashMap();
+		}
+		int[] count = ( int[] ) singleLoadCounts.get( role );
+		if ( count == null ) {
+			count = new int[1];
+			singleLoadCounts.put( role, count );
+		}
+		return ++count[0];
+	}
+
 	/**
 	 * Retrieve the fetch descriptor associated with the given entity key.
 	 *
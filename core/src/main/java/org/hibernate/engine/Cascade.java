@@ -31,10 +31,16 @@ import java.util.Stack;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.hibernate.EmptyInterceptor;
 import org.hibernate.EntityMode;
 import org.hibernate.HibernateException;
+import org.hibernate.action.BulkCascadeDeleteAction;
 import org.hibernate.collection.PersistentCollection;
+import org.hibernate.event.DeleteEventListener;
+import org.hibernate.event.DeleteObservingListener;
+import org.hibernate.event.EventListeners;
 import org.hibernate.event.EventSource;
+import org.hibernate.event.def.DefaultDeleteEventListener;
 import org.hibernate.persister.collection.CollectionPersister;
 import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.pretty.MessageHelper;
@@ -415,7 +421,12 @@ public final class Cascade {
 		boolean reallyDoCascade = style.reallyDoCascade(action) && 
 			embeddedElements && child!=CollectionType.UNFETCHED_COLLECTION;
 		
-		if ( reallyDoCascade ) {
+		if ( reallyDoCascade && cascadeDeleteInBulk( child ) ) {
+			if ( log.isTraceEnabled() ) {
+				log.trace( "scheduled set-based cascade delete for collection: " + collectionType.getRole() );
+			}
+		}
+		else if ( reallyDoCascade ) {
 			if ( log.isTraceEnabled() ) {
 				log.trace( "cascade " + action + " for collection: " + collectionType.getRole() );
 			}
@@ -460,6 +471,68 @@ public final class Cascade {
 		}
 	}
 
+	/**
+	 * Cascade a delete to the unloaded children of a collection by set-based
+	 * SQL DELETEs instead of loading and deleting them one by one, if enabled
+	 * and no per-child processing is needed
+	 *
+	 * @return true if the set-based deletion was scheduled
+	 */
+	private boolean cascadeDeleteInBulk(final Object child) {
+		if ( action != CascadingAction.DELETE ||
+				!getFactory().getSettings().isBulkCascadeDeleteEnabled() ||
+				eventSource.getEntityMode() != EntityMode.POJO ||
+				!( child instanceof PersistentCollection ) ) {
+			return false;
+		}
+		final PersistentCollection collection = (PersistentCollection) child;
+		if ( collection.wasInitialized() || collection.hasQueuedOperations() || hasDeleteCallbacks() ) {
+			return false;
+		}
+		final CollectionEntry entry = eventSource.getPersistenceContext().getCollectionEntry( collection );
+		if ( entry == null || entry.getLoadedPersister() == null ) {
+			return false;
+		}
+		final BulkCascadeDeleteAction bulkDelete = BulkCascadeDeleteAction.forCollection(
+				entry.getLoadedPersister(),
+				entry.getLoadedKey(),
+				eventSource
+		);
+		if ( bulkDelete == null ) {
+			return false;
+		}
+		eventSource.getActionQueue().addAction( bulkDelete );
+		return true;
+	}
+
+	/**
+	 * Would deleting an entity call back an interceptor or a listener?
+	 */
+	private boolean hasDeleteCallbacks() {
+		final EventListeners listeners = eventSource.getListeners();
+		final DeleteEventListener[] deleteListeners = listeners.getDeleteEventListeners();
+		return eventSource.getInterceptor() != EmptyInterceptor.INSTANCE ||
+				deleteListeners.length != 1 ||
+				deleteListeners[0].getClass() != DefaultDeleteEventListener.class ||
+				observeDeletes( listeners.getPreDeleteEventListeners() ) ||
+				observeDeletes( listeners.getPostDeleteEventListeners() ) ||
+				observeDeletes( listeners.getPostCommitDeleteEventListeners() );
+	}
+
+	/**
+	 * Does any of the given listeners act on deletions?  Listeners such as
+	 * bean validation without groups to validate on delete do not.
+	 */
+	private static boolean observeDeletes(Object[] listeners) {
+		for ( int i = 0; i < listeners.length; i++ ) {
+			if ( !( listeners[i] instanceof DeleteObservingListener ) ||
+					( (DeleteObservingListener) listeners[i] ).observesDeletes() ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Delete any entities that were removed from the collection
 	 */
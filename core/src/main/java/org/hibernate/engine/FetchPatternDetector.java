@@ -0,0 +1,266 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.engine;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.util.LRUMap;
+
+/**
+ * Detects N+1 selects: entities or collections of the same role being lazily
+ * initialized one at a time, within a single session, after the same query.
+ * <p/>
+ * Each session counts the initializations of each role in its
+ * {@link BatchFetchQueue}; once a role reaches the threshold the pattern is
+ * recorded here against the originating query.  If an adaptive batch size is
+ * configured, batch fetching is then enabled for the role, starting at the
+ * threshold and doubling each time the count doubles, up to that size.
+ * <p/>
+ * Only the {@link #MAX_PATTERNS} most recently seen patterns are kept, as
+ * queries embedding literals would otherwise each add their own.
+ *
+ * @see org.hibernate.cfg.Environment#DETECT_FETCH_PATTERNS
+ * @see org.hibernate.cfg.Environment#FETCH_PATTERN_THRESHOLD
+ * @see org.hibernate.cfg.Environment#ADAPTIVE_BATCH_FETCH_SIZE
+ *
+ * @author agent
+ */
+public class FetchPatternDetector {
+	private static final Logger log = LoggerFactory.getLogger( FetchPatternDetector.class );
+
+	/**
+	 * The default number of single initializations of a role, following one query, at
+	 * which a fetch pattern is reported.
+	 */
+	public static final int DEFAULT_THRESHOLD = 10;
+
+	/**
+	 * The number of fetch patterns kept; the least recently seen are forgotten first.
+	 */
+	public static final int MAX_PATTERNS = 128;
+
+	private static final String NO_QUERY = "(no query)";
+
+	private final int threshold;
+	private final int adaptiveBatchSize;
+	private final Map patterns = new LRUMap( MAX_PATTERNS );
+
+	/**
+	 * Constructs a detector.
+	 *
+	 * @param threshold The number of single initializations of a role, following one
+	 * query, at which a fetch pattern is reported.
+	 * @param adaptiveBatchSize The largest batch size to enable for detected roles, or
+	 * 0 to only report them.
+	 */
+	public FetchPatternDetector(int threshold, int adaptiveBatchSize) {
+		this.threshold = Math.max( 2, threshold );
+		this.adaptiveBatchSize = adaptiveBatchSize;
+	}
+
+	/**
+	 * A role seen being initialized one at a time after a given query.
+	 */
+	public static class FetchPattern {
+		private final String role;
+		private final String query;
+		private final boolean collection;
+		private final AtomicLong occurrences = new AtomicLong();
+		private final AtomicLong initializations = new AtomicLong();
+
+		FetchPattern(String role, String query, boolean collection) {
+			this.role = role;
+			this.query = query;
+			this.collection = collection;
+		}
+
+		public String getRole() {
+			return role;
+		}
+
+		public String getQuery() {
+			return query;
+		}
+
+		public boolean isCollection() {
+			return collection;
+		}
+
+		/**
+		 * @return The number of times the threshold was reached.
+		 */
+		public long getOccurrences() {
+			return occurrences.get();
+		}
+
+		/**
+		 * @return The number of initializations counted once the threshold was reached.
+		 */
+		public long getInitializations() {
+			return initializations.get();
+		}
+
+		public String toString() {
+			return ( collection ? "collection " : "entity " ) + role
+					+ " initialized one at a time after [" + query + "]"
+					+ ",occurrences=" + occurrences
+					+ ",initializations=" + initializations;
+		}
+	}
+
+	/**
+	 * Record the query whose results subsequent lazy initializations in the given
+	 * session are attributed to.
+	 *
+	 * @param query The query string
+	 * @param session The session executing the query
+	 */
+	public void queryExecuted(String query, SessionImplementor session) {
+		session.getPersistenceContext().getBatchFetchQueue().setOriginatingQuery( query );
+	}
+
+	/**
+	 * Record an entity being initialized on its own, as when a proxy or
+	 * association is resolved.
+	 *
+	 * @param persister The entity persister
+	 * @param session The session
+	 */
+	public void entityInitialized(EntityPersister persister, SessionImplementor session) {
+		int count = session.getPersistenceContext().getBatchFetchQueue().recordSingleLoad( persister.getEntityName() );
+		if ( count >= threshold ) {
+			FetchPattern pattern = record( persister.getEntityName(), false, count, session );
+			if ( adaptiveBatchSize > 1 && isAdaptionPoint( count ) && persister instanceof AbstractEntityPersister ) {
+				int size = getAdaptiveBatchSize( count );
+				if ( ( ( AbstractEntityPersister ) persister ).enableAdaptiveBatchFetching( size ) ) {
+					log.info( "Enabled batch fetching (size " + size + ") for " + pattern );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Record a collection being initialized on its own.
+	 *
+	 * @param persister The collection persister
+	 * @param session The session
+	 */
+	public void collectionInitialized(CollectionPersister persister, SessionImplementor session) {
+		int count = session.getPersistenceContext().getBatchFetchQueue().recordSingleLoad( persister.getRole() );
+		if ( count >= threshold ) {
+			FetchPattern pattern = record( persister.getRole(), true, count, session );
+			if ( adaptiveBatchSize > 1 && isAdaptionPoint( count ) && persister instanceof AbstractCollectionPersister ) {
+				int size = getAdaptiveBatchSize( count );
+				if ( ( ( AbstractCollectionPersister ) persister ).enableAdaptiveBatchFetching( size ) ) {
+					log.info( "Enabled batch fetching (size " + size + ") for " + pattern );
+				}
+			}
+		}
+	}
+
+	private FetchPattern record(String role, boolean collection, int count, SessionImplementor session) {
+		String query = session.getPersistenceContext().getBatchFetchQueue().getOriginatingQuery();
+		if ( query == null ) {
+			query = NO_QUERY;
+		}
+		String key = role + '\u0000' + query;
+		FetchPattern pattern;
+		synchronized ( patterns ) {
+			pattern = ( FetchPattern ) patterns.get( key );
+			if ( pattern == null ) {
+				pattern = new FetchPattern( role, query, collection );
+				patterns.put( key, pattern );
+			}
+		}
+		if ( count == threshold ) {
+			pattern.occurrences.incrementAndGet();
+			pattern.initializations.addAndGet( threshold );
+			if ( pattern.getOccurrences() == 1 ) {
+				log.warn( "Possible N+1 select: " + pattern );
+			}
+		}
+		else {
+			pattern.initializations.incrementAndGet();
+		}
+		return pattern;
+	}
+
+	private boolean isAdaptionPoint(int count) {
+		// the threshold, then each doubling of it
+		if ( count % threshold != 0 ) {
+			return false;
+		}
+		int multiple = count / threshold;
+		return ( multiple & ( multiple - 1 ) ) == 0;
+	}
+
+	private int getAdaptiveBatchSize(int count) {
+		return Math.min( count, adaptiveBatchSize );
+	}
+
+	/**
+	 * The fetch patterns detected so far.
+	 *
+	 * @return A list of {@link FetchPattern}
+	 */
+	public List getFetchPatterns() {
+		synchronized ( patterns ) {
+			return new ArrayList( patterns.values() );
+		}
+	}
+
+	/**
+	 * Describe the fetch patterns detected so far.
+	 *
+	 * @return One description per pattern
+	 */
+	public String[] getFetchPatternDescriptions() {
+		List result = new ArrayList();
+		Iterator itr = getFetchPatterns().iterator();
+		while ( itr.hasNext() ) {
+			result.add( itr.next().toString() );
+		}
+		return ( String[] ) result.toArray( new String[result.size()] );
+	}
+
+	/**
+	 * Forget the fetch patterns detected so far.  Batch sizes already adapted are kept.
+	 */
+	public void clear() {
+		synchronized ( patterns ) {
+			patterns.clear();
+		}
+	}
+}
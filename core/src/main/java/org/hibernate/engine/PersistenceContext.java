@@ -395,6 +395,11 @@ public interface PersistenceContext {
 	 * Get the mapping from key value to entity instance
 	 */
 	public Map getEntitiesByKey();
+
+	/**
+	 * Get the mapping from key value to proxy instance
+	 */
+	public Map getProxiesByKey();
 	
 	/**
 	 * Get the mapping from entity instance to entity entry
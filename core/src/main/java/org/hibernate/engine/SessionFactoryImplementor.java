@@ -163,6 +163,13 @@ public interface SessionFactoryImplementor extends Mapping, SessionFactory {
 	 * Statistics SPI
 	 */
 	public StatisticsImplementor getStatisticsImplementor();
+
+	/**
+	 * Get the detector of lazy initialization patterns.
+	 *
+	 * @return The detector, or null if fetch pattern detection is disabled.
+	 */
+	public FetchPatternDetector getFetchPatternDetector();
 	
 	public NamedQueryDefinition getNamedQuery(String queryName);
 	public NamedSQLQueryDefinition getNamedSQLQuery(String queryName);
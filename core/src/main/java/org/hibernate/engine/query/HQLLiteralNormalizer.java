@@ -0,0 +1,326 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.engine.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.hql.classic.ParserHelper;
+import org.hibernate.type.StringRepresentableType;
+import org.hibernate.type.Type;
+import org.hibernate.util.StringHelper;
+
+/**
+ * Replaces the literals found in the restrictions of an HQL query by named parameters, so that queries
+ * which only differ in the values of these literals are represented by the same query string, and therefore
+ * share one {@link HQLQueryPlan}.
+ * <p/>
+ * Only numeric literals which are the direct operand of a comparison (<tt>=</tt>, <tt>&lt;&gt;</tt>,
+ * <tt>&lt;</tt>, <tt>like</tt>, <tt>between</tt>, ...) or elements of an <tt>in</tt> list, and which appear in a
+ * <tt>where</tt> or <tt>having</tt> clause, are replaced.  String literals are kept as they are, as binding them
+ * would change their comparison semantics on databases treating them as blank-padded <tt>CHAR</tt> values.
+ * Queries using ordinal parameters are not normalized.
+ *
+ * @author agent
+ */
+public class HQLLiteralNormalizer {
+	/**
+	 * The prefix of the names of the parameters replacing literals.
+	 */
+	public static final String PARAMETER_PREFIX = "hibernate_literal_";
+
+	private static final Set COMPARISON_OPERATORS = new HashSet(
+			Arrays.asList( new String[] { "=", "<>", "!=", "^=", "<", ">", "<=", ">=", "like" } )
+	);
+
+	private static final String[] TWO_CHARACTER_OPERATORS = new String[] { "<>", "!=", "^=", "<=", ">=", "||" };
+
+	/**
+	 * Direct instantiation of HQLLiteralNormalizer disallowed.
+	 */
+	private HQLLiteralNormalizer() {
+	}
+
+	/**
+	 * Normalizes the given query.
+	 *
+	 * @param queryString The HQL query string.
+	 * @return The normalized query, or null if the query doesn't contain any literal which can be replaced.
+	 */
+	public static NormalizedQuery normalize(String queryString) {
+		final int length = queryString.length();
+		final StringBuffer result = new StringBuffer( length );
+		final List literals = new ArrayList();
+
+		boolean inRestriction = false;
+		String previous = "";
+		// 1 : after "between", 2 : directly after the "and" of a between
+		int betweenState = 0;
+		int depth = 0;
+		int inListDepth = -1;
+
+		int i = 0;
+		while ( i < length ) {
+			final char c = queryString.charAt( i );
+			if ( Character.isWhitespace( c ) ) {
+				result.append( c );
+				i++;
+				continue;
+			}
+
+			String token;
+			String literal = null;
+			if ( c == '\'' ) {
+				int end = i + 1;
+				while ( true ) {
+					if ( end >= length ) {
+						// unterminated string, leave it to the parser to complain
+						return null;
+					}
+					char ch = queryString.charAt( end );
+					if ( ch == '\'' ) {
+						if ( end + 1 < length && queryString.charAt( end + 1 ) == '\'' ) {
+							end += 2;
+							continue;
+						}
+						break;
+					}
+					end++;
+				}
+				token = queryString.substring( i, end + 1 );
+			}
+			else if ( Character.isDigit( c ) ) {
+				int end = skipDigits( queryString, i );
+				if ( end + 1 < length && queryString.charAt( end ) == '.' && Character.isDigit( queryString.charAt( end + 1 ) ) ) {
+					end = skipDigits( queryString, end + 1 );
+				}
+				if ( end < length && isIdentifierPart( queryString.charAt( end ) ) ) {
+					// typed (1L, 1.0f...), exponent or hexadecimal literal: kept as is
+					while ( end < length && isIdentifierPart( queryString.charAt( end ) ) ) {
+						end++;
+					}
+				}
+				else {
+					literal = queryString.substring( i, end );
+				}
+				token = queryString.substring( i, end );
+			}
+			else if ( Character.isJavaIdentifierStart( c ) ) {
+				int end = i + 1;
+				while ( end < length && isIdentifierPart( queryString.charAt( end ) ) ) {
+					end++;
+				}
+				token = queryString.substring( i, end );
+			}
+			else if ( c == ':' ) {
+				int end = StringHelper.firstIndexOfChar( queryString, ParserHelper.HQL_SEPARATORS, i + 1 );
+				token = queryString.substring( i, end < 0 ? length : end );
+			}
+			else if ( c == '?' ) {
+				// ordinal parameters can't be mixed with the named parameters we'd add
+				return null;
+			}
+			else {
+				token = String.valueOf( c );
+				for ( int j = 0; j < TWO_CHARACTER_OPERATORS.length; j++ ) {
+					if ( queryString.startsWith( TWO_CHARACTER_OPERATORS[j], i ) ) {
+						token = TWO_CHARACTER_OPERATORS[j];
+						break;
+					}
+				}
+			}
+			i += token.length();
+
+			if ( literal != null ) {
+				boolean replace = inRestriction && (
+						COMPARISON_OPERATORS.contains( previous )
+								|| "between".equals( previous )
+								|| ( "and".equals( previous ) && betweenState == 2 )
+								|| ( depth == inListDepth && ( "(".equals( previous ) || ",".equals( previous ) ) )
+				);
+				if ( replace ) {
+					result.append( ':' ).append( PARAMETER_PREFIX ).append( literals.size() );
+					literals.add( literal );
+				}
+				else {
+					result.append( token );
+				}
+			}
+			else {
+				result.append( token );
+			}
+
+			final String lowerCaseToken = token.toLowerCase();
+			if ( betweenState == 2 ) {
+				betweenState = 0;
+			}
+			if ( "where".equals( lowerCaseToken ) || "having".equals( lowerCaseToken ) ) {
+				inRestriction = true;
+			}
+			else if ( "order".equals( lowerCaseToken ) || "group".equals( lowerCaseToken ) ) {
+				inRestriction = false;
+			}
+			else if ( "between".equals( lowerCaseToken ) ) {
+				betweenState = 1;
+			}
+			else if ( "and".equals( lowerCaseToken ) && betweenState == 1 ) {
+				betweenState = 2;
+			}
+			else if ( "(".equals( token ) ) {
+				depth++;
+				if ( "in".equals( previous ) ) {
+					inListDepth = depth;
+				}
+			}
+			else if ( ")".equals( token ) ) {
+				if ( depth == inListDepth ) {
+					inListDepth = -1;
+				}
+				depth--;
+			}
+			else if ( depth == inListDepth && Character.isJavaIdentifierStart( c ) ) {
+				// not a list of values (a subquery, or constants)
+				inListDepth = -1;
+			}
+			previous = literal != null ? "?" : lowerCaseToken;
+		}
+
+		if ( literals.isEmpty() ) {
+			return null;
+		}
+
+		return new NormalizedQuery( result.toString(), ( String[] ) literals.toArray( new String[ literals.size() ] ) );
+	}
+
+	private static int skipDigits(String string, int start) {
+		int end = start;
+		while ( end < string.length() && Character.isDigit( string.charAt( end ) ) ) {
+			end++;
+		}
+		return end;
+	}
+
+	private static boolean isIdentifierPart(char c) {
+		return Character.isJavaIdentifierPart( c ) || c == '.';
+	}
+
+	/**
+	 * The result of normalizing a query.
+	 */
+	public static class NormalizedQuery {
+		private final String queryString;
+		private final String[] literals;
+
+		private NormalizedQuery(String queryString, String[] literals) {
+			this.queryString = queryString;
+			this.literals = literals;
+		}
+
+		/**
+		 * @return The query string, with the literals replaced by named parameters.
+		 */
+		public String getQueryString() {
+			return queryString;
+		}
+
+		/**
+		 * @return The names of the parameters replacing the literals, in order of appearance.
+		 */
+		public String[] getParameterNames() {
+			String[] names = new String[ literals.length ];
+			for ( int i = 0; i < names.length; i++ ) {
+				names[i] = PARAMETER_PREFIX + i;
+			}
+			return names;
+		}
+
+		/**
+		 * @return The text of the replaced literals, in order of appearance.
+		 */
+		public String[] getLiterals() {
+			return literals;
+		}
+
+		/**
+		 * Get the types expected by the translated query for the parameters replacing the literals.
+		 *
+		 * @param parameterMetadata The parameter metadata of the plan of the normalized query.
+		 * @return The expected types, in order of appearance.
+		 */
+		public Type[] getExpectedTypes(ParameterMetadata parameterMetadata) {
+			String[] names = getParameterNames();
+			Type[] types = new Type[ names.length ];
+			for ( int i = 0; i < names.length; i++ ) {
+				types[i] = parameterMetadata.getNamedParameterExpectedType( names[i] );
+			}
+			return types;
+		}
+
+		/**
+		 * Can the literals be bound to parameters of the given types?  Numeric literals are only bound to
+		 * numeric types, so that a literal is never interpreted differently than the database would have
+		 * interpreted it.
+		 *
+		 * @param expectedTypes The expected types of the parameters, in order of appearance.
+		 * @return True if all the expected types are numeric types.
+		 */
+		public boolean isBindable(Type[] expectedTypes) {
+			for ( int i = 0; i < expectedTypes.length; i++ ) {
+				Type type = expectedTypes[i];
+				if ( !( type instanceof StringRepresentableType )
+						|| !Number.class.isAssignableFrom( type.getReturnedClass() ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Convert the replaced literals to parameter values of the types expected by the translated query.
+		 *
+		 * @param expectedTypes The expected types of the parameters, in order of appearance.
+		 * @return The parameter values, or null if any of the literals can't be converted.
+		 */
+		public Object[] getParameterValues(Type[] expectedTypes) {
+			if ( !isBindable( expectedTypes ) ) {
+				return null;
+			}
+			Object[] values = new Object[ literals.length ];
+			for ( int i = 0; i < literals.length; i++ ) {
+				Type type = expectedTypes[i];
+				try {
+					values[i] = ( ( StringRepresentableType ) type ).fromStringValue( literals[i] );
+				}
+				catch ( RuntimeException e ) {
+					// e.g. a decimal literal compared to an integral property
+					return null;
+				}
+			}
+			return values;
+		}
+	}
+}
@@ -23,6 +23,7 @@
  */
 package org.hibernate.engine.query;
 
+import org.hibernate.HibernateException;
 import org.hibernate.util.PropertiesHelper;
 import org.hibernate.util.SimpleMRUCache;
 import org.hibernate.util.SoftLimitMRUCache;
@@ -75,6 +76,7 @@ public class QueryPlanCache implements Serializable {
 		this.factory = factory;
 		this.sqlParamMetadataCache = new SimpleMRUCache( maxStrongReferenceCount );
 		this.planCache = new SoftLimitMRUCache( maxStrongReferenceCount, maxSoftReferenceCount );
+		this.rejectedNormalizedQueries = new SimpleMRUCache( maxStrongReferenceCount );
 	}
 
 	/**
@@ -92,6 +94,11 @@ public class QueryPlanCache implements Serializable {
 	 */
 	private final SoftLimitMRUCache planCache;
 
+	/**
+	 * the keys of the normalized HQL queries whose plans can't be used, see {@link #getNormalizedHQLQueryPlan}
+	 */
+	private final SimpleMRUCache rejectedNormalizedQueries;
+
 
 	/**
 	 * Obtain the parameter metadata for given native-sql query.
@@ -134,6 +141,42 @@ public class QueryPlanCache implements Serializable {
 		return plan;
 	}
 
+	/**
+	 * Obtain the plan of an HQL query whose literals were replaced by parameters.  Unlike for
+	 * {@link #getHQLQueryPlan}, a plan is only cached if the literals can be bound to its parameters; the
+	 * normalized queries which can't be translated, or whose parameters don't accept the literals, are
+	 * remembered instead, so that the original query is the only one with a cached plan.
+	 *
+	 * @param normalized The normalized query
+	 * @param enabledFilters The filters enabled in the session
+	 * @return The plan, or null if the original query has to be used instead
+	 */
+	public HQLQueryPlan getNormalizedHQLQueryPlan(HQLLiteralNormalizer.NormalizedQuery normalized, Map enabledFilters) {
+		HQLQueryPlanKey key = new HQLQueryPlanKey( normalized.getQueryString(), false, enabledFilters );
+		HQLQueryPlan plan = ( HQLQueryPlan ) planCache.get( key );
+
+		if ( plan == null ) {
+			if ( rejectedNormalizedQueries.get( key ) != null ) {
+				return null;
+			}
+			try {
+				plan = new HQLQueryPlan( normalized.getQueryString(), false, enabledFilters, factory );
+			}
+			catch ( HibernateException e ) {
+				// a literal used where a parameter isn't allowed; the original query will report real problems
+				log.trace( "unable to translate normalized HQL query (" + normalized.getQueryString() + ")", e );
+			}
+			if ( plan == null || !normalized.isBindable( normalized.getExpectedTypes( plan.getParameterMetadata() ) ) ) {
+				rejectedNormalizedQueries.put( key, Boolean.TRUE );
+				return null;
+			}
+		}
+
+		planCache.put( key, plan );
+
+		return plan;
+	}
+
 	public FilterQueryPlan getFilterQueryPlan(String filterString, String collectionRole, boolean shallow, Map enabledFilters)
 			throws QueryException, MappingException {
 		FilterQueryPlanKey key = new FilterQueryPlanKey( filterString, collectionRole, shallow, enabledFilters );
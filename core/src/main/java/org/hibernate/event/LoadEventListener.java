@@ -86,6 +86,17 @@ public interface LoadEventListener extends Serializable {
 			.setCheckDeleted(false)
 			.setNakedEntityReturned(false);
 
+	/**
+	 * Resolves the entity from the session or the second-level cache only, never hitting the
+	 * database; the result is null if the entity is in neither.
+	 */
+	public static final LoadType INTERNAL_LOAD_CACHED = new LoadType("INTERNAL_LOAD_CACHED")
+			.setAllowNulls(true)
+			.setAllowProxyCreation(false)
+			.setCheckDeleted(false)
+			.setNakedEntityReturned(false)
+			.setCacheOnly(true);
+
 	public static final class LoadType {
 		private String name;
 
@@ -93,6 +104,7 @@ public interface LoadEventListener extends Serializable {
 		private boolean allowNulls;
 		private boolean checkDeleted;
 		private boolean allowProxyCreation;
+		private boolean cacheOnly;
 
         private LoadType(String name) {
 	        this.name = name;
@@ -134,6 +146,15 @@ public interface LoadEventListener extends Serializable {
 			return this;
 		}
 
+		public boolean isCacheOnly() {
+			return cacheOnly;
+		}
+
+		private LoadType setCacheOnly(boolean cacheOnly) {
+			this.cacheOnly = cacheOnly;
+			return this;
+		}
+
 		public String getName() {
 			return name;
 		}
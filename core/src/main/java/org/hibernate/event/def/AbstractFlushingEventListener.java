@@ -85,6 +85,8 @@ public abstract class AbstractFlushingEventListener implements Serializable {
 		final PersistenceContext persistenceContext = session.getPersistenceContext();
 		session.getInterceptor().preFlush( new LazyIterator( persistenceContext.getEntitiesByKey() ) );
 
+		// children loaded since a delete was cascaded to them in bulk are deleted one by one
+		session.getActionQueue().prepareBulkCascadeDeletes();
 		prepareEntityFlushes(session);
 		// we could move this inside if we wanted to
 		// tolerate collection initializations during
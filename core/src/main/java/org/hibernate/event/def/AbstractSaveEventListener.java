@@ -49,6 +49,7 @@ import org.hibernate.id.IdentifierGenerationException;
 import org.hibernate.id.IdentifierGeneratorHelper;
 import org.hibernate.intercept.FieldInterceptionHelper;
 import org.hibernate.intercept.FieldInterceptor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.pretty.MessageHelper;
 import org.hibernate.type.Type;
@@ -260,7 +261,9 @@ public abstract class AbstractSaveEventListener extends AbstractReassociateEvent
 		Serializable id = key == null ? null : key.getIdentifier();
 
 		boolean inTxn = source.getJDBCContext().isTransactionInProgress();
-		boolean shouldDelayIdentityInserts = !inTxn && !requiresImmediateIdAccess;
+		boolean batchable = persister instanceof AbstractEntityPersister
+				&& ( ( AbstractEntityPersister ) persister ).isIdentityInsertBatchable();
+		boolean shouldDelayIdentityInserts = ( !inTxn || batchable ) && !requiresImmediateIdAccess;
 
 		// Put a placeholder in entries, so we don't recurse back and try to save() the
 		// same object again. QUESTION: should this be done before onSave() is called?
@@ -323,7 +326,11 @@ public abstract class AbstractSaveEventListener extends AbstractReassociateEvent
 				source.getPersistenceContext().checkUniqueness( key, entity );
 			}
 			else {
-				log.debug( "delaying identity-insert due to no transaction in progress" );
+				log.debug(
+						inTxn
+								? "delaying identity-insert to batch it at flush"
+								: "delaying identity-insert due to no transaction in progress"
+				);
 				source.getActionQueue().addAction( insert );
 				key = insert.getDelayedEntityKey();
 			}
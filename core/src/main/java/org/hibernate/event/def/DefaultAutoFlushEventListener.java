@@ -55,6 +55,12 @@ public class DefaultAutoFlushEventListener extends AbstractFlushingEventListener
 
 			final int oldSize = source.getActionQueue().numberOfCollectionRemovals();
 
+			final boolean stats = source.getFactory().getStatistics().isStatisticsEnabled();
+			long startTime = 0;
+			if ( stats ) {
+				startTime = System.nanoTime();
+			}
+
 			flushEverythingToExecutions(event);
 			
 			if ( flushIsReallyNeeded(event, source) ) {
@@ -66,8 +72,8 @@ public class DefaultAutoFlushEventListener extends AbstractFlushingEventListener
 				// note: performExecutions() clears all collectionXxxxtion 
 				// collections (the collection actions) in the session
 
-				if ( source.getFactory().getStatistics().isStatisticsEnabled() ) {
-					source.getFactory().getStatisticsImplementor().flush();
+				if ( stats ) {
+					source.getFactory().getStatisticsImplementor().flush( System.nanoTime() - startTime );
 				}
 				
 			}
@@ -47,12 +47,18 @@ public class DefaultFlushEventListener extends AbstractFlushingEventListener imp
 		if ( source.getPersistenceContext().getEntityEntries().size() > 0 ||
 				source.getPersistenceContext().getCollectionEntries().size() > 0 ) {
 
+			final boolean stats = source.getFactory().getStatistics().isStatisticsEnabled();
+			long startTime = 0;
+			if ( stats ) {
+				startTime = System.nanoTime();
+			}
+
 			flushEverythingToExecutions(event);
 			performExecutions(source);
 			postFlush(source);
 		
-			if ( source.getFactory().getStatistics().isStatisticsEnabled() ) {
-				source.getFactory().getStatisticsImplementor().flush();
+			if ( stats ) {
+				source.getFactory().getStatisticsImplementor().flush( System.nanoTime() - startTime );
 			}
 
 		}
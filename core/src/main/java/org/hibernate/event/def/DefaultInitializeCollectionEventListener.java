@@ -80,14 +80,24 @@ public class DefaultInitializeCollectionEventListener implements InitializeColle
 			}
 			else {
 				log.trace("collection not cached");
+				final boolean stats = source.getFactory().getStatistics().isStatisticsEnabled();
+				long startTime = 0;
+				if ( stats ) {
+					startTime = System.nanoTime();
+				}
 				ce.getLoadedPersister().initialize( ce.getLoadedKey(), source );
 				log.trace("collection initialized");
 
-				if ( source.getFactory().getStatistics().isStatisticsEnabled() ) {
+				if ( stats ) {
 					source.getFactory().getStatisticsImplementor().fetchCollection( 
-							ce.getLoadedPersister().getRole() 
+							ce.getLoadedPersister().getRole(),
+							System.nanoTime() - startTime
 						);
 				}
+
+				if ( source.getFactory().getFetchPatternDetector() != null ) {
+					source.getFactory().getFetchPatternDetector().collectionInitialized( ce.getLoadedPersister(), source );
+				}
 			}
 		}
 	}
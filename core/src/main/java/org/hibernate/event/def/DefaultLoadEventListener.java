@@ -474,6 +474,10 @@ public class DefaultLoadEventListener extends AbstractLockUpgradeEventListener i
 				);
 		}
 
+		if ( options.isCacheOnly() ) {
+			return null;
+		}
+
 		return loadFromDatasource(event, persister, keyToLoad, options);
 	}
 
@@ -493,6 +497,12 @@ public class DefaultLoadEventListener extends AbstractLockUpgradeEventListener i
 			final EntityKey keyToLoad,
 			final LoadEventListener.LoadType options) {
 		final SessionImplementor source = event.getSession();
+		final boolean stats = source.getFactory().getStatistics().isStatisticsEnabled();
+		long startTime = 0;
+		if ( stats ) {
+			startTime = System.nanoTime();
+		}
+
 		Object entity = persister.load(
 				event.getEntityId(),
 				event.getInstanceToLoad(),
@@ -500,8 +510,18 @@ public class DefaultLoadEventListener extends AbstractLockUpgradeEventListener i
 				source
 		);
 
-		if ( event.isAssociationFetch() && source.getFactory().getStatistics().isStatisticsEnabled() ) {
-			source.getFactory().getStatisticsImplementor().fetchEntity( event.getEntityClassName() );
+		if ( stats ) {
+			source.getFactory().getStatisticsImplementor().entityLoaded(
+					persister.getEntityName(),
+					System.nanoTime() - startTime
+			);
+			if ( event.isAssociationFetch() ) {
+				source.getFactory().getStatisticsImplementor().fetchEntity( event.getEntityClassName() );
+			}
+		}
+
+		if ( event.isAssociationFetch() && source.getFactory().getFetchPatternDetector() != null ) {
+			source.getFactory().getFetchPatternDetector().entityInitialized( persister, source );
 		}
 
 		return entity;
@@ -81,6 +81,12 @@ public class DefaultMergeEventListener extends AbstractSaveEventListener
 	 */
 	public void onMerge(MergeEvent event) throws HibernateException {
 		EventCache copyCache = new EventCache();
+		if ( event.getOriginal() != null ) {
+			// load the managed counterparts of the detached graph together, rather
+			// than one by one as the merge cascades to them
+			new MergeBatchLoader( event.getSession(), getCascadeAction() )
+					.load( event.getEntityName(), event.getOriginal() );
+		}
 		onMerge( event, copyCache );
 		// TODO: iteratively get transient entities and retry merge until one of the following conditions:
 		//       1) transientCopyCache.size() == 0
@@ -25,6 +25,7 @@
  */
 package org.hibernate.event.def;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.Iterator;
@@ -61,12 +62,17 @@ class EventCache implements Map {
 	    // key is an entity involved with the operation performed by the listener;
 	    // value is a flag indicating if the listener explicitly operates on the entity
 
+	private Map copyToEntityMap = IdentityMap.instantiate(10);
+		// maintained along with entityToCopyMap, so that the inverse mapping is
+		// available without rebuilding it for every entity saved during a merge
+
 	/**
 	 * Clears the EventCache.
 	 */
 	public void clear() {
 		entityToCopyMap.clear();
 		entityToOperatedOnFlagMap.clear();
+		copyToEntityMap.clear();
 	}
 
 	/**
@@ -92,7 +98,7 @@ class EventCache implements Map {
 		if ( copy == null ) {
 			throw new NullPointerException( "null copies are not supported by " + getClass().getName() );
 		}
-		return entityToCopyMap.containsValue( copy );
+		return copyToEntityMap.containsKey( copy );
 	}
 
 	/**
@@ -145,7 +151,7 @@ class EventCache implements Map {
 			throw new NullPointerException( "null entities and copies are not supported by " + getClass().getName() );
 		}
 		entityToOperatedOnFlagMap.put( entity, Boolean.FALSE );
-		return entityToCopyMap.put( entity, copy );
+		return putCopy( entity, copy );
 	}
 
 	/**
@@ -163,7 +169,16 @@ class EventCache implements Map {
 			throw new NullPointerException( "null entities and copies are not supported by " + getClass().getName() );
 		}
 		entityToOperatedOnFlagMap.put( entity, Boolean.valueOf( isOperatedOn ) );
-		return entityToCopyMap.put( entity, copy );
+		return putCopy( entity, copy );
+	}
+
+	private Object putCopy(Object entity, Object copy) {
+		Object oldCopy = entityToCopyMap.put( entity, copy );
+		if ( oldCopy != null && oldCopy != copy && copyToEntityMap.get( oldCopy ) == entity ) {
+			copyToEntityMap.remove( oldCopy );
+		}
+		copyToEntityMap.put( copy, entity );
+		return oldCopy;
 	}
 
 	/**
@@ -177,7 +192,7 @@ class EventCache implements Map {
 			if ( entry.getKey() == null || entry.getValue() == null ) {
 				throw new NullPointerException( "null entities and copies are not supported by " + getClass().getName() );
 			}
-			entityToCopyMap.put( entry.getKey(), entry.getValue() );
+			putCopy( entry.getKey(), entry.getValue() );
 			entityToOperatedOnFlagMap.put( entry.getKey(), Boolean.FALSE );
 		}
 	}
@@ -193,7 +208,11 @@ class EventCache implements Map {
 			throw new NullPointerException( "null entities are not supported by " + getClass().getName() );
 		}
 		entityToOperatedOnFlagMap.remove( entity );
-		return entityToCopyMap.remove( entity );
+		Object copy = entityToCopyMap.remove( entity );
+		if ( copy != null && copyToEntityMap.get( copy ) == entity ) {
+			copyToEntityMap.remove( copy );
+		}
+		return copy;
 	}
 
 	/**
@@ -245,9 +264,9 @@ class EventCache implements Map {
 
 	/**
 	 * Returns the copy-entity mappings
-	 * @return the copy-entity mappings
+	 * @return an unmodifiable view of the copy-entity mappings
 	 */
 	public Map invertMap() {
-		return IdentityMap.invert( entityToCopyMap );
+		return Collections.unmodifiableMap( copyToEntityMap );
 	}
 }
\ No newline at end of file
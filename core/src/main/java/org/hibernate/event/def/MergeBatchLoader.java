@@ -0,0 +1,277 @@
+//$Id: $
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2008, Red Hat Middleware LLC or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ *
+ */
+package org.hibernate.event.def;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.hibernate.EntityMode;
+import org.hibernate.Hibernate;
+import org.hibernate.cache.CacheKey;
+import org.hibernate.collection.PersistentCollection;
+import org.hibernate.engine.CascadingAction;
+import org.hibernate.engine.CollectionKey;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.PersistenceContext;
+import org.hibernate.event.EventSource;
+import org.hibernate.intercept.LazyPropertyInitializer;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.CompositeType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.hibernate.util.IdentitySet;
+
+/**
+ * Loads the persistent state a merge of a detached object graph is going to need,
+ * ahead of the merge itself.  The graph is walked once, following the associations
+ * the merge cascades to, collecting the identifiers of the detached instances per
+ * entity.  The managed counterparts of these instances are then loaded using one
+ * <tt>in</tt>-list select per entity (or per chunk of identifiers), followed by the
+ * collections whose state the merge is going to replace, instead of one select per
+ * instance while merging.
+ * <p/>
+ * Instances already associated with the session or available from the second-level
+ * cache are not loaded.  Entities and collections which cannot be loaded together
+ * (custom loaders, enabled filters and the like) are left to the merge itself.
+ *
+ * @author agent
+ */
+final class MergeBatchLoader {
+
+	private static final Logger log = LoggerFactory.getLogger( MergeBatchLoader.class );
+
+	private final EventSource session;
+	private final CascadingAction action;
+	private final Set visited = new IdentitySet();
+	// entity persister -> identifiers of detached instances
+	private final Map detachedIds = new LinkedHashMap();
+	// collection persister -> keys of the collections of detached owners
+	private final Map collectionKeys = new LinkedHashMap();
+
+	MergeBatchLoader(EventSource session, CascadingAction action) {
+		this.session = session;
+		this.action = action;
+	}
+
+	/**
+	 * Load the state needed to merge the graph reachable from the given instance.
+	 *
+	 * @param entityName The entity name of the instance, if known
+	 * @param entity The root of the detached graph
+	 */
+	void load(String entityName, Object entity) {
+		if ( session.getEntityMode() != EntityMode.POJO ) {
+			return;
+		}
+		walkEntity( entityName, entity );
+		loadEntities();
+		loadCollections();
+	}
+
+	private void walkEntity(String entityName, Object entity) {
+		if ( entity instanceof HibernateProxy ) {
+			if ( ( ( HibernateProxy ) entity ).getHibernateLazyInitializer().isUninitialized() ) {
+				// merge does not cascade to uninitialized proxies
+				return;
+			}
+			entity = ( ( HibernateProxy ) entity ).getHibernateLazyInitializer().getImplementation();
+		}
+		if ( !visited.add( entity ) ) {
+			return;
+		}
+		final EntityPersister persister = session.getEntityPersister( entityName, entity );
+		final Object[] values = persister.getPropertyValues( entity, EntityMode.POJO );
+		if ( session.getPersistenceContext().getEntry( entity ) == null ) {
+			collectDetached( persister, entity, values );
+		}
+		if ( persister.hasCascades() ) {
+			final Type[] types = persister.getPropertyTypes();
+			for ( int i = 0; i < types.length; i++ ) {
+				if ( persister.getPropertyCascadeStyles()[i].doCascade( action ) ) {
+					walkValue( types[i], values[i] );
+				}
+			}
+		}
+	}
+
+	private void collectDetached(EntityPersister persister, Object entity, Object[] values) {
+		final Serializable id = persister.getIdentifier( entity, session );
+		if ( id == null || Boolean.TRUE.equals( persister.isTransient( entity, session ) ) ) {
+			return;
+		}
+		final PersistenceContext persistenceContext = session.getPersistenceContext();
+		final EntityKey key = new EntityKey( id, persister, EntityMode.POJO );
+		if ( !persistenceContext.containsEntity( key ) && !isCached( id, persister ) ) {
+			add( detachedIds, persister, id );
+		}
+		if ( persister.hasCollections() ) {
+			// the merge replaces the state of these collections, so their managed
+			// counterparts are going to be initialized
+			final Type[] types = persister.getPropertyTypes();
+			for ( int i = 0; i < types.length; i++ ) {
+				if ( types[i].isCollectionType()
+						&& ( ( CollectionType ) types[i] ).getLHSPropertyName() == null
+						&& values[i] != null
+						&& values[i] != LazyPropertyInitializer.UNFETCHED_PROPERTY
+						&& Hibernate.isInitialized( values[i] ) ) {
+					CollectionPersister collectionPersister = session.getFactory()
+							.getCollectionPersister( ( ( CollectionType ) types[i] ).getRole() );
+					add( collectionKeys, collectionPersister, id );
+				}
+			}
+		}
+	}
+
+	private void walkValue(Type type, Object value) {
+		if ( value == null || value == LazyPropertyInitializer.UNFETCHED_PROPERTY ) {
+			return;
+		}
+		if ( type.isEntityType() ) {
+			walkEntity( ( ( EntityType ) type ).getAssociatedEntityName(), value );
+		}
+		else if ( type.isCollectionType() ) {
+			final CollectionType collectionType = ( CollectionType ) type;
+			final Type elementType = collectionType.getElementType( session.getFactory() );
+			if ( elementType.isEntityType() || elementType.isComponentType() ) {
+				Iterator elements = action.getCascadableChildrenIterator( session, collectionType, value );
+				while ( elements.hasNext() ) {
+					walkValue( elementType, elements.next() );
+				}
+			}
+		}
+		else if ( type.isComponentType() ) {
+			final CompositeType componentType = ( CompositeType ) type;
+			final Type[] types = componentType.getSubtypes();
+			final Object[] values = componentType.getPropertyValues( value, session );
+			for ( int i = 0; i < types.length; i++ ) {
+				if ( componentType.getCascadeStyle( i ).doCascade( action ) ) {
+					walkValue( types[i], values[i] );
+				}
+			}
+		}
+	}
+
+	private void loadEntities() {
+		Iterator entries = detachedIds.entrySet().iterator();
+		while ( entries.hasNext() ) {
+			final Map.Entry entry = ( Map.Entry ) entries.next();
+			final EntityPersister persister = ( EntityPersister ) entry.getKey();
+			final Set ids = ( Set ) entry.getValue();
+			if ( ids.size() > 1 && persister instanceof AbstractEntityPersister ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug( "loading " + ids.size() + " instances of " + persister.getEntityName() + " to merge" );
+				}
+				( ( AbstractEntityPersister ) persister ).loadEntityBatch(
+						( Serializable[] ) ids.toArray( new Serializable[ids.size()] ),
+						session
+				);
+			}
+		}
+	}
+
+	private void loadCollections() {
+		final PersistenceContext persistenceContext = session.getPersistenceContext();
+		Iterator entries = collectionKeys.entrySet().iterator();
+		while ( entries.hasNext() ) {
+			final Map.Entry entry = ( Map.Entry ) entries.next();
+			final CollectionPersister persister = ( CollectionPersister ) entry.getKey();
+			if ( !( persister instanceof AbstractCollectionPersister ) ) {
+				continue;
+			}
+			List keys = new ArrayList();
+			Iterator iter = ( ( Set ) entry.getValue() ).iterator();
+			while ( iter.hasNext() ) {
+				final Serializable key = ( Serializable ) iter.next();
+				final PersistentCollection collection = persistenceContext.getCollection(
+						new CollectionKey( persister, key, EntityMode.POJO )
+				);
+				if ( collection != null && !collection.wasInitialized() && !isCached( key, persister ) ) {
+					keys.add( key );
+				}
+			}
+			if ( keys.size() > 1 ) {
+				if ( log.isDebugEnabled() ) {
+					log.debug( "loading " + keys.size() + " collections of role " + persister.getRole() + " to merge" );
+				}
+				( ( AbstractCollectionPersister ) persister ).loadCollectionBatch(
+						( Serializable[] ) keys.toArray( new Serializable[keys.size()] ),
+						session
+				);
+			}
+		}
+	}
+
+	private static void add(Map map, Object persister, Serializable id) {
+		Set ids = ( Set ) map.get( persister );
+		if ( ids == null ) {
+			ids = new LinkedHashSet();
+			map.put( persister, ids );
+		}
+		ids.add( id );
+	}
+
+	private boolean isCached(Serializable id, EntityPersister persister) {
+		if ( !persister.hasCache() || !session.getCacheMode().isGetEnabled() ) {
+			return false;
+		}
+		CacheKey cacheKey = new CacheKey(
+				id,
+				persister.getIdentifierType(),
+				persister.getRootEntityName(),
+				EntityMode.POJO,
+				session.getFactory()
+		);
+		return persister.getCacheAccessStrategy().get( cacheKey, session.getTimestamp() ) != null;
+	}
+
+	private boolean isCached(Serializable key, CollectionPersister persister) {
+		if ( !persister.hasCache() || !session.getCacheMode().isGetEnabled() ) {
+			return false;
+		}
+		CacheKey cacheKey = new CacheKey(
+				key,
+				persister.getKeyType(),
+				persister.getRole(),
+				EntityMode.POJO,
+				session.getFactory()
+		);
+		return persister.getCacheAccessStrategy().get( cacheKey, session.getTimestamp() ) != null;
+	}
+}
@@ -23,26 +23,37 @@
  */
 package org.hibernate.hql.ast.exec;
 
+import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Collections;
+import java.util.Set;
 
 import org.hibernate.HibernateException;
 import org.hibernate.action.BulkOperationCleanupAction;
+import org.hibernate.engine.QueryParameters;
 import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.engine.transaction.Isolater;
 import org.hibernate.engine.transaction.IsolatedWork;
 import org.hibernate.event.EventSource;
+import org.hibernate.exception.JDBCExceptionHelper;
 import org.hibernate.hql.ast.HqlSqlWalker;
 import org.hibernate.hql.ast.SqlGenerator;
+import org.hibernate.param.ParameterSpecification;
+import org.hibernate.persister.collection.CollectionPersister;
 import org.hibernate.persister.entity.Queryable;
 import org.hibernate.sql.InsertSelect;
 import org.hibernate.sql.Select;
 import org.hibernate.sql.SelectFragment;
+import org.hibernate.type.Type;
 import org.hibernate.util.JDBCExceptionReporter;
 import org.hibernate.util.StringHelper;
 
@@ -60,6 +71,19 @@ import org.slf4j.LoggerFactory;
 public abstract class AbstractStatementExecutor implements StatementExecutor {
 	private static final Logger LOG = LoggerFactory.getLogger( AbstractStatementExecutor.class );
 
+	/**
+	 * The maximum number of affected instances whose shared cache state is cleaned up
+	 * individually; beyond this the affected cache regions are cleaned up entirely.
+	 */
+	protected static final int MAX_CLEANUP_IDS = 1000;
+
+	/**
+	 * The maximum number of affected instances for which a multi-table bulk operation lists
+	 * the identifiers in its per-table statements; beyond this the identifiers are saved off
+	 * into the temporary id table.
+	 */
+	protected static final int MAX_INLINE_IDS = 100;
+
 	private final Logger log;
 	private final HqlSqlWalker walker;
 	private List idSelectParameterSpecifications = Collections.EMPTY_LIST;
@@ -84,9 +108,32 @@ public abstract class AbstractStatementExecutor implements StatementExecutor {
 	protected abstract Queryable[] getAffectedQueryables();
 
 	protected String generateIdInsertSelect(Queryable persister, String tableAlias, AST whereClause) {
+		return generateIdInsertSelect( persister, generateRestrictedIdSelect( persister, tableAlias, whereClause ) );
+	}
+
+	protected String generateIdInsertSelect(Queryable persister, Select select) {
+		InsertSelect insert = new InsertSelect( getFactory().getDialect() );
+		if ( getFactory().getSettings().isCommentsEnabled() ) {
+			insert.setComment( "insert-select for " + persister.getEntityName() + " ids" );
+		}
+		insert.setTableName( persister.getTemporaryIdTableName() );
+		insert.setSelect( select );
+		return insert.toStatementString();
+	}
+
+	/**
+	 * Generate a select of the identifiers matched by the restriction of the bulk operation,
+	 * aliasing the identifier columns as {@link #getIdAliases}.
+	 *
+	 * @param persister The entity persister targeted by the bulk operation
+	 * @param tableAlias The alias of the root table
+	 * @param whereClause The restriction of the bulk operation
+	 * @return The select
+	 */
+	protected Select generateRestrictedIdSelect(Queryable persister, String tableAlias, AST whereClause) {
 		Select select = new Select( getFactory().getDialect() );
 		SelectFragment selectFragment = new SelectFragment()
-				.addColumns( tableAlias, persister.getIdentifierColumnNames(), persister.getIdentifierColumnNames() );
+				.addColumns( tableAlias, persister.getIdentifierColumnNames(), getIdAliases( persister ) );
 		select.setSelectClause( selectFragment.toFragmentString().substring( 2 ) );
 
 		String rootTableName = persister.getTableName();
@@ -124,14 +171,7 @@ public abstract class AbstractStatementExecutor implements StatementExecutor {
 		}
 
 		select.setWhereClause( whereJoinFragment + userWhereClause );
-
-		InsertSelect insert = new InsertSelect( getFactory().getDialect() );
-		if ( getFactory().getSettings().isCommentsEnabled() ) {
-			insert.setComment( "insert-select for " + persister.getEntityName() + " ids" );
-		}
-		insert.setTableName( persister.getTemporaryIdTableName() );
-		insert.setSelect( select );
-		return insert.toStatementString();
+		return select;
 	}
 
 	protected String generateIdSubselect(Queryable persister) {
@@ -139,6 +179,330 @@ public abstract class AbstractStatementExecutor implements StatementExecutor {
 			        " from " + persister.getTemporaryIdTableName();
 	}
 
+	/**
+	 * The maximum number of identifiers listed by {@link #generateIdListRestriction}, within any
+	 * limit the dialect places on <tt>IN</tt> lists.
+	 *
+	 * @return The maximum number of listed identifiers
+	 */
+	protected int getMaxInlineIds() {
+		final int limit = getFactory().getDialect().getInExpressionCountLimit();
+		return limit > 0 && limit < MAX_INLINE_IDS ? limit : MAX_INLINE_IDS;
+	}
+
+	/**
+	 * Determine the number of identifiers to list for the given number of affected identifiers.
+	 * The list is padded to the next power of two, so that only a few distinct statements are
+	 * prepared.
+	 *
+	 * @param idCount The number of affected identifiers
+	 * @return The number of identifiers to list
+	 */
+	protected int getIdListSize(int idCount) {
+		int size = 1;
+		while ( size < idCount ) {
+			size <<= 1;
+		}
+		return Math.min( size, getMaxInlineIds() );
+	}
+
+	/**
+	 * Generate a restriction of the given key columns to a list of identifiers.
+	 *
+	 * @param columnNames The key columns
+	 * @param size The number of identifiers in the list
+	 * @return The restriction
+	 */
+	protected String generateIdListRestriction(String[] columnNames, int size) {
+		if ( columnNames.length == 1 || getFactory().getDialect().supportsRowValueConstructorSyntaxInInList() ) {
+			String columns = StringHelper.join( ", ", columnNames );
+			String id = StringHelper.repeat( "?, ", columnNames.length - 1 ) + "?";
+			if ( columnNames.length > 1 ) {
+				columns = '(' + columns + ')';
+				id = '(' + id + ')';
+			}
+			return columns + " in (" + StringHelper.repeat( id + ", ", size - 1 ) + id + ')';
+		}
+		else {
+			String id = '(' + StringHelper.join( "=? and ", columnNames ) + "=?)";
+			return '(' + StringHelper.repeat( id + " or ", size - 1 ) + id + ')';
+		}
+	}
+
+	/**
+	 * Bind the identifiers listed by {@link #generateIdListRestriction}, repeating the last
+	 * identifier to pad the list.
+	 *
+	 * @param ps The statement
+	 * @param persister The entity persister
+	 * @param ids The affected identifiers
+	 * @param size The number of identifiers in the list
+	 * @param position The position of the first parameter
+	 * @param session The originating session
+	 * @return The position following the bound parameters
+	 * @throws SQLException Indicates a problem binding the identifiers
+	 */
+	protected int bindIds(
+			PreparedStatement ps,
+			Queryable persister,
+			Serializable[] ids,
+			int size,
+			int position,
+			SessionImplementor session) throws SQLException {
+		final Type idType = persister.getIdentifierType();
+		final int span = idType.getColumnSpan( getFactory() );
+		for ( int i = 0; i < size; i++ ) {
+			idType.nullSafeSet( ps, ids[ Math.min( i, ids.length - 1 ) ], position, session );
+			position += span;
+		}
+		return position;
+	}
+
+	/**
+	 * Generate a single statement performing the given statements for the identifiers chosen
+	 * by the given select.  The identifiers are held in a common table expression named after
+	 * the temporary id table, so statements restricted by {@link #generateIdSubselect} apply to
+	 * them.  The statement returns the identifiers if the entity has
+	 * {@link #hasCachedState cached state}, or else their number.
+	 *
+	 * @param persister The entity persister targeted by the bulk operation
+	 * @param idSelect The select of the affected identifiers
+	 * @param statements The statements to perform; null elements are skipped
+	 * @return The statement
+	 *
+	 * @see org.hibernate.dialect.Dialect#supportsMutatingCommonTableExpressions()
+	 */
+	protected String generateCommonTableExpression(Queryable persister, Select idSelect, String[] statements) {
+		final String idTableName = persister.getTemporaryIdTableName();
+		StringBuffer buf = new StringBuffer( "with " )
+				.append( idTableName )
+				.append( " (" )
+				.append( StringHelper.join( ", ", persister.getIdentifierColumnNames() ) )
+				.append( ") as (" )
+				.append( idSelect.toStatementString() )
+				.append( ')' );
+		for ( int i = 0; i < statements.length; i++ ) {
+			if ( statements[i] != null ) {
+				buf.append( ", " )
+						.append( idTableName )
+						.append( '_' )
+						.append( i )
+						.append( " as (" )
+						.append( statements[i] )
+						.append( ')' );
+			}
+		}
+		if ( hasCachedState( persister ) ) {
+			return buf.append( ' ' ).append( generateIdSelect( persister, idTableName, null ) ).toString();
+		}
+		return buf.append( " select count(*) from " ).append( idTableName ).toString();
+	}
+
+	/**
+	 * Execute a statement generated by {@link #generateCommonTableExpression}, and coordinate
+	 * the cleanup of the shared cache state of the identifiers it returns, which are exactly
+	 * those affected.
+	 *
+	 * @param persister The entity persister targeted by the bulk operation
+	 * @param sql The statement
+	 * @param parameterSpecifications The parameters of the statement, in order
+	 * @param parameters The query parameters
+	 * @param updatedTableNames The names of the updated tables, or null for a delete
+	 * @param session The originating session
+	 * @return The number of affected identifiers
+	 */
+	protected int executeCommonTableExpression(
+			Queryable persister,
+			String sql,
+			List parameterSpecifications,
+			QueryParameters parameters,
+			Set updatedTableNames,
+			SessionImplementor session) {
+		final boolean returnsIds = hasCachedState( persister );
+		if ( !returnsIds ) {
+			coordinateSharedCacheCleanup( session );
+		}
+		try {
+			PreparedStatement ps = session.getBatcher().prepareSelectStatement( sql );
+			ResultSet rs = null;
+			try {
+				Iterator paramSpecifications = parameterSpecifications.iterator();
+				int pos = 1;
+				while ( paramSpecifications.hasNext() ) {
+					final ParameterSpecification paramSpec = ( ParameterSpecification ) paramSpecifications.next();
+					pos += paramSpec.bind( ps, parameters, session, pos );
+				}
+				rs = session.getBatcher().getResultSet( ps );
+				if ( !returnsIds ) {
+					rs.next();
+					return rs.getInt( 1 );
+				}
+				final String[] aliases = getIdAliases( persister );
+				List ids = new ArrayList();
+				int count = 0;
+				while ( rs.next() ) {
+					if ( ids != null ) {
+						if ( ids.size() == MAX_CLEANUP_IDS ) {
+							ids = null;
+						}
+						else {
+							ids.add( persister.getIdentifierType().nullSafeGet( rs, aliases, session, null ) );
+						}
+					}
+					count++;
+				}
+				coordinateSharedCacheCleanup(
+						session,
+						ids == null ? null : ( Serializable[] ) ids.toArray( new Serializable[ ids.size() ] ),
+						updatedTableNames
+				);
+				return count;
+			}
+			finally {
+				session.getBatcher().closeQueryStatement( ps, rs );
+			}
+		}
+		catch( SQLException e ) {
+			throw JDBCExceptionHelper.convert(
+					getFactory().getSQLExceptionConverter(),
+			        e,
+			        "error performing bulk operation",
+			        sql
+				);
+		}
+	}
+
+	/**
+	 * Generate a select of the identifiers of the given persister from the given table,
+	 * using the given restriction.
+	 *
+	 * @param persister The entity persister
+	 * @param tableName The table holding the identifiers
+	 * @param whereClause The restriction, or null to select all rows
+	 * @return The select, aliasing the identifier columns as {@link #getIdAliases}
+	 */
+	protected String generateIdSelect(Queryable persister, String tableName, String whereClause) {
+		final String[] columnNames = persister.getIdentifierColumnNames();
+		final String[] aliases = getIdAliases( persister );
+		StringBuffer selectClause = new StringBuffer();
+		for ( int i = 0; i < columnNames.length; i++ ) {
+			if ( i > 0 ) {
+				selectClause.append( ", " );
+			}
+			selectClause.append( columnNames[i] ).append( " as " ).append( aliases[i] );
+		}
+		Select select = new Select( getFactory().getDialect() );
+		select.setSelectClause( selectClause.toString() );
+		select.setFromClause( tableName );
+		if ( whereClause != null ) {
+			select.setWhereClause( whereClause );
+		}
+		if ( getFactory().getSettings().isCommentsEnabled() ) {
+			select.setComment( "select " + persister.getEntityName() + " ids for cache cleanup" );
+		}
+		return select.toStatementString();
+	}
+
+	protected String[] getIdAliases(Queryable persister) {
+		return persister.getIdentifierAliases( "_" );
+	}
+
+	/**
+	 * Does the shared cache hold any state the bulk operation could invalidate, for
+	 * which it is worth determining the affected instances?
+	 *
+	 * @param persister The entity persister targeted by the bulk operation
+	 * @return True if the entity, or a collection it participates in, is cached
+	 */
+	protected boolean hasCachedState(Queryable persister) {
+		if ( persister.hasCache() ) {
+			return true;
+		}
+		Set roles = getFactory().getCollectionRolesByEntityParticipant( persister.getEntityName() );
+		if ( roles != null ) {
+			Iterator itr = roles.iterator();
+			while ( itr.hasNext() ) {
+				CollectionPersister collectionPersister = getFactory().getCollectionPersister( ( String ) itr.next() );
+				if ( collectionPersister.hasCache() ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Execute the given select of affected identifiers.
+	 *
+	 * @param persister The entity persister
+	 * @param idSelect The select generated by {@link #generateIdSelect}
+	 * @param parameterSpecifications The parameters of the select
+	 * @param parameters The query parameters
+	 * @param session The originating session
+	 * @return The identifiers, or null if there are more than {@link #MAX_CLEANUP_IDS}
+	 */
+	protected Serializable[] selectAffectedIds(
+			Queryable persister,
+			String idSelect,
+			List parameterSpecifications,
+			QueryParameters parameters,
+			SessionImplementor session) {
+		return selectAffectedIds( persister, idSelect, parameterSpecifications, parameters, session, MAX_CLEANUP_IDS );
+	}
+
+	/**
+	 * Execute the given select of affected identifiers.
+	 *
+	 * @param persister The entity persister
+	 * @param idSelect The select generated by {@link #generateIdSelect}
+	 * @param parameterSpecifications The parameters of the select
+	 * @param parameters The query parameters
+	 * @param session The originating session
+	 * @param maxIds The maximum number of identifiers to select
+	 * @return The identifiers, or null if there are more than maxIds
+	 */
+	protected Serializable[] selectAffectedIds(
+			Queryable persister,
+			String idSelect,
+			List parameterSpecifications,
+			QueryParameters parameters,
+			SessionImplementor session,
+			int maxIds) {
+		List ids = new ArrayList();
+		try {
+			PreparedStatement ps = session.getBatcher().prepareSelectStatement( idSelect );
+			ResultSet rs = null;
+			try {
+				Iterator paramSpecifications = parameterSpecifications.iterator();
+				int pos = 1;
+				while ( paramSpecifications.hasNext() ) {
+					final ParameterSpecification paramSpec = ( ParameterSpecification ) paramSpecifications.next();
+					pos += paramSpec.bind( ps, parameters, session, pos );
+				}
+				rs = session.getBatcher().getResultSet( ps );
+				final String[] aliases = getIdAliases( persister );
+				while ( rs.next() ) {
+					if ( ids.size() == maxIds ) {
+						return null;
+					}
+					ids.add( persister.getIdentifierType().nullSafeGet( rs, aliases, session, null ) );
+				}
+			}
+			finally {
+				session.getBatcher().closeQueryStatement( ps, rs );
+			}
+		}
+		catch( SQLException e ) {
+			throw JDBCExceptionHelper.convert(
+					getFactory().getSQLExceptionConverter(),
+			        e,
+			        "could not select ids for bulk operation",
+			        idSelect
+				);
+		}
+		return ( Serializable[] ) ids.toArray( new Serializable[ ids.size() ] );
+	}
+
 	protected void createTemporaryTableIfNecessary(final Queryable persister, final SessionImplementor session) {
 		// Don't really know all the codes required to adequately decipher returned jdbc exceptions here.
 		// simply allow the failure to be eaten and the subsequent insert-selects/deletes should fail
@@ -258,8 +622,36 @@ public abstract class AbstractStatementExecutor implements StatementExecutor {
 	}
 
 	protected void coordinateSharedCacheCleanup(SessionImplementor session) {
-		BulkOperationCleanupAction action = new BulkOperationCleanupAction( session, getAffectedQueryables() );
+		coordinateSharedCacheCleanup( session, new BulkOperationCleanupAction( session, getAffectedQueryables() ) );
+	}
+
+	/**
+	 * Cleanup the shared cache state of the given affected instances only, falling back
+	 * to {@link #coordinateSharedCacheCleanup(SessionImplementor)} if they are not known.
+	 *
+	 * @param session The originating session
+	 * @param affectedIds The identifiers of the affected instances, or null if not known
+	 * @param updatedTableNames The names of the tables updated, or null if rows were deleted
+	 */
+	protected void coordinateSharedCacheCleanup(
+			SessionImplementor session,
+			Serializable[] affectedIds,
+			Set updatedTableNames) {
+		if ( affectedIds == null ) {
+			coordinateSharedCacheCleanup( session );
+		}
+		else {
+			if ( log.isDebugEnabled() ) {
+				log.debug( "cleaning up shared cache state of " + affectedIds.length + " affected instances" );
+			}
+			coordinateSharedCacheCleanup(
+					session,
+					new BulkOperationCleanupAction( session, getAffectedQueryables()[0], affectedIds, updatedTableNames )
+			);
+		}
+	}
 
+	private void coordinateSharedCacheCleanup(SessionImplementor session, BulkOperationCleanupAction action) {
 		if ( session.isEventSource() ) {
 			( ( EventSource ) session ).getActionQueue().addAction( action );
 		}
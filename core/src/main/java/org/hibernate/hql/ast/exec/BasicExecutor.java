@@ -24,23 +24,33 @@
  */
 package org.hibernate.hql.ast.exec;
 
+import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.hibernate.HibernateException;
 import org.hibernate.engine.QueryParameters;
 import org.hibernate.engine.RowSelection;
 import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.TypedValue;
 import org.hibernate.exception.JDBCExceptionHelper;
+import org.hibernate.hql.antlr.HqlSqlTokenTypes;
 import org.hibernate.hql.ast.HqlSqlWalker;
 import org.hibernate.hql.ast.QuerySyntaxException;
 import org.hibernate.hql.ast.SqlGenerator;
+import org.hibernate.hql.ast.tree.RestrictableStatement;
+import org.hibernate.param.NamedParameterSpecification;
 import org.hibernate.param.ParameterSpecification;
+import org.hibernate.param.PositionalParameterSpecification;
 import org.hibernate.persister.entity.Queryable;
 
 import antlr.RecognitionException;
+import antlr.collections.AST;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +67,11 @@ public class BasicExecutor extends AbstractStatementExecutor {
 	private final String sql;
 	private final List parameterSpecifications;
 
+	// the parameters of a restriction to given ids, from which the affected ids are known upfront;
+	// any other UPDATE or DELETE invalidates the cached state of the whole persister
+	private ParameterSpecification[] idParameterSpecifications;
+	private Set updatedTableNames;
+
 	public BasicExecutor(HqlSqlWalker walker, Queryable persister) {
 		super( walker, log );
 		this.persister = persister;
@@ -66,19 +81,57 @@ public class BasicExecutor extends AbstractStatementExecutor {
 			sql = gen.getSQL();
 			gen.getParseErrorHandler().throwQueryException();
 			parameterSpecifications = gen.getCollectedParameters();
+
+			if ( walker.getStatementType() != HqlSqlTokenTypes.INSERT ) {
+				AST whereClause = ( ( RestrictableStatement ) walker.getAST() ).getWhereClause();
+				if ( whereClause.getNumberOfChildren() != 0 ) {
+					SqlGenerator whereGen = new SqlGenerator( getFactory() );
+					whereGen.whereClause( whereClause );
+					String restriction = whereGen.getSQL().substring( 7 );  // strip the " where "
+					if ( isIdRestriction( restriction ) ) {
+						List idParameters = whereGen.getCollectedParameters();
+						idParameterSpecifications = ( ParameterSpecification[] ) idParameters
+								.toArray( new ParameterSpecification[ idParameters.size() ] );
+					}
+				}
+				if ( walker.getStatementType() == HqlSqlTokenTypes.UPDATE ) {
+					updatedTableNames = Collections.singleton( persister.getTableName() );
+				}
+			}
 		}
 		catch ( RecognitionException e ) {
 			throw QuerySyntaxException.convert( e );
 		}
 	}
 
+	/**
+	 * Is the given restriction of the form <tt>id = ?</tt> or <tt>id in (?, ...)</tt>?
+	 */
+	private boolean isIdRestriction(String restriction) {
+		final String[] idColumnNames = persister.getIdentifierColumnNames();
+		if ( idColumnNames.length != 1 ) {
+			return false;
+		}
+		Pattern pattern = Pattern.compile(
+				"\\(?\\s*" + Pattern.quote( idColumnNames[0] )
+						+ "\\s*(=\\s*\\?|in\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\))\\s*\\)?",
+				Pattern.CASE_INSENSITIVE
+		);
+		return pattern.matcher( restriction.trim() ).matches();
+	}
+
 	public String[] getSqlStatements() {
 		return new String[] { sql };
 	}
 
 	public int execute(QueryParameters parameters, SessionImplementor session) throws HibernateException {
 
-		coordinateSharedCacheCleanup( session );
+		if ( idParameterSpecifications != null && hasCachedState( persister ) ) {
+			coordinateSharedCacheCleanup( session, resolveAffectedIds( parameters ), updatedTableNames );
+		}
+		else {
+			coordinateSharedCacheCleanup( session );
+		}
 
 		PreparedStatement st = null;
 		RowSelection selection = parameters.getRowSelection();
@@ -116,6 +169,43 @@ public class BasicExecutor extends AbstractStatementExecutor {
 		}
 	}
 
+	/**
+	 * The ids bound to the restriction to given ids, which are exactly the affected ids; a
+	 * select of the affected ids ahead of the statement could miss rows changed concurrently.
+	 *
+	 * @return The ids, or null if they are not known (or too many), in which case the whole
+	 * cached state is invalidated
+	 */
+	private Serializable[] resolveAffectedIds(QueryParameters parameters) {
+		Serializable[] ids = getIdParameterValues( parameters );
+		return ids == null || ids.length > MAX_CLEANUP_IDS ? null : ids;
+	}
+
+	private Serializable[] getIdParameterValues(QueryParameters parameters) {
+		final Class idClass = persister.getIdentifierType().getReturnedClass();
+		Serializable[] ids = new Serializable[ idParameterSpecifications.length ];
+		for ( int i = 0; i < idParameterSpecifications.length; i++ ) {
+			final Object value;
+			if ( idParameterSpecifications[i] instanceof NamedParameterSpecification ) {
+				String name = ( ( NamedParameterSpecification ) idParameterSpecifications[i] ).getName();
+				TypedValue typedValue = ( TypedValue ) parameters.getNamedParameters().get( name );
+				value = typedValue == null ? null : typedValue.getValue();
+			}
+			else if ( idParameterSpecifications[i] instanceof PositionalParameterSpecification ) {
+				int position = ( ( PositionalParameterSpecification ) idParameterSpecifications[i] ).getHqlPosition();
+				value = parameters.getPositionalParameterValues()[position];
+			}
+			else {
+				return null;
+			}
+			if ( !idClass.isInstance( value ) ) {
+				return null;
+			}
+			ids[i] = ( Serializable ) value;
+		}
+		return ids;
+	}
+
 	protected Queryable[] getAffectedQueryables() {
 		return new Queryable[] { persister };
 	}
@@ -24,11 +24,14 @@
  */
 package org.hibernate.hql.ast.exec;
 
+import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.Iterator;
 
 import org.hibernate.HibernateException;
+import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.QueryParameters;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.exception.JDBCExceptionHelper;
@@ -38,6 +41,7 @@ import org.hibernate.hql.ast.tree.FromElement;
 import org.hibernate.param.ParameterSpecification;
 import org.hibernate.persister.entity.Queryable;
 import org.hibernate.sql.Delete;
+import org.hibernate.sql.Select;
 import org.hibernate.util.StringHelper;
 
 import org.slf4j.Logger;
@@ -52,13 +56,18 @@ public class MultiTableDeleteExecutor extends AbstractStatementExecutor {
 	private static final Logger log = LoggerFactory.getLogger( MultiTableDeleteExecutor.class );
 
 	private final Queryable persister;
+	private final String idSelect;
 	private final String idInsertSelect;
+	private final String commonTableExpression;
+	private final String[] tableNames;
+	private final String[][] columnNames;
 	private final String[] deletes;
 
 	public MultiTableDeleteExecutor(HqlSqlWalker walker) {
 		super( walker, log );
 
-		if ( !walker.getSessionFactoryHelper().getFactory().getDialect().supportsTemporaryTables() ) {
+		final Dialect dialect = walker.getSessionFactoryHelper().getFactory().getDialect();
+		if ( !dialect.supportsMutatingCommonTableExpressions() && !dialect.supportsTemporaryTables() ) {
 			throw new HibernateException( "cannot doAfterTransactionCompletion multi-table deletes using dialect not supporting temp tables" );
 		}
 
@@ -67,11 +76,11 @@ public class MultiTableDeleteExecutor extends AbstractStatementExecutor {
 		String bulkTargetAlias = fromElement.getTableAlias();
 		this.persister = fromElement.getQueryable();
 
-		this.idInsertSelect = generateIdInsertSelect( persister, bulkTargetAlias, deleteStatement.getWhereClause() );
-		log.trace( "Generated ID-INSERT-SELECT SQL (multi-table delete) : " +  idInsertSelect );
+		Select select = generateRestrictedIdSelect( persister, bulkTargetAlias, deleteStatement.getWhereClause() );
+		this.idSelect = select.toStatementString();
 
-		String[] tableNames = persister.getConstraintOrderedTableNameClosure();
-		String[][] columnNames = persister.getContraintOrderedTableKeyColumnClosure();
+		tableNames = persister.getConstraintOrderedTableNameClosure();
+		columnNames = persister.getContraintOrderedTableKeyColumnClosure();
 		String idSubselect = generateIdSubselect( persister );
 
 		deletes = new String[tableNames.length];
@@ -80,23 +89,62 @@ public class MultiTableDeleteExecutor extends AbstractStatementExecutor {
 			//      the difficulty is the ordering of the tables here vs the cascade attributes on the persisters ->
 			//          the table info gotten here should really be self-contained (i.e., a class representation
 			//          defining all the needed attributes), then we could then get an array of those
-			final Delete delete = new Delete()
-					.setTableName( tableNames[i] )
-					.setWhere( "(" + StringHelper.join( ", ", columnNames[i] ) + ") IN (" + idSubselect + ")" );
-			if ( getFactory().getSettings().isCommentsEnabled() ) {
-				delete.setComment( "bulk delete" );
-			}
+			deletes[i] = generateDelete( i, "(" + StringHelper.join( ", ", columnNames[i] ) + ") IN (" + idSubselect + ")" );
+		}
 
-			deletes[i] = delete.toStatementString();
+		if ( dialect.supportsMutatingCommonTableExpressions() ) {
+			this.idInsertSelect = null;
+			this.commonTableExpression = generateCommonTableExpression( persister, select, deletes );
+			log.trace( "Generated common table expression SQL (multi-table delete) : " + commonTableExpression );
+		}
+		else {
+			this.idInsertSelect = generateIdInsertSelect( persister, select );
+			this.commonTableExpression = null;
+			log.trace( "Generated ID-INSERT-SELECT SQL (multi-table delete) : " +  idInsertSelect );
 		}
 	}
 
+	private String generateDelete(int tableIndex, String restriction) {
+		final Delete delete = new Delete()
+				.setTableName( tableNames[tableIndex] )
+				.setWhere( restriction );
+		if ( getFactory().getSettings().isCommentsEnabled() ) {
+			delete.setComment( "bulk delete" );
+		}
+		return delete.toStatementString();
+	}
+
 	public String[] getSqlStatements() {
+		if ( commonTableExpression != null ) {
+			return new String[] { commonTableExpression };
+		}
 		return deletes;
 	}
 
 	public int execute(QueryParameters parameters, SessionImplementor session) throws HibernateException {
-		coordinateSharedCacheCleanup( session );
+		if ( commonTableExpression != null ) {
+			return executeCommonTableExpression(
+					persister,
+					commonTableExpression,
+					getIdSelectParameterSpecifications(),
+					parameters,
+					null,
+					session
+			);
+		}
+
+		// If few enough ids are affected, list them in the deletes rather than saving them off
+		Serializable[] ids = selectAffectedIds(
+				persister,
+				idSelect,
+				getIdSelectParameterSpecifications(),
+				parameters,
+				session,
+				getMaxInlineIds()
+		);
+		if ( ids != null ) {
+			return execute( ids, session );
+		}
 
 		createTemporaryTableIfNecessary( persister, session );
 
@@ -130,6 +178,16 @@ public class MultiTableDeleteExecutor extends AbstractStatementExecutor {
 					);
 			}
 
+			// Cleanup the shared cache state of the saved off ids, if not too many
+			if ( resultCount <= MAX_CLEANUP_IDS && hasCachedState( persister ) ) {
+				String idTableSelect = generateIdSelect( persister, persister.getTemporaryIdTableName(), null );
+				ids = selectAffectedIds( persister, idTableSelect, Collections.EMPTY_LIST, parameters, session );
+				coordinateSharedCacheCleanup( session, ids, null );
+			}
+			else {
+				coordinateSharedCacheCleanup( session );
+			}
+
 			// Start performing the deletes
 			for ( int i = 0; i < deletes.length; i++ ) {
 				try {
@@ -160,6 +218,41 @@ public class MultiTableDeleteExecutor extends AbstractStatementExecutor {
 		}
 	}
 
+	private int execute(Serializable[] ids, SessionImplementor session) throws HibernateException {
+		coordinateSharedCacheCleanup( session, ids, null );
+		if ( ids.length == 0 ) {
+			return 0;
+		}
+
+		final int size = getIdListSize( ids.length );
+		for ( int i = 0; i < tableNames.length; i++ ) {
+			final String delete = generateDelete( i, generateIdListRestriction( columnNames[i], size ) );
+			PreparedStatement ps = null;
+			try {
+				try {
+					ps = session.getBatcher().prepareStatement( delete );
+					bindIds( ps, persister, ids, size, 1, session );
+					ps.executeUpdate();
+				}
+				finally {
+					if ( ps != null ) {
+						session.getBatcher().closeStatement( ps );
+					}
+				}
+			}
+			catch( SQLException e ) {
+				throw JDBCExceptionHelper.convert(
+						getFactory().getSQLExceptionConverter(),
+				        e,
+				        "error performing bulk delete",
+				        delete
+					);
+			}
+		}
+
+		return ids.length;
+	}
+
 	protected Queryable[] getAffectedQueryables() {
 		return new Queryable[] { persister };
 	}
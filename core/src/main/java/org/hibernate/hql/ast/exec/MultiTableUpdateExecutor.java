@@ -24,13 +24,19 @@
  */
 package org.hibernate.hql.ast.exec;
 
+import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.hibernate.HibernateException;
+import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.QueryParameters;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.exception.JDBCExceptionHelper;
@@ -40,6 +46,7 @@ import org.hibernate.hql.ast.tree.FromElement;
 import org.hibernate.hql.ast.tree.UpdateStatement;
 import org.hibernate.param.ParameterSpecification;
 import org.hibernate.persister.entity.Queryable;
+import org.hibernate.sql.Select;
 import org.hibernate.sql.Update;
 import org.hibernate.util.StringHelper;
 
@@ -55,14 +62,21 @@ public class MultiTableUpdateExecutor extends AbstractStatementExecutor {
 	private static final Logger log = LoggerFactory.getLogger( MultiTableUpdateExecutor.class );
 
 	private final Queryable persister;
+	private final String idSelect;
 	private final String idInsertSelect;
+	private final String commonTableExpression;
+	private final List commonTableExpressionParameters;
+	private final String[] tableNames;
+	private final String[][] columnNames;
+	private final String[] assignments;
 	private final String[] updates;
 	private final ParameterSpecification[][] hqlParameters;
 
 	public MultiTableUpdateExecutor(HqlSqlWalker walker) {
 		super( walker, log );
 
-		if ( !walker.getSessionFactoryHelper().getFactory().getDialect().supportsTemporaryTables() ) {
+		final Dialect dialect = walker.getSessionFactoryHelper().getFactory().getDialect();
+		if ( !dialect.supportsMutatingCommonTableExpressions() && !dialect.supportsTemporaryTables() ) {
 			throw new HibernateException( "cannot doAfterTransactionCompletion multi-table updates using dialect not supporting temp tables" );
 		}
 
@@ -71,32 +85,26 @@ public class MultiTableUpdateExecutor extends AbstractStatementExecutor {
 		String bulkTargetAlias = fromElement.getTableAlias();
 		this.persister = fromElement.getQueryable();
 
-		this.idInsertSelect = generateIdInsertSelect( persister, bulkTargetAlias, updateStatement.getWhereClause() );
-		log.trace( "Generated ID-INSERT-SELECT SQL (multi-table update) : " +  idInsertSelect );
+		Select select = generateRestrictedIdSelect( persister, bulkTargetAlias, updateStatement.getWhereClause() );
+		this.idSelect = select.toStatementString();
 
-		String[] tableNames = persister.getConstraintOrderedTableNameClosure();
-		String[][] columnNames = persister.getContraintOrderedTableKeyColumnClosure();
+		tableNames = persister.getConstraintOrderedTableNameClosure();
+		columnNames = persister.getContraintOrderedTableKeyColumnClosure();
 
 		String idSubselect = generateIdSubselect( persister );
 		List assignmentSpecifications = walker.getAssignmentSpecifications();
 
+		assignments = new String[tableNames.length];
 		updates = new String[tableNames.length];
 		hqlParameters = new ParameterSpecification[tableNames.length][];
 		for ( int tableIndex = 0; tableIndex < tableNames.length; tableIndex++ ) {
-			boolean affected = false;
+			List fragmentList = new ArrayList();
 			List parameterList = new ArrayList();
-			Update update = new Update( getFactory().getDialect() )
-					.setTableName( tableNames[tableIndex] )
-					.setWhere( "(" + StringHelper.join( ", ", columnNames[tableIndex] ) + ") IN (" + idSubselect + ")" );
-			if ( getFactory().getSettings().isCommentsEnabled() ) {
-				update.setComment( "bulk update" );
-			}
 			final Iterator itr = assignmentSpecifications.iterator();
 			while ( itr.hasNext() ) {
 				final AssignmentSpecification specification = ( AssignmentSpecification ) itr.next();
 				if ( specification.affectsTable( tableNames[tableIndex] ) ) {
-					affected = true;
-					update.appendAssignmentFragment( specification.getSqlAssignmentFragment() );
+					fragmentList.add( specification.getSqlAssignmentFragment() );
 					if ( specification.getParameters() != null ) {
 						for ( int paramIndex = 0; paramIndex < specification.getParameters().length; paramIndex++ ) {
 							parameterList.add( specification.getParameters()[paramIndex] );
@@ -104,11 +112,44 @@ public class MultiTableUpdateExecutor extends AbstractStatementExecutor {
 					}
 				}
 			}
-			if ( affected ) {
-				updates[tableIndex] = update.toStatementString();
+			if ( !fragmentList.isEmpty() ) {
+				assignments[tableIndex] = StringHelper.join( ", ", fragmentList.iterator() );
+				updates[tableIndex] = generateUpdate(
+						tableIndex,
+						"(" + StringHelper.join( ", ", columnNames[tableIndex] ) + ") IN (" + idSubselect + ")"
+				);
 				hqlParameters[tableIndex] = ( ParameterSpecification[] ) parameterList.toArray( new ParameterSpecification[0] );
 			}
 		}
+
+		if ( dialect.supportsMutatingCommonTableExpressions() ) {
+			this.idInsertSelect = null;
+			this.commonTableExpression = generateCommonTableExpression( persister, select, updates );
+			this.commonTableExpressionParameters = new ArrayList( getIdSelectParameterSpecifications() );
+			for ( int i = 0; i < updates.length; i++ ) {
+				if ( updates[i] != null ) {
+					commonTableExpressionParameters.addAll( Arrays.asList( hqlParameters[i] ) );
+				}
+			}
+			log.trace( "Generated common table expression SQL (multi-table update) : " + commonTableExpression );
+		}
+		else {
+			this.idInsertSelect = generateIdInsertSelect( persister, select );
+			this.commonTableExpression = null;
+			this.commonTableExpressionParameters = null;
+			log.trace( "Generated ID-INSERT-SELECT SQL (multi-table update) : " +  idInsertSelect );
+		}
+	}
+
+	private String generateUpdate(int tableIndex, String restriction) {
+		Update update = new Update( getFactory().getDialect() )
+				.setTableName( tableNames[tableIndex] )
+				.setWhere( restriction )
+				.appendAssignmentFragment( assignments[tableIndex] );
+		if ( getFactory().getSettings().isCommentsEnabled() ) {
+			update.setComment( "bulk update" );
+		}
+		return update.toStatementString();
 	}
 
 	public Queryable getAffectedQueryable() {
@@ -116,11 +157,36 @@ public class MultiTableUpdateExecutor extends AbstractStatementExecutor {
 	}
 
 	public String[] getSqlStatements() {
+		if ( commonTableExpression != null ) {
+			return new String[] { commonTableExpression };
+		}
 		return updates;
 	}
 
 	public int execute(QueryParameters parameters, SessionImplementor session) throws HibernateException {
-		coordinateSharedCacheCleanup( session );
+		if ( commonTableExpression != null ) {
+			return executeCommonTableExpression(
+					persister,
+					commonTableExpression,
+					commonTableExpressionParameters,
+					parameters,
+					getUpdatedTableNames(),
+					session
+			);
+		}
+
+		// If few enough ids are affected, list them in the updates rather than saving them off
+		Serializable[] ids = selectAffectedIds(
+				persister,
+				idSelect,
+				getIdSelectParameterSpecifications(),
+				parameters,
+				session,
+				getMaxInlineIds()
+		);
+		if ( ids != null ) {
+			return execute( ids, parameters, session );
+		}
 
 		createTemporaryTableIfNecessary( persister, session );
 
@@ -156,6 +222,16 @@ public class MultiTableUpdateExecutor extends AbstractStatementExecutor {
 					);
 			}
 
+			// Cleanup the shared cache state of the saved off ids, if not too many
+			if ( resultCount <= MAX_CLEANUP_IDS && hasCachedState( persister ) ) {
+				String idTableSelect = generateIdSelect( persister, persister.getTemporaryIdTableName(), null );
+				ids = selectAffectedIds( persister, idTableSelect, Collections.EMPTY_LIST, parameters, session );
+				coordinateSharedCacheCleanup( session, ids, getUpdatedTableNames() );
+			}
+			else {
+				coordinateSharedCacheCleanup( session );
+			}
+
 			// Start performing the updates
 			for ( int i = 0; i < updates.length; i++ ) {
 				if ( updates[i] == null ) {
@@ -195,6 +271,59 @@ public class MultiTableUpdateExecutor extends AbstractStatementExecutor {
 		}
 	}
 
+	private int execute(Serializable[] ids, QueryParameters parameters, SessionImplementor session)
+			throws HibernateException {
+		coordinateSharedCacheCleanup( session, ids, getUpdatedTableNames() );
+		if ( ids.length == 0 ) {
+			return 0;
+		}
+
+		final int size = getIdListSize( ids.length );
+		for ( int i = 0; i < updates.length; i++ ) {
+			if ( updates[i] == null ) {
+				continue;
+			}
+			final String update = generateUpdate( i, generateIdListRestriction( columnNames[i], size ) );
+			PreparedStatement ps = null;
+			try {
+				try {
+					ps = session.getBatcher().prepareStatement( update );
+					int position = 1; // jdbc params are 1-based
+					for ( int x = 0; x < hqlParameters[i].length; x++ ) {
+						position += hqlParameters[i][x].bind( ps, parameters, session, position );
+					}
+					bindIds( ps, persister, ids, size, position, session );
+					ps.executeUpdate();
+				}
+				finally {
+					if ( ps != null ) {
+						session.getBatcher().closeStatement( ps );
+					}
+				}
+			}
+			catch( SQLException e ) {
+				throw JDBCExceptionHelper.convert(
+						getFactory().getSQLExceptionConverter(),
+				        e,
+				        "error performing bulk update",
+				        update
+					);
+			}
+		}
+
+		return ids.length;
+	}
+
+	private Set getUpdatedTableNames() {
+		Set updatedTableNames = new HashSet();
+		for ( int i = 0; i < updates.length; i++ ) {
+			if ( updates[i] != null ) {
+				updatedTableNames.add( tableNames[i] );
+			}
+		}
+		return updatedTableNames;
+	}
+
 	protected Queryable[] getAffectedQueryables() {
 		return new Queryable[] { persister };
 	}
@@ -948,7 +948,7 @@ public class QueryTranslatorImpl extends BasicLoader implements FilterTranslator
 
 		boolean stats = session.getFactory().getStatistics().isStatisticsEnabled();
 		long startTime = 0;
-		if ( stats ) startTime = System.currentTimeMillis();
+		if ( stats ) startTime = System.nanoTime();
 
 		try {
 
@@ -958,10 +958,10 @@ public class QueryTranslatorImpl extends BasicLoader implements FilterTranslator
 			Iterator result = new IteratorImpl( rs, st, session, queryParameters.isReadOnly( session ), returnTypes, getColumnNames(), hi );
 
 			if ( stats ) {
-				session.getFactory().getStatisticsImplementor().queryExecuted(
+				session.getFactory().getStatisticsImplementor().queryExecutedNanos(
 						"HQL: " + queryString,
 						0,
-						System.currentTimeMillis() - startTime
+						System.nanoTime() - startTime
 					);
 			}
 
@@ -35,7 +35,10 @@ import org.hibernate.id.insert.IdentifierGeneratingInsert;
 import org.hibernate.id.insert.AbstractSelectingDelegate;
 import org.hibernate.id.insert.AbstractReturningDelegate;
 import org.hibernate.id.insert.InsertSelectIdentityInsert;
+import org.hibernate.id.insert.Binder;
 import org.hibernate.dialect.Dialect;
+import org.hibernate.exception.JDBCExceptionHelper;
+import org.hibernate.pretty.MessageHelper;
 import org.hibernate.HibernateException;
 import org.hibernate.AssertionFailure;
 
@@ -106,6 +109,57 @@ public class IdentityGenerator extends AbstractPostInsertGenerator {
 				}
 			}
 		}
+
+		/**
+		 * Perform the given inserts as a single JDBC batch, reading the generated
+		 * identity values back from the batch's generated keys.
+		 *
+		 * @param insertSQL The identity insert statement
+		 * @param session The originating session
+		 * @param binders The binders for each row, in the order the rows should be inserted
+		 * @return The generated identity values, in the same order as <tt>binders</tt>
+		 * @see org.hibernate.dialect.Dialect#supportsBatchedGeneratedKeys()
+		 */
+		public Serializable[] performBatchInsert(String insertSQL, SessionImplementor session, Binder[] binders) {
+			try {
+				PreparedStatement insert = prepare( insertSQL, session );
+				try {
+					for ( int i = 0; i < binders.length; i++ ) {
+						binders[i].bindValues( insert );
+						insert.addBatch();
+					}
+					insert.executeBatch();
+					ResultSet rs = insert.getGeneratedKeys();
+					try {
+						Serializable[] ids = new Serializable[binders.length];
+						for ( int i = 0; i < ids.length; i++ ) {
+							if ( !rs.next() ) {
+								throw new HibernateException(
+										"The database returned " + i + " natively generated identity values for a batch of "
+												+ ids.length + " inserts"
+								);
+							}
+							ids[i] = IdentifierGeneratorHelper.get( rs, persister.getIdentifierType() );
+						}
+						return ids;
+					}
+					finally {
+						rs.close();
+					}
+				}
+				finally {
+					releaseStatement( insert, session );
+				}
+			}
+			catch ( SQLException sqle ) {
+				throw JDBCExceptionHelper.convert(
+						session.getFactory().getSQLExceptionConverter(),
+						sqle,
+						"could not insert: " + MessageHelper.infoString( persister ),
+						insertSQL
+				);
+			}
+		}
 	}
 
 	/**
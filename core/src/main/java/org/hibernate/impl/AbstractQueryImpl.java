@@ -760,12 +760,18 @@ public abstract class AbstractQueryImpl implements Query {
 		StringBuffer list = new StringBuffer( 16 );
 		Iterator iter = vals.iterator();
 		int i = 0;
+		int expandedSize = isParameterListPaddingEnabled() ? determinePaddedSize( vals.size() ) : vals.size();
 		boolean isJpaPositionalParam = parameterMetadata.getNamedParameterDescriptor( name ).isJpaStyle();
-		while ( iter.hasNext() ) {
+		Object value = null;
+		while ( i < expandedSize ) {
 			String alias = ( isJpaPositionalParam ? 'x' + name : name ) + i++ + '_';
-			namedParamsCopy.put( alias, new TypedValue( type, iter.next(), session.getEntityMode() ) );
-			list.append( ParserHelper.HQL_VARIABLE_PREFIX ).append( alias );
 			if ( iter.hasNext() ) {
+				value = iter.next();
+			}
+			// padding repeats the last value, which doesn't change the result of an IN predicate
+			namedParamsCopy.put( alias, new TypedValue( type, value, session.getEntityMode() ) );
+			list.append( ParserHelper.HQL_VARIABLE_PREFIX ).append( alias );
+			if ( i < expandedSize ) {
 				list.append( ", " );
 			}
 		}
@@ -773,6 +779,32 @@ public abstract class AbstractQueryImpl implements Query {
 		return StringHelper.replace( query, paramPrefix + name, list.toString(), true );
 	}
 
+	/**
+	 * Should parameter lists be padded, so that lists of different sizes expand to the same query string
+	 * and so share one query plan?
+	 *
+	 * @return True if parameter lists should be padded; false otherwise.
+	 */
+	protected boolean isParameterListPaddingEnabled() {
+		return session.getFactory().getSettings().isInClauseParameterPaddingEnabled();
+	}
+
+	/**
+	 * Determine the number of parameters a list of the given size expands to when padding: the next power of
+	 * two, limited by the number of elements the database accepts in an <tt>IN</tt> predicate.
+	 */
+	private int determinePaddedSize(int size) {
+		int paddedSize = Integer.highestOneBit( size );
+		if ( paddedSize < size ) {
+			paddedSize = paddedSize << 1;
+		}
+		int limit = session.getFactory().getDialect().getInExpressionCountLimit();
+		if ( limit > 0 && paddedSize > limit ) {
+			paddedSize = Math.max( size, limit );
+		}
+		return paddedSize;
+	}
+
 	public Query setParameterList(String name, Collection vals) throws HibernateException {
 		if ( vals == null ) {
 			throw new QueryException( "Collection must be not null!" );
@@ -36,8 +36,10 @@ import org.hibernate.engine.NamedSQLQueryDefinition;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.engine.QueryParameters;
 import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.query.HQLLiteralNormalizer;
 import org.hibernate.engine.query.HQLQueryPlan;
 import org.hibernate.engine.query.NativeSQLQueryPlan;
+import org.hibernate.type.Type;
 
 import java.util.List;
 
@@ -132,6 +134,12 @@ public abstract class AbstractSessionImpl implements SessionImplementor {
 
 	public Query createQuery(String queryString) {
 		errorIfClosed();
+		if ( factory.getSettings().isQueryLiteralNormalizationEnabled() ) {
+			Query query = createNormalizedQuery( queryString );
+			if ( query != null ) {
+				return query;
+			}
+		}
 		QueryImpl query = new QueryImpl(
 				queryString,
 		        this,
@@ -141,6 +149,36 @@ public abstract class AbstractSessionImpl implements SessionImplementor {
 		return query;
 	}
 
+	/**
+	 * Create a query for the normalized form of the given query string, in which literals are replaced by
+	 * parameters, so that it shares its query plan with the queries which only differ by these literals.
+	 *
+	 * @param queryString The HQL query string.
+	 * @return The query, or null if the query string can't be normalized.
+	 */
+	private Query createNormalizedQuery(String queryString) {
+		HQLLiteralNormalizer.NormalizedQuery normalized = HQLLiteralNormalizer.normalize( queryString );
+		if ( normalized == null ) {
+			return null;
+		}
+		HQLQueryPlan plan = factory.getQueryPlanCache().getNormalizedHQLQueryPlan( normalized, getEnabledFilters() );
+		if ( plan == null ) {
+			return null;
+		}
+		Type[] types = normalized.getExpectedTypes( plan.getParameterMetadata() );
+		Object[] values = normalized.getParameterValues( types );
+		if ( values == null ) {
+			// a literal of another numeric type than the one expected, e.g. a decimal compared to an integral property
+			return null;
+		}
+		String[] names = normalized.getParameterNames();
+		QueryImpl query = new QueryImpl( normalized.getQueryString(), this, plan.getParameterMetadata() );
+		for ( int i = 0; i < names.length; i++ ) {
+			query.setParameter( names[i], values[i], types[i] );
+		}
+		return query;
+	}
+
 	public SQLQuery createSQLQuery(String sql) {
 		errorIfClosed();
 		SQLQueryImpl query = new SQLQueryImpl(
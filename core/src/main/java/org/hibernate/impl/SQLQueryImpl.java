@@ -202,6 +202,11 @@ public class SQLQueryImpl extends AbstractQueryImpl implements SQLQuery {
 		return qp;
 	}
 
+	protected boolean isParameterListPaddingEnabled() {
+		// a native query may use a parameter list elsewhere than in an IN predicate
+		return false;
+	}
+
 	protected void verifyParameters() {
 		// verifyParameters is called at the start of all execution type methods, so we use that here to perform
 		// some preparation work.
@@ -36,9 +36,15 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.naming.NamingException;
 import javax.naming.Reference;
 import javax.naming.StringRefAddr;
@@ -81,6 +87,7 @@ import org.hibernate.context.ManagedSessionContext;
 import org.hibernate.context.ThreadLocalSessionContext;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.function.SQLFunctionRegistry;
+import org.hibernate.engine.FetchPatternDetector;
 import org.hibernate.engine.FilterDefinition;
 import org.hibernate.engine.Mapping;
 import org.hibernate.engine.NamedQueryDefinition;
@@ -179,6 +186,7 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 	private final transient Map queryCaches;
 	private final transient Map allCacheRegions = new HashMap();
 	private final transient Statistics statistics;
+	private final transient FetchPatternDetector fetchPatternDetector;
 	private final transient EventListeners eventListeners;
 	private final transient CurrentSessionContext currentSessionContext;
 	private final transient EntityNotFoundDelegate entityNotFoundDelegate;
@@ -199,9 +207,12 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 			SessionFactoryObserver observer) throws HibernateException {
 		log.info("building session factory");
 
-		this.statistics = new ConcurrentStatisticsImpl( this );
+		this.statistics = new ConcurrentStatisticsImpl( this, settings.getStatisticsLatencyWindow() * 1000L );
 		getStatistics().setStatisticsEnabled( settings.isStatisticsEnabled() );
 		log.debug( "Statistics initialized [enabled={}]}", settings.isStatisticsEnabled() );
+		this.fetchPatternDetector = settings.isFetchPatternDetectionEnabled()
+				? new FetchPatternDetector( settings.getFetchPatternThreshold(), settings.getAdaptiveBatchFetchSize() )
+				: null;
 
 		this.properties = new Properties();
 		this.properties.putAll( cfg.getProperties() );
@@ -339,18 +350,40 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 		sqlResultSetMappings = new HashMap( cfg.getSqlResultSetMappings() );
 		imports = new HashMap( cfg.getImports() );
 
-		// after *all* persisters and named queries are registered
+		// after *all* persisters and named queries are registered.  The persisters are built above on this thread,
+		// as building them resolves state of the shared mapping model (types, column spans...) which isn't safe to
+		// use concurrently.  Generating their static SQL and loaders only reads the built persisters and types,
+		// which sessions use concurrently anyway, so this can be done by several threads
+		final int buildThreads = settings.getSessionFactoryBuildThreads();
+		List postInstantiations = new ArrayList();
 		Iterator iter = entityPersisters.values().iterator();
 		while ( iter.hasNext() ) {
 			final EntityPersister persister = ( ( EntityPersister ) iter.next() );
-			persister.postInstantiate();
-			registerEntityNameResolvers( persister );
-
+			postInstantiations.add(
+					new Callable() {
+						public Object call() {
+							persister.postInstantiate();
+							return persister;
+						}
+					}
+			);
 		}
 		iter = collectionPersisters.values().iterator();
 		while ( iter.hasNext() ) {
 			final CollectionPersister persister = ( ( CollectionPersister ) iter.next() );
-			persister.postInstantiate();
+			postInstantiations.add(
+					new Callable() {
+						public Object call() {
+							persister.postInstantiate();
+							return persister;
+						}
+					}
+			);
+		}
+		execute( postInstantiations, buildThreads, "initializing persisters" );
+		iter = entityPersisters.values().iterator();
+		while ( iter.hasNext() ) {
+			registerEntityNameResolvers( ( EntityPersister ) iter.next() );
 		}
 
 		//JNDI + Serialization:
@@ -531,7 +564,8 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 	}
 
 	private Map checkNamedQueries() throws HibernateException {
-		Map errors = new HashMap();
+		final Map errors = new HashMap();
+		final List checks = new ArrayList();
 
 		// Check named HQL queries
 		log.debug("Checking " + namedQueries.size() + " named HQL queries");
@@ -540,18 +574,15 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 			final Map.Entry entry = ( Map.Entry ) itr.next();
 			final String queryName = ( String ) entry.getKey();
 			final NamedQueryDefinition qd = ( NamedQueryDefinition ) entry.getValue();
-			// this will throw an error if there's something wrong.
-			try {
-				log.debug("Checking named query: " + queryName);
-				//TODO: BUG! this currently fails for named queries for non-POJO entities
-				queryPlanCache.getHQLQueryPlan( qd.getQueryString(), false, CollectionHelper.EMPTY_MAP );
-			}
-			catch ( QueryException e ) {
-				errors.put( queryName, e );
-			}
-			catch ( MappingException e ) {
-				errors.put( queryName, e );
-			}
+			checks.add(
+					new NamedQueryCheck( queryName, errors ) {
+						protected void check() {
+							log.debug("Checking named query: " + queryName);
+							//TODO: BUG! this currently fails for named queries for non-POJO entities
+							queryPlanCache.getHQLQueryPlan( qd.getQueryString(), false, CollectionHelper.EMPTY_MAP );
+						}
+					}
+			);
 		}
 
 		log.debug("Checking " + namedSqlQueries.size() + " named SQL queries");
@@ -560,41 +591,129 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 			final Map.Entry entry = ( Map.Entry ) itr.next();
 			final String queryName = ( String ) entry.getKey();
 			final NamedSQLQueryDefinition qd = ( NamedSQLQueryDefinition ) entry.getValue();
-			// this will throw an error if there's something wrong.
-			try {
-				log.debug("Checking named SQL query: " + queryName);
-				// TODO : would be really nice to cache the spec on the query-def so as to not have to re-calc the hash;
-				// currently not doable though because of the resultset-ref stuff...
-				NativeSQLQuerySpecification spec;
-				if ( qd.getResultSetRef() != null ) {
-					ResultSetMappingDefinition definition = ( ResultSetMappingDefinition ) sqlResultSetMappings.get( qd.getResultSetRef() );
-					if ( definition == null ) {
-						throw new MappingException( "Unable to find resultset-ref definition: " + qd.getResultSetRef() );
+			checks.add(
+					new NamedQueryCheck( queryName, errors ) {
+						protected void check() {
+							log.debug("Checking named SQL query: " + queryName);
+							// TODO : would be really nice to cache the spec on the query-def so as to not have to re-calc the hash;
+							// currently not doable though because of the resultset-ref stuff...
+							NativeSQLQuerySpecification spec;
+							if ( qd.getResultSetRef() != null ) {
+								ResultSetMappingDefinition definition = ( ResultSetMappingDefinition ) sqlResultSetMappings.get( qd.getResultSetRef() );
+								if ( definition == null ) {
+									throw new MappingException( "Unable to find resultset-ref definition: " + qd.getResultSetRef() );
+								}
+								spec = new NativeSQLQuerySpecification(
+										qd.getQueryString(),
+										definition.getQueryReturns(),
+										qd.getQuerySpaces()
+								);
+							}
+							else {
+								spec =  new NativeSQLQuerySpecification(
+										qd.getQueryString(),
+										qd.getQueryReturns(),
+										qd.getQuerySpaces()
+								);
+							}
+							queryPlanCache.getNativeSQLQueryPlan( spec );
+						}
 					}
-					spec = new NativeSQLQuerySpecification(
-							qd.getQueryString(),
-					        definition.getQueryReturns(),
-					        qd.getQuerySpaces()
-					);
+			);
+		}
+
+		// the query plans are independent of each other, so they can be built concurrently
+		execute( checks, settings.getNamedQueryStartupCheckingThreads(), "checking named queries" );
+
+		return errors;
+	}
+
+	/**
+	 * Run the given tasks, concurrently if more than one thread is allowed, and return their results in order.
+	 *
+	 * @param tasks The {@link Callable}s to run.
+	 * @param threads The maximum number of threads to use.
+	 * @param description A description of the tasks, for logging and error messages.
+	 * @return The results of the tasks.
+	 */
+	private static List execute(List tasks, int threads, String description) throws HibernateException {
+		final List results = new ArrayList( tasks.size() );
+		threads = Math.min( threads, tasks.size() );
+		if ( threads <= 1 ) {
+			for ( int i = 0; i < tasks.size(); i++ ) {
+				try {
+					results.add( ( ( Callable ) tasks.get( i ) ).call() );
 				}
-				else {
-					spec =  new NativeSQLQuerySpecification(
-							qd.getQueryString(),
-					        qd.getQueryReturns(),
-					        qd.getQuerySpaces()
-					);
+				catch ( RuntimeException e ) {
+					throw e;
+				}
+				catch ( Exception e ) {
+					throw new HibernateException( "Error " + description, e );
 				}
-				queryPlanCache.getNativeSQLQueryPlan( spec );
+			}
+			return results;
+		}
+
+		log.debug( description + " using " + threads + " threads" );
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			List futures = executor.invokeAll( tasks );
+			for ( int i = 0; i < futures.size(); i++ ) {
+				results.add( ( ( Future ) futures.get( i ) ).get() );
+			}
+			return results;
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException( "Interrupted while " + description, e );
+		}
+		catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof RuntimeException ) {
+				throw ( RuntimeException ) e.getCause();
+			}
+			if ( e.getCause() instanceof Error ) {
+				throw ( Error ) e.getCause();
+			}
+			throw new HibernateException( "Error " + description, e.getCause() );
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Checks a single named query, collecting query and mapping errors keyed by the query name.
+	 */
+	private static abstract class NamedQueryCheck implements Callable {
+		private final String queryName;
+		private final Map errors;
+
+		private NamedQueryCheck(String queryName, Map errors) {
+			this.queryName = queryName;
+			this.errors = errors;
+		}
+
+		protected abstract void check();
+
+		public Object call() {
+			// this will throw an error if there's something wrong.
+			try {
+				check();
 			}
 			catch ( QueryException e ) {
-				errors.put( queryName, e );
+				addError( e );
 			}
 			catch ( MappingException e ) {
-				errors.put( queryName, e );
+				addError( e );
 			}
+			return null;
 		}
 
-		return errors;
+		private void addError(HibernateException e) {
+			synchronized ( errors ) {
+				errors.put( queryName, e );
+			}
+		}
 	}
 
 	public StatelessSession openStatelessSession() {
@@ -1207,6 +1326,10 @@ public final class SessionFactoryImpl implements SessionFactory, SessionFactoryI
 		return (StatisticsImplementor) statistics;
 	}
 
+	public FetchPatternDetector getFetchPatternDetector() {
+		return fetchPatternDetector;
+	}
+
 	public FilterDefinition getFilterDefinition(String filterName) throws HibernateException {
 		FilterDefinition def = ( FilterDefinition ) filters.get( filterName );
 		if ( def == null ) {
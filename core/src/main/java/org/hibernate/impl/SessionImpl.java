@@ -1259,6 +1259,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		queryParameters.validateParameters();
 		HQLQueryPlan plan = getHQLQueryPlan( query, false );
 		autoFlushIfRequired( plan.getQuerySpaces() );
+		recordOriginatingQuery( query );
 
 		List results = CollectionHelper.EMPTY_LIST;
 		boolean success = false;
@@ -1333,6 +1334,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		queryParameters.validateParameters();
 		HQLQueryPlan plan = getHQLQueryPlan( query, true );
 		autoFlushIfRequired( plan.getQuerySpaces() );
+		recordOriginatingQuery( query );
 
 		dontFlushFromFind++; //stops flush being called multiple times if this method is recursively called
 		try {
@@ -1348,6 +1350,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		checkTransactionSynchStatus();
 		HQLQueryPlan plan = getHQLQueryPlan( query, false );
 		autoFlushIfRequired( plan.getQuerySpaces() );
+		recordOriginatingQuery( query );
 		dontFlushFromFind++;
 		try {
 			return plan.performScroll( queryParameters, this );
@@ -1611,11 +1614,22 @@ public final class SessionImpl extends AbstractSessionImpl
 		return plan;
 	}
 
+	/**
+	 * Attribute lazy initializations following this query to it, when fetch
+	 * pattern detection is enabled.
+	 */
+	private void recordOriginatingQuery(String query) {
+		if ( factory.getFetchPatternDetector() != null ) {
+			factory.getFetchPatternDetector().queryExecuted( query, this );
+		}
+	}
+
 	public List listFilter(Object collection, String filter, QueryParameters queryParameters)
 	throws HibernateException {
 		errorIfClosed();
 		checkTransactionSynchStatus();
 		FilterQueryPlan plan = getFilterQueryPlan( collection, filter, queryParameters, false );
+		recordOriginatingQuery( filter );
 		List results = CollectionHelper.EMPTY_LIST;
 
 		boolean success = false;
@@ -1636,6 +1650,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		errorIfClosed();
 		checkTransactionSynchStatus();
 		FilterQueryPlan plan = getFilterQueryPlan( collection, filter, queryParameters, true );
+		recordOriginatingQuery( filter );
 		return plan.performIterate( queryParameters, this );
 	}
 
@@ -1675,6 +1690,7 @@ public final class SessionImpl extends AbstractSessionImpl
 				getLoadQueryInfluencers()
 		);
 		autoFlushIfRequired( loader.getQuerySpaces() );
+		recordOriginatingQuery( "criteria: " + entityName );
 		dontFlushFromFind++;
 		try {
 			return loader.scroll(this, scrollMode);
@@ -1707,6 +1723,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		}
 
 		autoFlushIfRequired(spaces);
+		recordOriginatingQuery( "criteria: " + criteria.getEntityOrClassName() );
 
 		List results = Collections.EMPTY_LIST;
 		dontFlushFromFind++;
@@ -1812,6 +1829,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		CustomLoader loader = new CustomLoader( customQuery, getFactory() );
 
 		autoFlushIfRequired( loader.getQuerySpaces() );
+		recordOriginatingQuery( customQuery.getSQL() );
 
 		dontFlushFromFind++; //stops flush being called multiple times if this method is recursively called
 		try {
@@ -1835,6 +1853,7 @@ public final class SessionImpl extends AbstractSessionImpl
 		CustomLoader loader = new CustomLoader( customQuery, getFactory() );
 
 		autoFlushIfRequired( loader.getQuerySpaces() );
+		recordOriginatingQuery( customQuery.getSQL() );
 
 		dontFlushFromFind++;
 		boolean success = false;
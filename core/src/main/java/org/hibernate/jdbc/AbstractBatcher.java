@@ -74,6 +74,7 @@ public abstract class AbstractBatcher implements Batcher {
 
 	private boolean releasing = false;
 	private final Interceptor interceptor;
+	private final JdbcObserver jdbcObserver;
 
 	private long transactionTimeout = -1;
 	boolean isTransactionTimeoutSet;
@@ -82,6 +83,7 @@ public abstract class AbstractBatcher implements Batcher {
 		this.connectionManager = connectionManager;
 		this.interceptor = interceptor;
 		this.factory = connectionManager.getFactory();
+		this.jdbcObserver = connectionManager.getJdbcObserver();
 	}
 
 	public void setTransactionTimeout(int seconds) {
@@ -472,16 +474,27 @@ public abstract class AbstractBatcher implements Batcher {
 		log( sql );
 
 		log.trace("preparing callable statement");
+		final long start = jdbcObserver == null ? 0 : System.nanoTime();
+		CallableStatement result;
 		if ( scrollable ) {
-			return conn.prepareCall(
+			result = conn.prepareCall(
 					sql,
 			        ResultSet.TYPE_SCROLL_INSENSITIVE,
 			        ResultSet.CONCUR_READ_ONLY
 			);
 		}
 		else {
-			return conn.prepareCall( sql );
+			result = conn.prepareCall( sql );
 		}
+		return ( CallableStatement ) observe( result, sql, start );
+	}
+
+	private PreparedStatement observe(PreparedStatement statement, String sql, long start) {
+		if ( jdbcObserver == null ) {
+			return statement;
+		}
+		jdbcObserver.statementPrepared( sql, System.nanoTime() - start );
+		return ObservedStatementProxy.generateProxy( statement, sql, jdbcObserver );
 	}
 
 	private String getSQL(String sql) {
@@ -511,6 +524,7 @@ public abstract class AbstractBatcher implements Batcher {
 		log( sql );
 
 		log.trace( "preparing statement" );
+		final long start = jdbcObserver == null ? 0 : System.nanoTime();
 		PreparedStatement result;
 		if ( scrollable ) {
 			if ( callable ) {
@@ -535,6 +549,7 @@ public abstract class AbstractBatcher implements Batcher {
 			}
 		}
 
+		result = observe( result, sql, start );
 		setTimeout( result );
 
 		if ( factory.getStatistics().isStatisticsEnabled() ) {
@@ -68,6 +68,7 @@ public class ConnectionManager implements Serializable {
 	private final boolean wasConnectionSupplied;
 	private transient Batcher batcher;
 	private transient Interceptor interceptor;
+	private transient JdbcObserver jdbcObserver;
 	private boolean isClosed;
 	private transient boolean isFlushing;
  
@@ -91,6 +92,7 @@ public class ConnectionManager implements Serializable {
 		this.callback = callback;
 
 		this.interceptor = interceptor;
+		this.jdbcObserver = buildJdbcObserver( factory );
 		this.batcher = factory.getSettings().getBatcherFactory().createBatcher( this, interceptor );
 
 		this.connection = connection;
@@ -113,6 +115,7 @@ public class ConnectionManager implements Serializable {
 		this.callback = callback;
 
 		this.interceptor = interceptor;
+		this.jdbcObserver = buildJdbcObserver( factory );
 		this.batcher = factory.getSettings().getBatcherFactory().createBatcher( this, interceptor );
 
 		this.wasConnectionSupplied = wasConnectionSupplied;
@@ -129,6 +132,29 @@ public class ConnectionManager implements Serializable {
 		return factory;
 	}
 
+	private static JdbcObserver buildJdbcObserver(SessionFactoryImplementor factory) {
+		Class observerClass = factory.getSettings().getJdbcObserverClass();
+		if ( observerClass == null ) {
+			return null;
+		}
+		try {
+			return ( JdbcObserver ) observerClass.newInstance();
+		}
+		catch ( Exception e ) {
+			throw new HibernateException( "Could not instantiate JdbcObserver: " + observerClass.getName(), e );
+		}
+	}
+
+	/**
+	 * The observer notified of the JDBC work performed through this
+	 * ConnectionManager.
+	 *
+	 * @return The observer, or null if none is configured.
+	 */
+	public JdbcObserver getJdbcObserver() {
+		return jdbcObserver;
+	}
+
 	/**
 	 * The batcher managed by this ConnectionManager.
 	 *
@@ -348,6 +374,9 @@ public class ConnectionManager implements Serializable {
 		}
 		finally {
 			isClosed = true;
+			if ( jdbcObserver != null ) {
+				jdbcObserver.sessionClosed();
+			}
 		}
 	}
 
@@ -535,6 +564,7 @@ public class ConnectionManager implements Serializable {
 		interceptor = (Interceptor) ois.readObject();
 		ois.defaultReadObject();
 
+		this.jdbcObserver = buildJdbcObserver( factory );
 		this.batcher = factory.getSettings().getBatcherFactory().createBatcher( this, interceptor );
 	}
 
@@ -0,0 +1,89 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.jdbc;
+
+/**
+ * Receives timing notifications for the JDBC work performed on behalf of a
+ * single session.  An observer is enabled by naming its class in the
+ * {@link org.hibernate.cfg.Environment#JDBC_OBSERVER} setting; a new instance is
+ * created for each session, so implementations need not be thread-safe.
+ * <p/>
+ * All times are reported in nanoseconds.  The SQL passed to each callback is the
+ * SQL actually prepared, i.e. after {@link org.hibernate.Interceptor#onPrepareStatement}.
+ * <p/>
+ * Implementations must have a public no-arg constructor.
+ *
+ * @author agent
+ */
+public interface JdbcObserver {
+	/**
+	 * A statement was prepared.
+	 *
+	 * @param sql The SQL being prepared
+	 * @param time The time taken to prepare the statement
+	 */
+	public void statementPrepared(String sql, long time);
+
+	/**
+	 * A statement was executed outside of a JDBC batch.
+	 *
+	 * @param sql The SQL executed
+	 * @param rowCount The update count reported by the driver, or -1 when the
+	 * statement produced a result set
+	 * @param time The time taken by the execute call
+	 */
+	public void statementExecuted(String sql, int rowCount, long time);
+
+	/**
+	 * A result set obtained from an observed statement was closed.
+	 *
+	 * @param sql The SQL which produced the result set
+	 * @param rowCount The number of rows read from the result set
+	 * @param time The time elapsed between the result set being opened and
+	 * closed, which includes the time spent processing its rows
+	 */
+	public void resultSetFetched(String sql, int rowCount, long time);
+
+	/**
+	 * A set of parameters was added to a JDBC batch.
+	 *
+	 * @param sql The batched SQL
+	 */
+	public void batchAdded(String sql);
+
+	/**
+	 * A JDBC batch was executed.
+	 *
+	 * @param sql The batched SQL
+	 * @param batchSize The number of statements in the batch
+	 * @param time The time taken by the executeBatch call
+	 */
+	public void batchExecuted(String sql, int batchSize, long time);
+
+	/**
+	 * The session owning this observer was closed.  No further notifications
+	 * will be received.
+	 */
+	public void sessionClosed();
+}
@@ -0,0 +1,193 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * A proxy for statements prepared while a {@link JdbcObserver} is enabled.
+ * Execution, batching and result set calls are timed and reported to the
+ * observer; everything else is passed straight through to the real statement.
+ *
+ * @author agent
+ */
+public class ObservedStatementProxy implements InvocationHandler {
+
+	private static final Class[] STATEMENT_INTERFACES = new Class[] { PreparedStatement.class };
+	private static final Class[] CALLABLE_INTERFACES = new Class[] { CallableStatement.class };
+	private static final Class[] RESULT_SET_INTERFACES = new Class[] { ResultSet.class };
+
+	private final PreparedStatement statement;
+	private final String sql;
+	private final JdbcObserver observer;
+	private int batchSize;
+
+	private ObservedStatementProxy(PreparedStatement statement, String sql, JdbcObserver observer) {
+		this.statement = statement;
+		this.sql = sql;
+		this.observer = observer;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		final String name = method.getName();
+		if ( "equals".equals( name ) ) {
+			return proxy == args[0] ? Boolean.TRUE : Boolean.FALSE;
+		}
+		if ( "hashCode".equals( name ) ) {
+			return new Integer( System.identityHashCode( proxy ) );
+		}
+		if ( "addBatch".equals( name ) && args == null ) {
+			Object result = invokeTarget( statement, method, args );
+			batchSize++;
+			observer.batchAdded( sql );
+			return result;
+		}
+		if ( "clearBatch".equals( name ) ) {
+			batchSize = 0;
+			return invokeTarget( statement, method, args );
+		}
+		if ( "executeBatch".equals( name ) ) {
+			final int size = batchSize;
+			batchSize = 0;
+			final long start = System.nanoTime();
+			Object result = invokeTarget( statement, method, args );
+			observer.batchExecuted( sql, size, System.nanoTime() - start );
+			return result;
+		}
+		if ( "executeQuery".equals( name ) ) {
+			final long start = System.nanoTime();
+			ResultSet rs = ( ResultSet ) invokeTarget( statement, method, args );
+			observer.statementExecuted( sql, -1, System.nanoTime() - start );
+			return generateResultSetProxy( rs );
+		}
+		if ( "executeUpdate".equals( name ) ) {
+			final long start = System.nanoTime();
+			Object result = invokeTarget( statement, method, args );
+			observer.statementExecuted( sql, ( ( Integer ) result ).intValue(), System.nanoTime() - start );
+			return result;
+		}
+		if ( "execute".equals( name ) ) {
+			final long start = System.nanoTime();
+			Object result = invokeTarget( statement, method, args );
+			final long time = System.nanoTime() - start;
+			observer.statementExecuted( sql, ( ( Boolean ) result ).booleanValue() ? -1 : statement.getUpdateCount(), time );
+			return result;
+		}
+		if ( "getResultSet".equals( name ) ) {
+			return generateResultSetProxy( ( ResultSet ) invokeTarget( statement, method, args ) );
+		}
+		return invokeTarget( statement, method, args );
+	}
+
+	private ResultSet generateResultSetProxy(ResultSet rs) {
+		if ( rs == null ) {
+			return null;
+		}
+		return ( ResultSet ) Proxy.newProxyInstance(
+				BorrowedConnectionProxy.getProxyClassLoader(),
+				RESULT_SET_INTERFACES,
+				new ResultSetHandler( rs )
+		);
+	}
+
+	private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke( target, args );
+		}
+		catch ( InvocationTargetException e ) {
+			throw e.getTargetException();
+		}
+	}
+
+	/**
+	 * Counts the rows read from a result set and reports them, along with the
+	 * time the result set was open, once it is closed.
+	 */
+	private class ResultSetHandler implements InvocationHandler {
+		private final ResultSet resultSet;
+		private final long openedAt = System.nanoTime();
+		private int rowCount;
+		private boolean closed;
+
+		private ResultSetHandler(ResultSet resultSet) {
+			this.resultSet = resultSet;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			final String name = method.getName();
+			if ( "next".equals( name ) ) {
+				Object result = invokeTarget( resultSet, method, args );
+				if ( ( ( Boolean ) result ).booleanValue() ) {
+					rowCount++;
+				}
+				return result;
+			}
+			if ( "close".equals( name ) ) {
+				try {
+					return invokeTarget( resultSet, method, args );
+				}
+				finally {
+					if ( !closed ) {
+						closed = true;
+						observer.resultSetFetched( sql, rowCount, System.nanoTime() - openedAt );
+					}
+				}
+			}
+			if ( "equals".equals( name ) ) {
+				return proxy == args[0] ? Boolean.TRUE : Boolean.FALSE;
+			}
+			if ( "hashCode".equals( name ) ) {
+				return new Integer( System.identityHashCode( proxy ) );
+			}
+			return invokeTarget( resultSet, method, args );
+		}
+	}
+
+	/**
+	 * Wraps the given statement so that its execution is reported to the given
+	 * observer.
+	 *
+	 * @param statement The statement to observe.
+	 * @param sql The SQL from which the statement was prepared.
+	 * @param observer The observer to notify.
+	 * @return The statement proxy; a {@link CallableStatement} if the given
+	 * statement is one.
+	 */
+	public static PreparedStatement generateProxy(PreparedStatement statement, String sql, JdbcObserver observer) {
+		return ( PreparedStatement ) Proxy.newProxyInstance(
+				BorrowedConnectionProxy.getProxyClassLoader(),
+				statement instanceof CallableStatement ? CALLABLE_INTERFACES : STATEMENT_INTERFACES,
+				new ObservedStatementProxy( statement, sql, observer )
+		);
+	}
+}
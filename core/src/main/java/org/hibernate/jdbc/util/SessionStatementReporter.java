@@ -0,0 +1,241 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.jdbc.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.hibernate.jdbc.JdbcObserver;
+
+/**
+ * A {@link JdbcObserver} which aggregates the statements executed by a session
+ * and, when the session is closed, logs the slowest of them along with any
+ * query executed often enough to suggest an N+1 select problem.
+ * <p/>
+ * Enable by setting {@link org.hibernate.cfg.Environment#JDBC_OBSERVER} to this
+ * class name.
+ *
+ * @author agent
+ */
+public class SessionStatementReporter implements JdbcObserver {
+	private static final Logger log = LoggerFactory.getLogger( SessionStatementReporter.class );
+
+	/**
+	 * The number of executions of the same query within a session beyond which
+	 * it is reported as a probable N+1 select.
+	 */
+	public static final int DEFAULT_REPEAT_THRESHOLD = 10;
+
+	/**
+	 * The number of slowest statements reported.
+	 */
+	public static final int DEFAULT_SLOWEST_COUNT = 5;
+
+	private final int repeatThreshold;
+	private final int slowestCount;
+	private final Map statements = new HashMap();
+
+	public SessionStatementReporter() {
+		this( DEFAULT_REPEAT_THRESHOLD, DEFAULT_SLOWEST_COUNT );
+	}
+
+	public SessionStatementReporter(int repeatThreshold, int slowestCount) {
+		this.repeatThreshold = repeatThreshold;
+		this.slowestCount = slowestCount;
+	}
+
+	/**
+	 * Timings for a single SQL string, accumulated over one session.
+	 */
+	public static class StatementSummary {
+		private final String sql;
+		private int executionCount;
+		private long rowCount;
+		private long totalTime;
+		private long maxTime;
+		private long prepareTime;
+
+		StatementSummary(String sql) {
+			this.sql = sql;
+		}
+
+		public String getSql() {
+			return sql;
+		}
+
+		/**
+		 * @return The number of executions; each executed batch counts once.
+		 */
+		public int getExecutionCount() {
+			return executionCount;
+		}
+
+		/**
+		 * @return The number of rows affected or fetched.
+		 */
+		public long getRowCount() {
+			return rowCount;
+		}
+
+		/**
+		 * @return The total time, in nanoseconds, spent executing the statement
+		 * and reading its results.
+		 */
+		public long getTotalTime() {
+			return totalTime;
+		}
+
+		/**
+		 * @return The longest single execution or fetch, in nanoseconds.
+		 */
+		public long getMaxTime() {
+			return maxTime;
+		}
+
+		/**
+		 * @return The total time, in nanoseconds, spent preparing the statement.
+		 */
+		public long getPrepareTime() {
+			return prepareTime;
+		}
+
+		public boolean isQuery() {
+			return sql.trim().toLowerCase().startsWith( "select" );
+		}
+
+		void addTime(long time) {
+			totalTime += time;
+			if ( time > maxTime ) {
+				maxTime = time;
+			}
+		}
+
+		public String toString() {
+			return "count=" + executionCount
+					+ ",rows=" + rowCount
+					+ ",total=" + ( totalTime / 1000000 ) + "ms"
+					+ ",max=" + ( maxTime / 1000000 ) + "ms"
+					+ ",prepare=" + ( prepareTime / 1000000 ) + "ms"
+					+ ": " + sql;
+		}
+	}
+
+	private StatementSummary getSummary(String sql) {
+		StatementSummary summary = ( StatementSummary ) statements.get( sql );
+		if ( summary == null ) {
+			summary = new StatementSummary( sql );
+			statements.put( sql, summary );
+		}
+		return summary;
+	}
+
+	public void statementPrepared(String sql, long time) {
+		getSummary( sql ).prepareTime += time;
+	}
+
+	public void statementExecuted(String sql, int rowCount, long time) {
+		StatementSummary summary = getSummary( sql );
+		summary.executionCount++;
+		if ( rowCount > 0 ) {
+			summary.rowCount += rowCount;
+		}
+		summary.addTime( time );
+	}
+
+	public void resultSetFetched(String sql, int rowCount, long time) {
+		StatementSummary summary = getSummary( sql );
+		summary.rowCount += rowCount;
+		summary.addTime( time );
+	}
+
+	public void batchAdded(String sql) {
+	}
+
+	public void batchExecuted(String sql, int batchSize, long time) {
+		StatementSummary summary = getSummary( sql );
+		summary.executionCount++;
+		summary.rowCount += batchSize;
+		summary.addTime( time );
+	}
+
+	/**
+	 * The statements executed so far, ordered by decreasing total time.
+	 *
+	 * @return A list of {@link StatementSummary}
+	 */
+	public List getStatementSummaries() {
+		List result = new ArrayList( statements.values() );
+		Collections.sort( result, new Comparator() {
+			public int compare(Object o1, Object o2) {
+				long t1 = ( ( StatementSummary ) o1 ).getTotalTime();
+				long t2 = ( ( StatementSummary ) o2 ).getTotalTime();
+				return t1 < t2 ? 1 : ( t1 == t2 ? 0 : -1 );
+			}
+		} );
+		return result;
+	}
+
+	/**
+	 * The queries executed at least as often as the repeat threshold, which are
+	 * likely to be the result of lazy associations being initialized one by one.
+	 *
+	 * @return A list of {@link StatementSummary}, ordered by decreasing total time
+	 */
+	public List getRepeatedQueries() {
+		List result = new ArrayList();
+		Iterator itr = getStatementSummaries().iterator();
+		while ( itr.hasNext() ) {
+			StatementSummary summary = ( StatementSummary ) itr.next();
+			if ( summary.getExecutionCount() >= repeatThreshold && summary.isQuery() ) {
+				result.add( summary );
+			}
+		}
+		return result;
+	}
+
+	public void sessionClosed() {
+		if ( statements.isEmpty() ) {
+			return;
+		}
+		if ( log.isInfoEnabled() ) {
+			List summaries = getStatementSummaries();
+			log.info( "Session executed " + summaries.size() + " distinct statements; slowest:" );
+			for ( int i = 0; i < summaries.size() && i < slowestCount; i++ ) {
+				log.info( "  " + summaries.get( i ) );
+			}
+		}
+		Iterator itr = getRepeatedQueries().iterator();
+		while ( itr.hasNext() ) {
+			log.warn( "Query executed repeatedly, possible N+1 select: " + itr.next() );
+		}
+	}
+}
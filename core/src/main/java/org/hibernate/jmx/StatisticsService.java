@@ -292,6 +292,10 @@ public class StatisticsService implements StatisticsServiceMBean {
 	public String[] getSecondLevelCacheRegionNames() {
 		return stats.getSecondLevelCacheRegionNames();
 	}
+
+	public String[] getFetchPatterns() {
+		return stats.getFetchPatterns();
+	}
 	
 	public long getSuccessfulTransactionCount() {
 		return stats.getSuccessfulTransactionCount();
@@ -314,4 +318,32 @@ public class StatisticsService implements StatisticsServiceMBean {
 	public String getQueryExecutionMaxTimeQueryString() {
 		return stats.getQueryExecutionMaxTimeQueryString();
 	}
+
+	/**
+	 * @see StatisticsServiceMBean#getQueryExecutionTimePercentile(double)
+	 */
+	public long getQueryExecutionTimePercentile(double percentile) {
+		return stats.getQueryExecutionTimePercentile( percentile );
+	}
+
+	/**
+	 * @see StatisticsServiceMBean#getEntityLoadTimePercentile(double)
+	 */
+	public long getEntityLoadTimePercentile(double percentile) {
+		return stats.getEntityLoadTimePercentile( percentile );
+	}
+
+	/**
+	 * @see StatisticsServiceMBean#getCollectionFetchTimePercentile(double)
+	 */
+	public long getCollectionFetchTimePercentile(double percentile) {
+		return stats.getCollectionFetchTimePercentile( percentile );
+	}
+
+	/**
+	 * @see StatisticsServiceMBean#getFlushTimePercentile(double)
+	 */
+	public long getFlushTimePercentile(double percentile) {
+		return stats.getFlushTimePercentile( percentile );
+	}
 }
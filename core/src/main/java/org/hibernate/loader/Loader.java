@@ -2526,7 +2526,7 @@ public abstract class Loader {
 
 		final boolean stats = getFactory().getStatistics().isStatisticsEnabled();
 		long startTime = 0;
-		if ( stats ) startTime = System.currentTimeMillis();
+		if ( stats ) startTime = System.nanoTime();
 
 		List result;
 		try {
@@ -2542,10 +2542,10 @@ public abstract class Loader {
 		}
 
 		if ( stats ) {
-			getFactory().getStatisticsImplementor().queryExecuted(
+			getFactory().getStatisticsImplementor().queryExecutedNanos(
 					getQueryIdentifier(),
 					result.size(),
-					System.currentTimeMillis() - startTime
+					System.nanoTime() - startTime
 				);
 		}
 
@@ -2598,7 +2598,7 @@ public abstract class Loader {
 		final boolean stats = getQueryIdentifier() != null &&
 				getFactory().getStatistics().isStatisticsEnabled();
 		long startTime = 0;
-		if ( stats ) startTime = System.currentTimeMillis();
+		if ( stats ) startTime = System.nanoTime();
 
 		try {
 
@@ -2606,10 +2606,10 @@ public abstract class Loader {
 			ResultSet rs = getResultSet(st, queryParameters.hasAutoDiscoverScalarTypes(), queryParameters.isCallable(), queryParameters.getRowSelection(), session);
 
 			if ( stats ) {
-				getFactory().getStatisticsImplementor().queryExecuted(
+				getFactory().getStatisticsImplementor().queryExecutedNanos(
 						getQueryIdentifier(),
 						0,
-						System.currentTimeMillis() - startTime
+						System.nanoTime() - startTime
 					);
 			}
 
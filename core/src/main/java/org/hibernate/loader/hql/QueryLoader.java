@@ -465,7 +465,7 @@ public class QueryLoader extends BasicLoader {
 		final boolean stats = session.getFactory().getStatistics().isStatisticsEnabled();
 		long startTime = 0;
 		if ( stats ) {
-			startTime = System.currentTimeMillis();
+			startTime = System.nanoTime();
 		}
 
 		try {
@@ -485,11 +485,11 @@ public class QueryLoader extends BasicLoader {
 			);
 
 			if ( stats ) {
-				session.getFactory().getStatisticsImplementor().queryExecuted(
+				session.getFactory().getStatisticsImplementor().queryExecutedNanos(
 //						"HQL: " + queryTranslator.getQueryString(),
 						getQueryIdentifier(),
 						0,
-						System.currentTimeMillis() - startTime
+						System.nanoTime() - startTime
 				);
 			}
 
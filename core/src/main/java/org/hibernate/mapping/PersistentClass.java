@@ -762,7 +762,8 @@ public abstract class PersistentClass implements Serializable, Filterable, MetaA
 	}
 
 	public void prepareTemporaryTables(Mapping mapping, Dialect dialect) {
-		if ( dialect.supportsTemporaryTables() ) {
+		// the name also serves for the common table expression of multi-table bulk operations
+		if ( dialect.supportsTemporaryTables() || dialect.supportsMutatingCommonTableExpressions() ) {
 			temporaryIdTableName = dialect.generateTemporaryTableName( getTable().getName() );
 			Table table = new Table();
 			table.setName( temporaryIdTableName );
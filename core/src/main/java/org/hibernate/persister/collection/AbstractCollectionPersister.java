@@ -27,10 +27,13 @@ import java.io.Serializable;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.hibernate.AssertionFailure;
 import org.hibernate.FetchMode;
@@ -60,6 +63,7 @@ import org.hibernate.id.IdentifierGenerator;
 import org.hibernate.jdbc.Expectation;
 import org.hibernate.jdbc.Expectations;
 import org.hibernate.loader.collection.CollectionInitializer;
+import org.hibernate.loader.collection.CollectionLoader;
 import org.hibernate.mapping.Collection;
 import org.hibernate.mapping.Column;
 import org.hibernate.mapping.Formula;
@@ -78,6 +82,7 @@ import org.hibernate.sql.SelectFragment;
 import org.hibernate.sql.SimpleSelect;
 import org.hibernate.sql.Template;
 import org.hibernate.sql.ordering.antlr.ColumnMapper;
+import org.hibernate.type.BagType;
 import org.hibernate.type.CollectionType;
 import org.hibernate.type.CompositeType;
 import org.hibernate.type.EntityType;
@@ -146,6 +151,8 @@ public abstract class AbstractCollectionPersister
 	protected final String[] elementFormulas;
 	protected final boolean[] elementColumnIsSettable;
 	protected final boolean[] elementColumnIsInPrimaryKey;
+	private final boolean elementColumnsAllNotNull;
+	private volatile Boolean elementRowLocatable;
 	protected final String[] indexColumnAliases;
 	protected final String[] elementColumnAliases;
 	protected final String[] keyColumnAliases;
@@ -167,7 +174,8 @@ public abstract class AbstractCollectionPersister
 	private final boolean isInverse;
 	private final boolean isMutable;
 	private final boolean isVersioned;
-	protected final int batchSize;
+	protected volatile int batchSize;
+	private final boolean explicitBatchSize;
 	private final FetchMode fetchMode;
 	private final boolean hasOrphanDelete;
 	private final boolean subselectLoadable;
@@ -185,7 +193,8 @@ public abstract class AbstractCollectionPersister
 	private final EntityPersister elementPersister;
 	private final CollectionRegionAccessStrategy cacheAccessStrategy;
 	private final CollectionType collectionType;
-	private CollectionInitializer initializer;
+	private volatile CollectionInitializer initializer;
+	private final ConcurrentMap multiLoaders = new ConcurrentHashMap();
 	
 	private final CacheEntryStructure cacheEntryStructure;
 
@@ -206,6 +215,7 @@ public abstract class AbstractCollectionPersister
 	private final boolean updateCallable;
 	private final boolean deleteCallable;
 	private final boolean deleteAllCallable;
+	private final boolean hasCustomSQLDeleteAll;
 	private ExecuteUpdateResultCheckStyle insertCheckStyle;
 	private ExecuteUpdateResultCheckStyle updateCheckStyle;
 	private ExecuteUpdateResultCheckStyle deleteCheckStyle;
@@ -281,6 +291,7 @@ public abstract class AbstractCollectionPersister
 			batch = factory.getSettings().getDefaultBatchFetchSize();
 		}
 		batchSize = batch;
+		explicitBatchSize = batch > 1;
 
 		isVersioned = collection.isOptimisticLocked();
 		
@@ -357,6 +368,11 @@ public abstract class AbstractCollectionPersister
 			j++;
 		}
 		elementIsPureFormula = isPureFormula;
+		boolean allNotNull = !isPureFormula;
+		for ( int col = 0; col < elementSpan; col++ ) {
+			allNotNull = allNotNull && elementColumnIsSettable[col] && elementColumnIsInPrimaryKey[col];
+		}
+		elementColumnsAllNotNull = allNotNull;
 		
 		//workaround, for backward compatibility of sets with no
 		//not-null columns, assume all columns are used in the
@@ -487,7 +503,8 @@ public abstract class AbstractCollectionPersister
 			deleteCheckStyle = ExecuteUpdateResultCheckStyle.NONE;
 		}
 
-		if ( collection.getCustomSQLDeleteAll() == null ) {
+		hasCustomSQLDeleteAll = collection.getCustomSQLDeleteAll() != null;
+		if ( !hasCustomSQLDeleteAll ) {
 			sqlDeleteString = generateDeleteString();
 			deleteAllCallable = false;
 			deleteAllCheckStyle = ExecuteUpdateResultCheckStyle.NONE;
@@ -600,7 +617,13 @@ public abstract class AbstractCollectionPersister
 	}
 
 	public void postInstantiate() throws MappingException {
-		initializer = queryLoaderName == null ?
+		if ( !factory.getSettings().isLazyLoaderInitializationEnabled() ) {
+			initializer = createInitializer();
+		}
+	}
+
+	private CollectionInitializer createInitializer() {
+		return queryLoaderName == null ?
 				createCollectionInitializer( LoadQueryInfluencers.NONE ) :
 				new NamedQueryCollectionInitializer( queryLoaderName, this );
 	}
@@ -631,14 +654,14 @@ public abstract class AbstractCollectionPersister
 		if ( queryLoaderName != null ) {
 			//if there is a user-specified loader, return that
 			//TODO: filters!?
-			return initializer;
+			return getInitializer();
 		}
 		CollectionInitializer subselectInitializer = getSubselectInitializer( key, session );
 		if ( subselectInitializer != null ) {
 			return subselectInitializer;
 		}
 		else if ( session.getEnabledFilters().isEmpty() ) {
-			return initializer;
+			return getInitializer();
 		}
 		else {
 			return createCollectionInitializer( session.getLoadQueryInfluencers() );
@@ -677,6 +700,62 @@ public abstract class AbstractCollectionPersister
 
 	protected abstract CollectionInitializer createSubselectInitializer(SubselectFetch subselect, SessionImplementor session);
 
+	/**
+	 * Initialize the collections with the given keys using as few <tt>in</tt>-list
+	 * selects as possible.  The collections should already be associated with the
+	 * session, uninitialized.
+	 *
+	 * @param keys The keys of the collections to initialize
+	 * @param session The originating session
+	 * @return False if collections of this role cannot be loaded together for the
+	 * given session (custom loader, subselect fetching, or enabled filters), in which
+	 * case nothing was loaded.
+	 */
+	public boolean loadCollectionBatch(Serializable[] keys, SessionImplementor session) {
+		if ( queryLoaderName != null || isSubselectLoadable() || !session.getEnabledFilters().isEmpty() ) {
+			return false;
+		}
+		Serializable[][] chunks = ArrayHelper.getMultiLoadChunks( keys );
+		for ( int i = 0; i < chunks.length; i++ ) {
+			CollectionLoader loader = getMultiLoader( chunks[i].length );
+			if ( loader == null ) {
+				return i > 0;
+			}
+			loader.loadCollectionBatch( session, chunks[i], getKeyType() );
+			if ( getFactory().getStatistics().isStatisticsEnabled() ) {
+				getFactory().getStatisticsImplementor().fetchCollection( getRole() );
+			}
+		}
+		return true;
+	}
+
+	private CollectionLoader getMultiLoader(int size) {
+		Integer key = new Integer( size );
+		CollectionLoader loader = ( CollectionLoader ) multiLoaders.get( key );
+		if ( loader == null ) {
+			loader = createCollectionLoader( size );
+			if ( loader == null ) {
+				return null;
+			}
+			CollectionLoader previous = ( CollectionLoader ) multiLoaders.putIfAbsent( key, loader );
+			if ( previous != null ) {
+				loader = previous;
+			}
+		}
+		return loader;
+	}
+
+	/**
+	 * Create a loader for the given number of collection keys, ignoring any filters.
+	 *
+	 * @param size The number of keys bound by the loader
+	 * @return The loader, or null if this persister does not support loading several
+	 * collections together.
+	 */
+	protected CollectionLoader createCollectionLoader(int size) {
+		return null;
+	}
+
 	protected abstract CollectionInitializer createCollectionInitializer(LoadQueryInfluencers loadQueryInfluencers)
 			throws MappingException;
 
@@ -723,6 +802,14 @@ public abstract class AbstractCollectionPersister
 		return hasWhere;
 	}
 
+	/**
+	 * Can the rows of this collection be removed for many owners at once by a
+	 * set-based SQL <tt>DELETE</tt>?  Not if custom SQL is used to remove them.
+	 */
+	public boolean isBulkRemoveSupported() {
+		return !hasCustomSQLDeleteAll;
+	}
+
 	protected String getSQLDeleteString() {
 		return sqlDeleteString;
 	}
@@ -1058,6 +1145,57 @@ public abstract class AbstractCollectionPersister
 		return isInverse;
 	}
 
+	/**
+	 * Can a row of this collection be located by the value of its element alone, so
+	 * that a collection without index or identifier (a bag) can be updated by deleting
+	 * and inserting the rows of changed elements rather than being recreated?  This
+	 * requires every element column to be a non-formula column which is used in the row
+	 * locator and never null, and the element not to be a LOB (which cannot be compared
+	 * in a where clause on most databases).
+	 *
+	 * @return True if rows can be located by element value.
+	 */
+	public boolean isElementRowLocatable() {
+		Boolean locatable = elementRowLocatable;
+		if ( locatable == null ) {
+			locatable = Boolean.valueOf( determineElementRowLocatable() );
+			elementRowLocatable = locatable;
+		}
+		return locatable.booleanValue();
+	}
+
+	private boolean determineElementRowLocatable() {
+		if ( isOneToMany() || hasIdentifier || hasIndex || elementIsPureFormula ) {
+			return false;
+		}
+		final Type elementType = getElementType();
+		if ( elementType.isComponentType() ) {
+			// components may have null properties, which "col = ?" would never match
+			if ( !elementColumnsAllNotNull ) {
+				return false;
+			}
+		}
+		else if ( !elementType.isEntityType() && elementColumnNames.length != 1 ) {
+			return false;
+		}
+		for ( int i = 0; i < elementColumnIsSettable.length; i++ ) {
+			if ( !elementColumnIsSettable[i] ) {
+				return false;
+			}
+		}
+		final int[] sqlTypes = elementType.sqlTypes( getFactory() );
+		for ( int i = 0; i < sqlTypes.length; i++ ) {
+			switch ( sqlTypes[i] ) {
+				case Types.BLOB:
+				case Types.CLOB:
+				case Types.LONGVARBINARY:
+				case Types.LONGVARCHAR:
+					return false;
+			}
+		}
+		return true;
+	}
+
 	public String getTableName() {
 		return qualifiedTableName;
 	}
@@ -1268,6 +1406,10 @@ public abstract class AbstractCollectionPersister
 			}
 			
 			boolean deleteByIndex = !isOneToMany() && hasIndex && !indexContainsFormula;
+			// deleting a bag element by value deletes all of its occurrences
+			boolean deleteAllOccurrences = !hasIdentifier && !deleteByIndex && !isOneToMany()
+					&& getCollectionType() instanceof BagType
+					&& getDeleteCheckStyle() == ExecuteUpdateResultCheckStyle.COUNT;
 			
 			try {
 				//delete all the deleted entries
@@ -1277,7 +1419,9 @@ public abstract class AbstractCollectionPersister
 					int count = 0;
 					while ( deletes.hasNext() ) {
 						PreparedStatement st = null;
-						Expectation expectation = Expectations.appropriateExpectation( getDeleteCheckStyle() );
+						Expectation expectation = deleteAllOccurrences ?
+								Expectations.NONE :
+								Expectations.appropriateExpectation( getDeleteCheckStyle() );
 						boolean callable = isDeleteCallable();
 						boolean useBatch = expectation.canBeBatched();
 						String sql = getSQLDeleteRowString();
@@ -1849,6 +1993,23 @@ public abstract class AbstractCollectionPersister
 		return dialect;
 	}
 
+	/**
+	 * Raise the batch size used to initialize collections of this role, discarding the
+	 * default initializer so that it is rebuilt on next use.  Roles with an explicitly
+	 * mapped (or defaulted) batch size, or a custom loader, are left untouched.
+	 *
+	 * @param size The new batch size
+	 * @return True if the batch size was changed
+	 */
+	public synchronized boolean enableAdaptiveBatchFetching(int size) {
+		if ( explicitBatchSize || queryLoaderName != null || size <= batchSize ) {
+			return false;
+		}
+		batchSize = size;
+		initializer = null;
+		return true;
+	}
+
 	/**
 	 * Intended for internal use only.  In fact really only currently used from 
 	 * test suite for assertion purposes.
@@ -1856,6 +2017,17 @@ public abstract class AbstractCollectionPersister
 	 * @return The default collection initializer for this persister/collection.
 	 */
 	public CollectionInitializer getInitializer() {
-		return initializer;
+		CollectionInitializer result = initializer;
+		if ( result == null ) {
+			// built on first use when lazy loader initialization is enabled
+			synchronized ( this ) {
+				result = initializer;
+				if ( result == null ) {
+					result = createInitializer();
+					initializer = result;
+				}
+			}
+		}
+		return result;
 	}
 }
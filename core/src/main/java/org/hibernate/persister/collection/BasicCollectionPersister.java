@@ -42,8 +42,10 @@ import org.hibernate.engine.LoadQueryInfluencers;
 import org.hibernate.exception.JDBCExceptionHelper;
 import org.hibernate.jdbc.Expectation;
 import org.hibernate.jdbc.Expectations;
+import org.hibernate.loader.collection.BasicCollectionLoader;
 import org.hibernate.loader.collection.BatchingCollectionInitializer;
 import org.hibernate.loader.collection.CollectionInitializer;
+import org.hibernate.loader.collection.CollectionLoader;
 import org.hibernate.loader.collection.SubselectCollectionLoader;
 import org.hibernate.mapping.Collection;
 import org.hibernate.persister.entity.Joinable;
@@ -323,6 +325,10 @@ public class BasicCollectionPersister extends AbstractCollectionPersister {
 		return BatchingCollectionInitializer.createBatchingCollectionInitializer( this, batchSize, getFactory(), loadQueryInfluencers );
 	}
 
+	protected CollectionLoader createCollectionLoader(int size) {
+		return new BasicCollectionLoader( this, size, getFactory(), LoadQueryInfluencers.NONE );
+	}
+
 	public String fromJoinFragment(String alias, boolean innerJoin, boolean includeSubclasses) {
 		return "";
 	}
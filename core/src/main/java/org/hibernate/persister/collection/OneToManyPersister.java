@@ -44,6 +44,8 @@ import org.hibernate.jdbc.Expectation;
 import org.hibernate.jdbc.Expectations;
 import org.hibernate.loader.collection.BatchingCollectionInitializer;
 import org.hibernate.loader.collection.CollectionInitializer;
+import org.hibernate.loader.collection.CollectionLoader;
+import org.hibernate.loader.collection.OneToManyLoader;
 import org.hibernate.loader.collection.SubselectOneToManyLoader;
 import org.hibernate.loader.entity.CollectionElementLoader;
 import org.hibernate.mapping.Collection;
@@ -344,6 +346,10 @@ public class OneToManyPersister extends AbstractCollectionPersister {
 		return BatchingCollectionInitializer.createBatchingOneToManyInitializer( this, batchSize, getFactory(), loadQueryInfluencers );
 	}
 
+	protected CollectionLoader createCollectionLoader(int size) {
+		return new OneToManyLoader( this, size, getFactory(), LoadQueryInfluencers.NONE );
+	}
+
 	public String fromJoinFragment(String alias,
 								   boolean innerJoin,
 								   boolean includeSubclasses) {
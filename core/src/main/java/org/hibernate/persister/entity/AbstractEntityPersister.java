@@ -35,6 +35,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +71,7 @@ import org.hibernate.engine.ValueInclusion;
 import org.hibernate.engine.Versioning;
 import org.hibernate.exception.JDBCExceptionHelper;
 import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.IdentityGenerator;
 import org.hibernate.id.PostInsertIdentifierGenerator;
 import org.hibernate.id.PostInsertIdentityPersister;
 import org.hibernate.id.insert.Binder;
@@ -142,7 +145,8 @@ public abstract class AbstractEntityPersister
 	private final int identifierColumnSpan;
 	private final String versionColumnName;
 	private final boolean hasFormulaProperties;
-	private final int batchSize;
+	private volatile int batchSize;
+	private final boolean explicitBatchSize;
 	private final boolean hasSubselectLoadableCollections;
 	protected final String rowIdName;
 
@@ -204,9 +208,11 @@ public abstract class AbstractEntityPersister
 
 	private final Set affectingFetchProfileNames = new HashSet();
 
-	private final Map uniqueKeyLoaders = new HashMap();
+	private final ConcurrentMap uniqueKeyLoaders = new ConcurrentHashMap();
 	private final Map lockers = new HashMap();
-	private final Map loaders = new HashMap();
+	private final ConcurrentMap loaders = new ConcurrentHashMap();
+	private final ConcurrentMap multiLoaders = new ConcurrentHashMap();
+	private final ConcurrentMap dynamicSqlStrings = new ConcurrentHashMap();
 
 	// SQL strings
 	private String sqlVersionSelectString;
@@ -237,6 +243,7 @@ public abstract class AbstractEntityPersister
 	protected ExecuteUpdateResultCheckStyle[] deleteResultCheckStyles;
 
 	private InsertGeneratedIdentifierDelegate identityDelegate;
+	private boolean identityInsertBatchable;
 
 	private boolean[] tableHasColumns;
 
@@ -288,6 +295,30 @@ public abstract class AbstractEntityPersister
 
 	private static final String DISCRIMINATOR_ALIAS = "clazz_";
 
+	/**
+	 * The maximum number of dynamic-update and dynamic-insert SQL strings kept; the SQL of
+	 * further combinations of properties is generated for each row.
+	 */
+	private static final int MAX_DYNAMIC_SQL_STRINGS = 128;
+
+	/**
+	 * The lock modes and internal fetch profiles which get a static loader.
+	 */
+	private static final Object[] LOADER_KEYS = new Object[] {
+			LockMode.NONE,
+			LockMode.READ,
+			LockMode.UPGRADE,
+			LockMode.UPGRADE_NOWAIT,
+			LockMode.FORCE,
+			LockMode.PESSIMISTIC_READ,
+			LockMode.PESSIMISTIC_WRITE,
+			LockMode.PESSIMISTIC_FORCE_INCREMENT,
+			LockMode.OPTIMISTIC,
+			LockMode.OPTIMISTIC_FORCE_INCREMENT,
+			"merge",
+			"refresh"
+	};
+
 	public String getDiscriminatorColumnName() {
 		return DISCRIMINATOR_ALIAS;
 	}
@@ -478,6 +509,7 @@ public abstract class AbstractEntityPersister
 			batch = factory.getSettings().getDefaultBatchFetchSize();
 		}
 		batchSize = batch;
+		explicitBatchSize = batch > 1;
 		hasSubselectLoadableCollections = persistentClass.hasSubselectLoadableCollections();
 
 		propertyMapping = new BasicEntityPropertyMapping( this );
@@ -1781,7 +1813,7 @@ public abstract class AbstractEntityPersister
 				&& propertyName.indexOf('.')<0; //ugly little workaround for fact that createUniqueKeyLoaders() does not handle component properties
 
 		if ( useStaticLoader ) {
-			return ( EntityLoader ) uniqueKeyLoaders.get( propertyName );
+			return getUniqueKeyLoader( propertyName );
 		}
 		else {
 			return createUniqueKeyLoader(
@@ -1797,24 +1829,36 @@ public abstract class AbstractEntityPersister
 	}
 
 	protected void createUniqueKeyLoaders() throws MappingException {
-		Type[] propertyTypes = getPropertyTypes();
 		String[] propertyNames = getPropertyNames();
 		for ( int i = 0; i < entityMetamodel.getPropertySpan(); i++ ) {
 			if ( propertyUniqueness[i] ) {
-				//don't need filters for the static loaders
-				uniqueKeyLoaders.put(
-						propertyNames[i],
-						createUniqueKeyLoader(
-								propertyTypes[i],
-								getPropertyColumnNames( i ),
-								LoadQueryInfluencers.NONE
-						)
-				);
+				getUniqueKeyLoader( propertyNames[i] );
 				//TODO: create uk loaders for component properties
 			}
 		}
 	}
 
+	private EntityLoader getUniqueKeyLoader(String propertyName) {
+		EntityLoader loader = ( EntityLoader ) uniqueKeyLoaders.get( propertyName );
+		if ( loader == null ) {
+			Integer index = entityMetamodel.getPropertyIndexOrNull( propertyName );
+			if ( index == null || !propertyUniqueness[index.intValue()] ) {
+				return null;
+			}
+			//don't need filters for the static loaders
+			loader = createUniqueKeyLoader(
+					getPropertyTypes()[index.intValue()],
+					getPropertyColumnNames( index.intValue() ),
+					LoadQueryInfluencers.NONE
+			);
+			EntityLoader previous = ( EntityLoader ) uniqueKeyLoaders.putIfAbsent( propertyName, loader );
+			if ( previous != null ) {
+				loader = previous;
+			}
+		}
+		return loader;
+	}
+
 	private EntityLoader createUniqueKeyLoader(
 			Type uniqueKeyType,
 			String[] columns,
@@ -2024,6 +2068,51 @@ public abstract class AbstractEntityPersister
 		return hasColumns ? update.toStatementString() : null;
 	}
 
+	/**
+	 * Get the SQL that updates a row for a dynamic update.  The SQL is kept per combination of
+	 * updated properties, unless it checks the old values for optimistic locking.
+	 */
+	private String getDynamicUpdateString(
+			final boolean[] includeProperty,
+			final int j,
+			final Object[] oldFields,
+			final boolean useRowId) {
+		if ( entityMetamodel.getOptimisticLockMode() > Versioning.OPTIMISTIC_LOCK_VERSION && oldFields != null ) {
+			// the restriction depends on the nullness of the old values
+			return generateUpdateString( includeProperty, j, oldFields, useRowId );
+		}
+		final DynamicSqlKey key = new DynamicSqlKey( false, includeProperty, j, useRowId );
+		String sql = ( String ) dynamicSqlStrings.get( key );
+		if ( sql == null ) {
+			sql = generateUpdateString( includeProperty, j, oldFields, useRowId );
+			if ( sql != null ) {
+				putDynamicSqlString( key, sql );
+			}
+		}
+		return sql;
+	}
+
+	/**
+	 * Get the SQL that inserts a row for a dynamic insert, kept per combination of
+	 * inserted properties.
+	 */
+	private String getDynamicInsertString(boolean identityInsert, boolean[] includeProperty, int j) {
+		final DynamicSqlKey key = new DynamicSqlKey( true, includeProperty, j, identityInsert );
+		String sql = ( String ) dynamicSqlStrings.get( key );
+		if ( sql == null ) {
+			sql = generateInsertString( identityInsert, includeProperty, j );
+			putDynamicSqlString( key, sql );
+		}
+		return sql;
+	}
+
+	private void putDynamicSqlString(DynamicSqlKey key, String sql) {
+		if ( dynamicSqlStrings.size() < MAX_DYNAMIC_SQL_STRINGS ) {
+			// the included properties belong to the caller
+			dynamicSqlStrings.putIfAbsent( key.copy(), sql );
+		}
+	}
+
 	private boolean checkVersion(final boolean[] includeProperty) {
         return includeProperty[ getVersionProperty() ] ||
 				entityMetamodel.getPropertyUpdateGenerationInclusions()[ getVersionProperty() ] != ValueInclusion.NONE;
@@ -2569,7 +2658,7 @@ public abstract class AbstractEntityPersister
 				}
 
 				if ( useBatch ) {
-					session.getBatcher().addToBatch( expectation );
+					session.getBatcher().addToBatch( new BatchedEntityExpectation( expectation, id ) );
 					return true;
 				}
 				else {
@@ -2686,7 +2775,7 @@ public abstract class AbstractEntityPersister
 				}
 
 				if ( useBatch ) {
-					session.getBatcher().addToBatch( expectation );
+					session.getBatcher().addToBatch( new BatchedEntityExpectation( expectation, id ) );
 				}
 				else {
 					check( delete.executeUpdate(), id, j, expectation, delete );
@@ -2764,7 +2853,7 @@ public abstract class AbstractEntityPersister
 			updateStrings = new String[span];
 			for ( int j = 0; j < span; j++ ) {
 				updateStrings[j] = tableUpdateNeeded[j] ?
-						generateUpdateString( propsToUpdate, j, oldFields, j == 0 && rowId != null ) :
+						getDynamicUpdateString( propsToUpdate, j, oldFields, j == 0 && rowId != null ) :
 						null;
 			}
 		}
@@ -2784,7 +2873,7 @@ public abstract class AbstractEntityPersister
 			updateStrings = new String[span];
 			for ( int j = 0; j < span; j++ ) {
 				updateStrings[j] = tableUpdateNeeded[j] ?
-						generateUpdateString( propsToUpdate, j, oldFields, j == 0 && rowId != null ) :
+						getDynamicUpdateString( propsToUpdate, j, oldFields, j == 0 && rowId != null ) :
 						null;
 			}
 		}
@@ -2824,9 +2913,9 @@ public abstract class AbstractEntityPersister
 		if ( entityMetamodel.isDynamicInsert() ) {
 			// For the case of dynamic-insert="true", we need to generate the INSERT SQL
 			boolean[] notNull = getPropertiesToInsert( fields );
-			id = insert( fields, notNull, generateInsertString( true, notNull ), object, session );
+			id = insert( fields, notNull, getDynamicInsertString( true, notNull, 0 ), object, session );
 			for ( int j = 1; j < span; j++ ) {
-				insert( id, fields, notNull, j, generateInsertString( notNull, j ), object, session );
+				insert( id, fields, notNull, j, getDynamicInsertString( false, notNull, j ), object, session );
 			}
 		}
 		else {
@@ -2839,6 +2928,59 @@ public abstract class AbstractEntityPersister
 		return id;
 	}
 
+	/**
+	 * Can the identity inserts of several instances be performed as a single JDBC batch, by
+	 * {@link #insert(Object[][], Object[], SessionImplementor)}?  Only if enabled by
+	 * {@link org.hibernate.cfg.Environment#BATCH_IDENTITY_INSERTS}, and supported by the
+	 * dialect and the identifier generation.
+	 *
+	 * @return True if identity inserts may be batched.
+	 */
+	public boolean isIdentityInsertBatchable() {
+		return identityInsertBatchable;
+	}
+
+	/**
+	 * Persist several instances as a single JDBC batch, using database-generated identifiers.
+	 *
+	 * @param fields The state to insert, one array per instance
+	 * @param objects The instances to insert
+	 * @param session The originating session
+	 * @return The generated identifiers, in the same order as <tt>objects</tt>
+	 */
+	public Serializable[] insert(final Object[][] fields, Object[] objects, final SessionImplementor session)
+			throws HibernateException {
+
+		if ( log.isTraceEnabled() ) {
+			log.trace( "Inserting " + objects.length + " entities: " + getEntityName() + " (native id, batched)" );
+		}
+
+		final boolean[] notNull = getPropertyInsertability();
+		Binder[] binders = new Binder[objects.length];
+		for ( int i = 0; i < objects.length; i++ ) {
+			final Object[] values = fields[i];
+			final Object object = objects[i];
+			binders[i] = new Binder() {
+				public void bindValues(PreparedStatement ps) throws SQLException {
+					dehydrate( null, values, notNull, propertyColumnInsertable, 0, ps, session );
+				}
+				public Object getEntity() {
+					return object;
+				}
+			};
+		}
+		Serializable[] ids = ( ( IdentityGenerator.GetGeneratedKeysDelegate ) identityDelegate )
+				.performBatchInsert( getSQLIdentityInsertString(), session, binders );
+
+		final int span = getTableSpan();
+		for ( int j = 1; j < span; j++ ) {
+			for ( int i = 0; i < objects.length; i++ ) {
+				insert( ids[i], fields[i], notNull, j, getSQLInsertStrings()[j], objects[i], session );
+			}
+		}
+		return ids;
+	}
+
 	public void insert(Serializable id, Object[] fields, Object object, SessionImplementor session)
 			throws HibernateException {
 
@@ -2847,7 +2989,7 @@ public abstract class AbstractEntityPersister
 			// For the case of dynamic-insert="true", we need to generate the INSERT SQL
 			boolean[] notNull = getPropertiesToInsert( fields );
 			for ( int j = 0; j < span; j++ ) {
-				insert( id, fields, notNull, j, generateInsertString( notNull, j ), object, session );
+				insert( id, fields, notNull, j, getDynamicInsertString( false, notNull, j ), object, session );
 			}
 		}
 		else {
@@ -3159,6 +3301,11 @@ public abstract class AbstractEntityPersister
 			sqlIdentityInsertString = customSQLInsert[0] == null
 					? generateIdentityInsertString( getPropertyInsertability() )
 					: customSQLInsert[0];
+			identityInsertBatchable = getFactory().getSettings().isJdbcBatchIdentityInserts()
+					&& identityDelegate instanceof IdentityGenerator.GetGeneratedKeysDelegate
+					&& getFactory().getDialect().supportsBatchedGeneratedKeys()
+					&& getFactory().getSettings().getJdbcBatchSize() > 1
+					&& !entityMetamodel.isDynamicInsert();
 		}
 		else {
 			sqlIdentityInsertString = null;
@@ -3170,70 +3317,149 @@ public abstract class AbstractEntityPersister
 
 	public void postInstantiate() throws MappingException {
 
-		createLoaders();
-		createUniqueKeyLoaders();
+		if ( !getFactory().getSettings().isLazyLoaderInitializationEnabled() ) {
+			createLoaders();
+			createUniqueKeyLoaders();
+		}
 		createQueryLoader();
 
 	}
 
 	private void createLoaders() {
-		loaders.put( LockMode.NONE, createEntityLoader( LockMode.NONE ) );
+		for ( int i = 0; i < LOADER_KEYS.length; i++ ) {
+			getLoader( LOADER_KEYS[i] );
+		}
+	}
 
-		UniqueEntityLoader readLoader = createEntityLoader( LockMode.READ );
-		loaders.put( LockMode.READ, readLoader );
+	/**
+	 * Get the static loader for the given lock mode or internal fetch profile, building it if it wasn't yet.
+	 *
+	 * @param key The {@link LockMode}, or the name of the internal fetch profile.
+	 * @return The loader, or null if there is no static loader for that key.
+	 */
+	private UniqueEntityLoader getLoader(Object key) {
+		while ( true ) {
+			UniqueEntityLoader loader = ( UniqueEntityLoader ) loaders.get( key );
+			if ( loader != null ) {
+				return loader;
+			}
+			final int size = batchSize;
+			loader = createLoader( key );
+			if ( loader == null ) {
+				return null;
+			}
+			UniqueEntityLoader previous = ( UniqueEntityLoader ) loaders.putIfAbsent( key, loader );
+			if ( previous != null ) {
+				return previous;
+			}
+			if ( size == batchSize ) {
+				return loader;
+			}
+			// the batch size was raised while the loader was being built: it may have been built
+			// with the old size and put back after enableAdaptiveBatchFetching() removed the loaders
+			loaders.remove( key, loader );
+		}
+	}
 
-		//TODO: inexact, what we really need to know is: are any outer joins used?
-		boolean disableForUpdate = getSubclassTableSpan() > 1 &&
-				hasSubclasses() &&
-				!getFactory().getDialect().supportsOuterJoinForUpdate();
+	/**
+	 * Raise the batch size used to load instances of this entity, discarding the lock mode
+	 * loaders so that they are rebuilt on next use.  Only keys created afterwards are
+	 * queued for batch loading, so this takes effect in later sessions.  Entities with an
+	 * explicitly mapped (or defaulted) batch size, or a custom loader, are left untouched.
+	 *
+	 * @param size The new batch size
+	 * @return True if the batch size was changed
+	 */
+	public synchronized boolean enableAdaptiveBatchFetching(int size) {
+		if ( explicitBatchSize || loaderName != null || size <= batchSize ) {
+			return false;
+		}
+		batchSize = size;
+		for ( int i = 0; i < LOADER_KEYS.length; i++ ) {
+			if ( LOADER_KEYS[i] instanceof LockMode ) {
+				Object loader = loaders.get( LOADER_KEYS[i] );
+				if ( loader != null ) {
+					loaders.remove( LOADER_KEYS[i], loader );
+				}
+			}
+		}
+		return true;
+	}
 
-		loaders.put(
-				LockMode.UPGRADE,
-				disableForUpdate ?
-						readLoader :
-						createEntityLoader( LockMode.UPGRADE )
-			);
-		loaders.put(
-				LockMode.UPGRADE_NOWAIT,
-				disableForUpdate ?
-						readLoader :
-						createEntityLoader( LockMode.UPGRADE_NOWAIT )
-			);
-		loaders.put(
-				LockMode.FORCE,
-				disableForUpdate ?
-						readLoader :
-						createEntityLoader( LockMode.FORCE )
-			);
-		loaders.put(
-				LockMode.PESSIMISTIC_READ,
-				disableForUpdate ?
-						readLoader :
-						createEntityLoader( LockMode.PESSIMISTIC_READ )
-			);
-		loaders.put(
-				LockMode.PESSIMISTIC_WRITE,
-				disableForUpdate ?
-						readLoader :
-						createEntityLoader( LockMode.PESSIMISTIC_WRITE )
-			);
-		loaders.put(
-				LockMode.PESSIMISTIC_FORCE_INCREMENT,
-				disableForUpdate ?
-						readLoader :
-						createEntityLoader( LockMode.PESSIMISTIC_FORCE_INCREMENT )
-			);
-		loaders.put( LockMode.OPTIMISTIC, createEntityLoader( LockMode.OPTIMISTIC) );
-		loaders.put( LockMode.OPTIMISTIC_FORCE_INCREMENT, createEntityLoader(LockMode.OPTIMISTIC_FORCE_INCREMENT) );
-	
-		loaders.put(
-				"merge",
-				new CascadeEntityLoader( this, CascadingAction.MERGE, getFactory() )
-			);
-		loaders.put(
-				"refresh",
-				new CascadeEntityLoader( this, CascadingAction.REFRESH, getFactory() )
+	/**
+	 * Load the instances with the given identifiers into the session using as few
+	 * <tt>in</tt>-list selects as possible.  The identifiers should not already be
+	 * associated with the session.  Instances which do not exist are simply not
+	 * loaded; callers are expected to resolve each identifier individually afterwards.
+	 *
+	 * @param ids The identifiers of the instances to load
+	 * @param session The originating session
+	 * @return False if instances of this entity cannot be loaded together for the
+	 * given session (custom loader, or enabled filters or fetch profiles), in which
+	 * case nothing was loaded.
+	 */
+	public boolean loadEntityBatch(Serializable[] ids, SessionImplementor session) {
+		if ( queryLoader != null
+				|| isAffectedByEnabledFilters( session )
+				|| isAffectedByEnabledFetchProfiles( session )
+				|| session.getLoadQueryInfluencers().getInternalFetchProfile() != null ) {
+			return false;
+		}
+		Serializable[][] chunks = ArrayHelper.getMultiLoadChunks( ids );
+		for ( int i = 0; i < chunks.length; i++ ) {
+			getMultiLoader( chunks[i].length ).loadEntityBatch(
+					session,
+					chunks[i],
+					getIdentifierType(),
+					null,
+					null,
+					null,
+					this,
+					LockOptions.NONE
 			);
+			if ( getFactory().getStatistics().isStatisticsEnabled() ) {
+				getFactory().getStatisticsImplementor().fetchEntity( getEntityName() );
+			}
+		}
+		return true;
+	}
+
+	private EntityLoader getMultiLoader(int size) {
+		Integer key = new Integer( size );
+		EntityLoader loader = ( EntityLoader ) multiLoaders.get( key );
+		if ( loader == null ) {
+			loader = new EntityLoader( this, size, LockMode.NONE, getFactory(), LoadQueryInfluencers.NONE );
+			EntityLoader previous = ( EntityLoader ) multiLoaders.putIfAbsent( key, loader );
+			if ( previous != null ) {
+				loader = previous;
+			}
+		}
+		return loader;
+	}
+
+	private UniqueEntityLoader createLoader(Object key) {
+		if ( key == LockMode.NONE || key == LockMode.READ
+				|| key == LockMode.OPTIMISTIC || key == LockMode.OPTIMISTIC_FORCE_INCREMENT ) {
+			return createEntityLoader( ( LockMode ) key );
+		}
+		else if ( key == LockMode.UPGRADE || key == LockMode.UPGRADE_NOWAIT || key == LockMode.FORCE
+				|| key == LockMode.PESSIMISTIC_READ || key == LockMode.PESSIMISTIC_WRITE
+				|| key == LockMode.PESSIMISTIC_FORCE_INCREMENT ) {
+			//TODO: inexact, what we really need to know is: are any outer joins used?
+			boolean disableForUpdate = getSubclassTableSpan() > 1 &&
+					hasSubclasses() &&
+					!getFactory().getDialect().supportsOuterJoinForUpdate();
+			return disableForUpdate ?
+					getLoader( LockMode.READ ) :
+					createEntityLoader( ( LockMode ) key );
+		}
+		else if ( "merge".equals( key ) ) {
+			return new CascadeEntityLoader( this, CascadingAction.MERGE, getFactory() );
+		}
+		else if ( "refresh".equals( key ) ) {
+			return new CascadeEntityLoader( this, CascadingAction.REFRESH, getFactory() );
+		}
+		return null;
 	}
 
 	protected void createQueryLoader() {
@@ -3302,7 +3528,7 @@ public abstract class AbstractEntityPersister
 			// Next, we consider whether an 'internal' fetch profile has been set.
 			// This indicates a special fetch profile Hibernate needs applied
 			// (for its merge loading process e.g.).
-			return ( UniqueEntityLoader ) loaders.get( session.getLoadQueryInfluencers().getInternalFetchProfile() );
+			return getLoader( session.getLoadQueryInfluencers().getInternalFetchProfile() );
 		}
 		else if ( isAffectedByEnabledFetchProfiles( session ) ) {
 			// If the session has associated influencers we need to adjust the
@@ -3313,7 +3539,7 @@ public abstract class AbstractEntityPersister
 			return createEntityLoader( lockOptions, session.getLoadQueryInfluencers() );
 		}
 		else {
-			return ( UniqueEntityLoader ) loaders.get( lockOptions.getLockMode() );
+			return getLoader( lockOptions.getLockMode() );
 		}
 	}
 
@@ -3934,6 +4160,28 @@ public abstract class AbstractEntityPersister
 		return false;
 	}
 
+	/**
+	 * Can instances be deleted by a set-based SQL <tt>DELETE</tt> against the
+	 * entity table?  Not if the entity spans several tables, takes part in an
+	 * inheritance hierarchy, is restricted by a where clause, uses custom
+	 * SQL to delete instances or checks their version or state on deletion.
+	 */
+	public boolean isBulkDeleteSupported() {
+		if ( isMultiTable() || isInherited() || entityMetamodel.hasSubclasses() || sqlWhereString != null ) {
+			return false;
+		}
+		if ( isVersioned() || entityMetamodel.getOptimisticLockMode() > Versioning.OPTIMISTIC_LOCK_VERSION ) {
+			// a set-based delete cannot check the state of each instance
+			return false;
+		}
+		for ( int j = 0; j < customSQLDelete.length; j++ ) {
+			if ( customSQLDelete[j] != null ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public String getTemporaryIdTableName() {
 		return temporaryIdTableName;
 	}
@@ -4127,6 +4375,92 @@ public abstract class AbstractEntityPersister
 			throws HibernateException {
 		getTuplizer( entityMode ).setPropertyValue( object, propertyName, value );
 	}
+
+	/**
+	 * Verifies the outcome of a batched update or delete of the root table row of an
+	 * entity, so that a failure detected once the batch is executed names the entity,
+	 * as {@link #check} does for statements which are not batched.
+	 */
+	private final class BatchedEntityExpectation implements Expectation {
+		private final Expectation expectation;
+		private final Serializable id;
+
+		private BatchedEntityExpectation(Expectation expectation, Serializable id) {
+			this.expectation = expectation;
+			this.id = id;
+		}
+
+		public void verifyOutcome(int rowCount, PreparedStatement statement, int batchPosition)
+				throws SQLException, HibernateException {
+			try {
+				expectation.verifyOutcome( rowCount, statement, batchPosition );
+			}
+			catch( StaleStateException e ) {
+				if ( getFactory().getStatistics().isStatisticsEnabled() ) {
+					getFactory().getStatisticsImplementor()
+							.optimisticFailure( getEntityName() );
+				}
+				throw new StaleObjectStateException( getEntityName(), id );
+			}
+			catch( TooManyRowsAffectedException e ) {
+				throw new HibernateException(
+						"Duplicate identifier in table for: " +
+						MessageHelper.infoString( AbstractEntityPersister.this, id, getFactory() )
+				);
+			}
+		}
+
+		public int prepare(PreparedStatement statement) throws SQLException, HibernateException {
+			return expectation.prepare( statement );
+		}
+
+		public boolean canBeBatched() {
+			return expectation.canBeBatched();
+		}
+	}
+
+	/**
+	 * Identifies a dynamic-update or dynamic-insert SQL string by the statement kind,
+	 * the included properties and the table.
+	 */
+	private static final class DynamicSqlKey {
+		private final boolean insert;
+		private final boolean[] includeProperty;
+		private final int table;
+		private final boolean flag; // use the row id for updates, identity insert for inserts
+		private final int hashCode;
+
+		private DynamicSqlKey(boolean insert, boolean[] includeProperty, int table, boolean flag) {
+			this.insert = insert;
+			this.includeProperty = includeProperty;
+			this.table = table;
+			this.flag = flag;
+			this.hashCode = ( Arrays.hashCode( includeProperty ) * 31 + table ) * 4
+					+ ( insert ? 2 : 0 ) + ( flag ? 1 : 0 );
+		}
+
+		private DynamicSqlKey copy() {
+			return new DynamicSqlKey( insert, ( boolean[] ) includeProperty.clone(), table, flag );
+		}
+
+		public boolean equals(Object other) {
+			if ( this == other ) {
+				return true;
+			}
+			if ( !( other instanceof DynamicSqlKey ) ) {
+				return false;
+			}
+			final DynamicSqlKey that = ( DynamicSqlKey ) other;
+			return insert == that.insert
+					&& table == that.table
+					&& flag == that.flag
+					&& Arrays.equals( includeProperty, that.includeProperty );
+		}
+
+		public int hashCode() {
+			return hashCode;
+		}
+	}
 	// ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
 
 }
@@ -131,6 +131,15 @@ public class DirectPropertyAccessor implements PropertyAccessor {
 			return null;
 		}
 
+		/**
+		 * Retrieve the field written by this setter.
+		 *
+		 * @return The field.
+		 */
+		public Member getMember() {
+			return field;
+		}
+
 		/**
 		 * {@inheritDoc}
 		 */
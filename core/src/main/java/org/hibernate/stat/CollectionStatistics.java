@@ -43,4 +43,11 @@ public interface CollectionStatistics extends Serializable {
 	long getRemoveCount();
 
 	long getUpdateCount();
+
+	/**
+	 * Get a percentile of this collection's fetch times, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	long getFetchTimePercentile(double percentile);
 }
@@ -40,6 +40,7 @@ public class CollectionStatisticsImpl extends CategorizedStatistics implements C
 	long updateCount;
 	long removeCount;
 	long recreateCount;
+	final LatencyHistogram fetchTimes = new LatencyHistogram( 0, LatencyHistogram.CATEGORY_PRECISION );
 
 	public long getLoadCount() {
 		return loadCount;
@@ -61,6 +62,10 @@ public class CollectionStatisticsImpl extends CategorizedStatistics implements C
 		return updateCount;
 	}
 
+	public long getFetchTimePercentile(double percentile) {
+		return fetchTimes.getPercentile( percentile );
+	}
+
 	public String toString() {
 		return new StringBuilder()
 				.append("CollectionStatistics")
@@ -10,7 +10,12 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ConcurrentCollectionStatisticsImpl extends CategorizedStatistics implements CollectionStatistics {
 
 	ConcurrentCollectionStatisticsImpl(String role) {
+		this( role, 0 );
+	}
+
+	ConcurrentCollectionStatisticsImpl(String role, long latencyWindow) {
 		super(role);
+		fetchTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.CATEGORY_PRECISION );
 	}
 
 	private	AtomicLong loadCount	 = new AtomicLong();
@@ -18,6 +23,7 @@ public class ConcurrentCollectionStatisticsImpl extends CategorizedStatistics im
 	private	AtomicLong updateCount	 = new AtomicLong();
 	private	AtomicLong removeCount	 = new AtomicLong();
 	private	AtomicLong recreateCount = new AtomicLong();
+	private final LatencyHistogram fetchTimes;
 
 	public long getLoadCount() {
 		return loadCount.get();
@@ -39,6 +45,10 @@ public class ConcurrentCollectionStatisticsImpl extends CategorizedStatistics im
 		return updateCount.get();
 	}
 
+	public long getFetchTimePercentile(double percentile) {
+		return fetchTimes.getPercentile( percentile );
+	}
+
 	public String toString() {
 		return new StringBuilder()
 				.append("CollectionStatistics")
@@ -59,6 +69,10 @@ public class ConcurrentCollectionStatisticsImpl extends CategorizedStatistics im
 		fetchCount.getAndIncrement();
 	}
 
+	void fetched(long micros) {
+		fetchTimes.record( micros );
+	}
+
 	void incrementUpdateCount() {
 		updateCount.getAndIncrement();
 	}
@@ -11,7 +11,12 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ConcurrentEntityStatisticsImpl extends CategorizedStatistics implements EntityStatistics {
 
 	ConcurrentEntityStatisticsImpl(String name) {
+		this( name, 0 );
+	}
+
+	ConcurrentEntityStatisticsImpl(String name, long latencyWindow) {
 		super(name);
+		loadTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.CATEGORY_PRECISION );
 	}
 
 	private	AtomicLong loadCount			  =	new	AtomicLong();
@@ -20,6 +25,7 @@ public class ConcurrentEntityStatisticsImpl extends CategorizedStatistics implem
 	private	AtomicLong deleteCount			  =	new	AtomicLong();
 	private	AtomicLong fetchCount			  =	new	AtomicLong();
 	private	AtomicLong optimisticFailureCount =	new	AtomicLong();
+	private final LatencyHistogram loadTimes;
 
 	public long getDeleteCount() {
 		return deleteCount.get();
@@ -45,6 +51,10 @@ public class ConcurrentEntityStatisticsImpl extends CategorizedStatistics implem
 		return optimisticFailureCount.get();
 	}
 
+	public long getLoadTimePercentile(double percentile) {
+		return loadTimes.getPercentile( percentile );
+	}
+
 	public String toString() {
 		return new StringBuilder()
 				.append("EntityStatistics")
@@ -66,6 +76,10 @@ public class ConcurrentEntityStatisticsImpl extends CategorizedStatistics implem
 		fetchCount.getAndIncrement();
 	}
 
+	void loaded(long micros) {
+		loadTimes.record( micros );
+	}
+
 	void incrementUpdateCount() {
 		updateCount.getAndIncrement();
 	}
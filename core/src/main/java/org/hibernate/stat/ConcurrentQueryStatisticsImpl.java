@@ -1,9 +1,6 @@
 package org.hibernate.stat;
 
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Query statistics (HQL and SQL)
@@ -22,18 +19,15 @@ public class ConcurrentQueryStatisticsImpl extends CategorizedStatistics impleme
 	private final AtomicLong executionMaxTime = new AtomicLong();
 	private final AtomicLong executionMinTime = new AtomicLong(Long.MAX_VALUE);
 	private final AtomicLong totalExecutionTime = new AtomicLong();
+	private final LatencyHistogram executionTimes;
 
-	private final Lock readLock;
-	private final Lock writeLock;
-
-	{
-		ReadWriteLock lock = new ReentrantReadWriteLock();
-		readLock = lock.readLock();
-		writeLock = lock.writeLock();
+	ConcurrentQueryStatisticsImpl(String query) {
+		this( query, 0 );
 	}
 
-	ConcurrentQueryStatisticsImpl(String query) {
+	ConcurrentQueryStatisticsImpl(String query, long latencyWindow) {
 		super(query);
+		executionTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.CATEGORY_PRECISION );
 	}
 
 	/**
@@ -75,19 +69,14 @@ public class ConcurrentQueryStatisticsImpl extends CategorizedStatistics impleme
 	 * average time in ms taken by the excution of this query onto the DB
 	 */
 	public long getExecutionAvgTime() {
-		// We write lock here to be sure that we always calculate the average time
-		// with all updates from the executed applied: executionCount and totalExecutionTime
-		// both used in the calculation
-		writeLock.lock();
-		try {
-			long avgExecutionTime = 0;
-			if (executionCount.get() > 0) {
-				avgExecutionTime = totalExecutionTime.get() / executionCount.get();
-			}
-			return avgExecutionTime;
-		} finally {
-			writeLock.unlock();
-		}
+		// executed(long, long) takes no lock, so read the count first: an execution in flight may
+		// then add its time without its count, which only nudges the average up for that read
+		long count = executionCount.get();
+		return count > 0 ? totalExecutionTime.get() / count : 0;
+	}
+
+	public long getExecutionTimePercentile(double percentile) {
+		return executionTimes.getPercentile( percentile );
 	}
 
 	/**
@@ -108,22 +97,17 @@ public class ConcurrentQueryStatisticsImpl extends CategorizedStatistics impleme
 	 * add statistics report of a DB query
 	 *
 	 * @param rows rows count returned
-	 * @param time time taken
+	 * @param time time taken, in ms
+	 * @param micros time taken, in microseconds
 	 */
-	void executed(long rows, long time) {
-		// read lock is enough, concurrent updates are supported by the underlying type AtomicLong
-		// this only guards executed(long, long) to be called, when another thread is executing getExecutionAvgTime()
-		readLock.lock();
-		try {
-			// Less chances for a context switch
-			for (long old = executionMinTime.get(); (time < old) && !executionMinTime.compareAndSet(old, time); old = executionMinTime.get());
-			for (long old = executionMaxTime.get(); (time > old) && !executionMaxTime.compareAndSet(old, time); old = executionMaxTime.get());
-			executionCount.getAndIncrement();
-			executionRowCount.addAndGet(rows);
-			totalExecutionTime.addAndGet(time);
-		} finally {
-			readLock.unlock();
-		}
+	void executed(long rows, long time, long micros) {
+		// Less chances for a context switch
+		for (long old = executionMinTime.get(); (time < old) && !executionMinTime.compareAndSet(old, time); old = executionMinTime.get());
+		for (long old = executionMaxTime.get(); (time > old) && !executionMaxTime.compareAndSet(old, time); old = executionMaxTime.get());
+		totalExecutionTime.addAndGet(time);
+		executionCount.getAndIncrement();
+		executionRowCount.addAndGet(rows);
+		executionTimes.record(micros);
 	}
 
 	public String toString() {
@@ -49,40 +49,46 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 
 	private volatile boolean isStatisticsEnabled;
 	private volatile long startTime;
-	private AtomicLong sessionOpenCount = new AtomicLong();
-	private AtomicLong sessionCloseCount = new AtomicLong();
-	private AtomicLong flushCount = new AtomicLong();
-	private AtomicLong connectCount = new AtomicLong();
-
-	private AtomicLong prepareStatementCount = new AtomicLong();
-	private AtomicLong closeStatementCount = new AtomicLong();
-
-	private AtomicLong entityLoadCount = new AtomicLong();
-	private AtomicLong entityUpdateCount = new AtomicLong();
-	private AtomicLong entityInsertCount = new AtomicLong();
-	private AtomicLong entityDeleteCount = new AtomicLong();
-	private AtomicLong entityFetchCount = new AtomicLong();
-	private AtomicLong collectionLoadCount = new AtomicLong();
-	private AtomicLong collectionUpdateCount = new AtomicLong();
-	private AtomicLong collectionRemoveCount = new AtomicLong();
-	private AtomicLong collectionRecreateCount = new AtomicLong();
-	private AtomicLong collectionFetchCount = new AtomicLong();
-
-	private AtomicLong secondLevelCacheHitCount = new AtomicLong();
-	private AtomicLong secondLevelCacheMissCount = new AtomicLong();
-	private AtomicLong secondLevelCachePutCount = new AtomicLong();
-
-	private AtomicLong queryExecutionCount = new AtomicLong();
+	private final StripedCounter sessionOpenCount = new StripedCounter();
+	private final StripedCounter sessionCloseCount = new StripedCounter();
+	private final StripedCounter flushCount = new StripedCounter();
+	private final StripedCounter connectCount = new StripedCounter();
+
+	private final StripedCounter prepareStatementCount = new StripedCounter();
+	private final StripedCounter closeStatementCount = new StripedCounter();
+
+	private final StripedCounter entityLoadCount = new StripedCounter();
+	private final StripedCounter entityUpdateCount = new StripedCounter();
+	private final StripedCounter entityInsertCount = new StripedCounter();
+	private final StripedCounter entityDeleteCount = new StripedCounter();
+	private final StripedCounter entityFetchCount = new StripedCounter();
+	private final StripedCounter collectionLoadCount = new StripedCounter();
+	private final StripedCounter collectionUpdateCount = new StripedCounter();
+	private final StripedCounter collectionRemoveCount = new StripedCounter();
+	private final StripedCounter collectionRecreateCount = new StripedCounter();
+	private final StripedCounter collectionFetchCount = new StripedCounter();
+
+	private final StripedCounter secondLevelCacheHitCount = new StripedCounter();
+	private final StripedCounter secondLevelCacheMissCount = new StripedCounter();
+	private final StripedCounter secondLevelCachePutCount = new StripedCounter();
+
+	private final StripedCounter queryExecutionCount = new StripedCounter();
 	private AtomicLong queryExecutionMaxTime = new AtomicLong();
 	private volatile String queryExecutionMaxTimeQueryString;
-	private AtomicLong queryCacheHitCount = new AtomicLong();
-	private AtomicLong queryCacheMissCount = new AtomicLong();
-	private AtomicLong queryCachePutCount = new AtomicLong();
+	private final StripedCounter queryCacheHitCount = new StripedCounter();
+	private final StripedCounter queryCacheMissCount = new StripedCounter();
+	private final StripedCounter queryCachePutCount = new StripedCounter();
 
-	private AtomicLong committedTransactionCount = new AtomicLong();
-	private AtomicLong transactionCount = new AtomicLong();
+	private final StripedCounter committedTransactionCount = new StripedCounter();
+	private final StripedCounter transactionCount = new StripedCounter();
 
-	private AtomicLong optimisticFailureCount = new AtomicLong();
+	private final StripedCounter optimisticFailureCount = new StripedCounter();
+
+	private final long latencyWindow;
+	private final LatencyHistogram queryExecutionTimes;
+	private final LatencyHistogram entityLoadTimes;
+	private final LatencyHistogram collectionFetchTimes;
+	private final LatencyHistogram flushTimes;
 
 	/**
 	 * second level cache statistics per region
@@ -103,10 +109,26 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 
 	@SuppressWarnings({ "UnusedDeclaration" })
 	public ConcurrentStatisticsImpl() {
-		clear();
+		this( null, 0 );
 	}
 
 	public ConcurrentStatisticsImpl(SessionFactoryImplementor sessionFactory) {
+		this( sessionFactory, 0 );
+	}
+
+	/**
+	 * Create statistics whose latency percentiles cover a rolling window.
+	 *
+	 * @param sessionFactory The session factory the statistics are collected for
+	 * @param latencyWindow The length (in ms) of the window latency percentiles are reported over;
+	 * <tt>0</tt> to report over everything since the statistics were last cleared
+	 */
+	public ConcurrentStatisticsImpl(SessionFactoryImplementor sessionFactory, long latencyWindow) {
+		this.latencyWindow = latencyWindow;
+		queryExecutionTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.GLOBAL_PRECISION );
+		entityLoadTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.GLOBAL_PRECISION );
+		collectionFetchTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.GLOBAL_PRECISION );
+		flushTimes = new LatencyHistogram( latencyWindow, LatencyHistogram.GLOBAL_PRECISION );
 		clear();
 		this.sessionFactory = sessionFactory;
 	}
@@ -115,76 +137,96 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	 * reset all statistics
 	 */
 	public void clear() {
-		secondLevelCacheHitCount.set( 0 );
-		secondLevelCacheMissCount.set( 0 );
-		secondLevelCachePutCount.set( 0 );
-
-		sessionCloseCount.set( 0 );
-		sessionOpenCount.set( 0 );
-		flushCount.set( 0 );
-		connectCount.set( 0 );
-
-		prepareStatementCount.set( 0 );
-		closeStatementCount.set( 0 );
-
-		entityDeleteCount.set( 0 );
-		entityInsertCount.set( 0 );
-		entityUpdateCount.set( 0 );
-		entityLoadCount.set( 0 );
-		entityFetchCount.set( 0 );
-
-		collectionRemoveCount.set( 0 );
-		collectionUpdateCount.set( 0 );
-		collectionRecreateCount.set( 0 );
-		collectionLoadCount.set( 0 );
-		collectionFetchCount.set( 0 );
-
-		queryExecutionCount.set( 0 );
-		queryCacheHitCount.set( 0 );
+		secondLevelCacheHitCount.reset();
+		secondLevelCacheMissCount.reset();
+		secondLevelCachePutCount.reset();
+
+		sessionCloseCount.reset();
+		sessionOpenCount.reset();
+		flushCount.reset();
+		connectCount.reset();
+
+		prepareStatementCount.reset();
+		closeStatementCount.reset();
+
+		entityDeleteCount.reset();
+		entityInsertCount.reset();
+		entityUpdateCount.reset();
+		entityLoadCount.reset();
+		entityFetchCount.reset();
+
+		collectionRemoveCount.reset();
+		collectionUpdateCount.reset();
+		collectionRecreateCount.reset();
+		collectionLoadCount.reset();
+		collectionFetchCount.reset();
+
+		queryExecutionCount.reset();
+		queryCacheHitCount.reset();
 		queryExecutionMaxTime.set( 0 );
 		queryExecutionMaxTimeQueryString = null;
-		queryCacheMissCount.set( 0 );
-		queryCachePutCount.set( 0 );
+		queryCacheMissCount.reset();
+		queryCachePutCount.reset();
+
+		transactionCount.reset();
+		committedTransactionCount.reset();
 
-		transactionCount.set( 0 );
-		committedTransactionCount.set( 0 );
+		optimisticFailureCount.reset();
 
-		optimisticFailureCount.set( 0 );
+		queryExecutionTimes.clear();
+		entityLoadTimes.clear();
+		collectionFetchTimes.clear();
+		flushTimes.clear();
 
 		secondLevelCacheStatistics.clear();
 		entityStatistics.clear();
 		collectionStatistics.clear();
 		queryStatistics.clear();
 
+		if ( sessionFactory != null && sessionFactory.getFetchPatternDetector() != null ) {
+			sessionFactory.getFetchPatternDetector().clear();
+		}
+
 		startTime = System.currentTimeMillis();
 	}
 
 	public void openSession() {
-		sessionOpenCount.getAndIncrement();
+		sessionOpenCount.increment();
 	}
 
 	public void closeSession() {
-		sessionCloseCount.getAndIncrement();
+		sessionCloseCount.increment();
 	}
 
 	public void flush() {
-		flushCount.getAndIncrement();
+		flushCount.increment();
+	}
+
+	public void flush(long time) {
+		flush();
+		flushTimes.record( time / 1000 );
 	}
 
 	public void connect() {
-		connectCount.getAndIncrement();
+		connectCount.increment();
 	}
 
 	public void loadEntity(String entityName) {
-		entityLoadCount.getAndIncrement();
+		entityLoadCount.increment();
 		( (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName ) ).incrementLoadCount();
 	}
 
 	public void fetchEntity(String entityName) {
-		entityFetchCount.getAndIncrement();
+		entityFetchCount.increment();
 		( (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName ) ).incrementFetchCount();
 	}
 
+	public void entityLoaded(String entityName, long time) {
+		long micros = time / 1000;
+		entityLoadTimes.record( micros );
+		( (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName ) ).loaded( micros );
+	}
+
 	/**
 	 * find entity statistics per name
 	 *
@@ -195,7 +237,7 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	public EntityStatistics getEntityStatistics(String entityName) {
 		ConcurrentEntityStatisticsImpl es = (ConcurrentEntityStatisticsImpl) entityStatistics.get( entityName );
 		if ( es == null ) {
-			es = new ConcurrentEntityStatisticsImpl( entityName );
+			es = new ConcurrentEntityStatisticsImpl( entityName, latencyWindow );
 			ConcurrentEntityStatisticsImpl previous;
 			if ( ( previous = (ConcurrentEntityStatisticsImpl) entityStatistics.putIfAbsent(
 					entityName, es
@@ -207,19 +249,19 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void updateEntity(String entityName) {
-		entityUpdateCount.getAndIncrement();
+		entityUpdateCount.increment();
 		ConcurrentEntityStatisticsImpl es = (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName );
 		es.incrementUpdateCount();
 	}
 
 	public void insertEntity(String entityName) {
-		entityInsertCount.getAndIncrement();
+		entityInsertCount.increment();
 		ConcurrentEntityStatisticsImpl es = (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName );
 		es.incrementInsertCount();
 	}
 
 	public void deleteEntity(String entityName) {
-		entityDeleteCount.getAndIncrement();
+		entityDeleteCount.increment();
 		ConcurrentEntityStatisticsImpl es = (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName );
 		es.incrementDeleteCount();
 	}
@@ -234,7 +276,7 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	public CollectionStatistics getCollectionStatistics(String role) {
 		ConcurrentCollectionStatisticsImpl cs = (ConcurrentCollectionStatisticsImpl) collectionStatistics.get( role );
 		if ( cs == null ) {
-			cs = new ConcurrentCollectionStatisticsImpl( role );
+			cs = new ConcurrentCollectionStatisticsImpl( role, latencyWindow );
 			ConcurrentCollectionStatisticsImpl previous;
 			if ( ( previous = (ConcurrentCollectionStatisticsImpl) collectionStatistics.putIfAbsent(
 					role, cs
@@ -246,27 +288,36 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void loadCollection(String role) {
-		collectionLoadCount.getAndIncrement();
+		collectionLoadCount.increment();
 		( (ConcurrentCollectionStatisticsImpl) getCollectionStatistics( role ) ).incrementLoadCount();
 	}
 
 	public void fetchCollection(String role) {
-		collectionFetchCount.getAndIncrement();
+		collectionFetchCount.increment();
 		( (ConcurrentCollectionStatisticsImpl) getCollectionStatistics( role ) ).incrementFetchCount();
 	}
 
+	public void fetchCollection(String role, long time) {
+		collectionFetchCount.increment();
+		long micros = time / 1000;
+		collectionFetchTimes.record( micros );
+		ConcurrentCollectionStatisticsImpl cs = (ConcurrentCollectionStatisticsImpl) getCollectionStatistics( role );
+		cs.incrementFetchCount();
+		cs.fetched( micros );
+	}
+
 	public void updateCollection(String role) {
-		collectionUpdateCount.getAndIncrement();
+		collectionUpdateCount.increment();
 		( (ConcurrentCollectionStatisticsImpl) getCollectionStatistics( role ) ).incrementUpdateCount();
 	}
 
 	public void recreateCollection(String role) {
-		collectionRecreateCount.getAndIncrement();
+		collectionRecreateCount.increment();
 		( (ConcurrentCollectionStatisticsImpl) getCollectionStatistics( role ) ).incrementRecreateCount();
 	}
 
 	public void removeCollection(String role) {
-		collectionRemoveCount.getAndIncrement();
+		collectionRemoveCount.increment();
 		( (ConcurrentCollectionStatisticsImpl) getCollectionStatistics( role ) ).incrementRemoveCount();
 	}
 
@@ -300,24 +351,31 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void secondLevelCachePut(String regionName) {
-		secondLevelCachePutCount.getAndIncrement();
+		secondLevelCachePutCount.increment();
 		( (ConcurrentSecondLevelCacheStatisticsImpl) getSecondLevelCacheStatistics( regionName ) ).incrementPutCount();
 	}
 
 	public void secondLevelCacheHit(String regionName) {
-		secondLevelCacheHitCount.getAndIncrement();
+		secondLevelCacheHitCount.increment();
 		( (ConcurrentSecondLevelCacheStatisticsImpl) getSecondLevelCacheStatistics( regionName ) ).incrementHitCount();
 	}
 
 	public void secondLevelCacheMiss(String regionName) {
-		secondLevelCacheMissCount.getAndIncrement();
+		secondLevelCacheMissCount.increment();
 		( (ConcurrentSecondLevelCacheStatisticsImpl) getSecondLevelCacheStatistics( regionName ) ).incrementMissCount();
 	}
 
-	@SuppressWarnings({ "UnnecessaryBoxing" })
 	public void queryExecuted(String hql, int rows, long time) {
+		queryExecutedNanos( hql, rows, time * 1000000 );
+	}
+
+	@SuppressWarnings({ "UnnecessaryBoxing" })
+	public void queryExecutedNanos(String hql, int rows, long nanos) {
+		long time = nanos / 1000000;
+		long micros = nanos / 1000;
 		PERF_LOG.info( "HQL: {}, time: {}ms, rows: {}", new Object[] {hql, Long.valueOf( time ), Long.valueOf(rows)} );
-		queryExecutionCount.getAndIncrement();
+		queryExecutionCount.increment();
+		queryExecutionTimes.record( micros );
 		boolean isLongestQuery = false;
 		for ( long old = queryExecutionMaxTime.get();
 			  ( isLongestQuery = time > old ) && ( !queryExecutionMaxTime.compareAndSet( old, time ) );
@@ -329,12 +387,12 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 		}
 		if ( hql != null ) {
 			ConcurrentQueryStatisticsImpl qs = (ConcurrentQueryStatisticsImpl) getQueryStatistics( hql );
-			qs.executed( rows, time );
+			qs.executed( rows, time, micros );
 		}
 	}
 
 	public void queryCacheHit(String hql, String regionName) {
-		queryCacheHitCount.getAndIncrement();
+		queryCacheHitCount.increment();
 		if ( hql != null ) {
 			ConcurrentQueryStatisticsImpl qs = (ConcurrentQueryStatisticsImpl) getQueryStatistics( hql );
 			qs.incrementCacheHitCount();
@@ -346,7 +404,7 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void queryCacheMiss(String hql, String regionName) {
-		queryCacheMissCount.getAndIncrement();
+		queryCacheMissCount.increment();
 		if ( hql != null ) {
 			ConcurrentQueryStatisticsImpl qs = (ConcurrentQueryStatisticsImpl) getQueryStatistics( hql );
 			qs.incrementCacheMissCount();
@@ -358,7 +416,7 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void queryCachePut(String hql, String regionName) {
-		queryCachePutCount.getAndIncrement();
+		queryCachePutCount.increment();
 		if ( hql != null ) {
 			ConcurrentQueryStatisticsImpl qs = (ConcurrentQueryStatisticsImpl) getQueryStatistics( hql );
 			qs.incrementCachePutCount();
@@ -379,7 +437,7 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	public QueryStatistics getQueryStatistics(String queryString) {
 		ConcurrentQueryStatisticsImpl qs = (ConcurrentQueryStatisticsImpl) queryStatistics.get( queryString );
 		if ( qs == null ) {
-			qs = new ConcurrentQueryStatisticsImpl( queryString );
+			qs = new ConcurrentQueryStatisticsImpl( queryString, latencyWindow );
 			ConcurrentQueryStatisticsImpl previous;
 			if ( ( previous = (ConcurrentQueryStatisticsImpl) queryStatistics.putIfAbsent(
 					queryString, qs
@@ -441,6 +499,22 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 		return queryCachePutCount.get();
 	}
 
+	public long getQueryExecutionTimePercentile(double percentile) {
+		return queryExecutionTimes.getPercentile( percentile );
+	}
+
+	public long getEntityLoadTimePercentile(double percentile) {
+		return entityLoadTimes.getPercentile( percentile );
+	}
+
+	public long getCollectionFetchTimePercentile(double percentile) {
+		return collectionFetchTimes.getPercentile( percentile );
+	}
+
+	public long getFlushTimePercentile(double percentile) {
+		return flushTimes.getPercentile( percentile );
+	}
+
 	/**
 	 * @return flush
 	 */
@@ -566,6 +640,20 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 		log.info( "query cache hits: " + queryCacheHitCount );
 		log.info( "query cache misses: " + queryCacheMissCount );
 		log.info( "max query time: " + queryExecutionMaxTime + "ms" );
+		log.info( "query time p50/p99/p999: " + percentiles( queryExecutionTimes ) );
+		log.info( "entity load time p50/p99/p999: " + percentiles( entityLoadTimes ) );
+		log.info( "collection fetch time p50/p99/p999: " + percentiles( collectionFetchTimes ) );
+		log.info( "flush time p50/p99/p999: " + percentiles( flushTimes ) );
+		String[] fetchPatterns = getFetchPatterns();
+		for ( int i = 0; i < fetchPatterns.length; i++ ) {
+			log.info( "fetch pattern: " + fetchPatterns[i] );
+		}
+	}
+
+	private static String percentiles(LatencyHistogram histogram) {
+		return histogram.getPercentile( 50 ) + "/"
+				+ histogram.getPercentile( 99 ) + "/"
+				+ histogram.getPercentile( 99.9 ) + "us";
 	}
 
 	/**
@@ -633,10 +721,22 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 		}
 	}
 
+	/**
+	 * Get a description of each detected fetch pattern
+	 */
+	public String[] getFetchPatterns() {
+		if ( sessionFactory == null || sessionFactory.getFetchPatternDetector() == null ) {
+			return ArrayHelper.EMPTY_STRING_ARRAY;
+		}
+		else {
+			return sessionFactory.getFetchPatternDetector().getFetchPatternDescriptions();
+		}
+	}
+
 	public void endTransaction(boolean success) {
-		transactionCount.getAndIncrement();
+		transactionCount.increment();
 		if ( success ) {
-			committedTransactionCount.getAndIncrement();
+			committedTransactionCount.increment();
 		}
 	}
 
@@ -649,11 +749,11 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void closeStatement() {
-		closeStatementCount.getAndIncrement();
+		closeStatementCount.increment();
 	}
 
 	public void prepareStatement() {
-		prepareStatementCount.getAndIncrement();
+		prepareStatementCount.increment();
 	}
 
 	public long getCloseStatementCount() {
@@ -665,7 +765,7 @@ public class ConcurrentStatisticsImpl implements Statistics, StatisticsImplement
 	}
 
 	public void optimisticFailure(String entityName) {
-		optimisticFailureCount.getAndIncrement();
+		optimisticFailureCount.increment();
 		( (ConcurrentEntityStatisticsImpl) getEntityStatistics( entityName ) ).incrementOptimisticFailureCount();
 	}
 
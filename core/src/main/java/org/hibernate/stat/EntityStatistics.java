@@ -45,4 +45,11 @@ public interface EntityStatistics extends Serializable {
 
 	long getOptimisticFailureCount();
 
+	/**
+	 * Get a percentile of the times taken loading this entity by id from the database, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	long getLoadTimePercentile(double percentile);
+
 }
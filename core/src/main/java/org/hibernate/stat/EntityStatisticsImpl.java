@@ -42,6 +42,7 @@ public class EntityStatisticsImpl extends CategorizedStatistics implements Entit
 	long deleteCount;
 	long fetchCount;
 	long optimisticFailureCount;
+	final LatencyHistogram loadTimes = new LatencyHistogram( 0, LatencyHistogram.CATEGORY_PRECISION );
 
 	public long getDeleteCount() {
 		return deleteCount;
@@ -67,6 +68,10 @@ public class EntityStatisticsImpl extends CategorizedStatistics implements Entit
 		return optimisticFailureCount;
 	}
 
+	public long getLoadTimePercentile(double percentile) {
+		return loadTimes.getPercentile( percentile );
+	}
+
 	public String toString() {
 		return new StringBuilder()
 				.append("EntityStatistics")
@@ -0,0 +1,224 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.stat;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations (in microseconds) from which percentiles can be read.
+ * <p/>
+ * Each power of two is split into <tt>2^precision</tt> buckets, which bounds the error of a
+ * reported percentile to <tt>1/2^precision</tt> whatever the magnitude of the value (the same
+ * log-linear layout HDR histograms use); values below <tt>2^(precision+1)</tt> are counted
+ * exactly.  Percentiles report the highest value their bucket can hold.  The global histograms
+ * use a precision of {@link #GLOBAL_PRECISION} (280 buckets), those kept per query, entity and
+ * collection role {@link #CATEGORY_PRECISION} (144 buckets).  The buckets of a histogram (or of
+ * a window segment) are only allocated once a duration is recorded in it.
+ * <p/>
+ * Given a window, only recordings from roughly the last <tt>window</tt> ms are reported: the
+ * window is split into {@link #SEGMENTS} segments which are recycled in turn as time passes.
+ * Without a window, everything recorded since the last {@link #clear} is reported.
+ *
+ * @author agent
+ */
+final class LatencyHistogram implements Serializable {
+	static final int SEGMENTS = 4;
+
+	/**
+	 * Within 12.5%.
+	 */
+	static final int GLOBAL_PRECISION = 3;
+	/**
+	 * Within 25%.
+	 */
+	static final int CATEGORY_PRECISION = 2;
+
+	/**
+	 * 2^36 microseconds is about 19 hours; longer durations are counted in the last bucket.
+	 */
+	private static final int MAX_MAGNITUDE = 36;
+
+	private final int subBucketBits;
+	private final int subBuckets;
+	private final int exactValues;
+	private final int minMagnitude;
+	private final int buckets;
+
+	private final long segmentLength;
+	private final Segment[] segments;
+
+	/**
+	 * Create a histogram.
+	 *
+	 * @param window The length (in ms) of the rolling window to report on; <tt>0</tt> to report on
+	 * everything recorded since the last {@link #clear}.
+	 * @param precision The number of bits splitting each power of two into buckets.
+	 */
+	LatencyHistogram(long window, int precision) {
+		subBucketBits = precision;
+		subBuckets = 1 << precision;
+		exactValues = subBuckets << 1;
+		minMagnitude = precision + 1;
+		buckets = exactValues + ( MAX_MAGNITUDE - minMagnitude + 1 ) * subBuckets;
+		if ( window > 0 ) {
+			segmentLength = Math.max( 1, window / SEGMENTS );
+			segments = new Segment[SEGMENTS];
+		}
+		else {
+			segmentLength = 0;
+			segments = new Segment[1];
+		}
+		for ( int i = 0; i < segments.length; i++ ) {
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Record a duration.
+	 *
+	 * @param time The duration, in microseconds.
+	 */
+	void record(long time) {
+		int bucket = bucketIndex( time );
+		if ( segmentLength == 0 ) {
+			segments[0].counts( buckets ).incrementAndGet( bucket );
+		}
+		else {
+			long epoch = System.currentTimeMillis() / segmentLength;
+			currentSegment( epoch ).counts( buckets ).incrementAndGet( bucket );
+		}
+	}
+
+	/**
+	 * Get the value below which the given percentage of recorded durations fall.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (50 for the median, 99.9 for p999)
+	 *
+	 * @return The percentile value in microseconds, or 0 if nothing was recorded.
+	 */
+	long getPercentile(double percentile) {
+		long[] counts = new long[buckets];
+		long total = 0;
+		long oldestEpoch = segmentLength == 0 ? 0 : System.currentTimeMillis() / segmentLength - SEGMENTS + 1;
+		for ( int i = 0; i < segments.length; i++ ) {
+			Segment segment = segments[i];
+			AtomicLongArray segmentCounts = segment.counts;
+			if ( segmentCounts == null || ( segmentLength > 0 && segment.epoch < oldestEpoch ) ) {
+				continue;
+			}
+			for ( int j = 0; j < buckets; j++ ) {
+				long count = segmentCounts.get( j );
+				counts[j] += count;
+				total += count;
+			}
+		}
+		if ( total == 0 ) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil( total * Math.min( 100, Math.max( 0, percentile ) ) / 100 );
+		long seen = 0;
+		for ( int j = 0; j < buckets; j++ ) {
+			seen += counts[j];
+			if ( seen >= rank && seen > 0 ) {
+				return highestValue( j );
+			}
+		}
+		return highestValue( buckets - 1 );
+	}
+
+	void clear() {
+		for ( int i = 0; i < segments.length; i++ ) {
+			segments[i].reset( segments[i].epoch );
+		}
+	}
+
+	private Segment currentSegment(long epoch) {
+		Segment segment = segments[(int) ( epoch % SEGMENTS )];
+		if ( segment.epoch != epoch ) {
+			synchronized ( segment ) {
+				if ( segment.epoch < epoch ) {
+					segment.reset( epoch );
+				}
+			}
+		}
+		return segment;
+	}
+
+	int bucketIndex(long value) {
+		if ( value < exactValues ) {
+			return value < 0 ? 0 : (int) value;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros( value );
+		if ( magnitude > MAX_MAGNITUDE ) {
+			return buckets - 1;
+		}
+		int subBucket = (int) ( value >>> ( magnitude - subBucketBits ) ) & ( subBuckets - 1 );
+		return exactValues + ( magnitude - minMagnitude ) * subBuckets + subBucket;
+	}
+
+	long highestValue(int bucketIndex) {
+		if ( bucketIndex < exactValues ) {
+			return bucketIndex;
+		}
+		int magnitude = ( bucketIndex - exactValues ) / subBuckets + minMagnitude;
+		int subBucket = ( bucketIndex - exactValues ) % subBuckets;
+		long bucketWidth = 1L << ( magnitude - subBucketBits );
+		return ( 1L << magnitude ) + subBucket * bucketWidth + bucketWidth - 1;
+	}
+
+	int getBucketCount() {
+		return buckets;
+	}
+
+	private static final class Segment implements Serializable {
+		private volatile AtomicLongArray counts;
+		private volatile long epoch;
+
+		private AtomicLongArray counts(int buckets) {
+			AtomicLongArray result = counts;
+			if ( result == null ) {
+				synchronized ( this ) {
+					result = counts;
+					if ( result == null ) {
+						result = new AtomicLongArray( buckets );
+						counts = result;
+					}
+				}
+			}
+			return result;
+		}
+
+		private void reset(long epoch) {
+			AtomicLongArray current = counts;
+			if ( current != null ) {
+				for ( int i = 0; i < current.length(); i++ ) {
+					current.set( i, 0 );
+				}
+			}
+			this.epoch = epoch;
+		}
+	}
+}
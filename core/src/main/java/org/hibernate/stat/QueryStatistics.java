@@ -50,4 +50,11 @@ public interface QueryStatistics extends Serializable {
 	long getExecutionMaxTime();
 
 	long getExecutionMinTime();
+
+	/**
+	 * Get a percentile of this query's execution times, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	long getExecutionTimePercentile(double percentile);
 }
@@ -44,6 +44,7 @@ public class QueryStatisticsImpl extends CategorizedStatistics implements QueryS
 	private long executionAvgTime;
 	private long executionMaxTime;
 	private long executionMinTime = Long.MAX_VALUE;
+	private final LatencyHistogram executionTimes = new LatencyHistogram( 0, LatencyHistogram.CATEGORY_PRECISION );
 
 	QueryStatisticsImpl(String query) {
 		super(query);
@@ -105,18 +106,24 @@ public class QueryStatisticsImpl extends CategorizedStatistics implements QueryS
 		return executionMinTime;
 	}
 
+	public long getExecutionTimePercentile(double percentile) {
+		return executionTimes.getPercentile( percentile );
+	}
+
 	/**
 	 * add statistics report of a DB query
 	 *
 	 * @param rows rows count returned
-	 * @param time time taken
+	 * @param time time taken, in ms
+	 * @param micros time taken, in microseconds
 	 */
-	void executed(long rows, long time) {
+	void executed(long rows, long time, long micros) {
 		if (time < executionMinTime) executionMinTime = time;
 		if (time > executionMaxTime) executionMaxTime = time;
 		executionAvgTime = (executionAvgTime * executionCount + time) / (executionCount + 1);
 		executionCount++;
 		executionRowCount += rows;
+		executionTimes.record( micros );
 	}
 
 	public String toString() {
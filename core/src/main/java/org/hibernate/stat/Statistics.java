@@ -113,6 +113,30 @@ public interface Statistics {
 	 * Get the query string for the slowest query.
 	 */
 	public String getQueryExecutionMaxTimeQueryString();
+	/**
+	 * Get a percentile of query execution times, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	public long getQueryExecutionTimePercentile(double percentile);
+	/**
+	 * Get a percentile of the times taken loading entities by id from the database, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	public long getEntityLoadTimePercentile(double percentile);
+	/**
+	 * Get a percentile of collection fetch times, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	public long getCollectionFetchTimePercentile(double percentile);
+	/**
+	 * Get a percentile of flush times, in microseconds.
+	 *
+	 * @param percentile The percentile, between 0 and 100 (eg 99.9 for the p999)
+	 */
+	public long getFlushTimePercentile(double percentile);
 
     /**
      * Get the global number of cached queries successfully retrieved from cache
@@ -210,6 +234,13 @@ public interface Statistics {
 	 * Get all second-level cache region names
 	 */
 	public String[] getSecondLevelCacheRegionNames();
+	/**
+	 * Get a description of each role found being lazily initialized one at a time
+	 * after the same query (N+1 selects), if fetch pattern detection is enabled
+	 *
+	 * @see org.hibernate.cfg.Environment#DETECT_FETCH_PATTERNS
+	 */
+	public String[] getFetchPatterns();
 	/**
 	 * The number of transactions we know to have been successful
 	 */
@@ -84,6 +84,11 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	private long transactionCount;
 	
 	private long optimisticFailureCount;
+
+	private final LatencyHistogram queryExecutionTimes = new LatencyHistogram( 0, LatencyHistogram.GLOBAL_PRECISION );
+	private final LatencyHistogram entityLoadTimes = new LatencyHistogram( 0, LatencyHistogram.GLOBAL_PRECISION );
+	private final LatencyHistogram collectionFetchTimes = new LatencyHistogram( 0, LatencyHistogram.GLOBAL_PRECISION );
+	private final LatencyHistogram flushTimes = new LatencyHistogram( 0, LatencyHistogram.GLOBAL_PRECISION );
 	
 	/** second level cache statistics per region */
 	private final Map secondLevelCacheStatistics = new HashMap();
@@ -142,6 +147,11 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		commitedTransactionCount = 0;
 		
 		optimisticFailureCount = 0;
+
+		queryExecutionTimes.clear();
+		entityLoadTimes.clear();
+		collectionFetchTimes.clear();
+		flushTimes.clear();
 		
 		secondLevelCacheStatistics.clear();
 		entityStatistics.clear();
@@ -162,6 +172,11 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	public synchronized void flush() {
 		flushCount++;
 	}
+
+	public synchronized void flush(long time) {
+		flush();
+		flushTimes.record( time / 1000 );
+	}
 	
 	public synchronized void connect() {
 		connectCount++;
@@ -177,6 +192,12 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		((EntityStatisticsImpl) getEntityStatistics(entityName)).fetchCount++;
 	}
 
+	public synchronized void entityLoaded(String entityName, long time) {
+		long micros = time / 1000;
+		entityLoadTimes.record( micros );
+		((EntityStatisticsImpl) getEntityStatistics(entityName)).loadTimes.record( micros );
+	}
+
 	/**
 	 * find entity statistics per name
 	 * 
@@ -235,6 +256,13 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		((CollectionStatisticsImpl) getCollectionStatistics(role)).fetchCount++;
 	}
 
+	public synchronized void fetchCollection(String role, long time) {
+		fetchCollection( role );
+		long micros = time / 1000;
+		collectionFetchTimes.record( micros );
+		((CollectionStatisticsImpl) getCollectionStatistics(role)).fetchTimes.record( micros );
+	}
+
 	public synchronized void updateCollection(String role) {
 		collectionUpdateCount++;
 		((CollectionStatisticsImpl) getCollectionStatistics(role)).updateCount++;
@@ -287,15 +315,22 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		((SecondLevelCacheStatisticsImpl) getSecondLevelCacheStatistics(regionName)).missCount++;
 	}
 
-	public synchronized void queryExecuted(String hql, int rows, long time) {
+	public void queryExecuted(String hql, int rows, long time) {
+		queryExecutedNanos( hql, rows, time * 1000000 );
+	}
+
+	public synchronized void queryExecutedNanos(String hql, int rows, long nanos) {
+		long time = nanos / 1000000;
+		long micros = nanos / 1000;
 		queryExecutionCount++;
+		queryExecutionTimes.record( micros );
 		if (queryExecutionMaxTime<time) {
 			queryExecutionMaxTime=time;
 			queryExecutionMaxTimeQueryString = hql;
 		}
 		if (hql!=null) {
 			QueryStatisticsImpl qs = (QueryStatisticsImpl) getQueryStatistics(hql);
-			qs.executed(rows, time);
+			qs.executed(rows, time, micros);
 			log.info( "HQL: {}, time: {}ms, rows: {}", new Object[]{hql, new Long( time ), new Long( rows )} );
 		}
 	}
@@ -551,6 +586,18 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 		return ArrayHelper.toStringArray( queryStatistics.keySet() );
 	}
 	
+	/**
+	 * Get a description of each detected fetch pattern
+	 */
+	public String[] getFetchPatterns() {
+		if ( sessionFactory == null || sessionFactory.getFetchPatternDetector() == null ) {
+			return ArrayHelper.EMPTY_STRING_ARRAY;
+		}
+		else {
+			return sessionFactory.getFetchPatternDetector().getFetchPatternDescriptions();
+		}
+	}
+
 	/**
 	 * Get the names of all entities
 	 */
@@ -662,5 +709,21 @@ public class StatisticsImpl implements Statistics, StatisticsImplementor {
 	public String getQueryExecutionMaxTimeQueryString() {
 		return queryExecutionMaxTimeQueryString;
 	}
-	
-}
+
+	public long getQueryExecutionTimePercentile(double percentile) {
+		return queryExecutionTimes.getPercentile( percentile );
+	}
+
+	public long getEntityLoadTimePercentile(double percentile) {
+		return entityLoadTimes.getPercentile( percentile );
+	}
+
+	public long getCollectionFetchTimePercentile(double percentile) {
+		return collectionFetchTimes.getPercentile( percentile );
+	}
+
+	public long getFlushTimePercentile(double percentile) {
+		return flushTimes.getPercentile( percentile );
+	}
+
+}
\ No newline at end of file
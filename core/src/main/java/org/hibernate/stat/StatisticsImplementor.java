@@ -45,6 +45,13 @@ public interface StatisticsImplementor {
 	 */
 	public void flush();
 
+	/**
+	 * Callback about a flush occurring, along with the time it took.
+	 *
+	 * @param time The time taken by the flush, in nanoseconds.
+	 */
+	public void flush(long time);
+
 	/**
 	 * Callback about a connection being obtained from {@link org.hibernate.connection.ConnectionProvider}
 	 */
@@ -83,6 +90,16 @@ public interface StatisticsImplementor {
 	 */
 	public void fetchEntity(String entityName);
 
+	/**
+	 * Callback about an entity having been loaded by id from the database, along with the time
+	 * it took.  Counts are kept by {@link #loadEntity} and {@link #fetchEntity}; this only
+	 * records the latency.
+	 *
+	 * @param entityName The name of the entity loaded.
+	 * @param time The time taken by the load, in nanoseconds.
+	 */
+	public void entityLoaded(String entityName, long time);
+
 	/**
 	 * Callback about an entity being updated.
 	 *
@@ -127,6 +144,14 @@ public interface StatisticsImplementor {
 	 */
 	public void fetchCollection(String role);
 
+	/**
+	 * Callback about a collection fetching, along with the time it took.
+	 *
+	 * @param role The collection role.
+	 * @param time The time taken by the fetch, in nanoseconds.
+	 */
+	public void fetchCollection(String role, long time);
+
 	/**
 	 * Callback indicating a collection was updated.
 	 *
@@ -201,4 +226,14 @@ public interface StatisticsImplementor {
 	 * @param time execution time
 	 */
 	public void queryExecuted(String hql, int rows, long time);
+
+	/**
+	 * Callback indicating execution of a sql/hql query, timed precisely enough for its
+	 * execution time percentiles.
+	 *
+	 * @param hql The query
+	 * @param rows Number of rows returned
+	 * @param time execution time, in nanoseconds
+	 */
+	public void queryExecutedNanos(String hql, int rows, long time);
 }
\ No newline at end of file
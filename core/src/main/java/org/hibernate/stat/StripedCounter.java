@@ -0,0 +1,95 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.stat;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which spreads its updates over several cells, selected per thread, so that threads
+ * updating the same statistic do not keep invalidating each other's cache line.  Reads sum the
+ * cells, so a value read while updates are in flight is only approximate.
+ * <p/>
+ * The number of stripes is chosen from the processors of the JVM creating the counter, and is
+ * kept with the cells, so a counter deserialized in another JVM keeps its own layout.
+ *
+ * @author agent
+ */
+final class StripedCounter implements Serializable {
+	/**
+	 * Cells are spaced this many longs apart so that no two share a (64 byte) cache line.
+	 */
+	private static final int SPACING = 8;
+
+	private final int stripes;
+	private final AtomicLongArray cells;
+
+	StripedCounter() {
+		this( Runtime.getRuntime().availableProcessors() );
+	}
+
+	StripedCounter(int processors) {
+		stripes = stripeCount( processors );
+		cells = new AtomicLongArray( stripes * SPACING );
+	}
+
+	void increment() {
+		add( 1 );
+	}
+
+	void add(long delta) {
+		cells.addAndGet( cellIndex(), delta );
+	}
+
+	long get() {
+		long sum = 0;
+		for ( int i = 0; i < stripes; i++ ) {
+			sum += cells.get( i * SPACING );
+		}
+		return sum;
+	}
+
+	void reset() {
+		for ( int i = 0; i < stripes; i++ ) {
+			cells.set( i * SPACING, 0 );
+		}
+	}
+
+	public String toString() {
+		return Long.toString( get() );
+	}
+
+	private int cellIndex() {
+		// thread ids are handed out sequentially, which spreads active threads evenly over the cells
+		return ( (int) Thread.currentThread().getId() & ( stripes - 1 ) ) * SPACING;
+	}
+
+	private static int stripeCount(int processors) {
+		int stripes = 1;
+		while ( stripes < processors && stripes < 16 ) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.tuple;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.bytecode.BytecodeProvider;
+import org.hibernate.property.BasicPropertyAccessor;
+import org.hibernate.property.DirectPropertyAccessor;
+import org.hibernate.property.Getter;
+import org.hibernate.property.Setter;
+import org.hibernate.util.ArrayHelper;
+import org.hibernate.util.StringHelper;
+
+/**
+ * Works out which POJO properties can be handed to a generated accessor (see
+ * {@link BytecodeProvider#getReflectionOptimizer}).  Properties using the basic (getter/setter)
+ * or direct (field) accessors are eligible as long as the generated class will be able to reach
+ * the underlying members; everything else is left to its {@link Getter} and {@link Setter}.
+ *
+ * @author agent
+ */
+public final class ReflectionOptimizerHelper {
+
+	private ReflectionOptimizerHelper() {
+	}
+
+	/**
+	 * Fill in the accessor names to pass to the bytecode provider.
+	 *
+	 * @param mappedClass The class whose properties are accessed.
+	 * @param getters The property getters.
+	 * @param setters The property setters.
+	 * @param getterNames The getter names to fill in; <tt>null</tt> for properties which are not eligible.
+	 * @param setterNames The setter names to fill in; <tt>null</tt> for properties which are not eligible.
+	 * @return The indexes of the properties which are not eligible, and so must still be accessed
+	 * through their getters and setters.
+	 */
+	public static int[] resolveAccessorNames(
+			Class mappedClass,
+			Getter[] getters,
+			Setter[] setters,
+			String[] getterNames,
+			String[] setterNames) {
+		List reflected = new ArrayList();
+		for ( int i = 0; i < getters.length; i++ ) {
+			String getterName = getAccessorName( mappedClass, getterMember( getters[i] ) );
+			String setterName = getAccessorName( mappedClass, setterMember( setters[i] ) );
+			if ( getterName == null || setterName == null ) {
+				reflected.add( new Integer( i ) );
+			}
+			else {
+				getterNames[i] = getterName;
+				setterNames[i] = setterName;
+			}
+		}
+		return ArrayHelper.toIntArray( reflected );
+	}
+
+	private static Member getterMember(Getter getter) {
+		if ( getter instanceof BasicPropertyAccessor.BasicGetter
+				|| getter instanceof DirectPropertyAccessor.DirectGetter ) {
+			return getter.getMember();
+		}
+		return null;
+	}
+
+	private static Member setterMember(Setter setter) {
+		if ( setter instanceof BasicPropertyAccessor.BasicSetter ) {
+			return setter.getMethod();
+		}
+		else if ( setter instanceof DirectPropertyAccessor.DirectSetter ) {
+			return ( ( DirectPropertyAccessor.DirectSetter ) setter ).getMember();
+		}
+		return null;
+	}
+
+	private static String getAccessorName(Class mappedClass, Member member) {
+		if ( member == null || !isAccessible( mappedClass, member ) ) {
+			return null;
+		}
+		if ( member instanceof Field ) {
+			if ( Modifier.isStatic( member.getModifiers() ) || Modifier.isFinal( member.getModifiers() ) ) {
+				return null;
+			}
+			return BytecodeProvider.FIELD_ACCESS_PREFIX + member.getName();
+		}
+		return ( ( Method ) member ).getName();
+	}
+
+	private static boolean isAccessible(Class mappedClass, Member member) {
+		int modifiers = member.getModifiers();
+		if ( Modifier.isPublic( modifiers ) ) {
+			return true;
+		}
+		if ( Modifier.isPrivate( modifiers ) ) {
+			return false;
+		}
+		// the generated accessor lives in the package of the mapped class, so protected and
+		// package-private members are only reachable when declared in that same package
+		Class declaringClass = member.getDeclaringClass();
+		return declaringClass.getClassLoader() == mappedClass.getClassLoader()
+				&& StringHelper.qualifier( declaringClass.getName() ).equals( StringHelper.qualifier( mappedClass.getName() ) );
+	}
+}
@@ -42,6 +42,7 @@ import org.hibernate.property.PropertyAccessorFactory;
 import org.hibernate.property.Setter;
 import org.hibernate.tuple.Instantiator;
 import org.hibernate.tuple.PojoInstantiator;
+import org.hibernate.tuple.ReflectionOptimizerHelper;
 import org.hibernate.util.ReflectHelper;
 
 /**
@@ -53,6 +54,7 @@ import org.hibernate.util.ReflectHelper;
 public class PojoComponentTuplizer extends AbstractComponentTuplizer {
 	private final Class componentClass;
 	private ReflectionOptimizer optimizer;
+	private final int[] reflectedProperties;
 	private final Getter parentGetter;
 	private final Setter parentSetter;
 
@@ -65,10 +67,11 @@ public class PojoComponentTuplizer extends AbstractComponentTuplizer {
 		String[] setterNames = new String[propertySpan];
 		Class[] propTypes = new Class[propertySpan];
 		for ( int i = 0; i < propertySpan; i++ ) {
-			getterNames[i] = getters[i].getMethodName();
-			setterNames[i] = setters[i].getMethodName();
 			propTypes[i] = getters[i].getReturnType();
 		}
+		reflectedProperties = ReflectionOptimizerHelper.resolveAccessorNames(
+				componentClass, getters, setters, getterNames, setterNames
+		);
 
 		final String parentPropertyName = component.getParentProperty();
 		if ( parentPropertyName == null ) {
@@ -81,7 +84,7 @@ public class PojoComponentTuplizer extends AbstractComponentTuplizer {
 			parentGetter = pa.getGetter( componentClass, parentPropertyName );
 		}
 
-		if ( hasCustomAccessors || !Environment.useReflectionOptimizer() ) {
+		if ( !Environment.useReflectionOptimizer() ) {
 			optimizer = null;
 		}
 		else {
@@ -102,7 +105,12 @@ public class PojoComponentTuplizer extends AbstractComponentTuplizer {
 			return new Object[propertySpan];
 		}
 		if ( optimizer != null && optimizer.getAccessOptimizer() != null ) {
-			return optimizer.getAccessOptimizer().getPropertyValues( component );
+			Object[] values = optimizer.getAccessOptimizer().getPropertyValues( component );
+			for ( int i = 0; i < reflectedProperties.length; i++ ) {
+				final int index = reflectedProperties[i];
+				values[index] = getters[index].get( component );
+			}
+			return values;
 		}
 		else {
 			return super.getPropertyValues( component );
@@ -112,6 +120,10 @@ public class PojoComponentTuplizer extends AbstractComponentTuplizer {
 	public void setPropertyValues(Object component, Object[] values) throws HibernateException {
 		if ( optimizer != null && optimizer.getAccessOptimizer() != null ) {
 			optimizer.getAccessOptimizer().setPropertyValues( component, values );
+			for ( int i = 0; i < reflectedProperties.length; i++ ) {
+				final int index = reflectedProperties[i];
+				setters[index].set( component, values[index], null );
+			}
 		}
 		else {
 			super.setPropertyValues( component, values );
@@ -54,6 +54,7 @@ import org.hibernate.proxy.HibernateProxy;
 import org.hibernate.proxy.ProxyFactory;
 import org.hibernate.tuple.Instantiator;
 import org.hibernate.tuple.PojoInstantiator;
+import org.hibernate.tuple.ReflectionOptimizerHelper;
 import org.hibernate.type.CompositeType;
 import org.hibernate.util.ReflectHelper;
 
@@ -72,6 +73,7 @@ public class PojoEntityTuplizer extends AbstractEntityTuplizer {
 	private final boolean validatableImplementor;
 	private final Set lazyPropertyNames = new HashSet();
 	private final ReflectionOptimizer optimizer;
+	private final int[] reflectedProperties;
 
 	public PojoEntityTuplizer(EntityMetamodel entityMetamodel, PersistentClass mappedEntity) {
 		super( entityMetamodel, mappedEntity );
@@ -92,12 +94,15 @@ public class PojoEntityTuplizer extends AbstractEntityTuplizer {
 		String[] setterNames = new String[propertySpan];
 		Class[] propTypes = new Class[propertySpan];
 		for ( int i = 0; i < propertySpan; i++ ) {
-			getterNames[i] = getters[i].getMethodName();
-			setterNames[i] = setters[i].getMethodName();
 			propTypes[i] = getters[i].getReturnType();
 		}
+		// properties the generated accessor cannot reach (custom accessors, private members)
+		// keep going through their getters and setters
+		reflectedProperties = ReflectionOptimizerHelper.resolveAccessorNames(
+				mappedClass, getters, setters, getterNames, setterNames
+		);
 
-		if ( hasCustomAccessors || !Environment.useReflectionOptimizer() ) {
+		if ( !Environment.useReflectionOptimizer() ) {
 			optimizer = null;
 		}
 		else {
@@ -247,7 +252,12 @@ public class PojoEntityTuplizer extends AbstractEntityTuplizer {
 	 */
 	public Object[] getPropertyValuesToInsert(Object entity, Map mergeMap, SessionImplementor session) throws HibernateException {
 		if ( shouldGetAllProperties( entity ) && optimizer != null && optimizer.getAccessOptimizer() != null ) {
-			return getPropertyValuesWithOptimizer( entity );
+			Object[] values = optimizer.getAccessOptimizer().getPropertyValues( entity );
+			for ( int i = 0; i < reflectedProperties.length; i++ ) {
+				final int index = reflectedProperties[i];
+				values[index] = getters[index].getForInsert( entity, mergeMap, session );
+			}
+			return values;
 		}
 		else {
 			return super.getPropertyValuesToInsert( entity, mergeMap, session );
@@ -256,10 +266,19 @@ public class PojoEntityTuplizer extends AbstractEntityTuplizer {
 
 	protected void setPropertyValuesWithOptimizer(Object object, Object[] values) {
 		optimizer.getAccessOptimizer().setPropertyValues( object, values );
+		for ( int i = 0; i < reflectedProperties.length; i++ ) {
+			final int index = reflectedProperties[i];
+			setters[index].set( object, values[index], getFactory() );
+		}
 	}
 
 	protected Object[] getPropertyValuesWithOptimizer(Object object) {
-		return optimizer.getAccessOptimizer().getPropertyValues( object );
+		Object[] values = optimizer.getAccessOptimizer().getPropertyValues( object );
+		for ( int i = 0; i < reflectedProperties.length; i++ ) {
+			final int index = reflectedProperties[i];
+			values[index] = getters[index].get( object );
+		}
+		return values;
 	}
 
 	/**
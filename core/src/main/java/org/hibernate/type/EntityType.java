@@ -159,6 +159,16 @@ public abstract class EntityType extends AbstractType implements AssociationType
 		return null;
 	}
 
+	/**
+	 * Is the associated entity loaded immediately when this type is resolved,
+	 * rather than represented by a proxy?
+	 *
+	 * @return True if resolution loads the associated entity.
+	 */
+	public boolean isEager() {
+		return eager;
+	}
+
 	/**
 	 * The name of the associated entity.
 	 *
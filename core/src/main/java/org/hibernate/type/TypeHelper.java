@@ -270,6 +270,10 @@ public class TypeHelper {
 	 * indices of the dirty fields.
 	 * <p/>
 	 * If it is determined that no fields are dirty, null is returned.
+	 * <p/>
+	 * A property whose current value is the same reference as its baseline value is not dirty, and its type is
+	 * not asked.  Primitive properties are compared through their boxed values, as both states are the
+	 * <tt>Object[]</tt> arrays shared with the entity entry, the flush events and the interceptors.
 	 *
 	 * @param properties The property definitions
 	 * @param currentState The current state of the entity
@@ -294,6 +298,9 @@ public class TypeHelper {
 		for ( int i = 0; i < span; i++ ) {
 			final boolean dirty = currentState[i] != LazyPropertyInitializer.UNFETCHED_PROPERTY
 					&& properties[i].isDirtyCheckable( anyUninitializedProperties )
+					// the snapshot shares references with the entity for immutable values (and
+					// cached boxes), so an identical reference is unchanged without asking the type
+					&& currentState[i] != previousState[i]
 					&& properties[i].getType().isDirty( previousState[i], currentState[i], includeColumns[i], session );
 			if ( dirty ) {
 				if ( results == null ) {
@@ -24,6 +24,7 @@
  */
 package org.hibernate.util;
 
+import java.io.Serializable;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -251,6 +252,40 @@ public final class ArrayHelper {
 	public static final Object[] EMPTY_OBJECT_ARRAY = {};
 	public static final Type[] EMPTY_TYPE_ARRAY = {};
 	
+	/**
+	 * The maximum number of values bound by a single multi-value <tt>in</tt>-list select.
+	 */
+	public static final int MAX_MULTI_LOAD_SIZE = 50;
+	private static final int[] MULTI_LOAD_SIZES = getBatchSizes( MAX_MULTI_LOAD_SIZE );
+
+	/**
+	 * Split the given values into chunks to be bound by multi-value <tt>in</tt>-list
+	 * selects.  Each chunk has the smallest of the {@link #getBatchSizes batch sizes}
+	 * which holds the remaining values, padded by repeating its first value, so that
+	 * one select is issued per chunk and only a few distinct selects are needed.
+	 *
+	 * @param values The values to split
+	 * @return The chunks, of at most {@link #MAX_MULTI_LOAD_SIZE} values each
+	 */
+	public static Serializable[][] getMultiLoadChunks(Serializable[] values) {
+		List chunks = new ArrayList();
+		int loaded = 0;
+		while ( loaded < values.length ) {
+			final int remaining = values.length - loaded;
+			int size = MULTI_LOAD_SIZES[0];
+			for ( int i = 0; i < MULTI_LOAD_SIZES.length && MULTI_LOAD_SIZES[i] >= remaining; i++ ) {
+				size = MULTI_LOAD_SIZES[i];
+			}
+			final int count = Math.min( size, remaining );
+			Serializable[] chunk = new Serializable[size];
+			System.arraycopy( values, loaded, chunk, 0, count );
+			Arrays.fill( chunk, count, size, values[loaded] );
+			chunks.add( chunk );
+			loaded += count;
+		}
+		return ( Serializable[][] ) chunks.toArray( new Serializable[ chunks.size() ][] );
+	}
+
 	public static int[] getBatchSizes(int maxBatchSize) {
 		int batchSize = maxBatchSize;
 		int n=1;
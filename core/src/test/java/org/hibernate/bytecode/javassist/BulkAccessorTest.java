@@ -0,0 +1,144 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.bytecode.javassist;
+
+import junit.framework.TestCase;
+
+import org.hibernate.bytecode.BytecodeProvider;
+import org.hibernate.property.DirectPropertyAccessor;
+import org.hibernate.property.Getter;
+import org.hibernate.property.PropertyAccessor;
+import org.hibernate.property.Setter;
+import org.hibernate.tuple.ReflectionOptimizerHelper;
+
+/**
+ * Tests of the generated {@link BulkAccessor}, mainly its direct field access.
+ *
+ * @author agent
+ */
+public class BulkAccessorTest extends TestCase {
+	public static class Bean {
+		String name;
+		int count;
+		long total;
+		boolean active;
+		private String hidden;
+		private double ratio;
+
+		public double getRatio() {
+			return ratio;
+		}
+
+		public void setRatio(double ratio) {
+			this.ratio = ratio;
+		}
+	}
+
+	public void testFieldAndMethodAccess() {
+		String[] getters = new String[] { field( "name" ), field( "count" ), field( "total" ), "getRatio" };
+		String[] setters = new String[] { field( "name" ), field( "count" ), field( "total" ), "setRatio" };
+		Class[] types = new Class[] { String.class, int.class, long.class, double.class };
+		BulkAccessor accessor = BulkAccessor.create( Bean.class, getters, setters, types );
+
+		Bean bean = new Bean();
+		accessor.setPropertyValues( bean, new Object[] { "x", new Integer( 3 ), new Long( 1L << 40 ), new Double( 0.5 ) } );
+		assertEquals( "x", bean.name );
+		assertEquals( 3, bean.count );
+		assertEquals( 1L << 40, bean.total );
+		assertEquals( 0.5, bean.getRatio(), 0 );
+
+		Object[] values = accessor.getPropertyValues( bean );
+		assertEquals( "x", values[0] );
+		assertEquals( new Integer( 3 ), values[1] );
+		assertEquals( new Long( 1L << 40 ), values[2] );
+		assertEquals( new Double( 0.5 ), values[3] );
+	}
+
+	public void testPrimitivesBoxedThroughValueOf() {
+		BulkAccessor accessor = BulkAccessor.create(
+				Bean.class,
+				new String[] { field( "active" ), field( "count" ) },
+				new String[] { field( "active" ), field( "count" ) },
+				new Class[] { boolean.class, int.class }
+		);
+		Bean bean = new Bean();
+		bean.active = true;
+		bean.count = 42;
+
+		// cached boxes keep unchanged values identical to their snapshot
+		Object[] first = accessor.getPropertyValues( bean );
+		Object[] second = accessor.getPropertyValues( bean );
+		assertSame( Boolean.TRUE, first[0] );
+		assertSame( first[1], second[1] );
+	}
+
+	public void testSkippedProperties() {
+		String[] getters = new String[] { field( "name" ), null };
+		String[] setters = new String[] { field( "name" ), null };
+		Class[] types = new Class[] { String.class, int.class };
+		BulkAccessor accessor = BulkAccessor.create( Bean.class, getters, setters, types );
+
+		Bean bean = new Bean();
+		bean.count = 7;
+		accessor.setPropertyValues( bean, new Object[] { "y", new Integer( 1 ) } );
+		assertEquals( "y", bean.name );
+		assertEquals( 7, bean.count );
+		assertNull( accessor.getPropertyValues( bean )[1] );
+	}
+
+	public void testPrivateFieldRejected() {
+		try {
+			BulkAccessor.create(
+					Bean.class,
+					new String[] { field( "hidden" ) },
+					new String[] { field( "hidden" ) },
+					new Class[] { String.class }
+			);
+			fail( "private field should not be accessible to the generated accessor" );
+		}
+		catch ( BulkAccessorException expected ) {
+			assertEquals( 0, expected.getIndex() );
+		}
+	}
+
+	public void testResolveAccessorNames() {
+		PropertyAccessor accessor = new DirectPropertyAccessor();
+		Getter[] getters = new Getter[] { accessor.getGetter( Bean.class, "name" ), accessor.getGetter( Bean.class, "hidden" ) };
+		Setter[] setters = new Setter[] { accessor.getSetter( Bean.class, "name" ), accessor.getSetter( Bean.class, "hidden" ) };
+		String[] getterNames = new String[2];
+		String[] setterNames = new String[2];
+		int[] reflected = ReflectionOptimizerHelper.resolveAccessorNames( Bean.class, getters, setters, getterNames, setterNames );
+
+		assertEquals( field( "name" ), getterNames[0] );
+		assertEquals( field( "name" ), setterNames[0] );
+		assertNull( getterNames[1] );
+		assertNull( setterNames[1] );
+		assertEquals( 1, reflected.length );
+		assertEquals( 1, reflected[0] );
+	}
+
+	private static String field(String name) {
+		return BytecodeProvider.FIELD_ACCESS_PREFIX + name;
+	}
+}
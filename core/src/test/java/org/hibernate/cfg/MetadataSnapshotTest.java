@@ -0,0 +1,71 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.cfg;
+
+import java.io.File;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the MetadataSnapshot class
+ *
+ * @author agent
+ */
+public class MetadataSnapshotTest extends TestCase {
+	private File snapshotFile;
+
+	protected void setUp() throws Exception {
+		snapshotFile = File.createTempFile( "metadata", ".snapshot" );
+		snapshotFile.delete();
+	}
+
+	protected void tearDown() throws Exception {
+		snapshotFile.delete();
+	}
+
+	public void testRoundTrip() {
+		Configuration cfg = new Configuration()
+				.setProperty( Environment.DEFAULT_SCHEMA, "snapshot" )
+				.setProperty( "javax.persistence.validation.mode", "none" );
+		String hash = MetadataSnapshot.hashInputs( cfg.getProperties(), new File[0] );
+		assertNull( MetadataSnapshot.read( snapshotFile, hash ) );
+
+		MetadataSnapshot.write( cfg, hash, snapshotFile );
+		Configuration read = MetadataSnapshot.read( snapshotFile, hash );
+		assertNotNull( read );
+		assertEquals( "snapshot", read.getProperty( Environment.DEFAULT_SCHEMA ) );
+	}
+
+	public void testStaleSnapshotIgnored() {
+		Properties properties = new Properties();
+		properties.setProperty( Environment.DEFAULT_SCHEMA, "snapshot" );
+		properties.setProperty( "javax.persistence.validation.mode", "none" );
+		Configuration cfg = new Configuration().setProperties( properties );
+		MetadataSnapshot.write( cfg, MetadataSnapshot.hashInputs( properties, new File[0] ), snapshotFile );
+
+		properties.setProperty( Environment.DEFAULT_SCHEMA, "other" );
+		assertNull( MetadataSnapshot.read( snapshotFile, MetadataSnapshot.hashInputs( properties, new File[0] ) ) );
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.engine.query;
+
+import junit.framework.TestCase;
+
+import org.hibernate.Hibernate;
+import org.hibernate.type.Type;
+
+/**
+ * Unit tests of the HQLLiteralNormalizer class
+ *
+ * @author agent
+ */
+public class HQLLiteralNormalizerTest extends TestCase {
+	public void testComparisonLiteralsReplaced() {
+		HQLLiteralNormalizer.NormalizedQuery normalized = HQLLiteralNormalizer.normalize(
+				"from User u where u.id = 12 and u.userName like 'o''brien%' and u.age between 18 and 65"
+		);
+		assertNotNull( normalized );
+		assertEquals(
+				"from User u where u.id = :hibernate_literal_0 and u.userName like 'o''brien%'"
+						+ " and u.age between :hibernate_literal_1 and :hibernate_literal_2",
+				normalized.getQueryString()
+		);
+		assertEquals( "18", normalized.getLiterals()[1] );
+	}
+
+	public void testStringLiteralsKept() {
+		assertNull( HQLLiteralNormalizer.normalize( "from User u where u.userName = 'abc' or u.code in ('a', 'b')" ) );
+		assertEquals(
+				"from User u where u.userName = '1' and u.id = :hibernate_literal_0",
+				HQLLiteralNormalizer.normalize( "from User u where u.userName = '1' and u.id = 1" ).getQueryString()
+		);
+	}
+
+	public void testInListLiteralsReplaced() {
+		HQLLiteralNormalizer.NormalizedQuery normalized = HQLLiteralNormalizer.normalize(
+				"from User u where u.id in (1, 2) order by u.id"
+		);
+		assertEquals(
+				"from User u where u.id in (:hibernate_literal_0, :hibernate_literal_1) order by u.id",
+				normalized.getQueryString()
+		);
+	}
+
+	public void testLiteralsOutsideRestrictionsKept() {
+		assertNull( HQLLiteralNormalizer.normalize( "select u.name, 1 from User u" ) );
+		assertNull( HQLLiteralNormalizer.normalize( "from User u where u.id = 1L" ) );
+		assertNull( HQLLiteralNormalizer.normalize( "from User u where u.name like :name escape '!'" ) );
+		assertNull( HQLLiteralNormalizer.normalize( "from User u where u.id = ? or u.id = 3" ) );
+		assertNull( HQLLiteralNormalizer.normalize( "from User u where substring(u.name, 1, 2) = :prefix" ) );
+	}
+
+	public void testParameterValues() {
+		HQLLiteralNormalizer.NormalizedQuery normalized = HQLLiteralNormalizer.normalize(
+				"from User u where u.id = 12 and u.age > 2.5"
+		);
+		Object[] values = normalized.getParameterValues( new Type[] { Hibernate.LONG, Hibernate.DOUBLE } );
+		assertEquals( new Long( 12 ), values[0] );
+		assertEquals( new Double( 2.5 ), values[1] );
+		assertFalse( normalized.isBindable( new Type[] { Hibernate.STRING, Hibernate.DOUBLE } ) );
+		assertNull( normalized.getParameterValues( new Type[] { Hibernate.STRING, Hibernate.DOUBLE } ) );
+		assertNull( normalized.getParameterValues( new Type[] { Hibernate.LONG, Hibernate.INTEGER } ) );
+	}
+}
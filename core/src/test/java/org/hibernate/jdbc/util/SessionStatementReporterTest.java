@@ -0,0 +1,132 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.jdbc.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.hibernate.jdbc.ObservedStatementProxy;
+
+/**
+ * Unit tests of the statement observation performed when a
+ * {@link org.hibernate.jdbc.JdbcObserver} is configured.
+ *
+ * @author agent
+ */
+public class SessionStatementReporterTest extends TestCase {
+	private static final String SELECT = "select a.id from A a where a.b=?";
+	private static final String INSERT = "insert into A (id) values (?)";
+
+	public void testObservedStatements() throws Exception {
+		SessionStatementReporter reporter = new SessionStatementReporter( 3, 5 );
+
+		for ( int i = 0; i < 3; i++ ) {
+			PreparedStatement ps = ObservedStatementProxy.generateProxy( stubStatement( 2 ), SELECT, reporter );
+			ResultSet rs = ps.executeQuery();
+			while ( rs.next() ) {
+			}
+			rs.close();
+			rs.close();
+		}
+
+		PreparedStatement ps = ObservedStatementProxy.generateProxy( stubStatement( 0 ), INSERT, reporter );
+		ps.addBatch();
+		ps.addBatch();
+		ps.executeBatch();
+		ps.addBatch();
+		ps.executeBatch();
+		assertEquals( 1, ps.executeUpdate() );
+		assertEquals( ps, ps );
+
+		List summaries = reporter.getStatementSummaries();
+		assertEquals( 2, summaries.size() );
+		SessionStatementReporter.StatementSummary select = findSummary( summaries, SELECT );
+		assertEquals( 3, select.getExecutionCount() );
+		assertEquals( 6, select.getRowCount() );
+		SessionStatementReporter.StatementSummary insert = findSummary( summaries, INSERT );
+		assertEquals( 3, insert.getExecutionCount() );
+		assertEquals( 4, insert.getRowCount() );
+
+		List repeated = reporter.getRepeatedQueries();
+		assertEquals( 1, repeated.size() );
+		assertSame( select, repeated.get( 0 ) );
+		reporter.sessionClosed();
+	}
+
+	private static SessionStatementReporter.StatementSummary findSummary(List summaries, String sql) {
+		for ( int i = 0; i < summaries.size(); i++ ) {
+			SessionStatementReporter.StatementSummary summary = ( SessionStatementReporter.StatementSummary ) summaries.get( i );
+			if ( summary.getSql().equals( sql ) ) {
+				return summary;
+			}
+		}
+		fail( "no summary for " + sql );
+		return null;
+	}
+
+	private static PreparedStatement stubStatement(final int rows) {
+		return ( PreparedStatement ) Proxy.newProxyInstance(
+				PreparedStatement.class.getClassLoader(),
+				new Class[] { PreparedStatement.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if ( "executeQuery".equals( name ) ) {
+							return stubResultSet( rows );
+						}
+						if ( "executeUpdate".equals( name ) ) {
+							return new Integer( 1 );
+						}
+						if ( "executeBatch".equals( name ) ) {
+							return new int[0];
+						}
+						return null;
+					}
+				}
+		);
+	}
+
+	private static ResultSet stubResultSet(final int rows) {
+		return ( ResultSet ) Proxy.newProxyInstance(
+				ResultSet.class.getClassLoader(),
+				new Class[] { ResultSet.class },
+				new InvocationHandler() {
+					private int remaining = rows;
+
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if ( "next".equals( method.getName() ) ) {
+							return remaining-- > 0 ? Boolean.TRUE : Boolean.FALSE;
+						}
+						return null;
+					}
+				}
+		);
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.stat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the {@link LatencyHistogram} and {@link StripedCounter} used by the concurrent statistics.
+ *
+ * @author agent
+ */
+public class LatencyHistogramTest extends TestCase {
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram( 0, LatencyHistogram.GLOBAL_PRECISION );
+		assertEquals( 0, histogram.getPercentile( 50 ) );
+
+		for ( int i = 1; i <= 100; i++ ) {
+			histogram.record( i );
+		}
+		assertEquals( 10, histogram.getPercentile( 10 ) );
+		long median = histogram.getPercentile( 50 );
+		assertTrue( "median " + median, median >= 50 && median <= 50 * 1.125 );
+		long p99 = histogram.getPercentile( 99 );
+		assertTrue( "p99 " + p99, p99 >= 99 && p99 <= 99 * 1.125 );
+		assertEquals( histogram.getPercentile( 100 ), histogram.getPercentile( 99.9 ) );
+
+		histogram.clear();
+		assertEquals( 0, histogram.getPercentile( 99 ) );
+	}
+
+	public void testCategoryPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram( 0, LatencyHistogram.CATEGORY_PRECISION );
+		assertEquals( 144, histogram.getBucketCount() );
+		for ( int i = 1; i <= 1000; i++ ) {
+			histogram.record( i * 1000 );
+		}
+		long median = histogram.getPercentile( 50 );
+		assertTrue( "median " + median, median >= 500000 && median <= 500000 * 1.25 );
+	}
+
+	public void testBucketBoundaries() {
+		checkBucketBoundaries( new LatencyHistogram( 0, LatencyHistogram.GLOBAL_PRECISION ) );
+		checkBucketBoundaries( new LatencyHistogram( 0, LatencyHistogram.CATEGORY_PRECISION ) );
+	}
+
+	private void checkBucketBoundaries(LatencyHistogram histogram) {
+		for ( long value = 0; value < 10000000; value += 7 ) {
+			int bucket = histogram.bucketIndex( value );
+			assertTrue( histogram.highestValue( bucket ) >= value );
+			assertTrue( bucket == 0 || histogram.highestValue( bucket - 1 ) < value );
+		}
+		assertEquals( histogram.getBucketCount() - 1, histogram.bucketIndex( Long.MAX_VALUE ) );
+		assertEquals( histogram.bucketIndex( Long.MAX_VALUE ), histogram.bucketIndex( Long.MAX_VALUE / 2 ) );
+	}
+
+	public void testBucketsAllocatedOnFirstRecording() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram( 0, LatencyHistogram.CATEGORY_PRECISION );
+		LatencyHistogram windowed = new LatencyHistogram( 60000, LatencyHistogram.CATEGORY_PRECISION );
+		int empty = serializedSize( histogram );
+		assertTrue( serializedSize( windowed ) < empty + 200 );
+		histogram.record( 5 );
+		assertTrue( serializedSize( histogram ) > empty + 144 * 8 );
+		assertEquals( 5, ( (LatencyHistogram) copy( histogram ) ).getPercentile( 50 ) );
+	}
+
+	public void testRollingWindow() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram( 40, LatencyHistogram.GLOBAL_PRECISION );
+		histogram.record( 5 );
+		assertEquals( 5, histogram.getPercentile( 50 ) );
+		Thread.sleep( 120 );
+		assertEquals( 0, histogram.getPercentile( 50 ) );
+		histogram.record( 3 );
+		assertEquals( 3, histogram.getPercentile( 50 ) );
+	}
+
+	public void testStripedCounter() throws Exception {
+		final StripedCounter counter = new StripedCounter();
+		Thread[] threads = new Thread[4];
+		for ( int i = 0; i < threads.length; i++ ) {
+			threads[i] = new Thread() {
+				public void run() {
+					for ( int j = 0; j < 1000; j++ ) {
+						counter.increment();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for ( int i = 0; i < threads.length; i++ ) {
+			threads[i].join();
+		}
+		counter.add( 5 );
+		assertEquals( 4005, counter.get() );
+		counter.reset();
+		assertEquals( 0, counter.get() );
+	}
+
+	public void testStripedCounterKeepsLayoutWhenSerialized() throws Exception {
+		StripedCounter counter = new StripedCounter( 16 );
+		counter.add( 7 );
+		StripedCounter copy = (StripedCounter) copy( counter );
+		assertEquals( 7, copy.get() );
+		copy.increment();
+		assertEquals( 8, copy.get() );
+		copy.reset();
+		assertEquals( 0, copy.get() );
+
+		counter = new StripedCounter( 1 );
+		counter.add( 3 );
+		copy = (StripedCounter) copy( counter );
+		copy.increment();
+		assertEquals( 4, copy.get() );
+	}
+
+	private static int serializedSize(Object object) throws Exception {
+		return serialize( object ).length;
+	}
+
+	private static Object copy(Object object) throws Exception {
+		return new ObjectInputStream( new ByteArrayInputStream( serialize( object ) ) ).readObject();
+	}
+
+	private static byte[] serialize(Object object) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream( bytes );
+		out.writeObject( object );
+		out.close();
+		return bytes.toByteArray();
+	}
+}
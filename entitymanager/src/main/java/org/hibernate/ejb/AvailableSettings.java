@@ -283,6 +283,19 @@ public class AvailableSettings {
 	 */
 	public static final String SCANNER = "hibernate.ejb.resource_scanner";
 
+	/**
+	 * Number of threads used by the default scanner to scan the jars of a persistence unit.
+	 * Defaults to 1, scanning them serially on the thread building the persistence unit.
+	 */
+	public static final String SCANNER_THREADS = "hibernate.ejb.resource_scanner.threads";
+
+	/**
+	 * Path of the file in which the default scanner records the annotated classes of the jars it scanned,
+	 * keyed by the jar checksums, so that unchanged jars are not scanned again.
+	 * Not set by default (no index).
+	 */
+	public static final String SCANNER_INDEX = "hibernate.ejb.resource_scanner.index";
+
 	/**
 	 * List of classes names
 	 * Internal use only
@@ -83,6 +83,7 @@ import org.hibernate.ejb.packaging.NamedInputStream;
 import org.hibernate.ejb.packaging.NativeScanner;
 import org.hibernate.ejb.packaging.PersistenceMetadata;
 import org.hibernate.ejb.packaging.PersistenceXmlLoader;
+import org.hibernate.ejb.packaging.ScanIndex;
 import org.hibernate.ejb.packaging.Scanner;
 import org.hibernate.ejb.transaction.JoinableCMTTransactionFactory;
 import org.hibernate.ejb.util.ConfigurationHelper;
@@ -347,6 +348,12 @@ public class Ejb3Configuration implements Serializable, Referenceable {
 									.searchOrm( true );
 							setDetectedArtifactsOnScanningContext( mainJarScanCtx, metadata.getProps(), integration,
 																				metadata.getExcludeUnlistedClasses() );
+							List<URL> jarsToScan = new ArrayList<URL>();
+							jarsToScan.add( jarURL );
+							for ( String jarFile : metadata.getJarFiles() ) {
+								jarsToScan.add( JarVisitorFactory.getURLFromPath( jarFile ) );
+							}
+							scanConcurrently( scanner, jarsToScan, metadata.getProps(), integration );
 							addMetadataFromScan( mainJarScanCtx, metadata );
 
 							ScanningContext otherJarScanCtx = new ScanningContext()
@@ -412,7 +419,29 @@ public class Ejb3Configuration implements Serializable, Referenceable {
 			}
 		}
 		else {
-			return new NativeScanner();
+			Object index = integration.get( AvailableSettings.SCANNER_INDEX );
+			if ( index == null ) {
+				index = properties.getProperty( AvailableSettings.SCANNER_INDEX );
+			}
+			return index == null ?
+					new NativeScanner() :
+					new NativeScanner( new ScanIndex( new File( index.toString() ) ) );
+		}
+	}
+
+	/**
+	 * Scan the given jars concurrently if the scanner supports it, before they are looked up one at a time
+	 */
+	private void scanConcurrently(Scanner scanner, List<URL> jars, Properties properties, Map<?,?> integration) {
+		if ( scanner instanceof NativeScanner ) {
+			Object threads = integration == null ? null : integration.get( AvailableSettings.SCANNER_THREADS );
+			if ( threads == null && properties != null ) {
+				threads = properties.getProperty( AvailableSettings.SCANNER_THREADS );
+			}
+			( (NativeScanner) scanner ).scan(
+					jars,
+					threads == null ? 1 : Integer.parseInt( threads.toString() )
+			);
 		}
 	}
 
@@ -577,6 +606,12 @@ public class Ejb3Configuration implements Serializable, Referenceable {
 					.searchOrm( searchForORMFiles )
 					.explicitMappingFiles( null ); //URLs provided by the container already
 
+			if ( info.getPersistenceUnitRootUrl() != null ) {
+				List<URL> jarsToScan = new ArrayList<URL>( info.getJarFileUrls() );
+				jarsToScan.add( info.getPersistenceUnitRootUrl() );
+				scanConcurrently( context.scanner, jarsToScan, copyOfProperties, integration );
+			}
+
 			//context for other JARs
 			setDetectedArtifactsOnScanningContext(context, info.getProperties(), null, false );
 			for ( URL jar : info.getJarFileUrls() ) {
@@ -24,10 +24,18 @@ package org.hibernate.ejb.packaging;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.persistence.Embeddable;
 import javax.persistence.Entity;
 import javax.persistence.MappedSuperclass;
@@ -47,6 +55,105 @@ public class NativeScanner implements Scanner {
 	private static final int CLASS_FILTER_INDEX = 1;
 	private static final int FILE_FILTER_INDEX = 2;
 
+	private final ScanIndex index;
+
+	public NativeScanner() {
+		this( null );
+	}
+
+	/**
+	 * @param index The index used to avoid parsing the classes of jars which were already scanned, or null.
+	 */
+	public NativeScanner(ScanIndex index) {
+		this.index = index;
+	}
+
+	/**
+	 * Scan the given jars up front, concurrently, so that the later lookups only return the results.
+	 * The checksums of the jars are also computed concurrently when an index is used.
+	 *
+	 * @param jars The jars to scan, possibly listed more than once.
+	 * @param threads The maximum number of threads to use.
+	 */
+	public void scan(List<URL> jars, int threads) {
+		//the same jar can be both the persistence unit root and a <jar-file>
+		final List<URL> toScan = new ArrayList<URL>( new LinkedHashSet<URL>( jars ) );
+		toScan.removeAll( visitors.keySet() );
+		threads = Math.min( threads, toScan.size() );
+
+		List<String> indexKeys = null;
+		if ( index != null ) {
+			final List<Callable<String>> checksums = new ArrayList<Callable<String>>( toScan.size() );
+			for ( final URL jar : toScan ) {
+				checksums.add(
+						new Callable<String>() {
+							public String call() {
+								return index.getKey( jar );
+							}
+						}
+				);
+			}
+			indexKeys = invokeAll( checksums, threads );
+		}
+
+		final List<Callable<Object>> scans = new ArrayList<Callable<Object>>( toScan.size() );
+		for ( int i = 0; i < toScan.size(); i++ ) {
+			final URL jar = toScan.get( i );
+			//visitors are built upfront as the visitor map is not thread safe
+			final StateJarVisitor stateVisitor = getStateVisitor( jar, indexKeys == null ? null : indexKeys.get( i ) );
+			scans.add(
+					new Callable<Object>() {
+						public Object call() {
+							visit( jar, stateVisitor );
+							return null;
+						}
+					}
+			);
+		}
+		invokeAll( scans, threads );
+		if ( index != null ) {
+			index.save();
+		}
+	}
+
+	private static <T> List<T> invokeAll(List<Callable<T>> tasks, int threads) {
+		final List<T> results = new ArrayList<T>( tasks.size() );
+		if ( threads <= 1 ) {
+			for ( Callable<T> task : tasks ) {
+				try {
+					results.add( task.call() );
+				}
+				catch ( RuntimeException e ) {
+					throw e;
+				}
+				catch ( Exception e ) {
+					throw new RuntimeException( "Error while scanning jars", e );
+				}
+			}
+			return results;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			for ( Future<T> future : executor.invokeAll( tasks ) ) {
+				results.add( future.get() );
+			}
+			return results;
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException( "Interrupted while scanning jars", e );
+		}
+		catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof RuntimeException ) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException( "Error while scanning jars", e.getCause() );
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * This implementation does not honor the list of annotations and return everything.
 	 * Must strictly be used by HEM
@@ -56,14 +163,7 @@ public class NativeScanner implements Scanner {
 			throw new AssertionFailure( "Improper use of NativeScanner: must not filter packages" );
 		}
 
-		JarVisitor jarVisitor = getVisitor( jarToScan );
-		final Set<Entry> packageEntries;
-		try {
-			packageEntries = ( Set<Entry> ) jarVisitor.getMatchingEntries()[PACKAGE_FILTER_INDEX];
-		}
-		catch ( IOException e ) {
-			throw new RuntimeException( "Error while reading " + jarToScan.toString(), e );
-		}
+		final Set<Entry> packageEntries = ( Set<Entry> ) getMatchingEntries( jarToScan )[PACKAGE_FILTER_INDEX];
 		Set<Package> packages = new HashSet<Package>( packageEntries.size() );
 		for ( Entry entry : packageEntries ) {
 			try {
@@ -81,9 +181,22 @@ public class NativeScanner implements Scanner {
 	 * This helps do one scan instead of several
 	 */
 	private JarVisitor getVisitor(URL jar) {
+		return getStateVisitor( jar ).visitor;
+	}
+
+	private StateJarVisitor getStateVisitor(URL jar) {
+		StateJarVisitor stateJarVisitor = visitors.get( jar );
+		if ( stateJarVisitor == null ) {
+			stateJarVisitor = getStateVisitor( jar, index == null ? null : index.getKey( jar ) );
+		}
+		return stateJarVisitor;
+	}
+
+	private StateJarVisitor getStateVisitor(URL jar, String indexKey) {
 		StateJarVisitor stateJarVisitor = visitors.get( jar );
 
 		if ( stateJarVisitor == null ) {
+			final Set<String> indexedClassNames = indexKey == null ? null : index.getClassNames( indexKey );
 
 			Filter[] filters = new Filter[3];
 			filters[PACKAGE_FILTER_INDEX] = new PackageFilter( false, null ) {
@@ -91,17 +204,27 @@ public class NativeScanner implements Scanner {
 					return true;
 				}
 			};
-			filters[CLASS_FILTER_INDEX] = new ClassFilter(
-					false, new Class[] {
-							Entity.class,
-							MappedSuperclass.class,
-							Embeddable.class
+			if ( indexedClassNames == null ) {
+				filters[CLASS_FILTER_INDEX] = new ClassFilter(
+						false, new Class[] {
+								Entity.class,
+								MappedSuperclass.class,
+								Embeddable.class
+						}
+				) {
+					public boolean accept(String javaElementName) {
+						return true;
 					}
-			) {
-				public boolean accept(String javaElementName) {
-					return true;
-				}
-			};
+				};
+			}
+			else {
+				//the annotated classes are known, no need to parse the class files
+				filters[CLASS_FILTER_INDEX] = new ClassFilter( false, new Class[0] ) {
+					public boolean accept(String javaElementName) {
+						return indexedClassNames.contains( javaElementName );
+					}
+				};
+			}
 			filters[FILE_FILTER_INDEX] = new FileFilter( true ) {
 				public boolean accept(String javaElementName) {
 					return javaElementName.endsWith( "hbm.xml" )
@@ -110,9 +233,42 @@ public class NativeScanner implements Scanner {
 			};
 
 			stateJarVisitor = new StateJarVisitor( JarVisitorFactory.getVisitor( jar, filters ) );
+			if ( indexedClassNames == null ) {
+				stateJarVisitor.indexKey = indexKey;
+			}
 			visitors.put( jar, stateJarVisitor );
 		}
-		return stateJarVisitor.visitor;
+		return stateJarVisitor;
+	}
+
+	private Set[] getMatchingEntries(URL jar) {
+		Set[] entries = visit( jar, getStateVisitor( jar ) );
+		if ( index != null ) {
+			index.save();
+		}
+		return entries;
+	}
+
+	/**
+	 * Process the entries of the jar, and record the annotated classes found in the index if needed
+	 */
+	private Set[] visit(URL jar, StateJarVisitor stateVisitor) {
+		final Set[] entries;
+		try {
+			entries = stateVisitor.visitor.getMatchingEntries();
+		}
+		catch ( IOException e ) {
+			throw new RuntimeException( "Error while reading " + jar.toString(), e );
+		}
+		if ( stateVisitor.indexKey != null ) {
+			Set<String> classNames = new HashSet<String>();
+			for ( Entry entry : ( Set<Entry> ) entries[CLASS_FILTER_INDEX] ) {
+				classNames.add( entry.getName() );
+			}
+			index.putClassNames( stateVisitor.indexKey, classNames );
+			stateVisitor.indexKey = null;
+		}
+		return entries;
 	}
 
 	public Set<Class<?>> getClassesInJar(URL jarToScan, Set<Class<? extends Annotation>> annotationsToLookFor) {
@@ -122,14 +278,7 @@ public class NativeScanner implements Scanner {
 							+ "must not filter classes by other annotations than Entity, MappedSuperclass, embeddable"
 			);
 		}
-		JarVisitor jarVisitor = getVisitor( jarToScan );
-		final Set<Entry> classesEntry;
-		try {
-			classesEntry = ( Set<Entry> ) jarVisitor.getMatchingEntries()[CLASS_FILTER_INDEX];
-		}
-		catch ( IOException e ) {
-			throw new RuntimeException( "Error while reading " + jarToScan.toString(), e );
-		}
+		final Set<Entry> classesEntry = ( Set<Entry> ) getMatchingEntries( jarToScan )[CLASS_FILTER_INDEX];
 		Set<Class<?>> classes = new HashSet<Class<?>>( classesEntry.size() );
 		for ( Entry entry : classesEntry ) {
 			try {
@@ -160,10 +309,8 @@ public class NativeScanner implements Scanner {
 		for (String pattern : filePatterns) {
 			sb.append( "  " ).append( pattern ).append( "\n" );
 		}
-		JarVisitor jarVisitor = getVisitor( jarToScan );
-
 		//state visitor available
-		final StateJarVisitor stateVisitor = visitors.get( jarToScan );
+		final StateJarVisitor stateVisitor = getStateVisitor( jarToScan );
 		if ( stateVisitor.hasReadFiles ) {
 			throw new AssertionFailure( "Cannot read files twice on NativeScanner" );
 		}
@@ -187,13 +334,7 @@ public class NativeScanner implements Scanner {
 			}
 		}
 
-		final Set<Entry> fileEntries;
-		try {
-			fileEntries = ( Set<Entry> ) jarVisitor.getMatchingEntries()[FILE_FILTER_INDEX];
-		}
-		catch ( IOException e ) {
-			throw new RuntimeException( "Error while reading " + jarToScan.toString(), e );
-		}
+		final Set<Entry> fileEntries = ( Set<Entry> ) getMatchingEntries( jarToScan )[FILE_FILTER_INDEX];
 		Set<NamedInputStream> files = new HashSet<NamedInputStream>( fileEntries.size() );
 		Set<Entry> leftOver = new HashSet<Entry>( fileEntries );
 		for ( Entry entry : fileEntries ) {
@@ -240,5 +381,7 @@ public class NativeScanner implements Scanner {
 		}
 		JarVisitor visitor;
 		boolean hasReadFiles = false;
+		//key of the jar in the index, if its scan results still have to be recorded
+		String indexKey;
 	}
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2010, Red Hat Middleware LLC or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.ejb.packaging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.hibernate.util.StringHelper;
+
+/**
+ * Index of the annotated classes found in jar files, keyed by the checksum of the jar file, so that
+ * unchanged jars don't need their class files to be parsed again.
+ * <p/>
+ * The index is stored as a properties file, the key being the length and CRC32 checksum of the jar and
+ * the value the names of its classes annotated with @Entity, @MappedSuperclass or @Embeddable.
+ *
+ * @author agent
+ */
+public class ScanIndex {
+	private final Logger log = LoggerFactory.getLogger( ScanIndex.class );
+
+	private final File indexFile;
+	private final Properties index = new Properties();
+	private boolean dirty;
+
+	public ScanIndex(File indexFile) {
+		this.indexFile = indexFile;
+		if ( indexFile.exists() ) {
+			try {
+				InputStream is = new BufferedInputStream( new FileInputStream( indexFile ) );
+				try {
+					index.load( is );
+				}
+				finally {
+					is.close();
+				}
+			}
+			catch ( IOException e ) {
+				log.warn( "Unable to read scan index (ignored): " + indexFile, e );
+				index.clear();
+			}
+		}
+	}
+
+	/**
+	 * Compute the key of a jar in the index.
+	 *
+	 * @return The key, or null if the URL doesn't denote a local jar file, whose scan results can't be indexed.
+	 */
+	public String getKey(URL jarUrl) {
+		File file = toFile( jarUrl );
+		if ( file == null || !file.isFile() ) {
+			return null;
+		}
+		try {
+			CRC32 checksum = new CRC32();
+			InputStream is = new BufferedInputStream( new FileInputStream( file ) );
+			try {
+				byte[] buffer = new byte[ 8192 ];
+				int read;
+				while ( ( read = is.read( buffer ) ) != -1 ) {
+					checksum.update( buffer, 0, read );
+				}
+			}
+			finally {
+				is.close();
+			}
+			return file.length() + "-" + Long.toHexString( checksum.getValue() );
+		}
+		catch ( IOException e ) {
+			log.warn( "Unable to compute checksum of jar (not indexed): " + jarUrl, e );
+			return null;
+		}
+	}
+
+	private static File toFile(URL jarUrl) {
+		String protocol = jarUrl.getProtocol();
+		if ( !StringHelper.isEmpty( protocol ) && !"file".equals( protocol ) ) {
+			return null;
+		}
+		final String filePart = jarUrl.getFile();
+		if ( filePart != null && filePart.indexOf( ' ' ) != -1 ) {
+			//unescaped (from the container), keep as is
+			return new File( filePart );
+		}
+		try {
+			return new File( jarUrl.toURI().getSchemeSpecificPart() );
+		}
+		catch ( URISyntaxException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return The names of the annotated classes of the jar with the given key, or null if it isn't indexed.
+	 */
+	public synchronized Set<String> getClassNames(String key) {
+		String classNames = index.getProperty( key );
+		if ( classNames == null ) {
+			return null;
+		}
+		Set<String> result = new HashSet<String>();
+		Collections.addAll( result, StringHelper.split( " ", classNames ) );
+		return result;
+	}
+
+	public synchronized void putClassNames(String key, Set<String> classNames) {
+		index.setProperty( key, StringHelper.join( " ", classNames.iterator() ) );
+		dirty = true;
+	}
+
+	/**
+	 * Write the index file if entries were added since it was read.
+	 */
+	public synchronized void save() {
+		if ( !dirty ) {
+			return;
+		}
+		try {
+			OutputStream os = new BufferedOutputStream( new FileOutputStream( indexFile ) );
+			try {
+				index.store( os, "Hibernate EntityManager scan index" );
+			}
+			finally {
+				os.close();
+			}
+			dirty = false;
+		}
+		catch ( IOException e ) {
+			log.warn( "Unable to write scan index: " + indexFile, e );
+		}
+	}
+}
@@ -26,6 +26,7 @@ package org.hibernate.ejb.test.packaging;
 
 import java.io.File;
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Set;
@@ -38,6 +39,7 @@ import javax.persistence.Persistence;
 import org.hibernate.ejb.AvailableSettings;
 import org.hibernate.ejb.packaging.NamedInputStream;
 import org.hibernate.ejb.packaging.NativeScanner;
+import org.hibernate.ejb.packaging.ScanIndex;
 import org.hibernate.ejb.packaging.Scanner;
 import org.hibernate.ejb.test.pack.defaultpar.ApplicationServer;
 
@@ -76,6 +78,34 @@ public class ScannerTest extends PackagingTestCase {
 		}
 	}
 
+	public void testNativeScannerWithIndex() throws Exception {
+		File defaultPar = buildDefaultPar();
+		addPackageToClasspath( defaultPar );
+		File indexFile = File.createTempFile( "scan", ".index" );
+		indexFile.delete();
+
+		Set<Class<? extends Annotation>> annotationsToLookFor = new HashSet<Class<? extends Annotation>>( 3 );
+		annotationsToLookFor.add( Entity.class );
+		annotationsToLookFor.add( MappedSuperclass.class );
+		annotationsToLookFor.add( Embeddable.class );
+		try {
+			// the second scanner gets the annotated classes from the index written by the first one
+			for ( int i = 0; i < 2; i++ ) {
+				NativeScanner scanner = new NativeScanner( new ScanIndex( indexFile ) );
+				// the same jar listed twice is scanned once
+				scanner.scan( Arrays.asList( defaultPar.toURL(), defaultPar.toURL() ), 2 );
+				assertTrue( indexFile.exists() );
+				final Set<Class<?>> classes = scanner.getClassesInJar( defaultPar.toURL(), annotationsToLookFor );
+				assertEquals( 3, classes.size() );
+				assertTrue( classes.contains( ApplicationServer.class ) );
+				assertTrue( classes.contains( org.hibernate.ejb.test.pack.defaultpar.Version.class ) );
+			}
+		}
+		finally {
+			indexFile.delete();
+		}
+	}
+
 	public void testCustomScanner() throws Exception {
 		File defaultPar = buildDefaultPar();
 		File explicitPar = buildExplicitPar();
@@ -23,6 +23,7 @@
  */
 package org.hibernate.envers;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -70,6 +71,36 @@ public interface AuditReader {
 			Number revision) throws IllegalArgumentException,
 			NotAuditedException, IllegalStateException;
 
+    /**
+     * Find many entities of the same class by primary key at the given revision. The entities are loaded
+     * using as few queries as possible, instead of one query per entity.
+     * @param cls Class of the entities.
+     * @param primaryKeys Primary keys of the entities.
+     * @param revision Revision in which to get the entities.
+     * @return A map from primary keys to the found entity instances at the given revision. Primary keys of
+     * entities which didn't exist at that revision are not present in the map.
+     * @throws IllegalArgumentException If cls or primaryKeys is null or revision is less or equal to 0.
+     * @throws NotAuditedException When entities of the given class are not audited.
+     * @throws IllegalStateException If the associated entity manager is closed.
+     */
+    <T> Map<Object, T> findAll(Class<T> cls, Collection<?> primaryKeys, Number revision) throws
+            IllegalArgumentException, NotAuditedException, IllegalStateException;
+
+    /**
+     * Find many entities with the specified entityName by primary key at the given revision.
+     * @param cls Class of the entities.
+     * @param entityName Name of the entity (if can't be guessed basing on the {@code cls}).
+     * @param primaryKeys Primary keys of the entities.
+     * @param revision Revision in which to get the entities.
+     * @return A map from primary keys to the found entity instances at the given revision. Primary keys of
+     * entities which didn't exist at that revision are not present in the map.
+     * @throws IllegalArgumentException If cls or primaryKeys is null or revision is less or equal to 0.
+     * @throws NotAuditedException When entities of the given class are not audited.
+     * @throws IllegalStateException If the associated entity manager is closed.
+     */
+    <T> Map<Object, T> findAll(Class<T> cls, String entityName, Collection<?> primaryKeys, Number revision) throws
+            IllegalArgumentException, NotAuditedException, IllegalStateException;
+
     /**
      * Get a list of revision numbers, at which an entity was modified.
      * @param cls Class of the entity.
@@ -55,6 +55,12 @@ public class GlobalConfiguration {
      */
     private final String correlatedSubqueryOperator;
 
+    // How many lazy to-one relations of the same entity and revision should be loaded with one query.
+    private final int defaultBatchFetchSize;
+
+    // Name of the query cache region, in which immutable historical entity states are cached (or null).
+    private final String historicStateCacheRegion;
+
     public GlobalConfiguration(Properties properties) {
         String generateRevisionsForCollectionsStr = getProperty(properties,
                 "org.hibernate.envers.revision_on_collection_change",
@@ -79,6 +85,11 @@ public class GlobalConfiguration {
 
         correlatedSubqueryOperator = "org.hibernate.dialect.HSQLDialect".equals(
                 properties.getProperty("hibernate.dialect")) ? "in" : "=";
+
+        defaultBatchFetchSize = Integer.parseInt(
+                properties.getProperty("org.hibernate.envers.default_batch_fetch_size", "1"));
+
+        historicStateCacheRegion = properties.getProperty("org.hibernate.envers.historic_state_cache_region", null);
     }
 
     public boolean isGenerateRevisionsForCollections() {
@@ -104,4 +115,12 @@ public class GlobalConfiguration {
     public String getDefaultCatalogName() {
         return defaultCatalogName;
     }
+
+    public int getDefaultBatchFetchSize() {
+        return defaultBatchFetchSize;
+    }
+
+    public String getHistoricStateCacheRegion() {
+        return historicStateCacheRegion;
+    }
 }
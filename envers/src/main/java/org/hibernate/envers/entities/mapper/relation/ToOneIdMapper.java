@@ -91,6 +91,9 @@ public class ToOneIdMapper implements PropertyMapper {
             	if(entCfg == null) {
             		// a relation marked as RelationTargetAuditMode.NOT_AUDITED 
             		entCfg = verCfg.getEntCfg().getNotVersionEntityConfiguration(referencedEntityName);
+            	} else if (verCfg.getGlobalCfg().getDefaultBatchFetchSize() > 1) {
+            		// the proxy may be initialized together with other proxies of the same entity and revision
+            		versionsReader.getBatchFetchQueue().addBatchLoadableEntity(referencedEntityName, revision, entityId);
             	}
             	
                 Class<?> entityClass = ReflectionTools.loadClass(entCfg.getEntityClassName());
@@ -24,10 +24,12 @@
 package org.hibernate.envers.entities.mapper.relation.lazy;
 
 import java.io.Serializable;
+import java.util.List;
 
 import org.hibernate.envers.configuration.AuditConfiguration;
 import org.hibernate.envers.entities.EntitiesConfigurations;
 import org.hibernate.envers.reader.AuditReaderImplementor;
+import org.hibernate.envers.reader.EntitiesAtRevisionLoader;
 
 import org.hibernate.HibernateException;
 
@@ -44,6 +46,7 @@ public class ToOneDelegateSessionImplementor extends AbstractDelegateSessionImpl
     private final Object entityId;
     private final Number revision;
     private EntitiesConfigurations entCfg;
+    private AuditConfiguration verCfg;
 
 	public ToOneDelegateSessionImplementor(AuditReaderImplementor versionsReader,
                                            Class<?> entityClass, Object entityId, Number revision,
@@ -54,11 +57,19 @@ public class ToOneDelegateSessionImplementor extends AbstractDelegateSessionImpl
         this.entityId = entityId;
         this.revision = revision;
         this.entCfg = verCfg.getEntCfg();
+        this.verCfg = verCfg;
     }
 
     public Object doImmediateLoad(String entityName) throws HibernateException {
     	if(entCfg.getNotVersionEntityConfiguration(entityName) == null){
     		// audited relation, look up entity with envers
+    		int batchSize = verCfg.getGlobalCfg().getDefaultBatchFetchSize();
+    		if (batchSize > 1 && !versionsReader.getFirstLevelCache().contains(entityName, revision, entityId)) {
+    			// loading other pending proxies of the same entity and revision into the first level cache
+    			List<Object> batch = versionsReader.getBatchFetchQueue().getEntityBatch(entityName, revision,
+    					entityId, batchSize);
+    			new EntitiesAtRevisionLoader(verCfg, versionsReader).load(entityName, batch, revision, batchSize);
+    		}
 			return versionsReader.find(entityClass, entityName, entityId, revision);
 		} else {
 			// notAudited relation, look up entity with hibernate
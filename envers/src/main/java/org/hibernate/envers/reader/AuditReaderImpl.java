@@ -26,6 +26,7 @@ package org.hibernate.envers.reader;
 import static org.hibernate.envers.tools.ArgumentsTools.checkNotNull;
 import static org.hibernate.envers.tools.ArgumentsTools.checkPositive;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -55,10 +56,16 @@ import org.hibernate.proxy.HibernateProxy;
  * @author Hern&aacute;n Chanfreau
  */
 public class AuditReaderImpl implements AuditReaderImplementor {
+    /**
+     * Number of ids restricted in one query by {@link #findAll}, unless a bigger batch fetch size is configured.
+     */
+    private static final int DEFAULT_FIND_ALL_CHUNK_SIZE = 100;
+
     private final AuditConfiguration verCfg;
     private final SessionImplementor sessionImplementor;
     private final Session session;
     private final FirstLevelCache firstLevelCache;
+    private final RevisionBatchFetchQueue batchFetchQueue;
 
     public AuditReaderImpl(AuditConfiguration verCfg, Session session,
                               SessionImplementor sessionImplementor) {
@@ -67,6 +74,7 @@ public class AuditReaderImpl implements AuditReaderImplementor {
         this.session = session;
 
         firstLevelCache = new FirstLevelCache();
+        batchFetchQueue = new RevisionBatchFetchQueue();
     }
 
     private void checkSession() {
@@ -87,6 +95,10 @@ public class AuditReaderImpl implements AuditReaderImplementor {
         return firstLevelCache;
     }
 
+    public RevisionBatchFetchQueue getBatchFetchQueue() {
+        return batchFetchQueue;
+    }
+
     public <T> T find(Class<T> cls, Object primaryKey, Number revision) throws
             IllegalArgumentException, NotAuditedException, IllegalStateException {
     	
@@ -125,6 +137,30 @@ public class AuditReaderImpl implements AuditReaderImplementor {
         return (T) result;
     }    
 
+    public <T> Map<Object, T> findAll(Class<T> cls, Collection<?> primaryKeys, Number revision) throws
+            IllegalArgumentException, NotAuditedException, IllegalStateException {
+        return this.findAll(cls, cls.getName(), primaryKeys, revision);
+    }
+
+    @SuppressWarnings({"unchecked"})
+    public <T> Map<Object, T> findAll(Class<T> cls, String entityName, Collection<?> primaryKeys, Number revision) throws
+            IllegalArgumentException, NotAuditedException, IllegalStateException {
+        checkNotNull(cls, "Entity class");
+        checkNotNull(entityName, "Entity name");
+        checkNotNull(primaryKeys, "Primary keys");
+        checkNotNull(revision, "Entity revision");
+        checkPositive(revision, "Entity revision");
+        checkSession();
+
+        if (!verCfg.getEntCfg().isVersioned(entityName)) {
+            throw new NotAuditedException(entityName, entityName + " is not versioned!");
+        }
+
+        int chunkSize = Math.max(verCfg.getGlobalCfg().getDefaultBatchFetchSize(), DEFAULT_FIND_ALL_CHUNK_SIZE);
+        return (Map<Object, T>) new EntitiesAtRevisionLoader(verCfg, this).load(entityName, primaryKeys, revision,
+                chunkSize);
+    }
+
     public List<Number> getRevisions(Class<?> cls, Object primaryKey)
             throws IllegalArgumentException, NotAuditedException, IllegalStateException {
     	
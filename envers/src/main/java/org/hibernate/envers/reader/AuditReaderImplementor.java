@@ -36,4 +36,5 @@ public interface AuditReaderImplementor extends AuditReader {
     SessionImplementor getSessionImplementor();
     Session getSession();
     FirstLevelCache getFirstLevelCache();
+    RevisionBatchFetchQueue getBatchFetchQueue();
 }
@@ -0,0 +1,312 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Middleware LLC or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.envers.reader;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Query;
+import org.hibernate.cache.GeneralDataRegion;
+import org.hibernate.cache.QueryCache;
+import org.hibernate.envers.RevisionType;
+import org.hibernate.envers.configuration.AuditConfiguration;
+import org.hibernate.envers.configuration.AuditEntitiesConfiguration;
+import org.hibernate.envers.entities.EntityInstantiator;
+import org.hibernate.envers.entities.mapper.id.IdMapper;
+import org.hibernate.envers.entities.mapper.id.QueryParameterData;
+import org.hibernate.envers.entities.mapper.relation.MiddleIdData;
+import org.hibernate.envers.tools.query.Parameters;
+import org.hibernate.envers.strategy.ValidityAuditStrategy;
+import org.hibernate.envers.tools.query.QueryBuilder;
+
+/**
+ * Loads many entities of the same type at a given revision, using one query per chunk of ids instead of one
+ * query per entity. Loaded entities are put into the first level cache of the versions reader.
+ * <p>
+ * If a historic state cache region is configured (see {@link org.hibernate.envers.configuration.GlobalConfiguration}),
+ * the states of entities for which a later revision already exists (that is, states which can't change anymore)
+ * are additionally stored in that query cache region, and looked up there before querying. With the
+ * {@link ValidityAuditStrategy} these are the audit rows with a revision-end set; with the default strategy they
+ * are found with an additional query for the ids having a later revision.
+ * @author agent
+ */
+public class EntitiesAtRevisionLoader {
+    private final AuditConfiguration verCfg;
+    private final AuditReaderImplementor versionsReader;
+    private final EntityInstantiator entityInstantiator;
+
+    public EntitiesAtRevisionLoader(AuditConfiguration verCfg, AuditReaderImplementor versionsReader) {
+        this.verCfg = verCfg;
+        this.versionsReader = versionsReader;
+
+        entityInstantiator = new EntityInstantiator(verCfg, versionsReader);
+    }
+
+    /**
+     * Loads the entities with the given ids at the given revision.
+     * @param entityName Name of the entity.
+     * @param ids Ids of the entities to load.
+     * @param revision Revision at which to read the entities.
+     * @param chunkSize Maximum number of ids restricted in one query.
+     * @return A map from the ids of the found entities to the entity instances. Ids of entities which didn't exist
+     * at the given revision aren't present in the map.
+     */
+    public Map<Object, Object> load(String entityName, Collection<?> ids, Number revision, int chunkSize) {
+        Map<Object, Object> result = new LinkedHashMap<Object, Object>();
+        GeneralDataRegion historicStateRegion = getHistoricStateRegion();
+
+        List<Object> toQuery = new ArrayList<Object>();
+        for (Object id : ids) {
+            if (versionsReader.getFirstLevelCache().contains(entityName, revision, id)) {
+                result.put(id, versionsReader.getFirstLevelCache().get(entityName, revision, id));
+                continue;
+            }
+
+            if (historicStateRegion != null) {
+                HistoricState cachedState = (HistoricState) historicStateRegion.get(
+                        new HistoricStateKey(entityName, id, revision));
+                if (cachedState != null) {
+                    result.put(id, entityInstantiator.createInstanceFromVersionsEntity(entityName,
+                            copyForCaching(cachedState.data), revision));
+                    continue;
+                }
+            }
+
+            toQuery.add(id);
+        }
+
+        for (int i = 0; i < toQuery.size(); i += chunkSize) {
+            List<Object> chunk = toQuery.subList(i, Math.min(i + chunkSize, toQuery.size()));
+            loadChunk(entityName, chunk, revision, historicStateRegion, result);
+        }
+
+        return result;
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private void loadChunk(String entityName, List<Object> ids, Number revision,
+                           GeneralDataRegion historicStateRegion, Map<Object, Object> result) {
+        /*
+         * The query that we need to create (the same as in EntitiesAtRevisionQuery, but for many ids):
+         *   SELECT e FROM versionsReferencedEntity e
+         *   WHERE
+         * (selecting e entities at revision :revision, based on the audit strategy)
+         *     AND
+         * (only non-deleted entities)
+         *     e.revision_type != DEL
+         *     AND
+         * (only the requested entities)
+         *     e.originalId.id in (:id1, :id2, ...)
+         */
+        AuditEntitiesConfiguration verEntCfg = verCfg.getAuditEntCfg();
+        String revisionPropertyPath = verEntCfg.getRevisionNumberPath();
+        String originalIdPropertyName = verEntCfg.getOriginalIdPropName();
+        IdMapper idMapper = verCfg.getEntCfg().get(entityName).getIdMapper();
+
+        QueryBuilder qb = new QueryBuilder(verEntCfg.getAuditEntityName(entityName), "e");
+
+        MiddleIdData referencedIdData = new MiddleIdData(verEntCfg, verCfg.getEntCfg().get(entityName).getIdMappingData(),
+                null, entityName, true);
+        verCfg.getAuditStrategy().addEntityAtRevisionRestriction(verCfg.getGlobalCfg(), qb, revisionPropertyPath,
+                verEntCfg.getRevisionEndFieldName(), true, referencedIdData,
+                revisionPropertyPath, originalIdPropertyName, "e", "e2");
+
+        qb.getRootParameters().addWhereWithParam(verEntCfg.getRevisionTypePropName(), "<>", RevisionType.DEL);
+
+        addIdsRestriction(qb.getRootParameters(), idMapper, ids, originalIdPropertyName);
+
+        Query query = qb.toQuery(versionsReader.getSession());
+        if (Arrays.asList(query.getNamedParameters()).contains("revision")) {
+            query.setParameter("revision", revision);
+        }
+
+        List<Map> versionsEntities = query.list();
+        Set<Object> finalStateIds = null;
+        if (historicStateRegion != null && !versionsEntities.isEmpty()
+                && !(verCfg.getAuditStrategy() instanceof ValidityAuditStrategy)) {
+            finalStateIds = getIdsWithLaterRevisions(entityName, ids, revision);
+        }
+
+        for (Map versionsEntity : versionsEntities) {
+            Object id = idMapper.mapToIdFromMap((Map) versionsEntity.get(originalIdPropertyName));
+
+            if (historicStateRegion != null && (finalStateIds == null
+                    ? versionsEntity.get(verEntCfg.getRevisionEndFieldName()) != null
+                    : finalStateIds.contains(id))) {
+                // A later revision of this entity exists, so its state at the given revision won't change anymore.
+                historicStateRegion.put(new HistoricStateKey(entityName, id, revision),
+                        new HistoricState(copyForCaching(versionsEntity)));
+            }
+
+            result.put(id, entityInstantiator.createInstanceFromVersionsEntity(entityName, versionsEntity, revision));
+        }
+    }
+
+    /**
+     * Finds which of the given entities have a revision later than the given one, that is, whose state at the
+     * given revision is final. Used with audit strategies which don't store the revision-end.
+     */
+    @SuppressWarnings({"unchecked"})
+    private Set<Object> getIdsWithLaterRevisions(String entityName, List<Object> ids, Number revision) {
+        /*
+         *   SELECT DISTINCT e.originalId FROM versionsReferencedEntity e
+         *   WHERE e.revision > :revision AND e.originalId.id in (:id1, :id2, ...)
+         */
+        AuditEntitiesConfiguration verEntCfg = verCfg.getAuditEntCfg();
+        String originalIdPropertyName = verEntCfg.getOriginalIdPropName();
+        IdMapper idMapper = verCfg.getEntCfg().get(entityName).getIdMapper();
+
+        QueryBuilder qb = new QueryBuilder(verEntCfg.getAuditEntityName(entityName), "e");
+        qb.addProjection(null, originalIdPropertyName, true);
+        qb.getRootParameters().addWhereWithParam(verEntCfg.getRevisionNumberPath(), ">", revision);
+        addIdsRestriction(qb.getRootParameters(), idMapper, ids, originalIdPropertyName);
+
+        Set<Object> laterRevisionIds = new HashSet<Object>();
+        for (Object originalId : qb.toQuery(versionsReader.getSession()).list()) {
+            laterRevisionIds.add(idMapper.mapToIdFromMap((Map) originalId));
+        }
+        return laterRevisionIds;
+    }
+
+    /**
+     * Restricts the query to the given ids: with an IN list if the id maps to a single property, otherwise with
+     * a disjunction of the id equalities.
+     */
+    private void addIdsRestriction(Parameters parameters, IdMapper idMapper, List<Object> ids, String prefix) {
+        List<QueryParameterData> paramDatas = idMapper.mapToQueryParametersFromId(null);
+        if (paramDatas.size() == 1) {
+            Object[] values = new Object[ids.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = idMapper.mapToQueryParametersFromId(ids.get(i)).get(0).getValue();
+            }
+            parameters.addWhereWithParams(paramDatas.get(0).getProperty(prefix), "in (", values, ")");
+            return;
+        }
+
+        Parameters idParameters = parameters.addSubParameters(Parameters.OR);
+        for (Object id : ids) {
+            idMapper.addIdEqualsToQuery(idParameters.addSubParameters(Parameters.AND), id, prefix, true);
+        }
+    }
+
+    private GeneralDataRegion getHistoricStateRegion() {
+        String regionName = verCfg.getGlobalCfg().getHistoricStateCacheRegion();
+        if (regionName == null) {
+            return null;
+        }
+
+        QueryCache queryCache = versionsReader.getSessionImplementor().getFactory().getQueryCache(regionName);
+        // Null if the query cache is disabled
+        return queryCache == null ? null : queryCache.getRegion();
+    }
+
+    /**
+     * Copies the data of an audit row, leaving out the references to revision entities, which are bound to the
+     * current session and aren't needed to re-create the entity.
+     */
+    private HashMap<String, Object> copyForCaching(Map<String, Object> versionsEntity) {
+        return copyForCaching(versionsEntity, new IdentityHashMap<Map, HashMap<String, Object>>());
+    }
+
+    @SuppressWarnings({"unchecked"})
+    private HashMap<String, Object> copyForCaching(Map<String, Object> data, Map<Map, HashMap<String, Object>> copies) {
+        AuditEntitiesConfiguration verEntCfg = verCfg.getAuditEntCfg();
+
+        // Component maps may reference themselves
+        HashMap<String, Object> copy = copies.get(data);
+        if (copy != null) {
+            return copy;
+        }
+
+        copy = new HashMap<String, Object>();
+        copies.put(data, copy);
+
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String name = entry.getKey();
+            if (name.equals(verEntCfg.getRevisionFieldName()) || name.equals(verEntCfg.getRevisionEndFieldName())) {
+                continue;
+            }
+
+            Object value = entry.getValue();
+            copy.put(name, value instanceof Map ? copyForCaching((Map<String, Object>) value, copies) : value);
+        }
+
+        return copy;
+    }
+
+    /**
+     * The cached data of an audit row. A copy is handed out on every hit, so that the cached data can't be changed
+     * by the readers.
+     */
+    private static class HistoricState implements Serializable {
+        private static final long serialVersionUID = 2716032394018459131L;
+
+        private final HashMap<String, Object> data;
+
+        private HistoricState(HashMap<String, Object> data) {
+            this.data = data;
+        }
+    }
+
+    private static class HistoricStateKey implements Serializable {
+        private static final long serialVersionUID = -3563614235744315536L;
+
+        private final String entityName;
+        private final Object id;
+        private final long revision;
+
+        private HistoricStateKey(String entityName, Object id, Number revision) {
+            this.entityName = entityName;
+            this.id = id;
+            this.revision = revision.longValue();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof HistoricStateKey)) return false;
+
+            HistoricStateKey that = (HistoricStateKey) o;
+
+            return entityName.equals(that.entityName) && id.equals(that.id) && revision == that.revision;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = entityName.hashCode();
+            result = 31 * result + id.hashCode();
+            result = 31 * result + (int) (revision ^ (revision >>> 32));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Middleware LLC or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.envers.reader;
+
+import static org.hibernate.envers.tools.Tools.newHashMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.envers.tools.Pair;
+
+/**
+ * Keeps track of the ids of historic entities, for which to-one proxies have been created, but which weren't
+ * loaded yet. When one of the proxies is initialized, the other pending ids of the same entity and revision
+ * can be loaded together with it, with one query. Versions reader-scoped.
+ * @author agent
+ */
+public class RevisionBatchFetchQueue {
+    private final Map<Pair<String, Long>, Set<Object>> pendingIds;
+
+    public RevisionBatchFetchQueue() {
+        pendingIds = newHashMap();
+    }
+
+    /**
+     * Registers the id of an entity, which wasn't loaded yet, but may be loaded in a batch.
+     * @param entityName Name of the entity.
+     * @param revision Revision at which the entity should be read.
+     * @param id Id of the entity.
+     */
+    public void addBatchLoadableEntity(String entityName, Number revision, Object id) {
+        Pair<String, Long> key = makeKey(entityName, revision);
+        Set<Object> ids = pendingIds.get(key);
+        if (ids == null) {
+            ids = new LinkedHashSet<Object>();
+            pendingIds.put(key, ids);
+        }
+
+        ids.add(id);
+    }
+
+    /**
+     * Returns the ids to load in one batch, together with the given one. The returned ids are removed from the
+     * queue.
+     * @param entityName Name of the entity.
+     * @param revision Revision at which the entity should be read.
+     * @param id Id of the entity, which must be loaded.
+     * @param batchSize Maximum number of ids to return.
+     * @return A list of ids, where the first element is always the given id.
+     */
+    public List<Object> getEntityBatch(String entityName, Number revision, Object id, int batchSize) {
+        List<Object> batch = new ArrayList<Object>(batchSize);
+        batch.add(id);
+
+        Pair<String, Long> key = makeKey(entityName, revision);
+        Set<Object> ids = pendingIds.get(key);
+        if (ids == null) {
+            return batch;
+        }
+
+        ids.remove(id);
+        Iterator<Object> iter = ids.iterator();
+        while (iter.hasNext() && batch.size() < batchSize) {
+            batch.add(iter.next());
+            iter.remove();
+        }
+
+        if (ids.isEmpty()) {
+            pendingIds.remove(key);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Revision numbers may be passed as any {@link Number} type (for example an {@link Integer} from the revision
+     * entity and a {@link Long} from a query), so they are normalized, for the same revision to give equal keys.
+     */
+    private static Pair<String, Long> makeKey(String entityName, Number revision) {
+        return Pair.make(entityName, revision.longValue());
+    }
+}
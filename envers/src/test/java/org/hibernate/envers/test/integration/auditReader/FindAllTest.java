@@ -0,0 +1,208 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Middleware LLC or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Middleware LLC.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.envers.test.integration.auditReader;
+
+import java.util.Arrays;
+import java.util.Map;
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.hibernate.ejb.Ejb3Configuration;
+import org.hibernate.envers.AuditReader;
+import org.hibernate.envers.reader.RevisionBatchFetchQueue;
+import org.hibernate.envers.test.AbstractEntityTest;
+import org.hibernate.envers.test.entities.onetomany.SetRefEdEntity;
+import org.hibernate.envers.test.entities.onetomany.SetRefIngEntity;
+import org.hibernate.stat.Statistics;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests loading many entities at a revision at once, batch loading of to-one relations and caching of
+ * historic entity states.
+ * @author agent
+ */
+public class FindAllTest extends AbstractEntityTest {
+    private Integer ed1_id;
+    private Integer ed2_id;
+
+    private Integer ing1_id;
+    private Integer ing2_id;
+    private Integer ing3_id;
+
+    public void configure(Ejb3Configuration cfg) {
+        cfg.addAnnotatedClass(SetRefEdEntity.class);
+        cfg.addAnnotatedClass(SetRefIngEntity.class);
+
+        cfg.setProperty("org.hibernate.envers.default_batch_fetch_size", "10");
+        cfg.setProperty("org.hibernate.envers.historic_state_cache_region", "envers.historic");
+        cfg.setProperty("hibernate.cache.use_query_cache", "true");
+        cfg.setProperty("hibernate.cache.provider_class", "org.hibernate.cache.HashtableCacheProvider");
+        cfg.setProperty("hibernate.generate_statistics", "true");
+    }
+
+    @BeforeClass(dependsOnMethods = "init")
+    public void initData() {
+        EntityManager em = getEntityManager();
+
+        SetRefEdEntity ed1 = new SetRefEdEntity(1, "data_ed_1");
+        SetRefEdEntity ed2 = new SetRefEdEntity(2, "data_ed_2");
+
+        SetRefIngEntity ing1 = new SetRefIngEntity(3, "data_ing_1", ed1);
+        SetRefIngEntity ing2 = new SetRefIngEntity(4, "data_ing_2", ed2);
+        SetRefIngEntity ing3 = new SetRefIngEntity(5, "data_ing_3", ed2);
+
+        // Revision 1
+        em.getTransaction().begin();
+
+        em.persist(ed1);
+        em.persist(ed2);
+        em.persist(ing1);
+        em.persist(ing2);
+        em.persist(ing3);
+
+        em.getTransaction().commit();
+
+        // Revision 2
+        em.getTransaction().begin();
+
+        ing1 = em.find(SetRefIngEntity.class, ing1.getId());
+        ed2 = em.find(SetRefEdEntity.class, ed2.getId());
+        ing1.setData("data_ing_1_mod");
+        ed2.setData("data_ed_2_mod");
+
+        em.getTransaction().commit();
+
+        // Revision 3
+        em.getTransaction().begin();
+
+        ing3 = em.find(SetRefIngEntity.class, ing3.getId());
+        em.remove(ing3);
+
+        em.getTransaction().commit();
+
+        ed1_id = ed1.getId();
+        ed2_id = ed2.getId();
+
+        ing1_id = ing1.getId();
+        ing2_id = ing2.getId();
+        ing3_id = ing3.getId();
+    }
+
+    @Test
+    public void testFindAllAtRevision() {
+        Map<Object, SetRefIngEntity> rev1 = getAuditReader().findAll(SetRefIngEntity.class,
+                Arrays.asList(ing1_id, ing2_id, ing3_id), 1);
+        Map<Object, SetRefIngEntity> rev3 = getAuditReader().findAll(SetRefIngEntity.class,
+                Arrays.asList(ing1_id, ing2_id, ing3_id), 3);
+
+        assert rev1.size() == 3;
+        assert "data_ing_1".equals(rev1.get(ing1_id).getData());
+        assert "data_ing_3".equals(rev1.get(ing3_id).getData());
+
+        assert rev3.size() == 2;
+        assert "data_ing_1_mod".equals(rev3.get(ing1_id).getData());
+        assert "data_ing_2".equals(rev3.get(ing2_id).getData());
+        assert !rev3.containsKey(ing3_id);
+    }
+
+    @Test
+    public void testFindAllReturnsSameInstancesAsFind() {
+        AuditReader auditReader = getAuditReader();
+
+        Map<Object, SetRefEdEntity> rev2 = auditReader.findAll(SetRefEdEntity.class,
+                Arrays.asList(ed1_id, ed2_id), 2);
+
+        assert rev2.get(ed1_id) == auditReader.find(SetRefEdEntity.class, ed1_id, 2);
+        assert rev2.get(ed2_id) == auditReader.find(SetRefEdEntity.class, ed2_id, 2);
+    }
+
+    @Test
+    public void testFindAllWithNewReader() {
+        // The second reader may read states, which can't change anymore, from the historic state cache
+        for (int i = 0; i < 2; i++) {
+            newEntityManager();
+
+            Map<Object, SetRefIngEntity> rev1 = getAuditReader().findAll(SetRefIngEntity.class,
+                    Arrays.asList(ing1_id, ing2_id, ing3_id), 1);
+
+            assert rev1.size() == 3;
+            assert "data_ing_1".equals(rev1.get(ing1_id).getData());
+            assert "data_ing_2".equals(rev1.get(ing2_id).getData());
+            assert "data_ing_3".equals(rev1.get(ing3_id).getData());
+            assert "data_ed_1".equals(rev1.get(ing1_id).getReference().getData());
+        }
+    }
+
+    @Test
+    public void testFinalStatesReadFromHistoricStateCache() {
+        // ing1 and ing3 have later revisions than 1, so their states at revision 1 are cached by the first reader
+        newEntityManager();
+        getAuditReader().findAll(SetRefIngEntity.class, Arrays.asList(ing1_id, ing3_id), 1);
+
+        newEntityManager();
+        Statistics statistics = ((Session) getEntityManager().getDelegate()).getSessionFactory().getStatistics();
+        statistics.clear();
+        Map<Object, SetRefIngEntity> rev1 = getAuditReader().findAll(SetRefIngEntity.class,
+                Arrays.asList(ing1_id, ing3_id), 1);
+
+        assert statistics.getQueryExecutionCount() == 0;
+        assert "data_ing_1".equals(rev1.get(ing1_id).getData());
+        assert "data_ing_3".equals(rev1.get(ing3_id).getData());
+
+        // ing2 has no later revision, so its state at revision 1 may still change and is always queried
+        newEntityManager();
+        getAuditReader().findAll(SetRefIngEntity.class, Arrays.asList(ing2_id), 1);
+        newEntityManager();
+        statistics.clear();
+        getAuditReader().findAll(SetRefIngEntity.class, Arrays.asList(ing2_id), 1);
+
+        assert statistics.getQueryExecutionCount() == 1;
+    }
+
+    @Test
+    public void testBatchLoadedReferences() {
+        Map<Object, SetRefIngEntity> rev1 = getAuditReader().findAll(SetRefIngEntity.class,
+                Arrays.asList(ing1_id, ing2_id, ing3_id), 1);
+        Map<Object, SetRefIngEntity> rev2 = getAuditReader().findAll(SetRefIngEntity.class,
+                Arrays.asList(ing1_id, ing2_id, ing3_id), 2);
+
+        assert "data_ed_1".equals(rev1.get(ing1_id).getReference().getData());
+        assert "data_ed_2".equals(rev1.get(ing2_id).getReference().getData());
+        assert "data_ed_2".equals(rev1.get(ing3_id).getReference().getData());
+
+        assert "data_ed_2_mod".equals(rev2.get(ing2_id).getReference().getData());
+        assert "data_ed_2_mod".equals(rev2.get(ing3_id).getReference().getData());
+    }
+
+    @Test
+    public void testBatchQueueMatchesRevisionsOfDifferentNumberTypes() {
+        RevisionBatchFetchQueue queue = new RevisionBatchFetchQueue();
+        queue.addBatchLoadableEntity("entity", Integer.valueOf(1), ed1_id);
+        queue.addBatchLoadableEntity("entity", Long.valueOf(1), ed2_id);
+
+        assert Arrays.<Object>asList(ed1_id, ed2_id).equals(queue.getEntityBatch("entity", Long.valueOf(1), ed1_id, 10));
+        assert Arrays.<Object>asList(ed2_id).equals(queue.getEntityBatch("entity", Integer.valueOf(1), ed2_id, 10));
+    }
+}
@@ -2,6 +2,7 @@
 package org.hibernate.test.batch;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import junit.framework.Test;
 
@@ -38,6 +39,9 @@ public class BatchTest extends FunctionalTestCase {
 
 	public void configure(Configuration cfg) {
 		cfg.setProperty( Environment.STATEMENT_BATCH_SIZE, "20" );
+		cfg.setProperty( Environment.ORDER_UPDATES, "true" );
+		cfg.setProperty( Environment.ORDER_UPDATES_BY_SHAPE, "true" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
 	}
 
 	public static Test suite() {
@@ -85,5 +89,39 @@ public class BatchTest extends FunctionalTestCase {
 		System.out.println( System.currentTimeMillis() - start );
 	}
 
+	public void testDynamicUpdatesOfSameShapeShareBatch() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		for ( int i = 0; i < 10; i++ ) {
+			DataPoint dp = new DataPoint();
+			dp.setX( new BigDecimal( 1000 + i ) );
+			dp.setY( new BigDecimal( i ) );
+			s.save( dp );
+		}
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		List points = s.createQuery( "from DataPoint dp where dp.x >= 1000 order by dp.x asc" ).list();
+		for ( int i = 0; i < points.size(); i++ ) {
+			DataPoint dp = ( DataPoint ) points.get( i );
+			// alternate between two shapes of dynamic update
+			if ( i % 2 == 0 ) {
+				dp.setDescription( "even" );
+			}
+			else {
+				dp.setY( new BigDecimal( -i ) );
+			}
+		}
+		getSessions().getStatistics().clear();
+		s.flush();
+		assertEquals( 2, getSessions().getStatistics().getPrepareStatementCount() );
+		assertEquals( 10, getSessions().getStatistics().getEntityUpdateCount() );
+		s.createQuery( "delete from DataPoint where x >= 1000" ).executeUpdate();
+		t.commit();
+		s.close();
+	}
+
 }
 
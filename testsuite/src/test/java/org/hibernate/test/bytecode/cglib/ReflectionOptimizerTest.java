@@ -2,6 +2,7 @@ package org.hibernate.test.bytecode.cglib;
 
 import junit.framework.TestSuite;
 
+import org.hibernate.bytecode.BytecodeProvider;
 import org.hibernate.bytecode.ReflectionOptimizer;
 import org.hibernate.bytecode.cglib.BytecodeProviderImpl;
 import org.hibernate.testing.junit.UnitTestCase;
@@ -39,6 +40,49 @@ public class ReflectionOptimizerTest extends UnitTestCase {
 		assertEquivalent( values, BeanReflectionHelper.TEST_VALUES );
 	}
 
+	public void testFieldAndSkippedPropertyAccess() {
+		BytecodeProviderImpl provider = new BytecodeProviderImpl();
+		ReflectionOptimizer optimizer = provider.getReflectionOptimizer(
+				FieldBean.class,
+				new String[] { BytecodeProvider.FIELD_ACCESS_PREFIX + "name", null, "getRatio", BytecodeProvider.FIELD_ACCESS_PREFIX + "count" },
+				new String[] { BytecodeProvider.FIELD_ACCESS_PREFIX + "name", null, "setRatio", BytecodeProvider.FIELD_ACCESS_PREFIX + "count" },
+				new Class[] { String.class, String.class, double.class, int.class }
+		);
+		assertNotNull( optimizer );
+
+		FieldBean bean = new FieldBean();
+		bean.skipped = "untouched";
+		optimizer.getAccessOptimizer().setPropertyValues(
+				bean, new Object[] { "name", "ignored", new Double( 0.5 ), new Integer( 3 ) }
+		);
+		assertEquals( "name", bean.name );
+		assertEquals( "untouched", bean.skipped );
+		assertEquals( 0.5, bean.getRatio(), 0 );
+		assertEquals( 3, bean.count );
+
+		Object[] values = optimizer.getAccessOptimizer().getPropertyValues( bean );
+		assertEquals( 4, values.length );
+		assertEquals( "name", values[0] );
+		assertNull( values[1] );
+		assertEquals( new Double( 0.5 ), values[2] );
+		assertEquals( new Integer( 3 ), values[3] );
+	}
+
+	public static class FieldBean {
+		String name;
+		String skipped;
+		int count;
+		private double ratio;
+
+		public double getRatio() {
+			return ratio;
+		}
+
+		public void setRatio(double ratio) {
+			this.ratio = ratio;
+		}
+	}
+
 	private void assertEquivalent(Object[] checkValues, Object[] values) {
 		assertEquals( "Different lengths", checkValues.length, values.length );
 		for ( int i = 0; i < checkValues.length; i++ ) {
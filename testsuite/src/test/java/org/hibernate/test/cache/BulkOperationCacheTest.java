@@ -0,0 +1,247 @@
+/*
+ * Hibernate, Relational Persistence for Idiomatic Java
+ *
+ * Copyright (c) 2010, Red Hat Inc. or third-party contributors as
+ * indicated by the @author tags or express copyright attribution
+ * statements applied by the authors.  All third-party contributions are
+ * distributed under license by Red Hat Inc.
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, write to:
+ * Free Software Foundation, Inc.
+ * 51 Franklin Street, Fifth Floor
+ * Boston, MA  02110-1301  USA
+ */
+package org.hibernate.test.cache;
+
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.test.annotations.TestCase;
+
+/**
+ * Tests that HQL bulk operations clean up the cached state of the affected
+ * instances only, rather than the entire region, when the statement itself
+ * determines the affected ids.
+ *
+ * @author agent
+ */
+public class BulkOperationCacheTest extends TestCase {
+	@Override
+	protected Class<?>[] getAnnotatedClasses() {
+		return new Class[] { CacheableItem.class, CacheableContainer.class, CacheableBox.class };
+	}
+
+	@Override
+	protected void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.CACHE_REGION_PREFIX, "" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	public void testUpdateById() {
+		Long[] ids = createItems();
+
+		getSessions().getStatistics().clear();
+		Session s = openSession();
+		s.beginTransaction();
+		int count = s.createQuery( "update CacheableItem set name = :name where id = :id" )
+				.setString( "name", "updated" )
+				.setLong( "id", ids[1].longValue() )
+				.executeUpdate();
+		assertEquals( 1, count );
+		// the affected id is known from the restriction
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		s.getTransaction().commit();
+		s.close();
+
+		assertCached( ids, new boolean[] { true, false, true } );
+		assertEquals( "updated", getName( ids[1] ) );
+		cleanup();
+	}
+
+	public void testDeleteByRestriction() {
+		Long[] ids = createItems();
+
+		getSessions().getStatistics().clear();
+		Session s = openSession();
+		s.beginTransaction();
+		int count = s.createQuery( "delete CacheableItem where name in ('item0', 'item2')" ).executeUpdate();
+		assertEquals( 2, count );
+		// the affected ids are not selected beforehand, as rows could change concurrently
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		s.getTransaction().commit();
+		s.close();
+
+		assertCached( ids, new boolean[] { false, false, false } );
+		assertNull( getName( ids[0] ) );
+		cleanup();
+	}
+
+	public void testMultiTableUpdate() {
+		Long[] ids = createBoxes();
+
+		Session s = openSession();
+		s.beginTransaction();
+		int count = s.createQuery( "update CacheableBox set capacity = 10 where name = 'box1'" ).executeUpdate();
+		assertEquals( 1, count );
+		s.getTransaction().commit();
+		s.close();
+
+		// the ids selected for the update are those updated, so they are evicted along
+		// with the collections they own
+		assertCachedBoxes( ids, new boolean[] { true, false, true }, new boolean[] { true, false, true } );
+		assertEquals( 10, getBox( ids[1] ).getCapacity() );
+		cleanupBoxes();
+	}
+
+	public void testMultiTableDelete() {
+		Long[] ids = createBoxes();
+
+		Session s = openSession();
+		s.beginTransaction();
+		int count = s.createQuery( "delete CacheableBox where name = 'box0'" ).executeUpdate();
+		assertEquals( 1, count );
+		s.getTransaction().commit();
+		s.close();
+
+		// the deleted instance may have been held by any collection of the region
+		assertNull( getBox( ids[0] ) );
+		assertCachedBoxes(
+				new Long[] { ids[1], ids[2] },
+				new boolean[] { true, true },
+				new boolean[] { false, false }
+		);
+		cleanupBoxes();
+	}
+
+	public void testUpdateAll() {
+		Long[] ids = createItems();
+
+		Session s = openSession();
+		s.beginTransaction();
+		s.createQuery( "update CacheableItem set name = 'updated'" ).executeUpdate();
+		s.getTransaction().commit();
+		s.close();
+
+		assertCached( ids, new boolean[] { false, false, false } );
+		cleanup();
+	}
+
+	private Long[] createItems() {
+		getSessions().getCache().evictEntityRegions();
+		Session s = openSession();
+		s.beginTransaction();
+		Long[] ids = new Long[3];
+		for ( int i = 0; i < ids.length; i++ ) {
+			CacheableItem item = new CacheableItem( "item" + i );
+			s.save( item );
+			ids[i] = item.getId();
+		}
+		s.getTransaction().commit();
+		s.close();
+		return ids;
+	}
+
+	private Long[] createBoxes() {
+		getSessions().getCache().evictEntityRegions();
+		getSessions().getCache().evictCollectionRegions();
+		Session s = openSession();
+		s.beginTransaction();
+		CacheableBox[] boxes = new CacheableBox[3];
+		Long[] ids = new Long[boxes.length];
+		for ( int i = 0; i < boxes.length; i++ ) {
+			boxes[i] = new CacheableBox( "box" + i, i );
+			s.save( boxes[i] );
+			ids[i] = boxes[i].getId();
+		}
+		// the first box is left out, as bulk deletes do not delete collection rows
+		boxes[1].getNeighbours().add( boxes[2] );
+		boxes[2].getNeighbours().add( boxes[1] );
+		s.getTransaction().commit();
+		s.close();
+		// cache the collections
+		for ( int i = 0; i < ids.length; i++ ) {
+			getBox( ids[i] );
+		}
+		return ids;
+	}
+
+	private void assertCachedBoxes(Long[] ids, boolean[] cached, boolean[] neighboursCached) {
+		for ( int i = 0; i < ids.length; i++ ) {
+			getSessions().getStatistics().clear();
+			Session s = openSession();
+			s.beginTransaction();
+			CacheableBox box = ( CacheableBox ) s.get( CacheableBox.class, ids[i] );
+			SecondLevelCacheStatistics statistics = getSessions().getStatistics().getSecondLevelCacheStatistics( "container" );
+			assertEquals( "box " + i + " cached", cached[i] ? 1 : 0, statistics.getHitCount() );
+			Hibernate.initialize( box.getNeighbours() );
+			statistics = getSessions().getStatistics().getSecondLevelCacheStatistics( "container.neighbours" );
+			assertEquals( "neighbours of box " + i + " cached", neighboursCached[i] ? 1 : 0, statistics.getHitCount() );
+			s.getTransaction().commit();
+			s.close();
+		}
+	}
+
+	private CacheableBox getBox(Long id) {
+		Session s = openSession();
+		s.beginTransaction();
+		CacheableBox box = ( CacheableBox ) s.get( CacheableBox.class, id );
+		if ( box != null ) {
+			Hibernate.initialize( box.getNeighbours() );
+		}
+		s.getTransaction().commit();
+		s.close();
+		return box;
+	}
+
+	private void cleanupBoxes() {
+		Session s = openSession();
+		s.beginTransaction();
+		List boxes = s.createQuery( "from CacheableBox" ).list();
+		for ( int i = 0; i < boxes.size(); i++ ) {
+			s.delete( boxes.get( i ) );
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	private void assertCached(Long[] ids, boolean[] cached) {
+		for ( int i = 0; i < ids.length; i++ ) {
+			getSessions().getStatistics().clear();
+			getName( ids[i] );
+			SecondLevelCacheStatistics statistics = getSessions().getStatistics().getSecondLevelCacheStatistics( "item" );
+			assertEquals( "item " + i + " cached", cached[i] ? 1 : 0, statistics.getHitCount() );
+		}
+	}
+
+	private String getName(Long id) {
+		Session s = openSession();
+		s.beginTransaction();
+		CacheableItem item = ( CacheableItem ) s.get( CacheableItem.class, id );
+		s.getTransaction().commit();
+		s.close();
+		return item == null ? null : item.getName();
+	}
+
+	private void cleanup() {
+		Session s = openSession();
+		s.beginTransaction();
+		s.createQuery( "delete CacheableItem" ).executeUpdate();
+		s.getTransaction().commit();
+		s.close();
+	}
+}
@@ -0,0 +1,303 @@
+package org.hibernate.test.cascade;
+
+import java.util.Date;
+
+import junit.framework.Test;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.event.DeleteObservingListener;
+import org.hibernate.event.PreDeleteEvent;
+import org.hibernate.event.PreDeleteEventListener;
+import org.hibernate.test.version.Person;
+import org.hibernate.test.version.Thing;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests cascading a delete to an unloaded collection by set-based SQL DELETEs.
+ *
+ * @author agent
+ */
+public class BulkCascadeDeleteTest extends FunctionalTestCase {
+
+	public BulkCascadeDeleteTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] {
+				"cascade/Job.hbm.xml",
+				"cascade/JobBatch.hbm.xml",
+				"cascade/Department.hbm.xml",
+				"cascade/Office.hbm.xml",
+				"version/PersonThing.hbm.xml"
+		};
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.BULK_CASCADE_DELETE, "true" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+		// like bean validation without groups to validate on delete
+		cfg.getEventListeners().setPreDeleteEventListeners(
+				new PreDeleteEventListener[] { new InactiveDeleteListener() }
+		);
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( BulkCascadeDeleteTest.class );
+	}
+
+	public void testDeleteWithoutLoadingChildren() {
+		Long id = createBatch( 20 );
+
+		getSessions().getStatistics().clear();
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		JobBatch batch = ( JobBatch ) s.get( JobBatch.class, id );
+		s.delete( batch );
+		assertFalse( Hibernate.isInitialized( batch.getJobs() ) );
+		t.commit();
+		s.close();
+		assertEquals( 1, getSessions().getStatistics().getEntityLoadCount() );
+		assertEquals( 0, getSessions().getStatistics().getCollectionLoadCount() );
+		assertEquals( 21, getSessions().getStatistics().getEntityDeleteCount() );
+
+		assertJobCount( 0 );
+	}
+
+	public void testDeleteEvictsProxiesOfChildren() {
+		Long id = createBatch( 2 );
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Long jobId = ( Long ) s.createQuery( "select j.id from Job j" ).setMaxResults( 1 ).uniqueResult();
+		Job job = ( Job ) s.load( Job.class, jobId );
+		JobBatch batch = ( JobBatch ) s.get( JobBatch.class, id );
+		s.delete( batch );
+		s.flush();
+		assertFalse( Hibernate.isInitialized( batch.getJobs() ) );
+		assertFalse( Hibernate.isInitialized( job ) );
+		EntityKey key = new EntityKey( jobId, sfi().getEntityPersister( Job.class.getName() ), s.getEntityMode() );
+		assertNull( ( ( SessionImplementor ) s ).getPersistenceContext().getProxy( key ) );
+		t.commit();
+		s.close();
+
+		assertJobCount( 0 );
+	}
+
+	public void testDeleteOfVersionedChildrenChecksVersions() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Person person = new Person( "gavin" );
+		person.getThings().add( new Thing( "hat", person ) );
+		s.persist( person );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		person = ( Person ) s.get( Person.class, "gavin" );
+		s.delete( person );
+		// the version of each child is checked by deleting it the usual way
+		assertTrue( Hibernate.isInitialized( person.getThings() ) );
+		t.commit();
+		s.close();
+	}
+
+	public void testDeleteWithLoadedChildren() {
+		Long id = createBatch( 3 );
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		JobBatch batch = ( JobBatch ) s.get( JobBatch.class, id );
+		Job job = ( Job ) s.createQuery( "from Job" ).setMaxResults( 1 ).uniqueResult();
+		s.delete( batch );
+		// a child in the session is deleted the usual way, so the session stays consistent
+		assertTrue( Hibernate.isInitialized( batch.getJobs() ) );
+		assertFalse( s.contains( job ) );
+		t.commit();
+		s.close();
+
+		assertJobCount( 0 );
+	}
+
+	public void testDeleteWithChildLoadedBeforeFlush() {
+		Long id = createBatch( 3 );
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Long jobId = ( Long ) s.createQuery( "select j.id from Job j" ).setMaxResults( 1 ).uniqueResult();
+		JobBatch batch = ( JobBatch ) s.get( JobBatch.class, id );
+		s.delete( batch );
+		assertFalse( Hibernate.isInitialized( batch.getJobs() ) );
+		Job job = ( Job ) s.get( Job.class, jobId );
+		s.flush();
+		// the children are deleted one by one instead, so the loaded child does not outlive its row
+		assertTrue( Hibernate.isInitialized( batch.getJobs() ) );
+		assertFalse( s.contains( job ) );
+		t.commit();
+		s.close();
+
+		assertJobCount( 0 );
+	}
+
+	public void testDeleteCascadesToGrandchildrenAndCollectionTables() {
+		Long batchId = createBatch( 2 );
+		Long id = createDepartment( batchId );
+
+		getSessions().getStatistics().clear();
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Department department = ( Department ) s.get( Department.class, id );
+		s.delete( department );
+		assertFalse( Hibernate.isInitialized( department.getTeams() ) );
+		t.commit();
+		s.close();
+		assertEquals( 1, getSessions().getStatistics().getEntityLoadCount() );
+		assertEquals( 0, getSessions().getStatistics().getCollectionLoadCount() );
+		assertEquals( 7, getSessions().getStatistics().getEntityDeleteCount() );
+
+		assertDepartmentRowsDeleted();
+		// the targets of the many-to-many association are not deleted
+		assertJobCount( 2 );
+		deleteBatch( batchId );
+	}
+
+	public void testDeleteWithGrandchildLoadedBeforeFlush() {
+		Long batchId = createBatch( 2 );
+		Long id = createDepartment( batchId );
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Long memberId = ( Long ) s.createQuery( "select m.id from Member m" ).setMaxResults( 1 ).uniqueResult();
+		Department department = ( Department ) s.get( Department.class, id );
+		s.delete( department );
+		Member member = ( Member ) s.get( Member.class, memberId );
+		s.flush();
+		assertTrue( Hibernate.isInitialized( department.getTeams() ) );
+		assertFalse( s.contains( member ) );
+		assertFalse( s.contains( member.getTeam() ) );
+		t.commit();
+		s.close();
+
+		assertDepartmentRowsDeleted();
+		assertJobCount( 2 );
+		deleteBatch( batchId );
+	}
+
+	public void testDeleteWithCompositeKeys() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Office office = new Office( new Office.Id( "Neuchatel", 1 ) );
+		office.createDesk( 1, "north" );
+		office.createDesk( 1, "south" );
+		office.createDesk( 2, "north" );
+		s.persist( office );
+		t.commit();
+		s.close();
+
+		getSessions().getStatistics().clear();
+		s = openSession();
+		t = s.beginTransaction();
+		Desk desk = ( Desk ) s.load( Desk.class, new Desk.Id( 2, "north" ) );
+		office = ( Office ) s.get( Office.class, new Office.Id( "Neuchatel", 1 ) );
+		s.delete( office );
+		s.flush();
+		assertFalse( Hibernate.isInitialized( office.getDesks() ) );
+		assertFalse( Hibernate.isInitialized( desk ) );
+		EntityKey key = new EntityKey( desk.getId(), sfi().getEntityPersister( Desk.class.getName() ), s.getEntityMode() );
+		assertNull( ( ( SessionImplementor ) s ).getPersistenceContext().getProxy( key ) );
+		t.commit();
+		s.close();
+		assertEquals( 4, getSessions().getStatistics().getEntityDeleteCount() );
+
+		assertRowCount( "T_DESK", 0 );
+		assertRowCount( "T_OFFICE", 0 );
+	}
+
+	private Long createBatch(int jobs) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		JobBatch batch = new JobBatch( new Date() );
+		for ( int i = 0; i < jobs; i++ ) {
+			batch.createJob().setProcessingInstructions( "job " + i );
+		}
+		s.persist( batch );
+		t.commit();
+		s.close();
+		return batch.getId();
+	}
+
+	/**
+	 * Create a department of two teams of two members, each team having skills
+	 * and being assigned all the jobs of the given batch
+	 */
+	private Long createDepartment(Long batchId) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		JobBatch batch = ( JobBatch ) s.get( JobBatch.class, batchId );
+		Department department = new Department( "research" );
+		for ( int i = 0; i < 2; i++ ) {
+			Team team = department.createTeam( "team " + i );
+			team.createMember( "member " + i + "a" );
+			team.createMember( "member " + i + "b" );
+			team.getSkills().add( "java" );
+			team.getSkills().add( "sql" );
+			team.getJobs().addAll( batch.getJobs() );
+		}
+		s.persist( department );
+		t.commit();
+		s.close();
+		return department.getId();
+	}
+
+	private void deleteBatch(Long id) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		s.delete( s.get( JobBatch.class, id ) );
+		t.commit();
+		s.close();
+	}
+
+	private void assertDepartmentRowsDeleted() {
+		assertRowCount( "T_MEMBER", 0 );
+		assertRowCount( "T_TEAM_SKILL", 0 );
+		assertRowCount( "T_TEAM_JOB", 0 );
+		assertRowCount( "T_TEAM", 0 );
+		assertRowCount( "T_DEPARTMENT", 0 );
+	}
+
+	public static class InactiveDeleteListener implements PreDeleteEventListener, DeleteObservingListener {
+		public boolean onPreDelete(PreDeleteEvent event) {
+			return false;
+		}
+
+		public boolean observesDeletes() {
+			return false;
+		}
+	}
+
+	private void assertJobCount(long count) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		assertEquals( new Long( count ), s.createQuery( "select count(*) from Job" ).uniqueResult() );
+		t.commit();
+		s.close();
+	}
+
+	private void assertRowCount(String table, long count) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Number rows = ( Number ) s.createSQLQuery( "select count(*) from " + table ).uniqueResult();
+		assertEquals( table, count, rows.longValue() );
+		t.commit();
+		s.close();
+	}
+}
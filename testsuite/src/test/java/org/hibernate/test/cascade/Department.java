@@ -0,0 +1,51 @@
+package org.hibernate.test.cascade;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The root of a tree of inverse one-to-many collections cascading deletes.
+ *
+ * @author agent
+ */
+public class Department {
+	private Long id;
+	private String name;
+	private Set teams = new HashSet();
+
+	Department() {}
+
+	public Department(String name) {
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Set getTeams() {
+		return teams;
+	}
+
+	public void setTeams(Set teams) {
+		this.teams = teams;
+	}
+
+	public Team createTeam(String name) {
+		Team team = new Team( this, name );
+		teams.add( team );
+		return team;
+	}
+}
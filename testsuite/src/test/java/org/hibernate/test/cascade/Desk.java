@@ -0,0 +1,76 @@
+package org.hibernate.test.cascade;
+
+import java.io.Serializable;
+
+/**
+ * A child of an {@link Office}, with a composite key of its own.
+ *
+ * @author agent
+ */
+public class Desk {
+	private Id id;
+	private Office office;
+
+	Desk() {}
+
+	public Desk(Id id, Office office) {
+		this.id = id;
+		this.office = office;
+	}
+
+	public Id getId() {
+		return id;
+	}
+
+	public void setId(Id id) {
+		this.id = id;
+	}
+
+	public Office getOffice() {
+		return office;
+	}
+
+	public void setOffice(Office office) {
+		this.office = office;
+	}
+
+	public static class Id implements Serializable {
+		private int floor;
+		private String label;
+
+		public Id() {}
+
+		public Id(int floor, String label) {
+			this.floor = floor;
+			this.label = label;
+		}
+
+		public int getFloor() {
+			return floor;
+		}
+
+		public void setFloor(int floor) {
+			this.floor = floor;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public void setLabel(String label) {
+			this.label = label;
+		}
+
+		public int hashCode() {
+			return label.hashCode() + floor;
+		}
+
+		public boolean equals(Object other) {
+			if ( other instanceof Id ) {
+				Id that = ( Id ) other;
+				return that.label.equals( this.label ) && that.floor == this.floor;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package org.hibernate.test.cascade;
+
+/**
+ * A child of a {@link Team}.
+ *
+ * @author agent
+ */
+public class Member {
+	private Long id;
+	private Team team;
+	private String name;
+
+	Member() {}
+
+	public Member(Team team, String name) {
+		this.team = team;
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Team getTeam() {
+		return team;
+	}
+
+	public void setTeam(Team team) {
+		this.team = team;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+}
@@ -0,0 +1,83 @@
+package org.hibernate.test.cascade;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An entity with a composite key, owning children with composite keys.
+ *
+ * @author agent
+ */
+public class Office {
+	private Id id;
+	private Set desks = new HashSet();
+
+	Office() {}
+
+	public Office(Id id) {
+		this.id = id;
+	}
+
+	public Id getId() {
+		return id;
+	}
+
+	public void setId(Id id) {
+		this.id = id;
+	}
+
+	public Set getDesks() {
+		return desks;
+	}
+
+	public void setDesks(Set desks) {
+		this.desks = desks;
+	}
+
+	public Desk createDesk(int floor, String label) {
+		Desk desk = new Desk( new Desk.Id( floor, label ), this );
+		desks.add( desk );
+		return desk;
+	}
+
+	public static class Id implements Serializable {
+		private String city;
+		private int number;
+
+		public Id() {}
+
+		public Id(String city, int number) {
+			this.city = city;
+			this.number = number;
+		}
+
+		public String getCity() {
+			return city;
+		}
+
+		public void setCity(String city) {
+			this.city = city;
+		}
+
+		public int getNumber() {
+			return number;
+		}
+
+		public void setNumber(int number) {
+			this.number = number;
+		}
+
+		public int hashCode() {
+			return city.hashCode() + number;
+		}
+
+		public boolean equals(Object other) {
+			if ( other instanceof Id ) {
+				Id that = ( Id ) other;
+				return that.city.equals( this.city ) && that.number == this.number;
+			}
+			return false;
+		}
+	}
+}
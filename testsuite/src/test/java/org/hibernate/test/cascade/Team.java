@@ -0,0 +1,79 @@
+package org.hibernate.test.cascade;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A child of a {@link Department}, with children of its own and collection tables.
+ *
+ * @author agent
+ */
+public class Team {
+	private Long id;
+	private Department department;
+	private String name;
+	private Set members = new HashSet();
+	private Set skills = new HashSet();
+	private Set jobs = new HashSet();
+
+	Team() {}
+
+	public Team(Department department, String name) {
+		this.department = department;
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Department getDepartment() {
+		return department;
+	}
+
+	public void setDepartment(Department department) {
+		this.department = department;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Set getMembers() {
+		return members;
+	}
+
+	public void setMembers(Set members) {
+		this.members = members;
+	}
+
+	public Set getSkills() {
+		return skills;
+	}
+
+	public void setSkills(Set skills) {
+		this.skills = skills;
+	}
+
+	public Set getJobs() {
+		return jobs;
+	}
+
+	public void setJobs(Set jobs) {
+		this.jobs = jobs;
+	}
+
+	public Member createMember(String name) {
+		Member member = new Member( this, name );
+		members.add( member );
+		return member;
+	}
+}
@@ -0,0 +1,176 @@
+package org.hibernate.test.cfg;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.hibernate.Hibernate;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.test.hql.SimpleEntityWithAssociation;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests that with {@link Environment#LOADER_LAZY_INITIALIZATION} enabled the static entity loaders
+ * and collection initializers are built on first use, and are the same as those built eagerly.
+ *
+ * @author agent
+ */
+public class LazyLoaderInitializationTest extends FunctionalTestCase {
+
+	private static final String ENTITY = SimpleEntityWithAssociation.class.getName();
+	private static final String ROLE = ENTITY + ".associatedEntities";
+
+	private static final Object[] LOADER_KEYS = new Object[] {
+			LockMode.NONE,
+			LockMode.READ,
+			LockMode.UPGRADE,
+			LockMode.UPGRADE_NOWAIT,
+			LockMode.FORCE,
+			LockMode.PESSIMISTIC_READ,
+			LockMode.PESSIMISTIC_WRITE,
+			LockMode.PESSIMISTIC_FORCE_INCREMENT,
+			LockMode.OPTIMISTIC,
+			LockMode.OPTIMISTIC_FORCE_INCREMENT,
+			"merge",
+			"refresh"
+	};
+
+	public LazyLoaderInitializationTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "hql/SimpleEntityWithAssociation.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.LOADER_LAZY_INITIALIZATION, "true" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( LazyLoaderInitializationTest.class );
+	}
+
+	public void testLoadersBuiltOnFirstUse() throws Exception {
+		AbstractEntityPersister entityPersister = ( AbstractEntityPersister ) sfi().getEntityPersister( ENTITY );
+		AbstractCollectionPersister collectionPersister = ( AbstractCollectionPersister ) sfi().getCollectionPersister( ROLE );
+		assertTrue( loaders( entityPersister ).isEmpty() );
+		assertNull( initializer( collectionPersister ) );
+
+		Session s = openSession();
+		s.beginTransaction();
+		SimpleEntityWithAssociation entity = new SimpleEntityWithAssociation( "owner" );
+		entity.addAssociation( "first" );
+		entity.addAssociation( "second" );
+		Long id = ( Long ) s.save( entity );
+		s.getTransaction().commit();
+		s.close();
+		assertTrue( loaders( entityPersister ).isEmpty() );
+
+		s = openSession();
+		s.beginTransaction();
+		entity = ( SimpleEntityWithAssociation ) s.get( SimpleEntityWithAssociation.class, id );
+		assertEquals( "owner", entity.getName() );
+		assertEquals( 1, loaders( entityPersister ).size() );
+		assertTrue( loaders( entityPersister ).containsKey( LockMode.NONE ) );
+		assertNull( initializer( collectionPersister ) );
+
+		Hibernate.initialize( entity.getAssociatedEntities() );
+		assertEquals( 2, entity.getAssociatedEntities().size() );
+		assertNotNull( initializer( collectionPersister ) );
+		s.getTransaction().commit();
+		s.close();
+
+		s = openSession();
+		s.beginTransaction();
+		s.delete( s.get( SimpleEntityWithAssociation.class, id ) );
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	public void testLazyLoadersMatchEagerLoaders() throws Exception {
+		Configuration cfg = new Configuration();
+		cfg.addResource( getBaseForMappings() + getMappings()[0], getClass().getClassLoader() );
+		cfg.setProperty( Environment.LOADER_LAZY_INITIALIZATION, "false" );
+		SessionFactoryImplementor eager = ( SessionFactoryImplementor ) cfg.buildSessionFactory();
+		try {
+			AbstractEntityPersister eagerPersister = ( AbstractEntityPersister ) eager.getEntityPersister( ENTITY );
+			AbstractEntityPersister lazyPersister = ( AbstractEntityPersister ) sfi().getEntityPersister( ENTITY );
+			assertEquals( LOADER_KEYS.length, loaders( eagerPersister ).size() );
+			assertNotNull( initializer( ( AbstractCollectionPersister ) eager.getCollectionPersister( ROLE ) ) );
+
+			for ( int i = 0; i < LOADER_KEYS.length; i++ ) {
+				Object expected = loaders( eagerPersister ).get( LOADER_KEYS[i] );
+				Object actual = loader( lazyPersister, LOADER_KEYS[i] );
+				assertEquals( LOADER_KEYS[i].toString(), normalizeAliases( expected ), normalizeAliases( actual ) );
+			}
+			assertEquals(
+					normalizeAliases( initializer( ( AbstractCollectionPersister ) eager.getCollectionPersister( ROLE ) ) ),
+					normalizeAliases( ( ( AbstractCollectionPersister ) sfi().getCollectionPersister( ROLE ) ).getInitializer() )
+			);
+
+			Session s = openSession();
+			s.beginTransaction();
+			SimpleEntityWithAssociation entity = new SimpleEntityWithAssociation( "owner" );
+			entity.addAssociation( "first" );
+			Long id = ( Long ) s.save( entity );
+			s.getTransaction().commit();
+			s.close();
+
+			Session lazySession = openSession();
+			Session eagerSession = eager.openSession();
+			SimpleEntityWithAssociation lazyEntity = ( SimpleEntityWithAssociation ) lazySession.get( SimpleEntityWithAssociation.class, id );
+			SimpleEntityWithAssociation eagerEntity = ( SimpleEntityWithAssociation ) eagerSession.get( SimpleEntityWithAssociation.class, id );
+			assertEquals( eagerEntity.getName(), lazyEntity.getName() );
+			assertEquals( eagerEntity.getNegatedNumber(), lazyEntity.getNegatedNumber() );
+			assertEquals( eagerEntity.getAssociatedEntities().size(), lazyEntity.getAssociatedEntities().size() );
+			eagerSession.close();
+			lazySession.close();
+
+			s = openSession();
+			s.beginTransaction();
+			s.delete( s.get( SimpleEntityWithAssociation.class, id ) );
+			s.getTransaction().commit();
+			s.close();
+		}
+		finally {
+			eager.close();
+		}
+	}
+
+	private static Map loaders(AbstractEntityPersister persister) throws Exception {
+		Field field = AbstractEntityPersister.class.getDeclaredField( "loaders" );
+		field.setAccessible( true );
+		return ( Map ) field.get( persister );
+	}
+
+	private static Object loader(AbstractEntityPersister persister, Object key) throws Exception {
+		Method method = AbstractEntityPersister.class.getDeclaredMethod( "getLoader", new Class[] { Object.class } );
+		method.setAccessible( true );
+		return method.invoke( persister, new Object[] { key } );
+	}
+
+	private static Object initializer(AbstractCollectionPersister persister) throws Exception {
+		Field field = AbstractCollectionPersister.class.getDeclaredField( "initializer" );
+		field.setAccessible( true );
+		return field.get( persister );
+	}
+
+	/**
+	 * Loaders print their SQL; column alias suffixes come from a global table counter, which
+	 * differs between configurations.
+	 */
+	private static String normalizeAliases(Object loader) {
+		return loader == null ? null : loader.toString().replaceAll( "[0-9]+_", "_" );
+	}
+}
@@ -0,0 +1,212 @@
+package org.hibernate.test.cfg;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.cfg.MetadataSnapshot;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.test.annotations.naturalid.Citizen;
+import org.hibernate.test.annotations.naturalid.State;
+import org.hibernate.test.hql.SimpleEntityWithAssociation;
+import org.hibernate.testing.junit.UnitTestCase;
+
+/**
+ * Tests that a session factory built from a restored {@link MetadataSnapshot} of a configuration
+ * mixing mapping documents and annotated classes works, and that stale snapshots are not used.
+ *
+ * @author agent
+ */
+public class MetadataSnapshotTest extends UnitTestCase {
+	private static final String MAPPING = "org/hibernate/test/hql/SimpleEntityWithAssociation.hbm.xml";
+
+	private File mappingFile;
+	private File snapshotFile;
+
+	public MetadataSnapshotTest(String name) {
+		super( name );
+	}
+
+	public static Test suite() {
+		return new TestSuite( MetadataSnapshotTest.class );
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		mappingFile = File.createTempFile( "SimpleEntityWithAssociation", ".hbm.xml" );
+		copyMapping( mappingFile, "" );
+		snapshotFile = File.createTempFile( "metadata", ".snapshot" );
+		snapshotFile.delete();
+	}
+
+	protected void tearDown() throws Exception {
+		mappingFile.delete();
+		snapshotFile.delete();
+		super.tearDown();
+	}
+
+	public void testRestoredSnapshotBuildsWorkingSessionFactory() throws Exception {
+		Configuration cfg = buildConfiguration();
+		String hash = MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } );
+		assertNull( MetadataSnapshot.read( snapshotFile, hash ) );
+		MetadataSnapshot.write( cfg, hash, snapshotFile );
+
+		Configuration restored = MetadataSnapshot.read( snapshotFile, hash );
+		assertNotNull( restored );
+		assertNotNull( restored.getClassMapping( SimpleEntityWithAssociation.class.getName() ) );
+		assertNotNull( restored.getClassMapping( Citizen.class.getName() ) );
+		assertNotNull( restored.getClassMapping( State.class.getName() ) );
+
+		SessionFactory factory = restored.buildSessionFactory();
+		try {
+			Session s = factory.openSession();
+			s.beginTransaction();
+			SimpleEntityWithAssociation entity = new SimpleEntityWithAssociation( "owner" );
+			entity.addAssociation( "child" );
+			Long entityId = ( Long ) s.save( entity );
+			State state = new State();
+			state.setName( "Ile de France" );
+			s.save( state );
+			Citizen citizen = new Citizen();
+			citizen.setFirstname( "Emmanuel" );
+			citizen.setLastname( "Bernard" );
+			citizen.setSsn( "1234" );
+			citizen.setState( state );
+			s.save( citizen );
+			s.getTransaction().commit();
+			s.close();
+
+			s = factory.openSession();
+			s.beginTransaction();
+			entity = ( SimpleEntityWithAssociation ) s.get( SimpleEntityWithAssociation.class, entityId );
+			assertEquals( "owner", entity.getName() );
+			Hibernate.initialize( entity.getAssociatedEntities() );
+			assertEquals( 1, entity.getAssociatedEntities().size() );
+			List citizens = s.createCriteria( Citizen.class )
+					.add( Restrictions.naturalId().set( "ssn", "1234" ).set( "state", state ) )
+					.list();
+			assertEquals( 1, citizens.size() );
+			assertEquals( "Ile de France", ( ( Citizen ) citizens.get( 0 ) ).getState().getName() );
+			s.delete( entity );
+			s.delete( citizens.get( 0 ) );
+			s.delete( ( ( Citizen ) citizens.get( 0 ) ).getState() );
+			s.getTransaction().commit();
+			s.close();
+		}
+		finally {
+			factory.close();
+		}
+	}
+
+	public void testSnapshotOfChangedMappingIgnored() throws Exception {
+		Configuration cfg = buildConfiguration();
+		MetadataSnapshot.write(
+				cfg,
+				MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } ),
+				snapshotFile
+		);
+
+		copyMapping( mappingFile, "<!-- changed -->" );
+		assertNull(
+				MetadataSnapshot.read(
+						snapshotFile,
+						MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } )
+				)
+		);
+	}
+
+	public void testSnapshotOfChangedPropertiesIgnored() throws Exception {
+		Configuration cfg = buildConfiguration();
+		MetadataSnapshot.write(
+				cfg,
+				MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } ),
+				snapshotFile
+		);
+
+		cfg.setProperty( Environment.DEFAULT_BATCH_FETCH_SIZE, "16" );
+		assertNull(
+				MetadataSnapshot.read(
+						snapshotFile,
+						MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } )
+				)
+		);
+	}
+
+	public void testHashIndependentOfInputLocation() throws Exception {
+		Configuration cfg = buildConfiguration();
+		File directory = new File( mappingFile.getParentFile(), "snapshot-copy-" + System.currentTimeMillis() );
+		assertTrue( directory.mkdir() );
+		File copy = new File( directory, mappingFile.getName() );
+		try {
+			copyMapping( copy, "" );
+			assertEquals(
+					MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } ),
+					MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { copy } )
+			);
+		}
+		finally {
+			copy.delete();
+			directory.delete();
+		}
+	}
+
+	public void testFailedWriteKeepsPreviousSnapshot() throws Exception {
+		Configuration cfg = buildConfiguration();
+		String hash = MetadataSnapshot.hashInputs( cfg.getProperties(), new File[] { mappingFile } );
+		MetadataSnapshot.write( cfg, hash, snapshotFile );
+		long length = snapshotFile.length();
+
+		Configuration unserializable = buildConfiguration();
+		unserializable.getProperties().put( "unserializable", new Object() );
+		try {
+			MetadataSnapshot.write( unserializable, hash, snapshotFile );
+			fail( "expecting the configuration not to be serializable" );
+		}
+		catch ( HibernateException expected ) {
+		}
+
+		assertEquals( length, snapshotFile.length() );
+		String[] files = snapshotFile.getParentFile().list();
+		for ( int i = 0; i < files.length; i++ ) {
+			assertFalse( files[i], files[i].startsWith( snapshotFile.getName() ) && files[i].endsWith( ".tmp" ) );
+		}
+		assertNotNull( MetadataSnapshot.read( snapshotFile, hash ) );
+	}
+
+	private Configuration buildConfiguration() {
+		return new Configuration()
+				.addFile( mappingFile )
+				.addAnnotatedClass( State.class )
+				.addAnnotatedClass( Citizen.class )
+				.setProperty( Environment.HBM2DDL_AUTO, "create-drop" );
+	}
+
+	private void copyMapping(File target, String suffix) throws IOException {
+		InputStream in = getClass().getClassLoader().getResourceAsStream( MAPPING );
+		OutputStream out = new FileOutputStream( target );
+		try {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ( ( read = in.read( buffer ) ) != -1 ) {
+				out.write( buffer, 0, read );
+			}
+			out.write( suffix.getBytes( "UTF-8" ) );
+		}
+		finally {
+			in.close();
+			out.close();
+		}
+	}
+}
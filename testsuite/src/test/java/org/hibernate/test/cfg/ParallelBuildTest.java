@@ -0,0 +1,184 @@
+package org.hibernate.test.cfg;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests that a session factory whose persisters are initialized concurrently is equivalent to
+ * one built sequentially.
+ *
+ * @author agent
+ */
+public class ParallelBuildTest extends FunctionalTestCase {
+	private static final int ENTITIES = 150;
+	private static final int BUILDS = 5;
+
+	public ParallelBuildTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] {
+				"legacy/FooBar.hbm.xml",
+				"legacy/Baz.hbm.xml",
+				"legacy/Qux.hbm.xml",
+				"legacy/Glarch.hbm.xml",
+				"legacy/Fum.hbm.xml",
+				"legacy/Fumm.hbm.xml",
+				"legacy/Fo.hbm.xml",
+				"legacy/One.hbm.xml",
+				"legacy/Many.hbm.xml",
+				"legacy/Immutable.hbm.xml",
+				"legacy/Fee.hbm.xml",
+				"legacy/Vetoer.hbm.xml",
+				"legacy/Holder.hbm.xml",
+				"legacy/Location.hbm.xml",
+				"legacy/Stuff.hbm.xml",
+				"legacy/Container.hbm.xml",
+				"legacy/Simple.hbm.xml",
+				"legacy/XY.hbm.xml"
+		};
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.SESSION_FACTORY_BUILD_THREADS, "4" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( ParallelBuildTest.class );
+	}
+
+	public void testParallelBuildMatchesSequentialBuild() {
+		Configuration cfg = new Configuration();
+		for ( int i = 0; i < getMappings().length; i++ ) {
+			cfg.addResource( getBaseForMappings() + getMappings()[i], getClass().getClassLoader() );
+		}
+		cfg.setProperty( Environment.SESSION_FACTORY_BUILD_THREADS, "1" );
+		SessionFactoryImplementor sequential = ( SessionFactoryImplementor ) cfg.buildSessionFactory();
+		try {
+			assertEquals(
+					new TreeSet( sequential.getAllClassMetadata().keySet() ),
+					new TreeSet( sfi().getAllClassMetadata().keySet() )
+			);
+			assertEquals(
+					new TreeSet( sequential.getAllCollectionMetadata().keySet() ),
+					new TreeSet( sfi().getAllCollectionMetadata().keySet() )
+			);
+
+			Session s = openSession();
+			s.beginTransaction();
+			Iterator entityNames = new TreeSet( sfi().getAllClassMetadata().keySet() ).iterator();
+			while ( entityNames.hasNext() ) {
+				String hql = "from " + entityNames.next();
+				String[] expected = sequential.getQueryPlanCache()
+						.getHQLQueryPlan( hql, false, Collections.EMPTY_MAP )
+						.getSqlStrings();
+				String[] actual = sfi().getQueryPlanCache()
+						.getHQLQueryPlan( hql, false, Collections.EMPTY_MAP )
+						.getSqlStrings();
+				assertEquals( hql, expected.length, actual.length );
+				for ( int i = 0; i < expected.length; i++ ) {
+					assertEquals( hql, normalizeAliases( expected[i] ), normalizeAliases( actual[i] ) );
+				}
+				s.createQuery( hql ).list();
+			}
+			s.getTransaction().commit();
+			s.close();
+		}
+		finally {
+			sequential.close();
+		}
+	}
+
+	public void testRepeatedParallelBuildsOfLargeModel() {
+		SessionFactoryImplementor sequential = buildGeneratedModel( "1" );
+		try {
+			for ( int build = 0; build < BUILDS; build++ ) {
+				SessionFactoryImplementor parallel = buildGeneratedModel( "4" );
+				try {
+					for ( int i = 0; i < ENTITIES; i++ ) {
+						String hql = "from E" + i + " e where e.next.next.p0 = 'x' and e.c.ref.p1 = 'y'";
+						String[] expected = sequential.getQueryPlanCache()
+								.getHQLQueryPlan( hql, false, Collections.EMPTY_MAP )
+								.getSqlStrings();
+						String[] actual = parallel.getQueryPlanCache()
+								.getHQLQueryPlan( hql, false, Collections.EMPTY_MAP )
+								.getSqlStrings();
+						assertEquals( hql, expected.length, actual.length );
+						for ( int j = 0; j < expected.length; j++ ) {
+							assertEquals( hql, normalizeAliases( expected[j] ), normalizeAliases( actual[j] ) );
+						}
+					}
+					Session s = parallel.openSession();
+					s.beginTransaction();
+					for ( int i = 0; i < ENTITIES; i += 10 ) {
+						assertNull( s.get( "E" + i, new Long( 1 ) ) );
+						s.createQuery( "from E" + i + " e left join fetch e.children" ).list();
+					}
+					s.getTransaction().commit();
+					s.close();
+				}
+				finally {
+					parallel.close();
+				}
+			}
+		}
+		finally {
+			sequential.close();
+		}
+	}
+
+	private static SessionFactoryImplementor buildGeneratedModel(String threads) {
+		Configuration cfg = new Configuration();
+		cfg.addXML( generateMapping() );
+		cfg.setProperty( Environment.DEFAULT_ENTITY_MODE, "dynamic-map" );
+		cfg.setProperty( Environment.MAX_FETCH_DEPTH, "3" );
+		cfg.setProperty( Environment.HBM2DDL_AUTO, "create-drop" );
+		cfg.setProperty( Environment.SESSION_FACTORY_BUILD_THREADS, threads );
+		return ( SessionFactoryImplementor ) cfg.buildSessionFactory();
+	}
+
+	/**
+	 * Entities sharing components, associations and subclasses, whose types and columns are
+	 * resolved from the same mapping model by the persisters.
+	 */
+	private static String generateMapping() {
+		StringBuffer buffer = new StringBuffer( "<?xml version=\"1.0\"?>\n" )
+				.append( "<!DOCTYPE hibernate-mapping PUBLIC \"-//Hibernate/Hibernate Mapping DTD 3.0//EN\" " )
+				.append( "\"http://www.hibernate.org/dtd/hibernate-mapping-3.0.dtd\">\n" )
+				.append( "<hibernate-mapping>\n" );
+		for ( int i = 0; i < ENTITIES; i++ ) {
+			int next = ( i + 1 ) % ENTITIES;
+			buffer.append( "<class entity-name=\"E" ).append( i ).append( "\" table=\"E" ).append( i ).append( "\">" )
+					.append( "<id name=\"id\" type=\"long\"><generator class=\"increment\"/></id>" )
+					.append( "<property name=\"p0\" type=\"string\"/><property name=\"p1\" type=\"string\"/>" )
+					.append( "<many-to-one name=\"next\" entity-name=\"E" ).append( next ).append( "\" fetch=\"join\"/>" )
+					.append( "<component name=\"c\"><property name=\"cp\" type=\"integer\"/>" )
+					.append( "<many-to-one name=\"ref\" entity-name=\"E" ).append( next ).append( "\"/></component>" )
+					.append( "<set name=\"children\" inverse=\"true\"><key column=\"next\"/>" )
+					.append( "<one-to-many entity-name=\"E" ).append( ( i + ENTITIES - 1 ) % ENTITIES ).append( "\"/></set>" )
+					.append( "<joined-subclass entity-name=\"S" ).append( i ).append( "\" table=\"S" ).append( i ).append( "\">" )
+					.append( "<key column=\"id\"/><property name=\"s\" type=\"string\"/></joined-subclass>" )
+					.append( "</class>\n" );
+		}
+		return buffer.append( "</hibernate-mapping>" ).toString();
+	}
+
+	/**
+	 * Column alias suffixes come from a global table counter, which differs between configurations.
+	 */
+	private static String normalizeAliases(String sql) {
+		return sql.replaceAll( "[0-9]+_", "_" );
+	}
+}
@@ -1,10 +1,14 @@
 package org.hibernate.test.collection.bag;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import junit.framework.Test;
 
 import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
 import org.hibernate.collection.PersistentBag;
 import org.hibernate.testing.junit.functional.FunctionalTestCase;
 import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
@@ -27,6 +31,12 @@ public class PersistentBagTest extends FunctionalTestCase {
 		return new FunctionalTestClassTestSuite( PersistentBagTest.class );
 	}
 
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+		cfg.setProperty( Environment.BAG_ELEMENT_UPDATES, "true" );
+	}
+
 	public void testWriteMethodDirtying() {
 		BagOwner parent = new BagOwner( "root" );
 		BagOwner child = new BagOwner( "c1" );
@@ -67,4 +77,52 @@ public class PersistentBagTest extends FunctionalTestCase {
 		session.getTransaction().commit();
 		session.close();
 	}
+
+	public void testElementBagUpdatedByDifference() {
+		BagOwner owner = new BagOwner( "owner" );
+		for ( int i = 0; i < 20; i++ ) {
+			owner.getTags().add( "tag" + ( i % 5 ) );
+		}
+
+		Session session = openSession();
+		session.beginTransaction();
+		session.save( owner );
+		session.getTransaction().commit();
+		session.close();
+
+		getSessions().getStatistics().clear();
+		session = openSession();
+		session.beginTransaction();
+		owner = ( BagOwner ) session.get( BagOwner.class, "owner" );
+		owner.getTags().add( "tag0" );
+		owner.getTags().add( "new" );
+		owner.getTags().remove( "tag1" );
+		session.getTransaction().commit();
+		session.close();
+		// besides loading the owner and its bag, only the rows of "tag1" are deleted and
+		// rewritten, plus the two additions, rather than deleting and reinserting all 21 rows
+		assertEquals( 4, getSessions().getStatistics().getPrepareStatementCount() );
+
+		session = openSession();
+		session.beginTransaction();
+		owner = ( BagOwner ) session.get( BagOwner.class, "owner" );
+		List tags = new ArrayList( owner.getTags() );
+		assertEquals( 21, tags.size() );
+		assertEquals( 5, Collections.frequency( tags, "tag0" ) );
+		assertEquals( 3, Collections.frequency( tags, "tag1" ) );
+		assertEquals( 4, Collections.frequency( tags, "tag2" ) );
+		assertEquals( 1, Collections.frequency( tags, "new" ) );
+		List rows = session.createSQLQuery( "select TAG from BAG_OWNER_TAGS where OWNER = 'owner' order by TAG" ).list();
+		List expected = new ArrayList();
+		expected.add( "new" );
+		for ( int i = 0; i < 5; i++ ) {
+			for ( int j = 0; j < ( i == 0 ? 5 : i == 1 ? 3 : 4 ); j++ ) {
+				expected.add( "tag" + i );
+			}
+		}
+		assertEquals( expected, rows );
+		session.delete( owner );
+		session.getTransaction().commit();
+		session.close();
+	}
 }
@@ -0,0 +1,98 @@
+package org.hibernate.test.extralazy;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.Test;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests the queued writes of an extra-lazy bag of values, which are only
+ * written without initializing the bag if {@link Environment#BAG_ELEMENT_UPDATES}
+ * allows its rows to be located by element value.
+ *
+ * @author agent
+ */
+public class ExtraLazyBagTest extends FunctionalTestCase {
+	public ExtraLazyBagTest(String str) {
+		super( str );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "extralazy/UserGroup.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.BAG_ELEMENT_UPDATES, "true" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( ExtraLazyBagTest.class );
+	}
+
+	public void testQueuedAdditionsAndRemovals() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		User gavin = new User( "gavin", "secret" );
+		gavin.getTags().add( "java" );
+		gavin.getTags().add( "java" );
+		gavin.getTags().add( "sql" );
+		s.persist( gavin );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = ( User ) s.get( User.class, "gavin" );
+		// a new element added and removed again is not inserted
+		assertTrue( gavin.getTags().add( "hql" ) );
+		assertTrue( gavin.getTags().removeAll( Collections.singleton( "hql" ) ) );
+		// removing an element removes all of its occurrences, and adding it again inserts one
+		assertTrue( gavin.getTags().removeAll( Collections.singleton( "java" ) ) );
+		assertTrue( gavin.getTags().add( "java" ) );
+		// additions followed by a removal of the same element are not inserted
+		assertTrue( gavin.getTags().addAll( Arrays.asList( new String[] { "xml", "xml" } ) ) );
+		assertTrue( gavin.getTags().removeAll( Collections.singleton( "xml" ) ) );
+		assertFalse( Hibernate.isInitialized( gavin.getTags() ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = ( User ) s.get( User.class, "gavin" );
+		assertEquals( 2, gavin.getTags().size() );
+		assertEquals( 1, Collections.frequency( gavin.getTags(), "java" ) );
+		assertTrue( gavin.getTags().contains( "sql" ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = ( User ) s.get( User.class, "gavin" );
+		// after a queued clear, additions removed again are not inserted
+		gavin.getTags().clear();
+		assertTrue( gavin.getTags().add( "sql" ) );
+		assertTrue( gavin.getTags().add( "hql" ) );
+		assertTrue( gavin.getTags().removeAll( Collections.singleton( "sql" ) ) );
+		assertFalse( Hibernate.isInitialized( gavin.getTags() ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = ( User ) s.get( User.class, "gavin" );
+		assertEquals( 1, gavin.getTags().size() );
+		assertTrue( gavin.getTags().contains( "hql" ) );
+		s.delete( gavin );
+		t.commit();
+		s.close();
+	}
+}
@@ -1,6 +1,8 @@
 //$Id: ExtraLazyTest.java 10977 2006-12-12 23:28:04Z steve.ebersole@jboss.com $
 package org.hibernate.test.extralazy;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -9,6 +11,8 @@ import junit.framework.Test;
 import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
 import org.hibernate.testing.junit.functional.FunctionalTestCase;
 import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
 
@@ -25,6 +29,11 @@ public class ExtraLazyTest extends FunctionalTestCase {
 		return new String[] { "extralazy/UserGroup.hbm.xml" };
 	}
 
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
 	public static Test suite() {
 		return new FunctionalTestClassTestSuite( ExtraLazyTest.class );
 	}
@@ -122,7 +131,7 @@ public class ExtraLazyTest extends FunctionalTestCase {
 		assertFalse( Hibernate.isInitialized( g.getUsers() ) );
 		g.getUsers().clear();
 		gavin.getSession().remove("foo");
-		assertTrue( Hibernate.isInitialized( g.getUsers() ) );
+		assertFalse( Hibernate.isInitialized( g.getUsers() ) );
 		assertTrue( Hibernate.isInitialized( gavin.getSession() ) );
 		t.commit();
 		s.close();
@@ -142,6 +151,229 @@ public class ExtraLazyTest extends FunctionalTestCase {
 		s.close();
 	}
 	
+	public void testQueuedWritesDoNotInitialize() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		User gavin = new User("gavin", "secret");
+		User turin = new User("turin", "tiger");
+		gavin.getRoles().add("admin");
+		gavin.getRoles().add("dev");
+		Group g = new Group("developers");
+		g.getUsers().put("gavin", gavin);
+		s.persist(g);
+		s.persist(turin);
+		t.commit();
+		s.close();
+
+		sfi().getStatistics().clear();
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		assertTrue( gavin.getRoles().add("qa") );
+		assertFalse( gavin.getRoles().add("dev") );
+		assertTrue( gavin.getRoles().removeAll( Arrays.asList( new String[] { "admin", "ops" } ) ) );
+		assertTrue( gavin.getRoles().addAll( Arrays.asList( new String[] { "ops", "qa" } ) ) );
+		g = (Group) s.get(Group.class, "developers");
+		Map puts = new HashMap();
+		puts.put( "turin", s.get(User.class, "turin") );
+		g.getUsers().putAll( puts );
+		// the queued operations are looked up without being written
+		assertEquals( 3, gavin.getRoles().size() );
+		assertFalse( gavin.getRoles().contains("admin") );
+		assertTrue( gavin.getRoles().contains("ops") );
+		assertEquals( 2, g.getUsers().size() );
+		assertTrue( g.getUsers().containsKey("turin") );
+		assertNotNull( g.getUsers().get("turin") );
+		assertFalse( Hibernate.isInitialized( gavin.getRoles() ) );
+		assertFalse( Hibernate.isInitialized( g.getUsers() ) );
+		assertEquals( 0, sfi().getStatistics().getFlushCount() );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		assertEquals( 3, gavin.getRoles().size() );
+		assertTrue( gavin.getRoles().contains("ops") );
+		assertFalse( gavin.getRoles().contains("admin") );
+		gavin.getRoles().clear();
+		assertTrue( gavin.getRoles().add("admin") );
+		assertFalse( Hibernate.isInitialized( gavin.getRoles() ) );
+		sfi().getStatistics().clear();
+		// initializing merges the queued operations over the loaded roles
+		assertEquals( "admin", gavin.getRoles().iterator().next() );
+		assertEquals( 1, gavin.getRoles().size() );
+		assertEquals( 0, sfi().getStatistics().getFlushCount() );
+		g = (Group) s.get(Group.class, "developers");
+		assertEquals( 2, g.getUsers().size() );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		assertEquals( 1, gavin.getRoles().size() );
+		assertTrue( gavin.getRoles().contains("admin") );
+		g = (Group) s.get(Group.class, "developers");
+		turin = (User) g.getUsers().get("turin");
+		s.delete(g);
+		s.delete(gavin);
+		s.delete(turin);
+		t.commit();
+		s.close();
+	}
+
+	public void testQueuedSetAdditionsAndRemovalsCancelOut() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		User gavin = new User("gavin", "secret");
+		gavin.getRoles().add("admin");
+		gavin.getRoles().add("dev");
+		s.persist(gavin);
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		// a new element added and removed again is neither deleted nor inserted
+		assertTrue( gavin.getRoles().add("qa") );
+		assertTrue( gavin.getRoles().remove("qa") );
+		// an existing element removed and added again is left alone
+		assertTrue( gavin.getRoles().remove("admin") );
+		assertTrue( gavin.getRoles().add("admin") );
+		// an existing element removed, added and removed again is deleted once
+		assertTrue( gavin.getRoles().remove("dev") );
+		assertTrue( gavin.getRoles().add("dev") );
+		assertTrue( gavin.getRoles().remove("dev") );
+		// a new element added, removed and added again is inserted once
+		assertTrue( gavin.getRoles().add("ops") );
+		assertTrue( gavin.getRoles().remove("ops") );
+		assertTrue( gavin.getRoles().add("ops") );
+		assertEquals( 2, gavin.getRoles().size() );
+		assertFalse( Hibernate.isInitialized( gavin.getRoles() ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		assertEquals( 2, gavin.getRoles().size() );
+		assertTrue( gavin.getRoles().contains("admin") );
+		assertTrue( gavin.getRoles().contains("ops") );
+		// after a queued clear, nothing is deleted but the clear itself
+		gavin.getRoles().clear();
+		assertTrue( gavin.getRoles().add("admin") );
+		assertTrue( gavin.getRoles().remove("admin") );
+		assertTrue( gavin.getRoles().add("qa") );
+		assertFalse( Hibernate.isInitialized( gavin.getRoles() ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		assertEquals( 1, gavin.getRoles().size() );
+		assertTrue( gavin.getRoles().contains("qa") );
+		s.delete(gavin);
+		t.commit();
+		s.close();
+	}
+
+	public void testQueuedMapWritesDeleteOnlyExistingRows() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		User gavin = new User("gavin", "secret");
+		User max = new User("max", "secret");
+		User otherMax = new User("MAX", "secret");
+		User turin = new User("turin", "tiger");
+		Group g = new Group("developers");
+		g.getUsers().put("gavin", gavin);
+		s.persist(g);
+		s.persist(max);
+		s.persist(otherMax);
+		s.persist(turin);
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		g = (Group) s.get(Group.class, "developers");
+		max = (User) s.get(User.class, "max");
+		otherMax = (User) s.get(User.class, "MAX");
+		turin = (User) s.get(User.class, "turin");
+		gavin = (User) s.get(User.class, "gavin");
+		// a new key put twice is inserted once, with its last value
+		assertNull( g.getUsers().put("max", max) );
+		assertSame( max, g.getUsers().put("max", otherMax) );
+		// a new key put and removed again is neither deleted nor inserted
+		assertNull( g.getUsers().put("turin", turin) );
+		assertSame( turin, g.getUsers().remove("turin") );
+		// an existing key removed and put again is replaced
+		assertSame( gavin, g.getUsers().remove("gavin") );
+		assertNull( g.getUsers().put("gavin", gavin) );
+		assertEquals( 2, g.getUsers().size() );
+		assertFalse( Hibernate.isInitialized( g.getUsers() ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		g = (Group) s.get(Group.class, "developers");
+		assertEquals( 2, g.getUsers().size() );
+		assertEquals( "gavin", ( (User) g.getUsers().get("gavin") ).getName() );
+		assertEquals( "MAX", ( (User) g.getUsers().get("max") ).getName() );
+		assertFalse( g.getUsers().containsKey("turin") );
+		// an existing key put twice and then removed is deleted once
+		gavin = (User) g.getUsers().get("gavin");
+		assertSame( gavin, g.getUsers().put("gavin", gavin) );
+		assertSame( gavin, g.getUsers().remove("gavin") );
+		assertFalse( Hibernate.isInitialized( g.getUsers() ) );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		g = (Group) s.get(Group.class, "developers");
+		assertEquals( 1, g.getUsers().size() );
+		assertFalse( g.getUsers().containsKey("gavin") );
+		s.delete(g);
+		s.delete( s.get(User.class, "gavin") );
+		s.delete( s.get(User.class, "max") );
+		s.delete( s.get(User.class, "MAX") );
+		s.delete( s.get(User.class, "turin") );
+		t.commit();
+		s.close();
+	}
+
+	public void testBagWritesNotQueuedWithoutElementUpdates() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		User gavin = new User("gavin", "secret");
+		gavin.getTags().add("java");
+		s.persist(gavin);
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		// the rows of a bag are only located by element value with bag element updates
+		gavin.getTags().removeAll( Arrays.asList( new String[] { "java" } ) );
+		assertTrue( Hibernate.isInitialized( gavin.getTags() ) );
+		assertEquals( 0, gavin.getTags().size() );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		gavin = (User) s.get(User.class, "gavin");
+		assertEquals( 0, gavin.getTags().size() );
+		s.delete(gavin);
+		t.commit();
+		s.close();
+	}
+
 	public void testIndexFormulaMap() {
 		Session s = openSession();
 		Transaction t = s.beginTransaction();
@@ -1,8 +1,10 @@
 //$Id: User.java 7635 2005-07-24 23:04:30Z oneovthafew $
 package org.hibernate.test.extralazy;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -14,6 +16,8 @@ public class User {
 	private String password;
 	private Map session = new HashMap();
 	private Set documents = new HashSet();
+	private Set roles = new HashSet();
+	private List tags = new ArrayList();
 	User() {}
 	public User(String n, String pw) {
 		name=n;
@@ -43,4 +47,16 @@ public class User {
 	public void setDocuments(Set documents) {
 		this.documents = documents;
 	}
+	public Set getRoles() {
+		return roles;
+	}
+	public void setRoles(Set roles) {
+		this.roles = roles;
+	}
+	public List getTags() {
+		return tags;
+	}
+	public void setTags(List tags) {
+		this.tags = tags;
+	}
 }
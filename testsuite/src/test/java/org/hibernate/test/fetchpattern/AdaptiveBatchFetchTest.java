@@ -0,0 +1,168 @@
+package org.hibernate.test.fetchpattern;
+
+import java.lang.reflect.Field;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+
+import org.hibernate.Hibernate;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.FetchPatternDetector;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.stat.Statistics;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests that entities and collections initialized one at a time after a query are reported
+ * as fetch patterns once {@link Environment#FETCH_PATTERN_THRESHOLD} is reached, and that
+ * batch fetching is then enabled for them, their loaders being rebuilt with the new size.
+ *
+ * @author agent
+ */
+public class AdaptiveBatchFetchTest extends FunctionalTestCase {
+	private static final int DEPARTMENTS = 10;
+
+	public AdaptiveBatchFetchTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "fetchpattern/Department.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.FETCH_PATTERN_THRESHOLD, "3" );
+		cfg.setProperty( Environment.ADAPTIVE_BATCH_FETCH_SIZE, "8" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+		cfg.setProperty( Environment.USE_SECOND_LEVEL_CACHE, "false" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( AdaptiveBatchFetchTest.class );
+	}
+
+	protected void prepareTest() throws Exception {
+		Session s = openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < DEPARTMENTS; i++ ) {
+			Department department = new Department( "department" + i );
+			s.save( department );
+			s.save( new Employee( "employee" + i, department ) );
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	protected void cleanupTest() throws Exception {
+		Session s = openSession();
+		s.beginTransaction();
+		s.createQuery( "delete Employee" ).executeUpdate();
+		s.createQuery( "delete Department" ).executeUpdate();
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	public void testCollectionBatchSizeAdapted() throws Exception {
+		AbstractCollectionPersister persister = ( AbstractCollectionPersister ) sfi().getCollectionPersister(
+				Department.class.getName() + ".employees"
+		);
+		Object initializer = persister.getInitializer();
+		assertEquals( 1, collectionBatchSize( persister ) );
+		FetchPatternDetector detector = sfi().getFetchPatternDetector();
+		detector.clear();
+		Statistics stats = sfi().getStatistics();
+		stats.clear();
+
+		Session s = openSession();
+		s.beginTransaction();
+		List departments = s.createQuery( "from Department d order by d.id" ).list();
+		assertEquals( DEPARTMENTS, departments.size() );
+		assertEquals( 1, stats.getPrepareStatementCount() );
+		for ( Iterator itr = departments.iterator(); itr.hasNext(); ) {
+			Department department = ( Department ) itr.next();
+			Hibernate.initialize( department.getEmployees() );
+			assertEquals( 1, department.getEmployees().size() );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		// 3 single initializations reach the threshold and enable batches of 3, which
+		// load 3 collections at a time; the 6th initialization doubles the size to 6
+		assertEquals( 1 + 3 + 3, stats.getPrepareStatementCount() );
+		assertEquals( 6, collectionBatchSize( persister ) );
+		assertNotSame( initializer, persister.getInitializer() );
+
+		List patterns = detector.getFetchPatterns();
+		assertEquals( 1, patterns.size() );
+		FetchPatternDetector.FetchPattern pattern = ( FetchPatternDetector.FetchPattern ) patterns.get( 0 );
+		assertTrue( pattern.isCollection() );
+		assertEquals( persister.getRole(), pattern.getRole() );
+		assertEquals( "from Department d order by d.id", pattern.getQuery() );
+		assertEquals( 1, pattern.getOccurrences() );
+	}
+
+	public void testEntityBatchSizeAdapted() throws Exception {
+		AbstractEntityPersister persister = ( AbstractEntityPersister ) sfi().getEntityPersister( Department.class.getName() );
+		assertFalse( persister.isBatchLoadable() );
+		Object loader = loaders( persister ).get( LockMode.NONE );
+		FetchPatternDetector detector = sfi().getFetchPatternDetector();
+		detector.clear();
+		Statistics stats = sfi().getStatistics();
+		stats.clear();
+
+		Session s = openSession();
+		s.beginTransaction();
+		List employees = s.createQuery( "from Employee e order by e.id" ).list();
+		for ( Iterator itr = employees.iterator(); itr.hasNext(); ) {
+			Employee employee = ( Employee ) itr.next();
+			assertFalse( Hibernate.isInitialized( employee.getDepartment() ) );
+			assertNotNull( employee.getDepartment().getName() );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		// the proxies were created before the batch size was raised, so they are not
+		// batch loadable: every department is loaded on its own
+		assertEquals( 1 + DEPARTMENTS, stats.getPrepareStatementCount() );
+		assertTrue( persister.isBatchLoadable() );
+		assertNotNull( loader );
+		assertNotSame( loader, loaders( persister ).get( LockMode.NONE ) );
+		assertEquals( 1, detector.getFetchPatterns().size() );
+		assertFalse( ( ( FetchPatternDetector.FetchPattern ) detector.getFetchPatterns().get( 0 ) ).isCollection() );
+
+		stats.clear();
+		s = openSession();
+		s.beginTransaction();
+		employees = s.createQuery( "from Employee e order by e.id" ).list();
+		for ( Iterator itr = employees.iterator(); itr.hasNext(); ) {
+			assertNotNull( ( ( Employee ) itr.next() ).getDepartment().getName() );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		// the batch size reached 6 (the threshold, then its doubling) in the first session
+		assertEquals( 1 + 2, stats.getPrepareStatementCount() );
+		assertNotNull( loaders( persister ).get( LockMode.NONE ) );
+		assertNotSame( loader, loaders( persister ).get( LockMode.NONE ) );
+	}
+
+	private static int collectionBatchSize(AbstractCollectionPersister persister) throws Exception {
+		Field field = AbstractCollectionPersister.class.getDeclaredField( "batchSize" );
+		field.setAccessible( true );
+		return field.getInt( persister );
+	}
+
+	private static Map loaders(AbstractEntityPersister persister) throws Exception {
+		Field field = AbstractEntityPersister.class.getDeclaredField( "loaders" );
+		field.setAccessible( true );
+		return ( Map ) field.get( persister );
+	}
+}
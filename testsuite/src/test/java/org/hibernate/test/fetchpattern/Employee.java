@@ -0,0 +1,43 @@
+package org.hibernate.test.fetchpattern;
+
+/**
+ * @author agent
+ */
+public class Employee {
+	private Long id;
+	private String name;
+	private Department department;
+
+	public Employee() {
+	}
+
+	public Employee(String name, Department department) {
+		this.name = name;
+		this.department = department;
+		department.getEmployees().add( this );
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Department getDepartment() {
+		return department;
+	}
+
+	public void setDepartment(Department department) {
+		this.department = department;
+	}
+}
@@ -0,0 +1,284 @@
+package org.hibernate.test.generatedkeys.identity;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.connection.DriverManagerConnectionProvider;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.testing.junit.UnitTestCase;
+
+/**
+ * Tests that identity inserts are delayed until flush and batched when
+ * {@link Environment#BATCH_IDENTITY_INSERTS} is enabled, using H2 behind a dialect and
+ * connection provider which emulate a driver returning the generated keys of batches.
+ *
+ * @author agent
+ */
+public class BatchedIdentityInsertTest extends UnitTestCase {
+	private SessionFactoryImplementor factory;
+
+	public BatchedIdentityInsertTest(String name) {
+		super( name );
+	}
+
+	public static Test suite() {
+		return new TestSuite( BatchedIdentityInsertTest.class );
+	}
+
+	protected void tearDown() throws Exception {
+		if ( factory != null ) {
+			factory.close();
+		}
+		super.tearDown();
+	}
+
+	private boolean buildSessionFactory(boolean batchIdentityInserts, boolean orderInserts) {
+		if ( !( Dialect.getDialect() instanceof H2Dialect ) ) {
+			reportSkip( "the emulated driver delegates to H2", "batched identity inserts" );
+			return false;
+		}
+		factory = ( SessionFactoryImplementor ) new Configuration()
+				.addResource( "org/hibernate/test/generatedkeys/identity/MyNode.hbm.xml" )
+				.setProperty( Environment.DIALECT, BatchedGeneratedKeysDialect.class.getName() )
+				.setProperty( Environment.CONNECTION_PROVIDER, BatchedGeneratedKeysConnectionProvider.class.getName() )
+				.setProperty( Environment.USE_GET_GENERATED_KEYS, "true" )
+				.setProperty( Environment.STATEMENT_BATCH_SIZE, "10" )
+				.setProperty( Environment.BATCH_IDENTITY_INSERTS, String.valueOf( batchIdentityInserts ) )
+				.setProperty( Environment.ORDER_INSERTS, String.valueOf( orderInserts ) )
+				.setProperty( Environment.GENERATE_STATISTICS, "true" )
+				.setProperty( Environment.HBM2DDL_AUTO, "create-drop" )
+				.buildSessionFactory();
+		return true;
+	}
+
+	public void testIdentityInsertsImmediateByDefault() {
+		if ( !buildSessionFactory( false, false ) ) {
+			return;
+		}
+		Session s = factory.openSession();
+		s.beginTransaction();
+		MyNode node = new MyNode( "node", null );
+		s.persist( node );
+		assertNotNull( "identity insert delayed", node.getId() );
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	public void testPersistedInsertsBatched() {
+		if ( !buildSessionFactory( true, false ) ) {
+			return;
+		}
+		Session s = factory.openSession();
+		s.beginTransaction();
+		MyNode[] nodes = new MyNode[3];
+		for ( int i = 0; i < nodes.length; i++ ) {
+			nodes[i] = new MyNode( "node" + i, null );
+			s.persist( nodes[i] );
+			assertNull( "identity insert not delayed", nodes[i].getId() );
+		}
+		factory.getStatistics().clear();
+		s.getTransaction().commit();
+		s.close();
+
+		assertEquals( 3, factory.getStatistics().getEntityInsertCount() );
+		assertEquals( 1, factory.getStatistics().getPrepareStatementCount() );
+		assertLoaded( nodes );
+	}
+
+	public void testReferenceEndsBatch() {
+		if ( !buildSessionFactory( true, false ) ) {
+			return;
+		}
+		Session s = factory.openSession();
+		s.beginTransaction();
+		MyNode root = new MyNode( "root", null );
+		MyNode child = new MyNode( "child", root );
+		MyNode linked = new MyNode( "linked", null );
+		linked.getLink().setTarget( child );
+		s.persist( root );
+		s.persist( child );
+		s.persist( linked );
+		factory.getStatistics().clear();
+		s.getTransaction().commit();
+		s.close();
+
+		// each insert references the previous one, so has to wait for its identifier
+		assertEquals( 3, factory.getStatistics().getEntityInsertCount() );
+		assertEquals( 3, factory.getStatistics().getPrepareStatementCount() );
+		assertLoaded( new MyNode[] { root, child, linked } );
+	}
+
+	public void testOrderedInsertsBatchedByLevel() {
+		if ( !buildSessionFactory( true, true ) ) {
+			return;
+		}
+		Session s = factory.openSession();
+		s.beginTransaction();
+		MyNode root1 = new MyNode( "root1", null );
+		MyNode child1 = new MyNode( "child1", root1 );
+		MyNode root2 = new MyNode( "root2", null );
+		MyNode child2 = new MyNode( "child2", null );
+		child2.getLink().setTarget( root2 );
+		s.persist( root1 );
+		s.persist( child1 );
+		s.persist( root2 );
+		s.persist( child2 );
+		factory.getStatistics().clear();
+		s.getTransaction().commit();
+		s.close();
+
+		// the roots are inserted by one batch, then the nodes referencing them by another
+		assertEquals( 4, factory.getStatistics().getEntityInsertCount() );
+		assertEquals( 2, factory.getStatistics().getPrepareStatementCount() );
+		assertLoaded( new MyNode[] { root1, child1, root2, child2 } );
+	}
+
+	private void assertLoaded(MyNode[] nodes) {
+		Session s = factory.openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < nodes.length; i++ ) {
+			assertNotNull( nodes[i].getId() );
+			MyNode loaded = ( MyNode ) s.get( MyNode.class, nodes[i].getId() );
+			assertEquals( nodes[i].getName(), loaded.getName() );
+			assertEquals( idOf( nodes[i].getParent() ), idOf( loaded.getParent() ) );
+			assertEquals(
+					idOf( nodes[i].getLink().getTarget() ),
+					loaded.getLink() == null ? null : idOf( loaded.getLink().getTarget() )
+			);
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	private static Long idOf(MyNode node) {
+		return node == null ? null : node.getId();
+	}
+
+	public static class BatchedGeneratedKeysDialect extends H2Dialect {
+		public boolean supportsBatchedGeneratedKeys() {
+			return true;
+		}
+	}
+
+	/**
+	 * Emulates a driver returning the generated keys of batches: the rows added to a batch
+	 * of a statement returning generated keys are inserted one by one, keeping their keys.
+	 */
+	public static class BatchedGeneratedKeysConnectionProvider extends DriverManagerConnectionProvider {
+		public Connection getConnection() throws SQLException {
+			return ( Connection ) proxy( Connection.class, new ConnectionHandler( super.getConnection() ) );
+		}
+
+		public void closeConnection(Connection conn) throws SQLException {
+			super.closeConnection( ( ( ConnectionHandler ) Proxy.getInvocationHandler( conn ) ).connection );
+		}
+	}
+
+	private static class ConnectionHandler implements InvocationHandler {
+		private final Connection connection;
+
+		private ConnectionHandler(Connection connection) {
+			this.connection = connection;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Object result = delegate( connection, method, args );
+			if ( "prepareStatement".equals( method.getName() ) && args.length == 2
+					&& new Integer( Statement.RETURN_GENERATED_KEYS ).equals( args[1] ) ) {
+				return proxy( PreparedStatement.class, new StatementHandler( ( PreparedStatement ) result ) );
+			}
+			return result;
+		}
+	}
+
+	private static class StatementHandler implements InvocationHandler {
+		private final PreparedStatement statement;
+		private List keys;
+
+		private StatementHandler(PreparedStatement statement) {
+			this.statement = statement;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ( "addBatch".equals( method.getName() ) && args == null ) {
+				statement.executeUpdate();
+				ResultSet rs = statement.getGeneratedKeys();
+				try {
+					assertTrue( rs.next() );
+					if ( keys == null ) {
+						keys = new ArrayList();
+					}
+					keys.add( new Long( rs.getLong( 1 ) ) );
+				}
+				finally {
+					rs.close();
+				}
+				return null;
+			}
+			if ( "executeBatch".equals( method.getName() ) ) {
+				int[] rowCounts = new int[ keys == null ? 0 : keys.size() ];
+				Arrays.fill( rowCounts, 1 );
+				return rowCounts;
+			}
+			if ( "getGeneratedKeys".equals( method.getName() ) && keys != null ) {
+				ResultSet rs = ( ResultSet ) proxy( ResultSet.class, new KeysHandler( keys ) );
+				keys = null;
+				return rs;
+			}
+			return delegate( statement, method, args );
+		}
+	}
+
+	private static class KeysHandler implements InvocationHandler {
+		private final List keys;
+		private int position = -1;
+
+		private KeysHandler(List keys) {
+			this.keys = keys;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ( "next".equals( method.getName() ) ) {
+				return Boolean.valueOf( ++position < keys.size() );
+			}
+			if ( "getLong".equals( method.getName() ) && new Integer( 1 ).equals( args[0] ) ) {
+				return keys.get( position );
+			}
+			if ( "close".equals( method.getName() ) ) {
+				return null;
+			}
+			throw new UnsupportedOperationException( method.getName() );
+		}
+	}
+
+	private static Object proxy(Class type, InvocationHandler handler) {
+		return Proxy.newProxyInstance( BatchedIdentityInsertTest.class.getClassLoader(), new Class[] { type }, handler );
+	}
+
+	private static Object delegate(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke( target, args );
+		}
+		catch ( InvocationTargetException e ) {
+			throw e.getTargetException();
+		}
+	}
+}
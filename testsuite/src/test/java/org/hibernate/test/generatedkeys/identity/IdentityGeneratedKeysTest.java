@@ -1,5 +1,8 @@
 package org.hibernate.test.generatedkeys.identity;
 
+import java.util.Iterator;
+import java.util.List;
+
 import junit.framework.Test;
 
 import org.hibernate.Session;
@@ -20,6 +23,9 @@ public class IdentityGeneratedKeysTest extends DatabaseSpecificFunctionalTestCas
 	public void configure(Configuration cfg) {
 		super.configure( cfg );
 		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+		cfg.setProperty( Environment.STATEMENT_BATCH_SIZE, "10" );
+		cfg.setProperty( Environment.ORDER_INSERTS, "true" );
+		cfg.setProperty( Environment.BATCH_IDENTITY_INSERTS, "true" );
 	}
 
 	public String[] getMappings() {
@@ -46,6 +52,44 @@ public class IdentityGeneratedKeysTest extends DatabaseSpecificFunctionalTestCas
 		s.close();
 	}
 
+	public void testPersistedIdentityInsertsBatchedOnFlush() {
+		if ( !getDialect().supportsBatchedGeneratedKeys() ) {
+			reportSkip( "generated keys not returned from batches", "batched identity inserts" );
+			return;
+		}
+		Session s = openSession();
+		s.beginTransaction();
+		MyEntity[] entities = new MyEntity[3];
+		for ( int i = 0; i < entities.length; i++ ) {
+			entities[i] = new MyEntity( "test-batch-" + i );
+			MyChild child = new MyChild( "test-batch-child-" + i );
+			entities[i].getInverseChildren().add( child );
+			child.setInverseParent( entities[i] );
+			s.persist( entities[i] );
+		}
+		assertNull( "persist on identity column not delayed", entities[0].getId() );
+		sfi().getStatistics().clear();
+		s.getTransaction().commit();
+		s.close();
+		assertEquals( 6, sfi().getStatistics().getEntityInsertCount() );
+		// one batch for the entities, then one for the children
+		assertEquals( 2, sfi().getStatistics().getPrepareStatementCount() );
+
+		s = openSession();
+		s.beginTransaction();
+		List children = s.createQuery( "from MyChild" ).list();
+		assertEquals( entities.length, children.size() );
+		for ( Iterator itr = children.iterator(); itr.hasNext(); ) {
+			MyChild child = ( MyChild ) itr.next();
+			int i = Integer.parseInt( child.getName().substring( "test-batch-child-".length() ) );
+			assertEquals( entities[i].getId(), child.getInverseParent().getId() );
+		}
+		s.createQuery( "delete MyChild" ).executeUpdate();
+		s.createQuery( "delete MyEntity" ).executeUpdate();
+		s.getTransaction().commit();
+		s.close();
+	}
+
 	public void testPersistOutsideTransaction() {
 		Session s = openSession();
 
@@ -0,0 +1,25 @@
+package org.hibernate.test.generatedkeys.identity;
+
+/**
+ * @author agent
+ */
+public class MyLink {
+	private String label;
+	private MyNode target;
+
+	public String getLabel() {
+		return label;
+	}
+
+	public void setLabel(String label) {
+		this.label = label;
+	}
+
+	public MyNode getTarget() {
+		return target;
+	}
+
+	public void setTarget(MyNode target) {
+		this.target = target;
+	}
+}
@@ -0,0 +1,51 @@
+package org.hibernate.test.generatedkeys.identity;
+
+/**
+ * @author agent
+ */
+public class MyNode {
+	private Long id;
+	private String name;
+	private MyNode parent;
+	private MyLink link = new MyLink();
+
+	public MyNode() {
+	}
+
+	public MyNode(String name, MyNode parent) {
+		this.name = name;
+		this.parent = parent;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public MyNode getParent() {
+		return parent;
+	}
+
+	public void setParent(MyNode parent) {
+		this.parent = parent;
+	}
+
+	public MyLink getLink() {
+		return link;
+	}
+
+	public void setLink(MyLink link) {
+		this.link = link;
+	}
+}
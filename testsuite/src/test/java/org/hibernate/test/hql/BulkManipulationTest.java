@@ -1010,6 +1010,40 @@ public class BulkManipulationTest extends FunctionalTestCase {
 		data.cleanup();
 	}
 
+	public void testJoinedSubclassOperationsOnManyRows() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		for ( int i = 0; i < 150; i++ ) {
+			Mammal mammal = new Mammal();
+			mammal.setBodyWeight( i );
+			mammal.setDescription( "mammal " + i );
+			s.save( mammal );
+		}
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+
+		// few enough rows to list their ids in the per-table statements
+		int count = s.createQuery( "update Mammal set description = 'few', pregnant = true where bodyWeight < 10" ).executeUpdate();
+		assertEquals( "Incorrect update count on joined subclass", 10, count );
+		count = s.createQuery( "delete Mammal where pregnant = true" ).executeUpdate();
+		assertEquals( "Incorrect deletion count on joined subclass", 10, count );
+
+		// too many rows, saved off into the temporary id table
+		count = s.createQuery( "update Mammal set description = 'many', pregnant = true" ).executeUpdate();
+		assertEquals( "Incorrect update count on joined subclass", 140, count );
+		assertEquals( new Long( 140 ), s.createQuery( "select count(*) from Mammal where description = 'many'" ).uniqueResult() );
+		count = s.createQuery( "delete Mammal" ).executeUpdate();
+		assertEquals( "Incorrect deletion count on joined subclass", 140, count );
+
+		assertEquals( new Long( 0 ), s.createQuery( "select count(*) from Animal" ).uniqueResult() );
+
+		t.commit();
+		s.close();
+	}
+
 	public void testDeleteOnMappedJoin() {
 		TestData data = new TestData();
 		data.prepare();
@@ -0,0 +1,156 @@
+package org.hibernate.test.hql;
+
+import junit.framework.Test;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.testing.junit.functional.DatabaseSpecificFunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests multi-table bulk UPDATE/DELETE statements performed as a single statement using
+ * data-modifying common table expressions.  Only run against dialects
+ * {@link Dialect#supportsMutatingCommonTableExpressions() supporting} them, such as
+ * {@link org.hibernate.dialect.PostgreSQL91Dialect}.
+ *
+ * @author agent
+ */
+public class CommonTableExpressionBulkTest extends DatabaseSpecificFunctionalTestCase {
+	public CommonTableExpressionBulkTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] {
+				"hql/Animal.hbm.xml",
+				"hql/Vehicle.hbm.xml"
+		};
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	public String getCacheConcurrencyStrategy() {
+		// without cached state there is nothing to evict, so no ids need to be selected up front
+		return null;
+	}
+
+	public boolean appliesTo(Dialect dialect) {
+		return dialect.supportsMutatingCommonTableExpressions();
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( CommonTableExpressionBulkTest.class );
+	}
+
+	public void testJoinedSubclassUpdate() {
+		createMammals( 10 );
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		getSessions().getStatistics().clear();
+		int count = s.createQuery( "update Mammal set description = 'heavy', pregnant = true where bodyWeight >= 5" )
+				.executeUpdate();
+		assertEquals( "incorrect update count against joined-subclass hierarchy", 5, count );
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		assertEquals(
+				new Long( 5 ),
+				s.createQuery( "select count(*) from Mammal where description = 'heavy' and pregnant = true" ).uniqueResult()
+		);
+		assertEquals( new Long( 1 ), s.createQuery( "select count(*) from Animal where description = 'animal'" ).uniqueResult() );
+		t.commit();
+		s.close();
+
+		cleanup();
+	}
+
+	public void testJoinedSubclassDelete() {
+		createMammals( 10 );
+
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		getSessions().getStatistics().clear();
+		int count = s.createQuery( "delete Mammal where bodyWeight >= 5" ).executeUpdate();
+		assertEquals( "incorrect deletion count on joined subclass", 5, count );
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		// both the subclass and the superclass rows are gone
+		assertEquals( new Long( 5 ), s.createQuery( "select count(*) from Mammal" ).uniqueResult() );
+		assertEquals( new Long( 6 ), s.createQuery( "select count(*) from Animal" ).uniqueResult() );
+		t.commit();
+		s.close();
+
+		cleanup();
+	}
+
+	public void testUnionSubclassUpdateAndDelete() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Car car = new Car();
+		car.setVin( "123c" );
+		car.setOwner( "Kirsten" );
+		s.save( car );
+		Truck truck = new Truck();
+		truck.setVin( "123t" );
+		truck.setOwner( "Steve" );
+		s.save( truck );
+		SUV suv = new SUV();
+		suv.setVin( "123s" );
+		suv.setOwner( "Joe" );
+		s.save( suv );
+		Pickup pickup = new Pickup();
+		pickup.setVin( "123p" );
+		pickup.setOwner( "Cecelia" );
+		s.save( pickup );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		getSessions().getStatistics().clear();
+		int count = s.createQuery( "update Vehicle set owner = 'Steve' where owner <> 'Steve'" ).executeUpdate();
+		assertEquals( "incorrect update count against union-subclass hierarchy", 3, count );
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		assertEquals( new Long( 4 ), s.createQuery( "select count(*) from Vehicle where owner = 'Steve'" ).uniqueResult() );
+
+		getSessions().getStatistics().clear();
+		count = s.createQuery( "delete Truck" ).executeUpdate();
+		assertEquals( "incorrect deletion count on union subclass", 3, count );
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		assertEquals( new Long( 1 ), s.createQuery( "select count(*) from Vehicle" ).uniqueResult() );
+
+		s.createQuery( "delete Vehicle" ).executeUpdate();
+		t.commit();
+		s.close();
+	}
+
+	private void createMammals(int count) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		for ( int i = 0; i < count; i++ ) {
+			Mammal mammal = new Mammal();
+			mammal.setBodyWeight( i );
+			mammal.setDescription( "mammal " + i );
+			s.save( mammal );
+		}
+		Animal animal = new Animal();
+		animal.setBodyWeight( 50 );
+		animal.setDescription( "animal" );
+		s.save( animal );
+		t.commit();
+		s.close();
+	}
+
+	private void cleanup() {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		s.createQuery( "delete Mammal" ).executeUpdate();
+		s.createQuery( "delete Animal" ).executeUpdate();
+		t.commit();
+		s.close();
+	}
+}
@@ -0,0 +1,132 @@
+package org.hibernate.test.hql;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.PostgreSQL91Dialect;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.hql.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.ast.QueryTranslatorImpl;
+import org.hibernate.param.NamedParameterSpecification;
+import org.hibernate.testing.junit.UnitTestCase;
+
+/**
+ * Tests the single statements, using common table expressions, which multi-table bulk
+ * operations are translated to for {@link PostgreSQL91Dialect}.  Nothing is executed.
+ *
+ * @author agent
+ */
+public class CommonTableExpressionTest extends UnitTestCase {
+	private static final String ID_SELECT = "with HT_Human (mammal) as (select human0_.mammal as id__ from Human human0_ "
+			+ "inner join Mammal human0_1_ on human0_.mammal=human0_1_.animal "
+			+ "inner join Animal human0_2_ on human0_.mammal=human0_2_.id where description=?)";
+
+	private SessionFactoryImplementor factory;
+
+	public CommonTableExpressionTest(String name) {
+		super( name );
+	}
+
+	public static Test suite() {
+		return new TestSuite( CommonTableExpressionTest.class );
+	}
+
+	protected void tearDown() throws Exception {
+		if ( factory != null ) {
+			factory.close();
+		}
+		super.tearDown();
+	}
+
+	private void buildSessionFactory(boolean cached) {
+		Configuration cfg = new Configuration()
+				.addResource( "org/hibernate/test/hql/Animal.hbm.xml" )
+				.setProperty( Environment.DIALECT, PostgreSQL91Dialect.class.getName() );
+		if ( cached ) {
+			cfg.setCacheConcurrencyStrategy( Animal.class.getName(), "read-write" );
+		}
+		factory = ( SessionFactoryImplementor ) cfg.buildSessionFactory();
+	}
+
+	public void testJoinedSubclassUpdate() throws Exception {
+		buildSessionFactory( false );
+		QueryTranslatorImpl translator = translate(
+				"update Human set nickName = :nickName, description = :newDescription where description = :description"
+		);
+		assertEquals(
+				ID_SELECT
+						+ ", HT_Human_0 as (update Human set nickName=? where (mammal) IN (select mammal from HT_Human))"
+						+ ", HT_Human_2 as (update Animal set description=? where (id) IN (select mammal from HT_Human))"
+						+ " select count(*) from HT_Human",
+				getSql( translator )
+		);
+		// the restriction is bound first, then the assignments in table order
+		assertEquals(
+				new String[] { "description", "nickName", "newDescription" },
+				getParameterNames( translator )
+		);
+	}
+
+	public void testJoinedSubclassDelete() throws Exception {
+		buildSessionFactory( false );
+		QueryTranslatorImpl translator = translate( "delete Human where description = :description" );
+		assertEquals(
+				ID_SELECT
+						+ ", HT_Human_0 as (delete from Human where (mammal) IN (select mammal from HT_Human))"
+						+ ", HT_Human_1 as (delete from Mammal where (animal) IN (select mammal from HT_Human))"
+						+ ", HT_Human_2 as (delete from Animal where (id) IN (select mammal from HT_Human))"
+						+ " select count(*) from HT_Human",
+				getSql( translator )
+		);
+	}
+
+	public void testCachedJoinedSubclassDeleteReturnsIds() throws Exception {
+		buildSessionFactory( true );
+		QueryTranslatorImpl translator = translate( "delete Human where description = :description" );
+		String sql = getSql( translator );
+		// the deleted ids are returned for cleaning up their cached state
+		assertTrue( sql, sql.startsWith( ID_SELECT ) );
+		assertTrue( sql, sql.endsWith( " select mammal as id__ from HT_Human" ) );
+	}
+
+	private static String getSql(QueryTranslatorImpl translator) {
+		List sql = translator.collectSqlStrings();
+		assertEquals( 1, sql.size() );
+		// the generated aliases depend on the order of translation
+		return ( ( String ) sql.get( 0 ) ).replaceAll( " as id[0-9]+__", " as id__" );
+	}
+
+	private static void assertEquals(String[] expected, String[] actual) {
+		assertEquals( Arrays.asList( expected ), Arrays.asList( actual ) );
+	}
+
+	private QueryTranslatorImpl translate(String hql) {
+		QueryTranslatorImpl translator = ( QueryTranslatorImpl ) new ASTQueryTranslatorFactory()
+				.createQueryTranslator( hql, hql, Collections.EMPTY_MAP, factory );
+		translator.compile( Collections.EMPTY_MAP, false );
+		return translator;
+	}
+
+	private static String[] getParameterNames(QueryTranslatorImpl translator) throws Exception {
+		Object executor = field( translator, "statementExecutor" );
+		List parameters = ( List ) field( executor, "commonTableExpressionParameters" );
+		String[] names = new String[ parameters.size() ];
+		for ( int i = 0; i < names.length; i++ ) {
+			names[i] = ( ( NamedParameterSpecification ) parameters.get( i ) ).getName();
+		}
+		return names;
+	}
+
+	private static Object field(Object owner, String name) throws Exception {
+		Field field = owner.getClass().getDeclaredField( name );
+		field.setAccessible( true );
+		return field.get( owner );
+	}
+}
@@ -0,0 +1,95 @@
+package org.hibernate.test.hql;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests padding of HQL parameter lists to the next power of two.
+ *
+ * @author agent
+ */
+public class ParameterListPaddingTest extends FunctionalTestCase {
+
+	public ParameterListPaddingTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "hql/SimpleEntityWithAssociation.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.IN_CLAUSE_PARAMETER_PADDING, "true" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( ParameterListPaddingTest.class );
+	}
+
+	public void testListSizesSharePaddedPlans() {
+		Session s = openSession();
+		s.beginTransaction();
+		List ids = new ArrayList();
+		for ( int i = 0; i < 20; i++ ) {
+			ids.add( s.save( new SimpleEntityWithAssociation( "entity" + i ) ) );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		// sizes at and around each power of two up to 16
+		int[] sizes = new int[] { 1, 2, 3, 4, 5, 7, 8, 9, 15, 16, 17 };
+		sfi().getStatistics().clear();
+		s = openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < sizes.length; i++ ) {
+			List expected = ids.subList( 0, sizes[i] );
+			List results = s.createQuery( "select e.id from SimpleEntityWithAssociation e where e.id in (:ids)" )
+					.setParameterList( "ids", expected )
+					.list();
+			assertEquals( "list of " + sizes[i], new HashSet( expected ), new HashSet( results ) );
+			assertEquals( "list of " + sizes[i], sizes[i], results.size() );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		// the lists expand to 1, 2, 4, 8, 16 and 32 parameters
+		String[] queries = sfi().getStatistics().getQueries();
+		assertEquals( 6, queries.length );
+		Set parameterCounts = new HashSet();
+		for ( int i = 0; i < queries.length; i++ ) {
+			parameterCounts.add( new Integer( countParameters( queries[i] ) ) );
+		}
+		for ( int count = 1; count <= 32; count *= 2 ) {
+			assertTrue( "no plan with " + count + " parameters", parameterCounts.contains( new Integer( count ) ) );
+		}
+
+		s = openSession();
+		s.beginTransaction();
+		for ( Iterator itr = s.createQuery( "from SimpleEntityWithAssociation" ).list().iterator(); itr.hasNext(); ) {
+			s.delete( itr.next() );
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	private static int countParameters(String query) {
+		int count = 0;
+		for ( int i = query.indexOf( ':' ); i >= 0; i = query.indexOf( ':', i + 1 ) ) {
+			count++;
+		}
+		return count;
+	}
+}
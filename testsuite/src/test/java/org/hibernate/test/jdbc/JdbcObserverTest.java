@@ -0,0 +1,154 @@
+package org.hibernate.test.jdbc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.jdbc.JdbcObserver;
+import org.hibernate.test.batch.DataPoint;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests that the {@link JdbcObserver} named in {@link Environment#JDBC_OBSERVER} is told about
+ * the statements a session prepares, executes and batches, the result sets it fetches and its
+ * closing.
+ *
+ * @author agent
+ */
+public class JdbcObserverTest extends FunctionalTestCase {
+
+	public JdbcObserverTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "batch/DataPoint.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.JDBC_OBSERVER, RecordingObserver.class.getName() );
+		cfg.setProperty( Environment.STATEMENT_BATCH_SIZE, "10" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( JdbcObserverTest.class );
+	}
+
+	public void testSessionStatementsObserved() {
+		RecordingObserver.instances.clear();
+		Session s = openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < 3; i++ ) {
+			DataPoint dp = new DataPoint();
+			dp.setX( new BigDecimal( i ) );
+			dp.setY( new BigDecimal( i * 2 ) );
+			s.save( dp );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		assertEquals( 1, RecordingObserver.instances.size() );
+		RecordingObserver observer = ( RecordingObserver ) RecordingObserver.instances.get( 0 );
+		assertTrue( observer.closed );
+		String insert = observer.find( "prepared", "insert into DataPoint" );
+		assertNotNull( observer.events.toString(), insert );
+		assertTrue( observer.events.contains( "batchExecuted|" + sql( insert ) + "|3" ) );
+		assertEquals( 3, observer.count( "batchAdded|" + sql( insert ) ) );
+
+		RecordingObserver.instances.clear();
+		s = openSession();
+		s.beginTransaction();
+		List points = s.createQuery( "from DataPoint" ).list();
+		assertEquals( 3, points.size() );
+		assertEquals( 1, RecordingObserver.instances.size() );
+		observer = ( RecordingObserver ) RecordingObserver.instances.get( 0 );
+		String select = observer.find( "prepared", "from DataPoint" );
+		assertNotNull( observer.events.toString(), select );
+		assertTrue( observer.events.contains( "executed|" + sql( select ) + "|-1" ) );
+		assertTrue( observer.events.contains( "fetched|" + sql( select ) + "|3" ) );
+		assertFalse( observer.closed );
+
+		s.createQuery( "delete DataPoint" ).executeUpdate();
+		String delete = observer.find( "executed", "delete from DataPoint" );
+		assertNotNull( observer.events.toString(), delete );
+		assertTrue( delete, delete.endsWith( "|3" ) );
+		s.getTransaction().commit();
+		s.close();
+		assertTrue( observer.closed );
+		assertTrue( observer.totalTime > 0 );
+	}
+
+	private static String sql(String event) {
+		return event.split( "\\|" )[1];
+	}
+
+	public static class RecordingObserver implements JdbcObserver {
+		static final List instances = new ArrayList();
+
+		final List events = new ArrayList();
+		long totalTime;
+		boolean closed;
+
+		public RecordingObserver() {
+			instances.add( this );
+		}
+
+		public void statementPrepared(String sql, long time) {
+			record( "prepared|" + sql, time );
+		}
+
+		public void statementExecuted(String sql, int rowCount, long time) {
+			record( "executed|" + sql + "|" + rowCount, time );
+		}
+
+		public void resultSetFetched(String sql, int rowCount, long time) {
+			record( "fetched|" + sql + "|" + rowCount, time );
+		}
+
+		public void batchAdded(String sql) {
+			record( "batchAdded|" + sql, 0 );
+		}
+
+		public void batchExecuted(String sql, int batchSize, long time) {
+			record( "batchExecuted|" + sql + "|" + batchSize, time );
+		}
+
+		public void sessionClosed() {
+			closed = true;
+		}
+
+		private void record(String event, long time) {
+			assertFalse( "notified after the session was closed", closed );
+			assertTrue( time >= 0 );
+			events.add( event );
+			totalTime += time;
+		}
+
+		String find(String type, String sqlFragment) {
+			for ( int i = 0; i < events.size(); i++ ) {
+				String event = ( String ) events.get( i );
+				if ( event.startsWith( type + "|" ) && event.indexOf( sqlFragment ) >= 0 ) {
+					return event;
+				}
+			}
+			return null;
+		}
+
+		int count(String event) {
+			int count = 0;
+			for ( int i = 0; i < events.size(); i++ ) {
+				if ( event.equals( events.get( i ) ) ) {
+					count++;
+				}
+			}
+			return count;
+		}
+	}
+}
@@ -499,6 +499,55 @@ public class MergeTest extends AbstractOperationTestCase {
 
 	}
 
+	public void testMergeDetachedTreeLoadsTogether() {
+
+		Session s = openSession();
+		Transaction tx = s.beginTransaction();
+		NumberedNode root = new NumberedNode( "root" );
+		for ( int i = 0; i < 10; i++ ) {
+			NumberedNode child = new NumberedNode( "child" + i );
+			root.addChild( child );
+			for ( int j = 0; j < 3; j++ ) {
+				child.addChild( new NumberedNode( "grandchild" + i + "." + j ) );
+			}
+		}
+		s.persist( root );
+		tx.commit();
+		s.close();
+
+		Iterator children = root.getChildren().iterator();
+		while ( children.hasNext() ) {
+			Iterator grandchildren = ( ( NumberedNode ) children.next() ).getChildren().iterator();
+			while ( grandchildren.hasNext() ) {
+				( ( NumberedNode ) grandchildren.next() ).setDescription( "updated" );
+			}
+		}
+
+		clearCounts();
+		s = openSession();
+		tx = s.beginTransaction();
+		root = ( NumberedNode ) s.merge( root );
+		// the nodes, and then their collections, were loaded using one select each
+		assertEquals( 2, getSessions().getStatistics().getPrepareStatementCount() );
+		assertEquals( 10, root.getChildren().size() );
+		tx.commit();
+		s.close();
+
+		assertInsertCount( 0 );
+		assertUpdateCount( 30 );
+
+		s = openSession();
+		tx = s.beginTransaction();
+		assertEquals(
+				new Long( 30 ),
+				s.createQuery( "select count(*) from NumberedNode where description = 'updated'" ).uniqueResult()
+		);
+		tx.commit();
+		s.close();
+
+		cleanup();
+	}
+
 	public void testMergeTree() {
 
 		clearCounts();
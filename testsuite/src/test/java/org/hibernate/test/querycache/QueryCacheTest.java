@@ -16,6 +16,7 @@ import org.hibernate.testing.junit.functional.FunctionalTestCase;
 import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
 import org.hibernate.stat.EntityStatistics;
 import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
 import org.hibernate.transform.Transformers;
 
 /**
@@ -87,6 +88,128 @@ public class QueryCacheTest extends FunctionalTestCase {
 		s.close();
 	}
 
+	public void testCachedEntityResultsLoadedTogether() throws Exception {
+		getSessions().evictQueries();
+		Session s = openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < 30; i++ ) {
+			Item a = new Item();
+			a.setName( "a" + i );
+			a.setDescription( "a" + i );
+			s.persist( a );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		String queryString = "from Item i order by i.name";
+		Thread.sleep( 200 );
+		s = openSession();
+		s.beginTransaction();
+		s.createQuery( queryString ).setCacheable( true ).list();
+		s.getTransaction().commit();
+		s.close();
+
+		getSessions().evict( Item.class );
+		getSessions().getStatistics().clear();
+		s = openSession();
+		s.beginTransaction();
+		List result = s.createQuery( queryString ).setCacheable( true ).list();
+		assertEquals( 30, result.size() );
+		assertEquals( 1, getSessions().getStatistics().getQueryCacheHitCount() );
+		// all 30 items are resolved through a single in-list select
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		for ( int i = 0; i < result.size(); i++ ) {
+			assertTrue( Hibernate.isInitialized( result.get( i ) ) );
+			s.delete( result.get( i ) );
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	public void testCachedEntityResultsLoadedInChunks() throws Exception {
+		getSessions().evictQueries();
+		Session s = openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < 120; i++ ) {
+			Item a = new Item();
+			a.setName( "a" + i );
+			a.setDescription( "a" + i );
+			s.persist( a );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		String queryString = "from Item i order by i.name";
+		Thread.sleep( 200 );
+		s = openSession();
+		s.beginTransaction();
+		s.createQuery( queryString ).setCacheable( true ).list();
+		s.getTransaction().commit();
+		s.close();
+
+		getSessions().evict( Item.class );
+		getSessions().getStatistics().clear();
+		s = openSession();
+		s.beginTransaction();
+		List result = s.createQuery( queryString ).setCacheable( true ).list();
+		assertEquals( 120, result.size() );
+		assertEquals( 1, getSessions().getStatistics().getQueryCacheHitCount() );
+		// 120 items are resolved through in-list selects of 50, 50 and 20 ids
+		assertEquals( 3, getSessions().getStatistics().getPrepareStatementCount() );
+		assertEquals( 3, getSessions().getStatistics().getEntityFetchCount() );
+		for ( int i = 0; i < result.size(); i++ ) {
+			assertTrue( Hibernate.isInitialized( result.get( i ) ) );
+			s.delete( result.get( i ) );
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	public void testCachedEntityResultsReadFromSecondLevelCacheOnce() throws Exception {
+		getSessions().evictQueries();
+		Session s = openSession();
+		s.beginTransaction();
+		for ( int i = 0; i < 30; i++ ) {
+			Item a = new Item();
+			a.setName( "a" + i );
+			a.setDescription( "a" + i );
+			s.persist( a );
+		}
+		s.getTransaction().commit();
+		s.close();
+
+		String queryString = "from Item i order by i.name";
+		Thread.sleep( 200 );
+		s = openSession();
+		s.beginTransaction();
+		List result = s.createQuery( queryString ).setCacheable( true ).list();
+		s.getTransaction().commit();
+		s.close();
+
+		// the query put all 30 items in the second-level cache; evict 10 of them
+		for ( int i = 0; i < 10; i++ ) {
+			getSessions().evict( Item.class, new Long( ( ( Item ) result.get( i ) ).getId() ) );
+		}
+		Statistics stats = getSessions().getStatistics();
+		stats.clear();
+		s = openSession();
+		s.beginTransaction();
+		result = s.createQuery( queryString ).setCacheable( true ).list();
+		assertEquals( 30, result.size() );
+		assertEquals( 1, stats.getQueryCacheHitCount() );
+		// 20 items are read from the second-level cache once each, the 10 others
+		// are resolved through a single in-list select
+		assertEquals( 20, stats.getSecondLevelCacheHitCount() );
+		assertEquals( 10, stats.getSecondLevelCacheMissCount() );
+		assertEquals( 1, stats.getPrepareStatementCount() );
+		for ( int i = 0; i < result.size(); i++ ) {
+			assertTrue( Hibernate.isInitialized( result.get( i ) ) );
+			s.delete( result.get( i ) );
+		}
+		s.getTransaction().commit();
+		s.close();
+	}
+
 	//https://jira.jboss.org/jira/browse/JBPAPP-4224
 	public void testHitCacheInSameSession() {
 		getSessions().evictQueries();
@@ -0,0 +1,87 @@
+package org.hibernate.test.queryplan;
+
+import java.lang.reflect.Field;
+
+import junit.framework.Test;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.engine.query.QueryPlanCache;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+import org.hibernate.util.SoftLimitMRUCache;
+
+/**
+ * Tests that with {@link Environment#QUERY_PLAN_CACHE_NORMALIZE_LITERALS} queries differing only in numeric
+ * literals share a query plan, and that every other query is cached once, under its original form.
+ *
+ * @author agent
+ */
+public class LiteralNormalizationTest extends FunctionalTestCase {
+	public LiteralNormalizationTest(String string) {
+		super( string );
+	}
+
+	public String[] getMappings() {
+		return new String[] {
+				"queryplan/filter-defs.hbm.xml",
+				"queryplan/Joined.hbm.xml"
+		};
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.QUERY_PLAN_CACHE_NORMALIZE_LITERALS, "true" );
+		cfg.setProperty( Environment.USE_SQL_COMMENTS, "true" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( LiteralNormalizationTest.class );
+	}
+
+	public void testNumericLiteralsShareQueryPlan() throws Exception {
+		Session s = openSession();
+		s.beginTransaction();
+		Person person = new Person( "*/ name", 'M' );
+		s.save( person );
+		s.flush();
+
+		int plans = cachedPlanCount();
+		assertEquals( 1, s.createQuery( "from Person p where p.id = " + person.getId() ).list().size() );
+		assertEquals( plans + 1, cachedPlanCount() );
+		assertEquals( 0, s.createQuery( "from Person p where p.id = " + ( person.getId().longValue() + 1 ) ).list().size() );
+		assertEquals( plans + 1, cachedPlanCount() );
+
+		// string literals are kept, and mustn't end up in the SQL comment either
+		assertEquals( 1, s.createQuery( "from Person p where p.id = 0 or p.name = '*/ name'" ).list().size() );
+		assertEquals( 0, s.createQuery( "from Person p where p.id = 0 or p.name = 'other'" ).list().size() );
+		assertEquals( plans + 3, cachedPlanCount() );
+
+		s.delete( person );
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	public void testUnbindableLiteralCachedOnce() throws Exception {
+		Session s = openSession();
+		s.beginTransaction();
+
+		// the numeric literal is compared to a string property, so only the original query is cached
+		int plans = cachedPlanCount();
+		s.createQuery( "from Person p where p.name = 1" ).list();
+		assertEquals( plans + 1, cachedPlanCount() );
+		s.createQuery( "from Person p where p.name = 2" ).list();
+		assertEquals( plans + 2, cachedPlanCount() );
+
+		s.getTransaction().commit();
+		s.close();
+	}
+
+	private int cachedPlanCount() throws Exception {
+		Field field = QueryPlanCache.class.getDeclaredField( "planCache" );
+		field.setAccessible( true );
+		SoftLimitMRUCache planCache = ( SoftLimitMRUCache ) field.get( sfi().getQueryPlanCache() );
+		return planCache.size();
+	}
+}
@@ -0,0 +1,87 @@
+package org.hibernate.test.version;
+
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.hibernate.Session;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+
+/**
+ * Tests optimistic lock failures of versioned data updated in a JDBC batch.
+ *
+ * @author agent
+ */
+public class BatchedVersionTest extends FunctionalTestCase {
+	public BatchedVersionTest(String str) {
+		super( str );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "version/PersonThing.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.STATEMENT_BATCH_SIZE, "10" );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( BatchedVersionTest.class );
+	}
+
+	public void testBatchedStaleUpdateNamesEntity() {
+		if ( !sfi().getSettings().isJdbcBatchVersionedData() ) {
+			reportSkip( "versioned data not batched", "batched optimistic lock failure" );
+			return;
+		}
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		Person gavin = new Person( "Gavin" );
+		new Thing( "Passport", gavin );
+		new Thing( "Laptop", gavin );
+		new Thing( "Phone", gavin );
+		s.persist( gavin );
+		t.commit();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		List things = s.createQuery( "from Thing" ).list();
+
+		Session other = openSession();
+		Transaction ot = other.beginTransaction();
+		( ( Thing ) other.get( Thing.class, "Laptop" ) ).setLongDescription( "stolen" );
+		ot.commit();
+		other.close();
+
+		for ( int i = 0; i < things.size(); i++ ) {
+			( ( Thing ) things.get( i ) ).setLongDescription( "insured" );
+		}
+		getSessions().getStatistics().clear();
+		try {
+			s.flush();
+			fail( "expecting opt lock failure" );
+		}
+		catch ( StaleObjectStateException e ) {
+			assertEquals( Thing.class.getName(), e.getEntityName() );
+			assertEquals( "Laptop", e.getIdentifier() );
+		}
+		// the updates were batched
+		assertEquals( 1, getSessions().getStatistics().getPrepareStatementCount() );
+		t.rollback();
+		s.close();
+
+		s = openSession();
+		t = s.beginTransaction();
+		s.delete( s.get( Person.class, "Gavin" ) );
+		t.commit();
+		s.close();
+	}
+}
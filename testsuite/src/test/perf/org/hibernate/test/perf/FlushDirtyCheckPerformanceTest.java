@@ -0,0 +1,105 @@
+package org.hibernate.test.perf;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.classic.Session;
+import org.hibernate.testing.junit.UnitTestCase;
+
+/**
+ * Measures the cost per entity of flushing a session holding many unchanged entities with
+ * numeric and boolean properties, which is dominated by their dirty checking.
+ *
+ * @author agent
+ */
+public class FlushDirtyCheckPerformanceTest extends UnitTestCase {
+
+	private static final int ENTITIES = 1000;
+	private static final int PROPERTIES = 30;
+	private static final int FLUSHES = 200;
+	private static final int ROUNDS = 5;
+	private static final String[] TYPES = new String[] { "int", "long", "boolean" };
+
+	public FlushDirtyCheckPerformanceTest(String name) {
+		super( name );
+	}
+
+	public static Test suite() {
+		return new TestSuite( FlushDirtyCheckPerformanceTest.class );
+	}
+
+	public static void main(String[] args) throws Exception {
+		TestRunner.run( suite() );
+	}
+
+	public void testFlushUnchangedEntities() {
+		Configuration cfg = new Configuration();
+		cfg.addXML( generateMapping() );
+		cfg.setProperty( Environment.DEFAULT_ENTITY_MODE, "dynamic-map" );
+		cfg.setProperty( Environment.HBM2DDL_AUTO, "create-drop" );
+		SessionFactory factory = cfg.buildSessionFactory();
+		try {
+			Session session = factory.openSession();
+			session.beginTransaction();
+			for ( int i = 0; i < ENTITIES; i++ ) {
+				Map entity = new HashMap();
+				for ( int j = 0; j < PROPERTIES; j++ ) {
+					entity.put( "p" + j, value( j, i ) );
+				}
+				session.save( "Flushed", entity );
+			}
+			session.getTransaction().commit();
+			session.close();
+
+			session = factory.openSession();
+			session.beginTransaction();
+			List entities = session.createQuery( "from Flushed" ).list();
+			assertEquals( ENTITIES, entities.size() );
+			for ( int round = 0; round < ROUNDS; round++ ) {
+				long start = System.nanoTime();
+				for ( int i = 0; i < FLUSHES; i++ ) {
+					session.flush();
+				}
+				long perEntity = ( System.nanoTime() - start ) / ( (long) FLUSHES * ENTITIES );
+				System.out.println( "Flushed " + ENTITIES + " unchanged entities: " + perEntity + "ns per entity" );
+			}
+			session.getTransaction().commit();
+			session.close();
+		}
+		finally {
+			factory.close();
+		}
+	}
+
+	private static Object value(int property, int entity) {
+		if ( property % TYPES.length == 0 ) {
+			return new Integer( entity );
+		}
+		else if ( property % TYPES.length == 1 ) {
+			return new Long( entity * 1000L );
+		}
+		return Boolean.valueOf( entity % 2 == 0 );
+	}
+
+	private static String generateMapping() {
+		StringBuffer buffer = new StringBuffer( "<?xml version=\"1.0\"?>\n" )
+				.append( "<!DOCTYPE hibernate-mapping PUBLIC \"-//Hibernate/Hibernate Mapping DTD 3.0//EN\" " )
+				.append( "\"http://www.hibernate.org/dtd/hibernate-mapping-3.0.dtd\">\n" )
+				.append( "<hibernate-mapping>\n" )
+				.append( "<class entity-name=\"Flushed\">" )
+				.append( "<id name=\"id\" type=\"long\"><generator class=\"increment\"/></id>" );
+		for ( int j = 0; j < PROPERTIES; j++ ) {
+			buffer.append( "<property name=\"p" ).append( j ).append( "\" type=\"" )
+					.append( TYPES[j % TYPES.length] ).append( "\"/>" );
+		}
+		return buffer.append( "</class></hibernate-mapping>" ).toString();
+	}
+}
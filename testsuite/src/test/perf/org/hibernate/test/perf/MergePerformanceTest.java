@@ -0,0 +1,103 @@
+package org.hibernate.test.perf;
+
+import java.util.Iterator;
+
+import junit.framework.Test;
+import junit.textui.TestRunner;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.testing.junit.functional.FunctionalTestCase;
+import org.hibernate.testing.junit.functional.FunctionalTestClassTestSuite;
+import org.hibernate.test.ops.NumberedNode;
+
+/**
+ * Merges detached trees of increasing size, each of which has all its leaves
+ * modified and some new leaves added, and reports the time and the number of
+ * statements each merge takes.
+ */
+public class MergePerformanceTest extends FunctionalTestCase {
+
+	public MergePerformanceTest(String name) {
+		super( name );
+	}
+
+	public String[] getMappings() {
+		return new String[] { "ops/Node.hbm.xml" };
+	}
+
+	public void configure(Configuration cfg) {
+		super.configure( cfg );
+		cfg.setProperty( Environment.GENERATE_STATISTICS, "true" );
+	}
+
+	public static Test suite() {
+		return new FunctionalTestClassTestSuite( MergePerformanceTest.class );
+	}
+
+	public static void main(String[] args) throws Exception {
+		TestRunner.run( suite() );
+	}
+
+	public void testMergeDetachedTrees() throws Exception {
+		for ( int n = 100; n <= 20000; n *= 2 ) {
+			NumberedNode root = createTree( n );
+
+			int added = 0;
+			Iterator children = root.getChildren().iterator();
+			while ( children.hasNext() ) {
+				NumberedNode child = ( NumberedNode ) children.next();
+				Iterator grandchildren = child.getChildren().iterator();
+				while ( grandchildren.hasNext() ) {
+					( ( NumberedNode ) grandchildren.next() ).setDescription( "updated" );
+				}
+				child.addChild( new NumberedNode( "new" + added++ ) );
+			}
+
+			getSessions().getStatistics().clear();
+			Session s = openSession();
+			Transaction t = s.beginTransaction();
+			long time = System.currentTimeMillis();
+			s.merge( root );
+			long merge = System.currentTimeMillis() - time;
+			long selects = getSessions().getStatistics().getPrepareStatementCount();
+			t.commit();
+			s.close();
+
+			System.out.println(
+					"Merged " + ( n + added ) + " nodes: " + merge + "ms, "
+							+ selects + " statements before flush"
+			);
+
+			s = openSession();
+			t = s.beginTransaction();
+			s.createQuery( "delete from NumberedNode where name like 'grandchild%' or name like 'new%'" ).executeUpdate();
+			s.createQuery( "delete from NumberedNode where parent is not null" ).executeUpdate();
+			s.createQuery( "delete from NumberedNode" ).executeUpdate();
+			t.commit();
+			s.close();
+		}
+	}
+
+	private NumberedNode createTree(int n) {
+		Session s = openSession();
+		Transaction t = s.beginTransaction();
+		NumberedNode root = new NumberedNode( "root" );
+		NumberedNode child = null;
+		for ( int i = 1; i < n; i++ ) {
+			if ( i % 10 == 1 ) {
+				child = new NumberedNode( "child" + i );
+				root.addChild( child );
+			}
+			else {
+				child.addChild( new NumberedNode( "grandchild" + i ) );
+			}
+		}
+		s.persist( root );
+		t.commit();
+		s.close();
+		return root;
+	}
+}
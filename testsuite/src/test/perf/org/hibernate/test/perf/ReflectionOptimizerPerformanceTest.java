@@ -0,0 +1,188 @@
+package org.hibernate.test.perf;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.hibernate.bytecode.ReflectionOptimizer;
+import org.hibernate.property.BasicPropertyAccessor;
+import org.hibernate.property.DirectPropertyAccessor;
+import org.hibernate.property.Getter;
+import org.hibernate.property.PropertyAccessor;
+import org.hibernate.property.Setter;
+import org.hibernate.testing.junit.UnitTestCase;
+import org.hibernate.tuple.ReflectionOptimizerHelper;
+
+/**
+ * Compares the time taken to hydrate beans (setting all their property values) and to take the
+ * snapshots used for dirty checking (getting all their property values) through reflection and
+ * through the accessors generated by each bytecode provider, for both field and method access.
+ *
+ * @author agent
+ */
+public class ReflectionOptimizerPerformanceTest extends UnitTestCase {
+
+	private static final String[] PROPERTIES = new String[] { "name", "description", "count", "total", "active", "ratio" };
+	private static final Class[] TYPES = new Class[] { String.class, String.class, int.class, long.class, boolean.class, double.class };
+	private static final int ITERATIONS = 2000000;
+	private static final int ROUNDS = 4;
+
+	public static class FieldBean {
+		String name;
+		String description;
+		int count;
+		long total;
+		boolean active;
+		double ratio;
+	}
+
+	public static class MethodBean {
+		private String name;
+		private String description;
+		private int count;
+		private long total;
+		private boolean active;
+		private double ratio;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public void setDescription(String description) {
+			this.description = description;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+
+		public void setTotal(long total) {
+			this.total = total;
+		}
+
+		public boolean isActive() {
+			return active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public double getRatio() {
+			return ratio;
+		}
+
+		public void setRatio(double ratio) {
+			this.ratio = ratio;
+		}
+	}
+
+	public ReflectionOptimizerPerformanceTest(String name) {
+		super( name );
+	}
+
+	public static Test suite() {
+		return new TestSuite( ReflectionOptimizerPerformanceTest.class );
+	}
+
+	public static void main(String[] args) throws Exception {
+		TestRunner.run( suite() );
+	}
+
+	public void testFieldAccess() {
+		compare( FieldBean.class, new DirectPropertyAccessor() );
+	}
+
+	public void testMethodAccess() {
+		compare( MethodBean.class, new BasicPropertyAccessor() );
+	}
+
+	private void compare(Class beanClass, PropertyAccessor propertyAccessor) {
+		Getter[] getters = new Getter[PROPERTIES.length];
+		Setter[] setters = new Setter[PROPERTIES.length];
+		for ( int i = 0; i < PROPERTIES.length; i++ ) {
+			getters[i] = propertyAccessor.getGetter( beanClass, PROPERTIES[i] );
+			setters[i] = propertyAccessor.getSetter( beanClass, PROPERTIES[i] );
+		}
+		String[] getterNames = new String[PROPERTIES.length];
+		String[] setterNames = new String[PROPERTIES.length];
+		int[] reflected = ReflectionOptimizerHelper.resolveAccessorNames(
+				beanClass, getters, setters, getterNames, setterNames
+		);
+		assertEquals( 0, reflected.length );
+
+		ReflectionOptimizer.AccessOptimizer javassist = new org.hibernate.bytecode.javassist.BytecodeProviderImpl()
+				.getReflectionOptimizer( beanClass, getterNames, setterNames, TYPES )
+				.getAccessOptimizer();
+		ReflectionOptimizer.AccessOptimizer cglib = new org.hibernate.bytecode.cglib.BytecodeProviderImpl()
+				.getReflectionOptimizer( beanClass, getterNames, setterNames, TYPES )
+				.getAccessOptimizer();
+		Object[] values = new Object[] { "name", "description", new Integer( 1 ), new Long( 2L ), Boolean.TRUE, new Double( 0.5 ) };
+
+		for ( int round = 0; round < ROUNDS; round++ ) {
+			report( beanClass, "reflection", reflectionTime( beanClass, getters, setters, values ) );
+			report( beanClass, "javassist", optimizerTime( beanClass, javassist, values ) );
+			report( beanClass, "cglib", optimizerTime( beanClass, cglib, values ) );
+		}
+	}
+
+	private static long reflectionTime(Class beanClass, Getter[] getters, Setter[] setters, Object[] values) {
+		Object bean = newInstance( beanClass );
+		Object[] snapshot = new Object[getters.length];
+		long start = System.nanoTime();
+		for ( int i = 0; i < ITERATIONS; i++ ) {
+			for ( int j = 0; j < setters.length; j++ ) {
+				setters[j].set( bean, values[j], null );
+			}
+			for ( int j = 0; j < getters.length; j++ ) {
+				snapshot[j] = getters[j].get( bean );
+			}
+		}
+		assertEquals( values[0], snapshot[0] );
+		return ( System.nanoTime() - start ) / 1000000;
+	}
+
+	private static long optimizerTime(Class beanClass, ReflectionOptimizer.AccessOptimizer optimizer, Object[] values) {
+		Object bean = newInstance( beanClass );
+		Object[] snapshot = null;
+		long start = System.nanoTime();
+		for ( int i = 0; i < ITERATIONS; i++ ) {
+			optimizer.setPropertyValues( bean, values );
+			snapshot = optimizer.getPropertyValues( bean );
+		}
+		assertEquals( values[0], snapshot[0] );
+		return ( System.nanoTime() - start ) / 1000000;
+	}
+
+	private static Object newInstance(Class beanClass) {
+		try {
+			return beanClass.newInstance();
+		}
+		catch ( Exception e ) {
+			throw new RuntimeException( e );
+		}
+	}
+
+	private static void report(Class beanClass, String access, long time) {
+		System.out.println(
+				"Hydrated and snapshotted " + ITERATIONS + " " + beanClass.getName().substring( beanClass.getName().lastIndexOf( '$' ) + 1 )
+						+ " instances through " + access + ": " + time + "ms"
+		);
+	}
+}
@@ -0,0 +1,89 @@
+package org.hibernate.test.perf;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.classic.Session;
+import org.hibernate.testing.junit.UnitTestCase;
+
+/**
+ * Builds a session factory for a generated model of many associated entities,
+ * sequentially and with as many threads as there are processors, and reports
+ * the time each build takes.
+ *
+ * @author agent
+ */
+public class SessionFactoryBuildPerformanceTest extends UnitTestCase {
+
+	private static final int ENTITIES = 600;
+	private static final int PROPERTIES = 20;
+	private static final int ROUNDS = 4;
+
+	public SessionFactoryBuildPerformanceTest(String name) {
+		super( name );
+	}
+
+	public static Test suite() {
+		return new TestSuite( SessionFactoryBuildPerformanceTest.class );
+	}
+
+	public static void main(String[] args) throws Exception {
+		TestRunner.run( suite() );
+	}
+
+	public void testSessionFactoryBuildTime() {
+		String threads = Integer.toString( Runtime.getRuntime().availableProcessors() );
+		for ( int round = 0; round < ROUNDS; round++ ) {
+			report( "1", buildTime( "1" ) );
+			report( threads, buildTime( threads ) );
+		}
+	}
+
+	private void report(String threads, long time) {
+		System.out.println( "Built " + ENTITIES + " entities with " + threads + " threads: " + time + "ms" );
+	}
+
+	private long buildTime(String threads) {
+		Configuration cfg = new Configuration();
+		cfg.addXML( generateMapping() );
+		cfg.setProperty( Environment.DEFAULT_ENTITY_MODE, "dynamic-map" );
+		cfg.setProperty( Environment.MAX_FETCH_DEPTH, "3" );
+		cfg.setProperty( Environment.SESSION_FACTORY_BUILD_THREADS, threads );
+		cfg.buildMappings();
+
+		long start = System.currentTimeMillis();
+		SessionFactory factory = cfg.buildSessionFactory();
+		long time = System.currentTimeMillis() - start;
+
+		// make sure the built persisters are usable
+		Session session = factory.openSession();
+		session.getSessionFactory().getClassMetadata( "E0" );
+		session.close();
+		factory.close();
+		return time;
+	}
+
+	private static String generateMapping() {
+		StringBuffer buffer = new StringBuffer( "<?xml version=\"1.0\"?>\n" )
+				.append( "<!DOCTYPE hibernate-mapping PUBLIC \"-//Hibernate/Hibernate Mapping DTD 3.0//EN\" " )
+				.append( "\"http://www.hibernate.org/dtd/hibernate-mapping-3.0.dtd\">\n" )
+				.append( "<hibernate-mapping>\n" );
+		for ( int i = 0; i < ENTITIES; i++ ) {
+			buffer.append( "<class entity-name=\"E" ).append( i ).append( "\">" )
+					.append( "<id name=\"id\" type=\"long\"><generator class=\"increment\"/></id>" );
+			for ( int j = 0; j < PROPERTIES; j++ ) {
+				buffer.append( "<property name=\"p" ).append( j ).append( "\" type=\"string\"/>" );
+			}
+			buffer.append( "<many-to-one name=\"next\" entity-name=\"E" ).append( ( i + 1 ) % ENTITIES )
+					.append( "\" fetch=\"join\"/>" )
+					.append( "<set name=\"children\" inverse=\"true\"><key column=\"next\"/>" )
+					.append( "<one-to-many entity-name=\"E" ).append( ( i + ENTITIES - 1 ) % ENTITIES )
+					.append( "\"/></set></class>\n" );
+		}
+		return buffer.append( "</hibernate-mapping>" ).toString();
+	}
+}